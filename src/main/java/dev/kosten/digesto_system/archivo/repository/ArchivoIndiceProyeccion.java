@@ -0,0 +1,15 @@
+package dev.kosten.digesto_system.archivo.repository;
+
+/**
+ * Proyección de Spring Data con lo que necesita el índice de contenido
+ * para extraer el texto de un archivo (ver ArchivoRepository.findAllParaIndice).
+ * @author micael
+ */
+public interface ArchivoIndiceProyeccion {
+
+    Integer getIdArchivo();
+
+    Integer getIdDocumento();
+
+    String getUrl();
+}
@@ -3,6 +3,7 @@ package dev.kosten.digesto_system.archivo.repository;
 import dev.kosten.digesto_system.archivo.entity.Archivo;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -20,4 +21,12 @@ public interface ArchivoRepository extends JpaRepository<Archivo, Integer>{
      * @return Una lista de entidades Archivo.
      */
     List<Archivo> findByDocumentoIdDocumento(Integer idDocumento);
+
+    /**
+     * Lee en una sola consulta los archivos a indexar, sin cargar los documentos.
+     * @return Una fila por archivo, ordenadas por ID.
+     */
+    @Query("SELECT a.idArchivo AS idArchivo, a.documento.idDocumento AS idDocumento, a.url AS url "
+         + "FROM Archivo a ORDER BY a.idArchivo")
+    List<ArchivoIndiceProyeccion> findAllParaIndice();
 }
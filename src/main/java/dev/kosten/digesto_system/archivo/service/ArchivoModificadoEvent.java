@@ -0,0 +1,28 @@
+package dev.kosten.digesto_system.archivo.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Evento que publica ArchivoService cuando se sube o se borra un archivo.
+ * El índice de contenido lo escucha después del commit para extraer (o quitar)
+ * el texto del PDF sin demorar la petición.
+ * @author micael
+ */
+@Getter
+@RequiredArgsConstructor
+public class ArchivoModificadoEvent {
+
+    private final Integer idArchivo;
+    private final Integer idDocumento;
+
+    /**
+     * Ruta relativa del archivo dentro de storage.location.
+     */
+    private final String url;
+
+    /**
+     * true si el archivo se borró; false si se acaba de subir.
+     */
+    private final boolean borrado;
+}
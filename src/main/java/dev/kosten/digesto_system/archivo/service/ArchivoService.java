@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -29,6 +30,7 @@ public class ArchivoService {
     private final AlmacenamientoService almacenamientoService;
     private final DocumentoRepository documentoRepo; 
     private final LogService logService;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Obtiene una entidad Archivo por su clave primaria.
@@ -73,7 +75,12 @@ public class ArchivoService {
                     .build();
 
             // Guarda la entidad en la BD y la añade a la lista
-            archivosGuardados.add(archivoRepo.save(nuevoArchivo));
+            Archivo guardado = archivoRepo.save(nuevoArchivo);
+            archivosGuardados.add(guardado);
+
+            // Después del commit se extrae el texto en segundo plano (índice de contenido)
+            eventPublisher.publishEvent(new ArchivoModificadoEvent(
+                    guardado.getIdArchivo(), idDocumento, rutaRelativa, false));
         }
         
         return archivosGuardados; // Devuelve la lista de archivos creados
@@ -105,6 +112,9 @@ public class ArchivoService {
         
         archivoRepo.delete(archivo);
         logService.info("Registro de archivo ID: " + idArchivo + " eliminado de la BD.");
+
+        eventPublisher.publishEvent(new ArchivoModificadoEvent(
+                idArchivo, archivo.getDocumento().getIdDocumento(), archivo.getUrl(), true));
     }
 
     /**
@@ -0,0 +1,289 @@
+package dev.kosten.digesto_system.archivo.service;
+
+import dev.kosten.digesto_system.almacenamiento.AlmacenamientoService;
+import dev.kosten.digesto_system.archivo.repository.ArchivoIndiceProyeccion;
+import dev.kosten.digesto_system.archivo.repository.ArchivoRepository;
+import dev.kosten.digesto_system.documento.indice.ContenidoArchivos;
+import dev.kosten.digesto_system.documento.service.CacheBusquedaService;
+import dev.kosten.digesto_system.log.LogService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.RequiredArgsConstructor;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Extrae en segundo plano el texto de los PDF subidos y lo carga en el
+ * índice de contenido ({@link ContenidoArchivos}).
+ *
+ * La petición que sube el archivo solo deja el ID del archivo en la cola de
+ * pendientes (después del commit), sin esperar y sin que se pierda: la cola
+ * guarda IDs, no PDF, y cada archivo aparece a lo sumo una vez aunque se suba
+ * varias veces antes de extraerse (el último pedido está en 'vigentes').
+ * Un hilo alimentador pasa los pedidos a un grupo fijo de hilos de extracción,
+ * pero nunca más que hilos + capacidad de su cola: si los PDF llegan más rápido
+ * de lo que se procesan, el alimentador espera (contrapresión) y como mucho hay
+ * esa cantidad de PDF abiertos en memoria.
+ * Al iniciar se encolan todos los archivos existentes, con la misma contrapresión.
+ * @author micael
+ */
+@Service
+@RequiredArgsConstructor
+public class ExtraccionTextoService {
+
+    private final ArchivoRepository archivoRepo;
+    private final AlmacenamientoService almacenamientoService;
+    private final ContenidoArchivos contenidoArchivos;
+    private final CacheBusquedaService cacheBusquedaService;
+    private final LogService logService;
+
+    /**
+     * Si es false no se extrae nada y la búsqueda en contenido no encuentra resultados.
+     */
+    @Value("${digesto.contenido.habilitado:true}")
+    private boolean habilitado;
+
+    /**
+     * Cantidad de hilos que extraen texto en paralelo.
+     */
+    @Value("${digesto.contenido.hilos:2}")
+    private int hilos;
+
+    /**
+     * Pedidos que pueden esperar a un hilo libre antes de frenar al alimentador.
+     */
+    @Value("${digesto.contenido.capacidad-cola:8}")
+    private int capacidadCola;
+
+    /**
+     * Páginas que se leen como máximo de cada PDF.
+     */
+    @Value("${digesto.contenido.max-paginas:200}")
+    private int maxPaginas;
+
+    /**
+     * IDs de los archivos a extraer, en orden de llegada y sin repetir (ver 'encolados').
+     */
+    private final LinkedBlockingQueue<Integer> pendientes = new LinkedBlockingQueue<>();
+    private final Set<Integer> encolados = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Último pedido de cada archivo. Un resultado solo se aplica si su pedido sigue
+     * vigente: así un PDF borrado (o vuelto a subir) mientras se extraía no reaparece.
+     * Las operaciones que cambian el índice se sincronizan sobre este mapa.
+     */
+    private final Map<Integer, Pedido> vigentes = new ConcurrentHashMap<>();
+
+    private final LongAdder extraidos = new LongAdder();
+    private final LongAdder fallidos = new LongAdder();
+
+    private ThreadPoolExecutor extractores;
+    private Semaphore lugares;
+    private Thread alimentador;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger numero = new AtomicInteger();
+        extractores = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), tarea -> {
+                    Thread hilo = new Thread(tarea, "extraccion-texto-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    hilo.setPriority(Thread.MIN_PRIORITY); // No compite con las peticiones
+                    return hilo;
+                });
+        lugares = new Semaphore(hilos + capacidadCola);
+        alimentador = new Thread(this::alimentar, "extraccion-texto-alimentador");
+        alimentador.setDaemon(true);
+        alimentador.start();
+    }
+
+    @PreDestroy
+    void detener() {
+        alimentador.interrupt();
+        extractores.shutdownNow();
+    }
+
+    /**
+     * Encola todos los archivos existentes cuando la aplicación terminó de arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexarAlIniciar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            int cantidad = 0;
+            for (ArchivoIndiceProyeccion archivo : archivoRepo.findAllParaIndice()) {
+                Pedido pedido = new Pedido(archivo.getIdArchivo(), archivo.getIdDocumento(), archivo.getUrl());
+                // Si mientras tanto se subió el archivo, manda ese pedido
+                if (esPdf(pedido.url) && vigentes.putIfAbsent(pedido.idArchivo, pedido) == null) {
+                    agregarPendiente(pedido.idArchivo);
+                    cantidad++;
+                }
+            }
+            logService.info("Extracción de texto: " + cantidad + " archivos encolados para el índice de contenido.");
+        } catch (RuntimeException e) {
+            logService.error("No se pudieron encolar los archivos para el índice de contenido.", e);
+        }
+    }
+
+    /**
+     * Aplica una subida o un borrado ya confirmados en la base de datos.
+     * @param evento El evento publicado por ArchivoService.
+     */
+    @TransactionalEventListener
+    public void alModificarArchivo(ArchivoModificadoEvent evento) {
+        if (evento.isBorrado()) {
+            synchronized (vigentes) {
+                vigentes.remove(evento.getIdArchivo());
+                contenidoArchivos.quitar(evento.getIdArchivo());
+            }
+            cacheBusquedaService.invalidarTodo();
+        } else if (habilitado) {
+            encolar(new Pedido(evento.getIdArchivo(), evento.getIdDocumento(), evento.getUrl()));
+        }
+    }
+
+    /**
+     * @return Cantidad de archivos esperando en la cola de pendientes.
+     */
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * @return Cantidad de archivos extraídos e indexados desde el arranque.
+     */
+    public long getExtraidos() {
+        return extraidos.sum();
+    }
+
+    /**
+     * @return Cantidad de archivos que no se pudieron leer desde el arranque.
+     */
+    public long getFallidos() {
+        return fallidos.sum();
+    }
+
+    // --- Métodos internos ---
+
+    private void encolar(Pedido pedido) {
+        if (!esPdf(pedido.url)) {
+            return;
+        }
+        // Primero el pedido: el alimentador lee 'vigentes' después de sacar el ID de 'encolados'
+        vigentes.put(pedido.idArchivo, pedido);
+        agregarPendiente(pedido.idArchivo);
+    }
+
+    private void agregarPendiente(int idArchivo) {
+        if (encolados.add(idArchivo)) {
+            pendientes.add(idArchivo);
+        }
+    }
+
+    /**
+     * Bucle del alimentador: toma un lugar (o espera a que se libere) y pasa el pedido a un extractor.
+     */
+    private void alimentar() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Integer idArchivo = pendientes.take();
+                encolados.remove(idArchivo);
+                Pedido pedido = vigentes.get(idArchivo);
+                if (pedido == null || pedido.tomado) {
+                    continue; // Se borró antes de llegar a extraerse, o ya se está extrayendo
+                }
+                pedido.tomado = true;
+                lugares.acquire();
+                try {
+                    extractores.execute(() -> {
+                        try {
+                            procesar(pedido);
+                        } finally {
+                            lugares.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    lugares.release();
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logService.error("El alimentador de la extracción de texto se detuvo.", e);
+        }
+    }
+
+    private void procesar(Pedido pedido) {
+        String texto;
+        try {
+            texto = extraerTexto(pedido.url);
+        } catch (IOException | RuntimeException e) {
+            fallidos.increment();
+            logService.warn("No se pudo extraer el texto del archivo ID " + pedido.idArchivo + ": " + e.getMessage());
+            vigentes.remove(pedido.idArchivo, pedido);
+            return;
+        }
+
+        synchronized (vigentes) {
+            if (!vigentes.remove(pedido.idArchivo, pedido)) {
+                return;
+            }
+            contenidoArchivos.indexar(pedido.idArchivo, pedido.idDocumento, texto);
+        }
+        extraidos.increment();
+        // Una búsqueda en contenido pudo guardar resultados sin este archivo
+        cacheBusquedaService.invalidarTodo();
+    }
+
+    private String extraerTexto(String url) throws IOException {
+        File archivo = almacenamientoService.loadAsResource(url).getFile();
+        try (PDDocument pdf = Loader.loadPDF(archivo)) {
+            PDFTextStripper extractor = new PDFTextStripper();
+            extractor.setEndPage(Math.min(maxPaginas, pdf.getNumberOfPages()));
+            return extractor.getText(pdf);
+        }
+    }
+
+    private static boolean esPdf(String url) {
+        return url != null && url.toLowerCase(Locale.ROOT).endsWith(".pdf");
+    }
+
+    /**
+     * Un archivo a extraer. Se compara por identidad (ver 'vigentes').
+     */
+    private static final class Pedido {
+        private final int idArchivo;
+        private final int idDocumento;
+        private final String url;
+        // Solo lo usa el alimentador: un ID encolado de nuevo no repite la extracción
+        private boolean tomado;
+
+        Pedido(int idArchivo, int idDocumento, String url) {
+            this.idArchivo = idArchivo;
+            this.idDocumento = idDocumento;
+            this.url = url;
+        }
+    }
+}
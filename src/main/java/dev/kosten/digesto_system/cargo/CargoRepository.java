@@ -5,8 +5,12 @@
 package dev.kosten.digesto_system.cargo;
 
 import dev.kosten.digesto_system.cargo.Cargo;
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 /**
  * Repositorio JPA para la entidad {@link Cargo}.
@@ -23,6 +27,15 @@ public interface CargoRepository extends JpaRepository<Cargo, Integer> {
      * @param nombre nombre del cargo a buscar
      * @return un {@link Optional} que puede contener el cargo encontrado
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Cargo> findByNombre(String nombre);
+
+    /**
+     * Todos los registros del catálogo, desde la caché de consultas mientras no cambie la tabla.
+     * @return La lista completa.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Cargo> findAll();
 }
 
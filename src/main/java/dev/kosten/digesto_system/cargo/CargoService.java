@@ -6,6 +6,7 @@ package dev.kosten.digesto_system.cargo;
 
 import dev.kosten.digesto_system.cargo.Cargo;
 import dev.kosten.digesto_system.cargo.CargoRepository;
+import dev.kosten.digesto_system.config.CacheCatalogos;
 import dev.kosten.digesto_system.exception.RecursoDuplicadoException;
 import dev.kosten.digesto_system.exception.RecursoNoEncontradoException;
 import java.util.List;
@@ -25,6 +26,9 @@ public class CargoService {
 
     @Autowired
     private CargoRepository cargoRepo;
+
+    @Autowired
+    private CacheCatalogos cacheCatalogos;
     
     
     /**
@@ -51,7 +55,9 @@ public class CargoService {
             throw new RecursoDuplicadoException("Ya existe un cargo con ese nombre");
         }
         
-        return cargoRepo.save(nuevoCargo);
+        Cargo guardado = cargoRepo.save(nuevoCargo);
+        cacheCatalogos.invalidar(Cargo.class);
+        return guardado;
     }
     
     /**
@@ -84,6 +90,7 @@ public class CargoService {
         
         if(opcional.isPresent()){
             cargoRepo.deleteById(id);
+            cacheCatalogos.invalidar(Cargo.class);
         }
         else{
             throw new RecursoNoEncontradoException("No se encontro el cargo con id: " + id);
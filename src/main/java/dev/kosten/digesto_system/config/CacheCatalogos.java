@@ -0,0 +1,144 @@
+package dev.kosten.digesto_system.config;
+
+import dev.kosten.digesto_system.documento.dto.EstadisticasRegionCacheDTO;
+import dev.kosten.digesto_system.documento.indice.IndiceDocumentos;
+import dev.kosten.digesto_system.documento.indice.RelacionadosDocumentos;
+import dev.kosten.digesto_system.documento.service.CacheBusquedaService;
+import dev.kosten.digesto_system.documento.service.CacheDetalleDocumentos;
+import dev.kosten.digesto_system.documento.service.PlanesConsultaService;
+import dev.kosten.digesto_system.estado.entity.Estado;
+import dev.kosten.digesto_system.log.LogService;
+import dev.kosten.digesto_system.palabraclave.entity.PalabraClave;
+import dev.kosten.digesto_system.sector.Sector;
+import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import dev.kosten.digesto_system.unidadEjecutora.UnidadEjecutora;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Acceso a la caché de segundo nivel de Hibernate (JCache en memoria, con Caffeine)
+ * de los catálogos: TipoDocumento, Estado, Sector, UnidadEjecutora, PalabraClave,
+ * Rol, Cargo y EstadoU. Sus entidades se cachean por ID (@Cache) y sus consultas
+ * findAll / findByNombre van a la región de consultas por defecto.
+ *
+ * Hibernate ya actualiza la caché con lo que se guarda por JPA; los servicios de
+ * cada catálogo llaman además a {@link #invalidar(Class)} al crear, modificar o
+ * borrar, para no depender de eso ante cambios que no pasen por la entidad
+ * (deleteById de Spring Data, SQL nativo, otra instancia de la aplicación).
+ * Si el catálogo se muestra en el detalle de los documentos, también vacía
+ * CacheDetalleDocumentos; si se muestra en las filas de las búsquedas, vacía
+ * CacheBusquedaService. El nombre del tipo de documento además está copiado en
+ * los índices en memoria (se busca por él): al cambiar un tipo se reindexan los
+ * documentos afectados antes de vaciar las cachés. Los planes de las consultas
+ * booleanas guardan los IDs que resolvieron tipo: y sector:, así que un cambio en
+ * esos catálogos descarta los planes (y las búsquedas guardadas con ellos).
+ * @author micael
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheCatalogos {
+
+    /**
+     * Catálogos cuyos nombres forman parte del DocumentoDTO.
+     */
+    private static final Set<Class<?>> EN_DETALLE_DOCUMENTO = Set.of(
+            TipoDocumento.class, Estado.class, Sector.class, UnidadEjecutora.class, PalabraClave.class);
+
+    /**
+     * Catálogos cuyos nombres forman parte de las filas de una búsqueda (DocumentoTablaDTO).
+     */
+    private static final Set<Class<?>> EN_BUSQUEDA_DOCUMENTOS = Set.of(TipoDocumento.class, Estado.class);
+
+    /**
+     * Catálogos que PlanesConsultaService resuelve al compilar (tipo: y sector:).
+     */
+    private static final Set<Class<?>> EN_PLANES_CONSULTA = Set.of(TipoDocumento.class, Sector.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheDetalleDocumentos cacheDetalle;
+    private final CacheBusquedaService cacheBusqueda;
+    private final PlanesConsultaService planesConsulta;
+    private final IndiceDocumentos indiceDocumentos;
+    private final RelacionadosDocumentos relacionadosDocumentos;
+    private final LogService logService;
+
+    /**
+     * Vacía la región del catálogo y la de sus consultas. Si hay una transacción
+     * en curso, lo hace después del commit: antes, otra petición podría volver a
+     * cargar en la caché los datos viejos.
+     * @param catalogo La clase de la entidad del catálogo.
+     */
+    public void invalidar(Class<?> catalogo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidarAhora(catalogo);
+                }
+            });
+            return;
+        }
+        invalidarAhora(catalogo);
+    }
+
+    private void invalidarAhora(Class<?> catalogo) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(catalogo);
+        cache.evictDefaultQueryRegion();
+        if (catalogo == TipoDocumento.class) {
+            // Después de vaciar las regiones, para leer los nombres nuevos
+            Map<Integer, String> nombresDeTipos = indiceDocumentos.actualizarNombresDeTipos();
+            relacionadosDocumentos.actualizarNombresDeTipos(nombresDeTipos);
+        }
+        if (EN_PLANES_CONSULTA.contains(catalogo)) {
+            planesConsulta.invalidarTodo();
+        }
+        // Después de reindexar y de descartar los planes: una búsqueda posterior
+        // no puede salir del índice viejo ni de los IDs resueltos antes del cambio
+        if (EN_BUSQUEDA_DOCUMENTOS.contains(catalogo) || EN_PLANES_CONSULTA.contains(catalogo)) {
+            cacheBusqueda.invalidarTodo();
+        }
+        if (EN_DETALLE_DOCUMENTO.contains(catalogo)) {
+            cacheDetalle.invalidarTodo();
+        }
+        logService.debug("Caché de segundo nivel invalidada para " + catalogo.getSimpleName() + ".");
+    }
+
+    /**
+     * Contadores de cada región de la caché de segundo nivel.
+     * Requiere hibernate.generate_statistics=true (si no, todos quedan en cero).
+     * @return Una fila por región, ordenadas por nombre.
+     */
+    public List<EstadisticasRegionCacheDTO> estadisticas() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String[] regiones = estadisticas.getSecondLevelCacheRegionNames();
+        Arrays.sort(regiones);
+        List<EstadisticasRegionCacheDTO> filas = new ArrayList<>(regiones.length);
+        for (String region : regiones) {
+            CacheRegionStatistics deRegion = estadisticas.getCacheRegionStatistics(region);
+            if (deRegion == null) {
+                continue;
+            }
+            filas.add(EstadisticasRegionCacheDTO.builder()
+                    .region(region)
+                    .entradas(deRegion.getElementCountInMemory())
+                    .aciertos(deRegion.getHitCount())
+                    .fallos(deRegion.getMissCount())
+                    .escrituras(deRegion.getPutCount())
+                    .build());
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,38 @@
+package dev.kosten.digesto_system.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registra en Hibernate funciones propias de MySQL que no forman parte de JPQL,
+ * para poder usarlas desde las Specifications con cb.function(...).
+ * Se carga automáticamente mediante
+ * META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ * @author micael
+ */
+public class FuncionesMySqlContributor implements FunctionContributor {
+
+    /**
+     * MATCH(col1, col2) AGAINST(expr IN BOOLEAN MODE) sobre un índice FULLTEXT de dos columnas.
+     */
+    public static final String MATCH_AGAINST = "match_against";
+
+    /**
+     * MATCH(col) AGAINST(expr IN BOOLEAN MODE) sobre un índice FULLTEXT de una columna.
+     */
+    public static final String MATCH_AGAINST_COLUMNA = "match_against_columna";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Double> relevancia = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.DOUBLE);
+
+        functionContributions.getFunctionRegistry()
+                .registerPattern(MATCH_AGAINST, "match(?1, ?2) against(?3 in boolean mode)", relevancia);
+        functionContributions.getFunctionRegistry()
+                .registerPattern(MATCH_AGAINST_COLUMNA, "match(?1) against(?2 in boolean mode)", relevancia);
+    }
+}
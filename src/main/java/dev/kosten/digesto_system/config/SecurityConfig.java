@@ -55,6 +55,10 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/auth/**").permitAll()
                 // El Home público usa los tipos de documento para filtrar
                 .requestMatchers(HttpMethod.GET, "/api/v1/tipos-documento/**").permitAll()
+                // Estadísticas internas de búsqueda (cachés, índices): solo ADMIN
+                .requestMatchers("/api/v1/documentos/estadisticas/**").hasRole("ADMINISTRADOR")
+                // Grupos de documentos duplicados: herramienta de carga, no pública
+                .requestMatchers(HttpMethod.GET, "/api/v1/documentos/duplicados").hasAnyRole("ADMINISTRADOR","EDITOR")
                 // Permitir acceso a todos los GET de documentos (Home, Listado, Detalle)
                 .requestMatchers(HttpMethod.GET, "/api/v1/documentos/**").permitAll()
                 // ARCHIVOS: GET público, resto requiere roles
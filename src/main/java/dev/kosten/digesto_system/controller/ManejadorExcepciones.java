@@ -1,7 +1,9 @@
 package dev.kosten.digesto_system.controller;
 
+import dev.kosten.digesto_system.exception.ParametroInvalidoException;
 import dev.kosten.digesto_system.exception.RecursoDuplicadoException;
 import dev.kosten.digesto_system.exception.RecursoNoEncontradoException;
+import dev.kosten.digesto_system.exception.ServicioNoDisponibleException;
 import dev.kosten.digesto_system.exception.UnicidadFallidaException;
 import dev.kosten.digesto_system.log.LogService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -77,6 +79,55 @@ public class ManejadorExcepciones {
             return new ResponseEntity<>(error, HttpStatus.CONFLICT);
         }
 
+    /**
+     * Maneja la excepción ParametroInvalidoException y devuelve una respuesta estructurada.
+     * Se genera un objeto JSON con información detallada del error, incluyendo
+     * fecha, código HTTP, descripción y la ruta donde ocurrió la excepción.
+     * @param e excepción de parámetro inválido.
+     * @param request solicitud HTTP que originó la excepción.
+     * @return respuesta estructurada con detalles del error y código HTTP 400.
+     */
+    @ExceptionHandler(ParametroInvalidoException.class)
+    public ResponseEntity<Map<String, Object>>
+        manejarParametroInvalido(ParametroInvalidoException e, HttpServletRequest request) {
+
+            logService.warn(String.format("Parámetro inválido en [%s]: %s", request.getRequestURI(), e.getMessage()));
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("timestamp", LocalDateTime.now());          // Se agrega la fecha y hora del error
+            error.put("status", HttpStatus.BAD_REQUEST.value());  // Código de estado HTTP 400
+            error.put("error", "Parámetro inválido.");            // Mensaje genérico de error
+            error.put("message", e.getMessage());                 // Mensaje específico de la excepción
+            error.put("path", request.getRequestURI());           // Ruta donde se produjo el error
+
+            return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        }
+
+    /**
+     * Maneja las excepciones de tipo ServicioNoDisponibleException.
+     * Se lanza cuando un recurso interno (como un índice en memoria) todavía no está listo.
+     * @param e excepción de servicio no disponible.
+     * @param request solicitud HTTP que originó la excepción.
+     * @return respuesta estructurada con detalles del error y código HTTP 503.
+     */
+    @ExceptionHandler(ServicioNoDisponibleException.class)
+    public ResponseEntity<Map<String, Object>>
+        manejarServicioNoDisponible(ServicioNoDisponibleException e, HttpServletRequest request) {
+
+            logService.warn(String.format("Servicio no disponible en [%s]: %s", request.getRequestURI(), e.getMessage()));
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("timestamp", LocalDateTime.now());                  // Se agrega la fecha y hora del error
+            error.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());  // Código de estado HTTP 503
+            error.put("error", "Servicio no disponible.");                // Mensaje genérico de error
+            error.put("message", e.getMessage());                         // Mensaje específico de la excepción
+            error.put("path", request.getRequestURI());                   // Ruta donde se produjo el error
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "5")
+                    .body(error);
+        }
+
     /**
      * Maneja cualquier otra excepción no capturada explícitamente.
      * Para errores inesperados del servidor, como la indisponibilidad de un servicio.
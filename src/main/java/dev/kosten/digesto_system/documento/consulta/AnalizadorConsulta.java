@@ -0,0 +1,266 @@
+package dev.kosten.digesto_system.documento.consulta;
+
+import dev.kosten.digesto_system.documento.consulta.NodoConsulta.Campo;
+import dev.kosten.digesto_system.documento.indice.NormalizadorTexto;
+import dev.kosten.digesto_system.exception.ParametroInvalidoException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analizador (descenso recursivo) del lenguaje de consultas de documentos:
+ * <pre>
+ *   licitacion "obra publica" AND (num:12/2024 OR tipo:decreto) NOT sector:salud -derogada
+ * </pre>
+ * <ul>
+ *   <li>Las palabras sueltas se combinan con AND, igual que en la búsqueda simple.</li>
+ *   <li>AND, OR y NOT (en mayúsculas) son operadores; "-palabra" equivale a NOT palabra.
+ *       OR tiene menor precedencia que AND y se pueden usar paréntesis.</li>
+ *   <li>Las frases entre comillas deben aparecer completas y en ese orden.</li>
+ *   <li>num:, titulo:, tipo: y sector: restringen el término a ese campo
+ *       (tipo y sector se comparan con el nombre del catálogo). num: busca los
+ *       números que empiezan con el valor, y titulo:palabra* los títulos que
+ *       empiezan con la palabra; los dos usan el índice de la columna.</li>
+ * </ul>
+ * Las palabras y frases se normalizan con NormalizadorTexto, como todas las búsquedas.
+ * @author micael
+ */
+public final class AnalizadorConsulta {
+
+    /**
+     * Largo máximo de la consulta, en caracteres.
+     */
+    public static final int MAX_LARGO = 500;
+
+    /**
+     * Cantidad máxima de términos (cada uno es al menos un LIKE en la consulta SQL).
+     */
+    public static final int MAX_TERMINOS = 30;
+
+    private static final int MAX_PROFUNDIDAD = 10;
+
+    private static final Map<String, Campo> CAMPOS = Map.of(
+            "num", Campo.NUMERO,
+            "numero", Campo.NUMERO,
+            "titulo", Campo.TITULO,
+            "tipo", Campo.TIPO,
+            "sector", Campo.SECTOR);
+
+    private enum Clase { ABRE, CIERRA, AND, OR, NOT, TERMINO }
+
+    private static final class Simbolo {
+        private final Clase clase;
+        private final NodoConsulta.Termino termino;
+
+        Simbolo(Clase clase, NodoConsulta.Termino termino) {
+            this.clase = clase;
+            this.termino = termino;
+        }
+    }
+
+    private final List<Simbolo> simbolos;
+    private int posicion;
+    private int profundidad;
+
+    private AnalizadorConsulta(List<Simbolo> simbolos) {
+        this.simbolos = simbolos;
+    }
+
+    /**
+     * Analiza una consulta.
+     * @param consulta El texto ingresado por el usuario.
+     * @return El árbol de la consulta.
+     * @throws ParametroInvalidoException si la consulta está vacía, es demasiado larga
+     * o tiene un error de sintaxis.
+     */
+    public static NodoConsulta analizar(String consulta) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new ParametroInvalidoException("La consulta está vacía.");
+        }
+        if (consulta.length() > MAX_LARGO) {
+            throw new ParametroInvalidoException("La consulta supera los " + MAX_LARGO + " caracteres.");
+        }
+        List<Simbolo> simbolos = separar(consulta);
+        long terminos = simbolos.stream().filter(s -> s.clase == Clase.TERMINO).count();
+        if (terminos == 0) {
+            throw new ParametroInvalidoException("La consulta no tiene ningún término de búsqueda.");
+        }
+        if (terminos > MAX_TERMINOS) {
+            throw new ParametroInvalidoException("La consulta supera los " + MAX_TERMINOS + " términos.");
+        }
+
+        AnalizadorConsulta analizador = new AnalizadorConsulta(simbolos);
+        NodoConsulta raiz = analizador.disyuncion();
+        if (analizador.posicion < simbolos.size()) {
+            throw new ParametroInvalidoException("Consulta inválida: paréntesis de cierre sin abrir.");
+        }
+        return raiz;
+    }
+
+    // --- Gramática: disyuncion := conjuncion (OR conjuncion)* ---
+
+    private NodoConsulta disyuncion() {
+        List<NodoConsulta> hijos = new ArrayList<>();
+        hijos.add(conjuncion());
+        while (es(Clase.OR)) {
+            posicion++;
+            hijos.add(conjuncion());
+        }
+        return hijos.size() == 1 ? hijos.get(0) : new NodoConsulta.O(aplanar(hijos, NodoConsulta.O.class));
+    }
+
+    // conjuncion := negacion ((AND)? negacion)*
+    private NodoConsulta conjuncion() {
+        List<NodoConsulta> hijos = new ArrayList<>();
+        hijos.add(negacion());
+        while (posicion < simbolos.size() && !es(Clase.OR) && !es(Clase.CIERRA)) {
+            if (es(Clase.AND)) {
+                posicion++;
+            }
+            hijos.add(negacion());
+        }
+        return hijos.size() == 1 ? hijos.get(0) : new NodoConsulta.Y(aplanar(hijos, NodoConsulta.Y.class));
+    }
+
+    // negacion := NOT negacion | primario
+    private NodoConsulta negacion() {
+        if (es(Clase.NOT)) {
+            posicion++;
+            NodoConsulta hijo = negacion();
+            // NOT NOT x = x
+            return hijo instanceof NodoConsulta.No doble ? doble.getHijo() : new NodoConsulta.No(hijo);
+        }
+        return primario();
+    }
+
+    // primario := '(' disyuncion ')' | TERMINO
+    private NodoConsulta primario() {
+        if (posicion >= simbolos.size()) {
+            throw new ParametroInvalidoException("Consulta inválida: falta un término al final.");
+        }
+        Simbolo actual = simbolos.get(posicion++);
+        switch (actual.clase) {
+            case TERMINO:
+                return actual.termino;
+            case ABRE:
+                if (++profundidad > MAX_PROFUNDIDAD) {
+                    throw new ParametroInvalidoException("Consulta inválida: demasiados paréntesis anidados.");
+                }
+                NodoConsulta interior = disyuncion();
+                if (!es(Clase.CIERRA)) {
+                    throw new ParametroInvalidoException("Consulta inválida: falta cerrar un paréntesis.");
+                }
+                posicion++;
+                profundidad--;
+                return interior;
+            default:
+                throw new ParametroInvalidoException("Consulta inválida: se esperaba un término y llegó "
+                        + actual.clase + ".");
+        }
+    }
+
+    private boolean es(Clase clase) {
+        return posicion < simbolos.size() && simbolos.get(posicion).clase == clase;
+    }
+
+    /**
+     * (a AND b) AND c = a AND b AND c: los nodos del mismo tipo se unen con su padre.
+     */
+    private static List<NodoConsulta> aplanar(List<NodoConsulta> hijos, Class<? extends NodoConsulta> tipo) {
+        List<NodoConsulta> planos = new ArrayList<>(hijos.size());
+        for (NodoConsulta hijo : hijos) {
+            if (hijo instanceof NodoConsulta.Y y && tipo == NodoConsulta.Y.class) {
+                planos.addAll(y.getHijos());
+            } else if (hijo instanceof NodoConsulta.O o && tipo == NodoConsulta.O.class) {
+                planos.addAll(o.getHijos());
+            } else {
+                planos.add(hijo);
+            }
+        }
+        return planos;
+    }
+
+    // --- Separación en símbolos ---
+
+    private static List<Simbolo> separar(String consulta) {
+        List<Simbolo> simbolos = new ArrayList<>();
+        int i = 0;
+        int largo = consulta.length();
+        while (i < largo) {
+            char c = consulta.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                simbolos.add(new Simbolo(Clase.ABRE, null));
+                i++;
+            } else if (c == ')') {
+                simbolos.add(new Simbolo(Clase.CIERRA, null));
+                i++;
+            } else if (c == '"') {
+                int fin = finDeFrase(consulta, i);
+                agregarTermino(simbolos, Campo.TODOS, consulta.substring(i + 1, fin), true);
+                i = fin + 1;
+            } else if (c == '-' && i + 1 < largo && !Character.isWhitespace(consulta.charAt(i + 1))
+                    && consulta.charAt(i + 1) != ')') {
+                simbolos.add(new Simbolo(Clase.NOT, null)); // "-palabra" = NOT palabra
+                i++;
+            } else {
+                int fin = i;
+                while (fin < largo && !Character.isWhitespace(consulta.charAt(fin))
+                        && "()\"".indexOf(consulta.charAt(fin)) < 0) {
+                    fin++;
+                }
+                String palabra = consulta.substring(i, fin);
+                i = fin;
+
+                switch (palabra) {
+                    case "AND" -> simbolos.add(new Simbolo(Clase.AND, null));
+                    case "OR" -> simbolos.add(new Simbolo(Clase.OR, null));
+                    case "NOT" -> simbolos.add(new Simbolo(Clase.NOT, null));
+                    default -> {
+                        int dosPuntos = palabra.indexOf(':');
+                        Campo campo = dosPuntos > 0
+                                ? CAMPOS.get(NormalizadorTexto.normalizar(palabra.substring(0, dosPuntos))) : null;
+                        if (campo == null) {
+                            // "12:30" o un prefijo desconocido: es una palabra común
+                            agregarTermino(simbolos, Campo.TODOS, palabra, false);
+                        } else if (dosPuntos < palabra.length() - 1) {
+                            agregarTermino(simbolos, campo, palabra.substring(dosPuntos + 1), false);
+                        } else if (i < largo && consulta.charAt(i) == '"') {
+                            // campo:"frase con espacios"
+                            int finFrase = finDeFrase(consulta, i);
+                            agregarTermino(simbolos, campo, consulta.substring(i + 1, finFrase), true);
+                            i = finFrase + 1;
+                        } else {
+                            throw new ParametroInvalidoException("Consulta inválida: falta el valor de '" + palabra + "'.");
+                        }
+                    }
+                }
+            }
+        }
+        return simbolos;
+    }
+
+    private static int finDeFrase(String consulta, int comilla) {
+        int fin = consulta.indexOf('"', comilla + 1);
+        if (fin < 0) {
+            throw new ParametroInvalidoException("Consulta inválida: falta cerrar las comillas.");
+        }
+        return fin;
+    }
+
+    private static void agregarTermino(List<Simbolo> simbolos, Campo campo, String texto, boolean frase) {
+        // Los espacios repetidos de una frase se reducen a uno, como en las columnas normalizadas
+        String valor = NormalizadorTexto.normalizar(texto).replaceAll("\\s+", " ");
+        // titulo:palabra* = el título empieza con la palabra
+        boolean prefijo = campo == Campo.TITULO && !frase && valor.length() > 1 && valor.endsWith("*");
+        if (prefijo) {
+            valor = valor.substring(0, valor.length() - 1);
+        }
+        if (valor.isEmpty()) {
+            return; // "" no restringe nada
+        }
+        simbolos.add(new Simbolo(Clase.TERMINO,
+                new NodoConsulta.Termino(campo, valor, frase && valor.indexOf(' ') >= 0, prefijo)));
+    }
+}
@@ -0,0 +1,178 @@
+package dev.kosten.digesto_system.documento.consulta;
+
+import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.documento.specification.DocumentoSpecification;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Traduce el árbol de una consulta a predicados de DocumentoSpecification,
+ * ordenando las condiciones de cada AND y de cada OR según su selectividad y su
+ * costo estimados. MySQL evalúa las condiciones que no resuelve con un índice
+ * en el orden en que están escritas y corta en la primera que decide el
+ * resultado, así que conviene que:
+ * <ul>
+ *   <li>en un AND vayan primero las baratas que descartan más filas (las
+ *       igualdades sobre claves foráneas antes que los LIKE '%x%');</li>
+ *   <li>en un OR vayan primero las baratas que aceptan más filas.</li>
+ * </ul>
+ * Se usa el rango clásico de ordenamiento de predicados: (1 - s) / c en un AND
+ * y s / c en un OR, con s la selectividad y c el costo por fila.
+ * @author micael
+ */
+public final class CompiladorConsulta {
+
+    /**
+     * Resuelve los valores de tipo: y sector: a IDs de catálogo.
+     */
+    public interface Catalogos {
+        /**
+         * @param valor El valor normalizado del término (ej: "decreto").
+         * @return Los tipos de documento cuyo nombre o nomenclatura coincide.
+         */
+        List<Integer> tiposQueCoinciden(String valor);
+
+        /**
+         * @param valor El valor normalizado del término.
+         * @return Los sectores cuyo nombre o nomenclatura coincide.
+         */
+        List<Integer> sectoresQueCoinciden(String valor);
+    }
+
+    // Costo por fila, en "igualdades": IN sobre una clave foránea = 1
+    private static final double COSTO_IGUALDAD = 1;
+    private static final double COSTO_SUBCADENA = 4;
+    // LIKE 'x%' sobre una columna indexada: un rango del índice
+    private static final double COSTO_PREFIJO = 2;
+    // Cuatro LIKE más el nombre del tipo (JOIN y LOWER por fila)
+    private static final double COSTO_CUATRO_CAMPOS = 3 * COSTO_SUBCADENA + 2 * COSTO_SUBCADENA;
+
+    private final EstadisticasDocumento estadisticas;
+    private final Catalogos catalogos;
+
+    public CompiladorConsulta(EstadisticasDocumento estadisticas, Catalogos catalogos) {
+        this.estadisticas = estadisticas;
+        this.catalogos = catalogos;
+    }
+
+    /**
+     * Compila una consulta ya analizada.
+     * @param raiz El árbol devuelto por {@link AnalizadorConsulta#analizar}.
+     * @return El plan, con su Specification lista para combinar.
+     */
+    public PlanConsulta compilar(NodoConsulta raiz) {
+        Paso paso = compilarNodo(raiz);
+        return new PlanConsulta(paso.especificacion, paso.selectividad, paso.costo, paso.descripcion);
+    }
+
+    /**
+     * Una condición compilada con sus estimaciones.
+     */
+    private static final class Paso {
+        private final Specification<Documento> especificacion;
+        private final double selectividad;
+        private final double costo;
+        private final String descripcion;
+
+        Paso(Specification<Documento> especificacion, double selectividad, double costo, String descripcion) {
+            this.especificacion = especificacion;
+            this.selectividad = selectividad;
+            this.costo = costo;
+            this.descripcion = descripcion;
+        }
+    }
+
+    private Paso compilarNodo(NodoConsulta nodo) {
+        if (nodo instanceof NodoConsulta.Termino termino) {
+            return compilarTermino(termino);
+        }
+        if (nodo instanceof NodoConsulta.No no) {
+            // Las hojas nunca dan NULL (ver DocumentoSpecification.conTextoEnCualquierCampo),
+            // así que NOT x incluye las filas con columnas vacías
+            Paso hijo = compilarNodo(no.getHijo());
+            return new Paso(Specification.not(hijo.especificacion), 1 - hijo.selectividad, hijo.costo,
+                    "NOT " + hijo.descripcion);
+        }
+        if (nodo instanceof NodoConsulta.Y y) {
+            List<Paso> hijos = compilarTodos(y.getHijos());
+            // Primero las que descartan más filas por unidad de costo
+            hijos.sort(Comparator.comparingDouble((Paso p) -> (1 - p.selectividad) / p.costo).reversed());
+            double selectividad = 1;
+            double costo = 0;
+            for (Paso hijo : hijos) {
+                costo += selectividad * hijo.costo; // Solo se evalúa si las anteriores se cumplieron
+                selectividad *= hijo.selectividad;
+            }
+            return new Paso(Specification.allOf(especificaciones(hijos)), selectividad, costo, unir(hijos, " AND "));
+        }
+        NodoConsulta.O o = (NodoConsulta.O) nodo;
+        List<Paso> hijos = compilarTodos(o.getHijos());
+        // Primero las que aceptan más filas por unidad de costo
+        hijos.sort(Comparator.comparingDouble((Paso p) -> p.selectividad / p.costo).reversed());
+        double noCumple = 1;
+        double costo = 0;
+        for (Paso hijo : hijos) {
+            costo += noCumple * hijo.costo; // Solo se evalúa si las anteriores fallaron
+            noCumple *= 1 - hijo.selectividad;
+        }
+        return new Paso(Specification.anyOf(especificaciones(hijos)), 1 - noCumple, costo, unir(hijos, " OR "));
+    }
+
+    private Paso compilarTermino(NodoConsulta.Termino termino) {
+        String valor = termino.getValor();
+        String descripcion = termino.describir();
+        switch (termino.getCampo()) {
+            case TIPO: {
+                List<Integer> ids = catalogos.tiposQueCoinciden(valor);
+                double s = estadisticas.selectividadIgualdad(EstadisticasDocumento.COLUMNA_TIPO, ids.size());
+                return paso(DocumentoSpecification.conTiposDocumento(ids), s, COSTO_IGUALDAD, descripcion + ids);
+            }
+            case SECTOR: {
+                List<Integer> ids = catalogos.sectoresQueCoinciden(valor);
+                double s = estadisticas.selectividadIgualdad(EstadisticasDocumento.COLUMNA_SECTOR, ids.size());
+                return paso(DocumentoSpecification.conSectores(ids), s, COSTO_IGUALDAD, descripcion + ids);
+            }
+            case NUMERO:
+                // Los números son casi únicos: coinciden con menos filas que un texto del mismo largo
+                return paso(DocumentoSpecification.conNumeroQueEmpiezaCon(valor),
+                        estadisticas.selectividadSubcadena(valor) / 4, COSTO_PREFIJO, descripcion);
+            case TITULO:
+                return termino.isPrefijo()
+                        ? paso(DocumentoSpecification.conTituloQueEmpiezaCon(valor),
+                                estadisticas.selectividadSubcadena(valor), COSTO_PREFIJO, descripcion)
+                        : paso(DocumentoSpecification.conTituloQueContiene(valor),
+                                estadisticas.selectividadSubcadena(valor), COSTO_SUBCADENA, descripcion);
+            default: {
+                // En cualquiera de los campos: la probabilidad de que coincida alguno de los cuatro
+                double s = 1 - Math.pow(1 - estadisticas.selectividadSubcadena(valor), 4);
+                return paso(DocumentoSpecification.conTextoEnCualquierCampo(valor), s, COSTO_CUATRO_CAMPOS, descripcion);
+            }
+        }
+    }
+
+    private List<Paso> compilarTodos(List<NodoConsulta> nodos) {
+        List<Paso> pasos = new ArrayList<>(nodos.size());
+        for (NodoConsulta nodo : nodos) {
+            pasos.add(compilarNodo(nodo));
+        }
+        return pasos;
+    }
+
+    private static Paso paso(Specification<Documento> especificacion, double selectividad, double costo,
+                             String descripcion) {
+        return new Paso(especificacion, selectividad, costo,
+                descripcion + String.format(Locale.ROOT, "{s=%.4f}", selectividad));
+    }
+
+    private static List<Specification<Documento>> especificaciones(List<Paso> pasos) {
+        return pasos.stream().map(p -> p.especificacion).collect(Collectors.toList());
+    }
+
+    private static String unir(List<Paso> pasos, String operador) {
+        return pasos.stream().map(p -> p.descripcion).collect(Collectors.joining(operador, "(", ")"));
+    }
+}
@@ -0,0 +1,82 @@
+package dev.kosten.digesto_system.documento.consulta;
+
+import java.util.Map;
+
+/**
+ * Estadísticas de la tabla documento que usa {@link CompiladorConsulta} para
+ * estimar qué fracción de las filas cumple cada condición (selectividad).
+ * La cantidad de filas y la cardinalidad (valores distintos) de las claves
+ * foráneas salen de information_schema, que MySQL mantiene con ANALYZE TABLE;
+ * son estimaciones, alcanzan para ordenar condiciones.
+ * @author micael
+ */
+public final class EstadisticasDocumento {
+
+    /**
+     * Columna física de la clave foránea del tipo de documento.
+     */
+    public static final String COLUMNA_TIPO = "tipoDocumento_idTipoDocumento";
+
+    /**
+     * Columna física de la clave foránea del sector.
+     */
+    public static final String COLUMNA_SECTOR = "sector_idSector";
+
+    /**
+     * Selectividad supuesta de cada valor de una igualdad cuando no hay estadísticas.
+     */
+    private static final double IGUALDAD_SIN_DATOS = 0.1;
+
+    /**
+     * Selectividad supuesta de LIKE '%x%' para un texto de un solo carácter; se
+     * divide por el largo (un texto más largo coincide con menos filas).
+     */
+    private static final double SUBCADENA_UN_CARACTER = 0.5;
+
+    private final long filas;
+    private final Map<String, Long> cardinalidades;
+
+    /**
+     * @param filas Cantidad estimada de filas de documento (0 si no se conoce).
+     * @param cardinalidades Columna física -> cantidad estimada de valores distintos.
+     */
+    public EstadisticasDocumento(long filas, Map<String, Long> cardinalidades) {
+        this.filas = filas;
+        this.cardinalidades = Map.copyOf(cardinalidades);
+    }
+
+    /**
+     * @return Estadísticas vacías: todas las estimaciones usan los valores supuestos.
+     */
+    public static EstadisticasDocumento sinDatos() {
+        return new EstadisticasDocumento(0, Map.of());
+    }
+
+    public long getFilas() {
+        return filas;
+    }
+
+    /**
+     * Selectividad de columna IN (v1, ..., vn) suponiendo valores distribuidos de forma pareja.
+     * @param columna La columna física.
+     * @param valores La cantidad de valores de la lista.
+     * @return La fracción estimada de filas que cumple, entre 0 y 1.
+     */
+    public double selectividadIgualdad(String columna, int valores) {
+        Long cardinalidad = cardinalidades.get(columna);
+        double porValor = cardinalidad == null || cardinalidad <= 0 ? IGUALDAD_SIN_DATOS : 1.0 / cardinalidad;
+        return Math.min(1.0, porValor * valores);
+    }
+
+    /**
+     * Selectividad de columna LIKE '%texto%' en UNA columna de texto. No hay
+     * histogramas de subcadenas: se estima por el largo del texto, con un
+     * piso de una fila.
+     * @param texto El texto normalizado.
+     * @return La fracción estimada de filas que cumple, entre 0 y 1.
+     */
+    public double selectividadSubcadena(String texto) {
+        double minima = filas > 0 ? 1.0 / filas : 0.0001;
+        return Math.max(minima, SUBCADENA_UN_CARACTER / Math.max(1, texto.length()));
+    }
+}
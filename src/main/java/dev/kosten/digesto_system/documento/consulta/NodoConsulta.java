@@ -0,0 +1,140 @@
+package dev.kosten.digesto_system.documento.consulta;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Árbol de una consulta booleana ya analizada por {@link AnalizadorConsulta}.
+ * Las hojas son términos (una palabra o una frase, opcionalmente con campo)
+ * y los nodos internos combinan con AND, OR o NOT.
+ * @author micael
+ */
+public abstract class NodoConsulta {
+
+    /**
+     * Campo al que se restringe un término ("num:", "titulo:", "tipo:", "sector:").
+     */
+    public enum Campo {
+        /** Sin prefijo: título, resumen, número o nombre del tipo (como la búsqueda simple). */
+        TODOS,
+        NUMERO,
+        TITULO,
+        TIPO,
+        SECTOR
+    }
+
+    private NodoConsulta() {
+    }
+
+    /**
+     * @return La consulta en forma canónica (para los logs y la descripción del plan).
+     */
+    public abstract String describir();
+
+    @Override
+    public String toString() {
+        return describir();
+    }
+
+    /**
+     * Una palabra o una frase entre comillas, ya normalizada (minúsculas, sin tildes).
+     */
+    public static final class Termino extends NodoConsulta {
+        private final Campo campo;
+        private final String valor;
+        private final boolean frase;
+        private final boolean prefijo;
+
+        Termino(Campo campo, String valor, boolean frase, boolean prefijo) {
+            this.campo = campo;
+            this.valor = valor;
+            this.frase = frase;
+            this.prefijo = prefijo;
+        }
+
+        public Campo getCampo() {
+            return campo;
+        }
+
+        public String getValor() {
+            return valor;
+        }
+
+        public boolean isFrase() {
+            return frase;
+        }
+
+        /**
+         * @return true si el campo debe empezar con el valor ("titulo:orden*").
+         */
+        public boolean isPrefijo() {
+            return prefijo;
+        }
+
+        @Override
+        public String describir() {
+            String texto = frase ? "\"" + valor + "\"" : prefijo ? valor + "*" : valor;
+            return campo == Campo.TODOS ? texto : campo.name().toLowerCase() + ":" + texto;
+        }
+    }
+
+    /**
+     * Todos los hijos deben cumplirse.
+     */
+    public static final class Y extends NodoConsulta {
+        private final List<NodoConsulta> hijos;
+
+        Y(List<NodoConsulta> hijos) {
+            this.hijos = List.copyOf(hijos);
+        }
+
+        public List<NodoConsulta> getHijos() {
+            return hijos;
+        }
+
+        @Override
+        public String describir() {
+            return hijos.stream().map(NodoConsulta::describir).collect(Collectors.joining(" AND ", "(", ")"));
+        }
+    }
+
+    /**
+     * Alguno de los hijos debe cumplirse.
+     */
+    public static final class O extends NodoConsulta {
+        private final List<NodoConsulta> hijos;
+
+        O(List<NodoConsulta> hijos) {
+            this.hijos = List.copyOf(hijos);
+        }
+
+        public List<NodoConsulta> getHijos() {
+            return hijos;
+        }
+
+        @Override
+        public String describir() {
+            return hijos.stream().map(NodoConsulta::describir).collect(Collectors.joining(" OR ", "(", ")"));
+        }
+    }
+
+    /**
+     * El hijo no debe cumplirse.
+     */
+    public static final class No extends NodoConsulta {
+        private final NodoConsulta hijo;
+
+        No(NodoConsulta hijo) {
+            this.hijo = hijo;
+        }
+
+        public NodoConsulta getHijo() {
+            return hijo;
+        }
+
+        @Override
+        public String describir() {
+            return "NOT " + hijo.describir();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package dev.kosten.digesto_system.documento.consulta;
+
+import dev.kosten.digesto_system.documento.entity.Documento;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Consulta booleana compilada: la Specification con las condiciones ya
+ * ordenadas y los nombres de catálogo ya resueltos a IDs, más las estimaciones
+ * con las que se ordenó. Es inmutable, así se puede guardar en caché y usar
+ * desde varios hilos.
+ * @author micael
+ */
+public final class PlanConsulta {
+
+    private final Specification<Documento> especificacion;
+    private final double selectividad;
+    private final double costo;
+    private final String descripcion;
+
+    PlanConsulta(Specification<Documento> especificacion, double selectividad, double costo, String descripcion) {
+        this.especificacion = especificacion;
+        this.selectividad = selectividad;
+        this.costo = costo;
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * @return La Specification a combinar con el resto de los filtros.
+     */
+    public Specification<Documento> getEspecificacion() {
+        return especificacion;
+    }
+
+    /**
+     * @return Fracción estimada de documentos que cumplen la consulta.
+     */
+    public double getSelectividad() {
+        return selectividad;
+    }
+
+    /**
+     * @return Costo estimado de evaluar la consulta en una fila (1 = una igualdad).
+     */
+    public double getCosto() {
+        return costo;
+    }
+
+    /**
+     * @return Las condiciones en el orden en que se evalúan, con su selectividad estimada.
+     */
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
@@ -1,11 +1,30 @@
 package dev.kosten.digesto_system.documento.controller;
 
 // --- Imports de las clases necesarias ---
+import dev.kosten.digesto_system.documento.dto.CoincidenciaPalabrasClave;
+import dev.kosten.digesto_system.config.CacheCatalogos;
 import dev.kosten.digesto_system.documento.dto.DocumentoDTO;
 import dev.kosten.digesto_system.documento.dto.DocumentoMapper;
+import dev.kosten.digesto_system.documento.dto.DocumentoRelacionadoDTO;
 import dev.kosten.digesto_system.documento.dto.DocumentoTablaDTO;
+import dev.kosten.digesto_system.documento.dto.EstadisticasCacheDTO;
+import dev.kosten.digesto_system.documento.dto.EstadisticasCoalescenciaDTO;
+import dev.kosten.digesto_system.documento.dto.EstadisticasRegionCacheDTO;
+import dev.kosten.digesto_system.documento.dto.FacetasDocumentoDTO;
+import dev.kosten.digesto_system.documento.dto.FiltrosBusquedaDocumento;
+import dev.kosten.digesto_system.documento.dto.GrupoDuplicadosDTO;
+import dev.kosten.digesto_system.documento.dto.PaginaDocumentosDTO;
+import dev.kosten.digesto_system.documento.dto.SugerenciaDocumentoDTO;
+import dev.kosten.digesto_system.documento.dto.VentanaDocumentosDTO;
 import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.documento.service.BusquedasEnCurso;
+import dev.kosten.digesto_system.documento.service.CacheBusquedaService;
+import dev.kosten.digesto_system.documento.service.CacheDetalleDocumentos;
+import dev.kosten.digesto_system.documento.service.CampoOrden;
 import dev.kosten.digesto_system.documento.service.DocumentoService;
+import dev.kosten.digesto_system.documento.service.ModoTotal;
+import dev.kosten.digesto_system.documento.service.OrdenResultados;
+import dev.kosten.digesto_system.documento.service.PlanesConsultaService;
 import dev.kosten.digesto_system.log.LogService;
 import java.security.Principal;
 import java.util.Date;
@@ -16,7 +35,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.PatchMapping;
 
 // --- Imports de Spring Framework ---
@@ -39,6 +57,11 @@ public class DocumentoController {
 
     // --- Dependencias Inyectadas ---
     private final DocumentoService documentoService;
+    private final CacheBusquedaService cacheBusquedaService;
+    private final CacheDetalleDocumentos cacheDetalleDocumentos;
+    private final PlanesConsultaService planesConsultaService;
+    private final BusquedasEnCurso busquedasEnCurso;
+    private final CacheCatalogos cacheCatalogos;
     private final DocumentoMapper documentoMapper;
     private final LogService logService;
 
@@ -66,10 +89,24 @@ public class DocumentoController {
      * @param excluirPalabras (Búsqueda Avanzada) Filtra excluyendo palabras en
      * todos los campos.
      * @param idsPalabrasClave (Búsqueda Avanzada) Filtra por palabras clave.
-     * @return 200 OK con una lista de DocumentoTablaDTO.
+     * @param coincidenciaPalabrasClave (Búsqueda Avanzada) ALGUNA (por defecto) o TODAS las palabras clave.
+     * @param modoTotal Cálculo del total: EXACTO (COUNT en cada consulta, por defecto),
+     * SIN_TOTAL (sin COUNT) o APROXIMADO (último conteo guardado para esos filtros).
+     * @param orden FECHA (más recientes primero, por defecto) o RELEVANCIA (los que mejor
+     * coinciden con search primero; solo aplica a la búsqueda simple).
+     * @param difusa Si es true, corrige los errores de tipeo de search (las correcciones
+     * aplicadas se informan en la respuesta).
+     * @param enContenido Si es true, search también se busca en el texto de los PDF adjuntos.
+     * @param consulta Consulta booleana que se agrega con AND a los demás filtros: frases entre
+     * comillas, AND/OR/NOT, paréntesis y campos num:, titulo:, tipo:, sector:
+     * (ej: "obra publica" AND (tipo:decreto OR tipo:resolucion) -derogada).
+     * @param ordenarPor Orden del listado (por defecto "-fecha"): fecha, numero, titulo, tipo o estado,
+     * con "-" adelante para descendente; también "tipo,fecha" y "estado,fecha" (misma dirección).
+     * Solo se aceptan órdenes con índice (ver CampoOrden); con orden=RELEVANCIA se ignora.
+     * @return 200 OK con la página de DocumentoTablaDTO (totalExacto indica si el total es exacto).
      */
     @GetMapping
-    public ResponseEntity<Page<DocumentoTablaDTO>> listarDocumentos(
+    public ResponseEntity<PaginaDocumentosDTO> listarDocumentos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "6") int size,
             //@RequestParam(required = false) Integer idTipoDocumento,
@@ -85,13 +122,173 @@ public class DocumentoController {
             @RequestParam(required = false) String fechaDesdeStr,
             @RequestParam(required = false) String fechaHastaStr,
             @RequestParam(required = false) String excluirPalabras,
-            @RequestParam(required = false) List<Integer> idsPalabrasClave) {
+            @RequestParam(required = false) List<Integer> idsPalabrasClave,
+            @RequestParam(required = false) CoincidenciaPalabrasClave coincidenciaPalabrasClave,
+            @RequestParam(defaultValue = "EXACTO") ModoTotal modoTotal,
+            @RequestParam(defaultValue = "FECHA") OrdenResultados orden,
+            @RequestParam(defaultValue = "false") boolean difusa,
+            @RequestParam(defaultValue = "false") boolean enContenido,
+            @RequestParam(required = false) String consulta,
+            @RequestParam(required = false) List<String> ordenarPor) {
 
-        logService.info("GET /api/v1/documentos - page=" + page + ", size=" + size);
-        // Crea el objeto de paginación con ordenamiento
-        Pageable pageable = PageRequest.of(page, size, Sort.by("fechaCreacion").descending());
+        logService.info("GET /api/v1/documentos - page=" + page + ", size=" + size + ", modoTotal=" + modoTotal + ", orden=" + orden
+                + ", ordenarPor=" + ordenarPor);
+        // Crea el objeto de paginación con el ordenamiento validado contra la lista blanca
+        Pageable pageable = PageRequest.of(page, size, CampoOrden.ordenPara(ordenarPor));
 
-        // ⬇️ AGREGAR: Convertir String a Date
+        FiltrosBusquedaDocumento filtros = armarFiltros(search, soloActivos, titulo, numDocumento,
+                idTipoDocumento, idSector, idEstado, fechaDesdeStr, fechaHastaStr, excluirPalabras, idsPalabrasClave,
+                coincidenciaPalabrasClave);
+        filtros.setBusquedaDifusa(difusa);
+        filtros.setIncluirContenido(enContenido);
+        filtros.setConsulta(consulta);
+
+        PaginaDocumentosDTO documentos = documentoService.buscarConFiltros(pageable, filtros, modoTotal, orden);
+
+        logService.info("GET /api/v1/documentos - Devolviendo página " + page + " con " + documentos.getContent().size() + " documentos.");
+        return ResponseEntity.ok(documentos);
+    }
+
+    /**
+     * Endpoint de sugerencias para el buscador (autocompletado).
+     * Busca por inicio de palabra en el N° Documento y el Título, sin ir a la base de datos.
+     * Responde a GET /api/v1/documentos/sugerencias?prefijo=
+     *
+     * @param prefijo El texto tipeado por el usuario.
+     * @param limite Cantidad máxima de sugerencias (por defecto 10).
+     * @return 200 OK con los documentos activos más recientes que coinciden.
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<SugerenciaDocumentoDTO>> sugerir(
+            @RequestParam String prefijo,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(documentoService.sugerir(prefijo, limite));
+    }
+
+    /**
+     * Endpoint para OBTENER los conteos por faceta (tipo, sector, estado, unidad
+     * ejecutora, palabra clave y año) de una búsqueda. Acepta los mismos filtros
+     * que {@link #listarDocumentos} y los resuelve en memoria con un solo recorrido.
+     * Responde a GET /api/v1/documentos/facetas
+     *
+     * @param search (Búsqueda Simple) Término de texto a buscar en todos los campos.
+     * @param soloActivos Si es true, solo cuenta documentos activos.
+     * @param titulo (Búsqueda Avanzada) Filtra por palabras parciales en el Título.
+     * @param numDocumento (Búsqueda Avanzada) Filtra por el N° Documento.
+     * @param idTipoDocumento (Búsqueda Avanzada/Simple) Filtra por Tipo de Documento.
+     * @param idSector (Búsqueda Avanzada) Filtra por el ID del Sector.
+     * @param idEstado (Búsqueda Avanzada) Filtra por el ID del Estado.
+     * @param fechaDesdeStr (Búsqueda Avanzada) Rango de fecha de creación (inicio).
+     * @param fechaHastaStr (Búsqueda Avanzada) Rango de fecha de creación (fin).
+     * @param excluirPalabras (Búsqueda Avanzada) Palabras a excluir.
+     * @param idsPalabrasClave (Búsqueda Avanzada) Filtra por palabras clave.
+     * @param coincidenciaPalabrasClave (Búsqueda Avanzada) ALGUNA (por defecto) o TODAS las palabras clave.
+     * @param difusa Si es true, corrige los errores de tipeo de search (igual que el listado).
+     * @param enContenido Si es true, search también se busca en el texto de los PDF adjuntos.
+     * @return 200 OK con el total y los conteos de cada faceta.
+     */
+    @GetMapping("/facetas")
+    public ResponseEntity<FacetasDocumentoDTO> contarFacetas(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Boolean soloActivos,
+            @RequestParam(required = false) String titulo,
+            @RequestParam(required = false) String numDocumento,
+            @RequestParam(required = false) Integer idTipoDocumento,
+            @RequestParam(required = false) Integer idSector,
+            @RequestParam(required = false) Integer idEstado,
+            @RequestParam(required = false) String fechaDesdeStr,
+            @RequestParam(required = false) String fechaHastaStr,
+            @RequestParam(required = false) String excluirPalabras,
+            @RequestParam(required = false) List<Integer> idsPalabrasClave,
+            @RequestParam(required = false) CoincidenciaPalabrasClave coincidenciaPalabrasClave,
+            @RequestParam(defaultValue = "false") boolean difusa,
+            @RequestParam(defaultValue = "false") boolean enContenido) {
+
+        logService.info("GET /api/v1/documentos/facetas");
+
+        FiltrosBusquedaDocumento filtros = armarFiltros(search, soloActivos, titulo, numDocumento,
+                idTipoDocumento, idSector, idEstado, fechaDesdeStr, fechaHastaStr, excluirPalabras, idsPalabrasClave,
+                coincidenciaPalabrasClave);
+        filtros.setBusquedaDifusa(difusa);
+        filtros.setIncluirContenido(enContenido);
+
+        return ResponseEntity.ok(documentoService.contarFacetas(filtros));
+    }
+
+    /**
+     * Endpoint para OBTENER el listado RESUMIDO paginado por cursor (keyset).
+     * Acepta los mismos filtros que {@link #listarDocumentos}, pero en lugar de
+     * número de página recibe el cursor devuelto en la porción anterior.
+     * Pensado para el scroll infinito: no hace OFFSET ni COUNT(*).
+     * Responde a GET /api/v1/documentos/cursor
+     *
+     * @param cursor Cursor opaco de la porción anterior (omitir para la primera).
+     * @param size El tamaño de la porción (cantidad de elementos).
+     * @param search (Búsqueda Simple) Término de texto a buscar en todos los campos.
+     * @param soloActivos Si es true, solo devuelve documentos activos.
+     * @param titulo (Búsqueda Avanzada) Filtra por palabras parciales en el Título.
+     * @param numDocumento (Búsqueda Avanzada) Filtra por el N° Documento.
+     * @param idTipoDocumento (Búsqueda Avanzada/Simple) Filtra por Tipo de Documento.
+     * @param idSector (Búsqueda Avanzada) Filtra por el ID del Sector.
+     * @param idEstado (Búsqueda Avanzada) Filtra por el ID del Estado.
+     * @param fechaDesdeStr (Búsqueda Avanzada) Rango de fecha de creación (inicio).
+     * @param fechaHastaStr (Búsqueda Avanzada) Rango de fecha de creación (fin).
+     * @param excluirPalabras (Búsqueda Avanzada) Palabras a excluir.
+     * @param idsPalabrasClave (Búsqueda Avanzada) Filtra por palabras clave.
+     * @param coincidenciaPalabrasClave (Búsqueda Avanzada) ALGUNA (por defecto) o TODAS las palabras clave.
+     * @param consulta Consulta booleana (igual que en el listado).
+     * @return 200 OK con la porción de documentos y el siguiente cursor.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<VentanaDocumentosDTO> listarDocumentosPorCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "6") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Boolean soloActivos,
+            @RequestParam(required = false) String titulo,
+            @RequestParam(required = false) String numDocumento,
+            @RequestParam(required = false) Integer idTipoDocumento,
+            @RequestParam(required = false) Integer idSector,
+            @RequestParam(required = false) Integer idEstado,
+            @RequestParam(required = false) String fechaDesdeStr,
+            @RequestParam(required = false) String fechaHastaStr,
+            @RequestParam(required = false) String excluirPalabras,
+            @RequestParam(required = false) List<Integer> idsPalabrasClave,
+            @RequestParam(required = false) CoincidenciaPalabrasClave coincidenciaPalabrasClave,
+            @RequestParam(required = false) String consulta) {
+
+        logService.info("GET /api/v1/documentos/cursor - size=" + size + ", cursor=" + (cursor == null ? "inicio" : cursor));
+
+        FiltrosBusquedaDocumento filtros = armarFiltros(search, soloActivos, titulo, numDocumento,
+                idTipoDocumento, idSector, idEstado, fechaDesdeStr, fechaHastaStr, excluirPalabras, idsPalabrasClave,
+                coincidenciaPalabrasClave);
+        filtros.setConsulta(consulta);
+
+        VentanaDocumentosDTO ventana = documentoService.buscarConCursor(cursor, size, filtros);
+
+        logService.info("GET /api/v1/documentos/cursor - Devolviendo " + ventana.getContent().size() + " documentos.");
+        return ResponseEntity.ok(ventana);
+    }
+
+    /**
+     * Agrupa los parámetros de búsqueda recibidos en un {@link FiltrosBusquedaDocumento},
+     * convirtiendo las fechas de texto (yyyy-MM-dd) a Date.
+     */
+    private FiltrosBusquedaDocumento armarFiltros(
+            String search,
+            Boolean soloActivos,
+            String titulo,
+            String numDocumento,
+            Integer idTipoDocumento,
+            Integer idSector,
+            Integer idEstado,
+            String fechaDesdeStr,
+            String fechaHastaStr,
+            String excluirPalabras,
+            List<Integer> idsPalabrasClave,
+            CoincidenciaPalabrasClave coincidenciaPalabrasClave) {
+
+        // Convertir String a Date
         Date fechaDesde = null;
         Date fechaHasta = null;
 
@@ -105,26 +302,22 @@ public class DocumentoController {
             logService.info("fechaHasta convertida: " + fechaHasta);
         }
 
-        Page<DocumentoTablaDTO> documentos = documentoService.buscarConFiltros(
-                // Paginación
-                pageable,
+        return FiltrosBusquedaDocumento.builder()
                 // Búsqueda Simple
-                search,
+                .search(search)
+                .idTipoDocumento(idTipoDocumento)
+                .soloActivos(soloActivos)
                 // Filtros Avanzados
-                titulo,
-                numDocumento,
-                idTipoDocumento,
-                idSector,
-                idEstado,
-                soloActivos,
-                fechaDesde,
-                fechaHasta,
-                excluirPalabras,
-                idsPalabrasClave
-        );
-
-        logService.info("GET /api/v1/documentos - Devolviendo página " + page + " con " + documentos.getContent().size() + " documentos.");
-        return ResponseEntity.ok(documentos);
+                .titulo(titulo)
+                .numDocumento(numDocumento)
+                .idSector(idSector)
+                .idEstado(idEstado)
+                .fechaDesde(fechaDesde)
+                .fechaHasta(fechaHasta)
+                .excluirPalabras(excluirPalabras)
+                .idsPalabrasClave(idsPalabrasClave)
+                .coincidenciaPalabrasClave(coincidenciaPalabrasClave)
+                .build();
     }
 
     /**
@@ -142,13 +335,31 @@ public class DocumentoController {
         return ResponseEntity.ok(dto);
     }
 
+    /**
+     * Endpoint para OBTENER los documentos relacionados con uno: comparten
+     * palabras clave (las más raras pesan más), sector, tipo o referencias.
+     * Se responde con listas ya calculadas en memoria.
+     * Responde a GET /api/v1/documentos/{id}/relacionados
+     *
+     * @param id El ID del documento.
+     * @param limite Cantidad máxima de relacionados (por defecto 10).
+     * @return 200 OK con los documentos activos relacionados, del más al menos relacionado.
+     */
+    @GetMapping("/{id}/relacionados")
+    public ResponseEntity<List<DocumentoRelacionadoDTO>> obtenerRelacionados(
+            @PathVariable Integer id,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(documentoService.relacionados(id, limite));
+    }
+
     /**
      * Endpoint para CREAR un nuevo documento. Recibe un DTO con los datos del
      * documento y sus relaciones (IDs).
      *
      * @param documentoDTO El DocumentoDTO con los datos de creación.
      * @param principal El usuario autenticado (inyectado por Spring Security).
-     * @return 201 CREATED con el DTO del documento recién creado.
+     * @return 201 CREATED con el DTO del documento recién creado, con sus posibles
+     * duplicados (documentos casi iguales que ya existían) en posiblesDuplicados.
      */
     @PostMapping
     public ResponseEntity<DocumentoDTO> crearDocumento(@RequestBody DocumentoDTO documentoDTO, Principal principal) {
@@ -156,10 +367,16 @@ public class DocumentoController {
         logService.info("POST /api/v1/documentos - Solicitud para crear documento: " + documentoDTO.getNumDocumento() + " por " + userEmail);
         Documento nuevoDocumento = documentoService.crearDocumento(documentoDTO, userEmail);
 
+        DocumentoDTO creado = documentoMapper.toDTO(nuevoDocumento);
+        creado.setPosiblesDuplicados(documentoService.posiblesDuplicados(nuevoDocumento));
+        if (!creado.getPosiblesDuplicados().isEmpty()) {
+            logService.warn("POST /api/v1/documentos - El documento " + nuevoDocumento.getIdDocumento()
+                    + " se parece a " + creado.getPosiblesDuplicados().size() + " documento(s) existente(s).");
+        }
         logService.info("POST /api/v1/documentos - Documento creado con ID: " + nuevoDocumento.getIdDocumento());
         return ResponseEntity
                 .status(HttpStatus.CREATED)
-                .body(documentoMapper.toDTO(nuevoDocumento));
+                .body(creado);
     }
 
     /**
@@ -212,6 +429,72 @@ public class DocumentoController {
         return ResponseEntity.ok(conteos);
     }
 
+    /**
+     * Endpoint (ADMIN/EDITOR) para listar los grupos de documentos casi duplicados
+     * de todo el digesto, para revisarlos y unificarlos.
+     * Responde a GET /api/v1/documentos/duplicados
+     *
+     * @param umbral Similitud mínima entre 0 y 1 (por defecto, digesto.duplicados.umbral).
+     * @return 200 OK con los grupos, de los más grandes a los más chicos.
+     */
+    @GetMapping("/duplicados")
+    public ResponseEntity<List<GrupoDuplicadosDTO>> listarDuplicados(@RequestParam(required = false) Double umbral) {
+        logService.info("GET /api/v1/documentos/duplicados (umbral=" + umbral + ")");
+        return ResponseEntity.ok(documentoService.gruposDuplicados(umbral));
+    }
+
+    /**
+     * Endpoint (ADMIN) para consultar el uso de la caché de búsquedas.
+     * @return 200 OK con aciertos, fallos, desalojos e invalidaciones.
+     */
+    @GetMapping("/estadisticas/cache-busquedas")
+    public ResponseEntity<EstadisticasCacheDTO> estadisticasCacheBusquedas() {
+        logService.info("GET /api/v1/documentos/estadisticas/cache-busquedas");
+        return ResponseEntity.ok(cacheBusquedaService.estadisticas());
+    }
+
+    /**
+     * Endpoint (ADMIN) para consultar el uso de la caché del detalle de documentos.
+     * @return 200 OK con aciertos, fallos, desalojos e invalidaciones.
+     */
+    @GetMapping("/estadisticas/cache-detalle")
+    public ResponseEntity<EstadisticasCacheDTO> estadisticasCacheDetalle() {
+        logService.info("GET /api/v1/documentos/estadisticas/cache-detalle");
+        return ResponseEntity.ok(cacheDetalleDocumentos.estadisticas());
+    }
+
+    /**
+     * Endpoint (ADMIN) para consultar cuántas búsquedas simultáneas idénticas se
+     * resolvieron con una sola ejecución.
+     * @return 200 OK con búsquedas ejecutadas, compartidas y en curso.
+     */
+    @GetMapping("/estadisticas/coalescencia-busquedas")
+    public ResponseEntity<EstadisticasCoalescenciaDTO> estadisticasCoalescenciaBusquedas() {
+        logService.info("GET /api/v1/documentos/estadisticas/coalescencia-busquedas");
+        return ResponseEntity.ok(busquedasEnCurso.estadisticas());
+    }
+
+    /**
+     * Endpoint (ADMIN) para consultar el uso de la caché de planes de consultas booleanas.
+     * @return 200 OK con aciertos, fallos, desalojos e invalidaciones.
+     */
+    @GetMapping("/estadisticas/cache-consultas")
+    public ResponseEntity<EstadisticasCacheDTO> estadisticasCacheConsultas() {
+        logService.info("GET /api/v1/documentos/estadisticas/cache-consultas");
+        return ResponseEntity.ok(planesConsultaService.estadisticas());
+    }
+
+    /**
+     * Endpoint (ADMIN) para consultar la caché de segundo nivel de los catálogos
+     * (tipos, estados, sectores, unidades ejecutoras, palabras clave, roles, cargos y estados de usuario).
+     * @return 200 OK con aciertos, fallos, escrituras y entradas de cada región.
+     */
+    @GetMapping("/estadisticas/cache-catalogos")
+    public ResponseEntity<List<EstadisticasRegionCacheDTO>> estadisticasCacheCatalogos() {
+        logService.info("GET /api/v1/documentos/estadisticas/cache-catalogos");
+        return ResponseEntity.ok(cacheCatalogos.estadisticas());
+    }
+
     @PatchMapping("/cambiar-activo/{id}")
     public ResponseEntity<Void> cambiarEstadoActivo(@PathVariable Integer id, Principal principal) {
         String userEmail = principal.getName(); // Obtenemos el usuario
@@ -0,0 +1,12 @@
+package dev.kosten.digesto_system.documento.dto;
+
+/**
+ * Cómo se combinan las palabras clave pedidas en la búsqueda avanzada.
+ * ALGUNA: el documento tiene al menos una (OR, comportamiento histórico).
+ * TODAS: el documento las tiene todas (AND).
+ * @author micael
+ */
+public enum CoincidenciaPalabrasClave {
+    ALGUNA,
+    TODAS
+}
@@ -0,0 +1,29 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Corrección aplicada por la búsqueda difusa a una palabra sin coincidencias
+ * (ej: "ordenansa" se buscó como "ordenanza").
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CorreccionBusquedaDTO {
+
+    /**
+     * La palabra tal como se buscó (normalizada).
+     */
+    private String palabra;
+
+    /**
+     * Los términos por los que se reemplazó, del más parecido al menos parecido.
+     */
+    private List<String> terminos;
+}
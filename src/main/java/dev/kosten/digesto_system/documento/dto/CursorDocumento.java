@@ -0,0 +1,70 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import dev.kosten.digesto_system.exception.ParametroInvalidoException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Posición dentro del listado ordenado por (fechaCreacion DESC, idDocumento DESC).
+ * Viaja al frontend como un texto opaco en Base64 para que no dependa de su formato.
+ * @author micael
+ */
+@Getter
+@AllArgsConstructor
+public class CursorDocumento {
+
+    private static final String SIN_FECHA = "-";
+
+    /**
+     * Fecha de creación del último documento entregado (puede ser null).
+     */
+    private final Date fechaCreacion;
+
+    /**
+     * ID del último documento entregado.
+     */
+    private final Integer idDocumento;
+
+    /**
+     * Crea el cursor que apunta justo después del documento indicado.
+     * @param documento El último documento de la porción entregada.
+     * @return El cursor.
+     */
+    public static CursorDocumento despuesDe(DocumentoTablaDTO documento) {
+        return new CursorDocumento(documento.getFechaCreacion(), documento.getIdDocumento());
+    }
+
+    /**
+     * Codifica el cursor como texto opaco.
+     * @return El cursor en Base64 (URL-safe).
+     */
+    public String codificar() {
+        String fecha = fechaCreacion == null ? SIN_FECHA : Long.toString(fechaCreacion.getTime());
+        String plano = fecha + ":" + idDocumento;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del frontend.
+     * @param cursor El texto opaco generado por {@link #codificar()}.
+     * @return El cursor decodificado.
+     * @throws ParametroInvalidoException si el texto no es un cursor válido.
+     */
+    public static CursorDocumento decodificar(String cursor) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = plano.split(":");
+            if (partes.length != 2) {
+                throw new ParametroInvalidoException("Cursor de paginación inválido.");
+            }
+            Date fecha = SIN_FECHA.equals(partes[0]) ? null : new Date(Long.parseLong(partes[0]));
+            return new CursorDocumento(fecha, Integer.valueOf(partes[1]));
+        } catch (IllegalArgumentException e) {
+            // Base64 mal formado o números inválidos (NumberFormatException es subclase)
+            throw new ParametroInvalidoException("Cursor de paginación inválido.");
+        }
+    }
+}
@@ -56,4 +56,7 @@ public class DocumentoDTO {
     
     // Lista de documentos a los que este "hace referencia".
     private List<Integer> idsReferencias;
+
+    // Solo en la respuesta de creación: documentos casi iguales que ya existían (no bloquea el alta)
+    private List<DocumentoSimilarDTO> posiblesDuplicados;
 }
@@ -2,10 +2,9 @@ package dev.kosten.digesto_system.documento.dto;
 
 import dev.kosten.digesto_system.archivo.dto.ArchivoMapper;
 import dev.kosten.digesto_system.documento.entity.Documento;
-import dev.kosten.digesto_system.estado.dto.EstadoMapper;
 import dev.kosten.digesto_system.palabraclave.dto.PalabraClaveMapper;
-import dev.kosten.digesto_system.tipodocumento.dto.TipoDocumentoMapper;
 
+import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -24,8 +23,6 @@ public class DocumentoMapper {
     // Dependencias inyectadas para mapeo de sub-objetos
     private final ArchivoMapper archivoMapper;
     private final PalabraClaveMapper palabraClaveMapper;
-    private final TipoDocumentoMapper tipoDocumentoMapper;
-    private final EstadoMapper estadoMapper;
     /**
      * Convierte una Entidad (con todos sus objetos) a un DTO (con datos simples).
      * Este método se usa al ENVIAR datos al frontend.
@@ -36,6 +33,26 @@ public class DocumentoMapper {
         if (documento == null) {
             return null;
         }
+        return toDTO(documento,
+            documento.getReferencias().stream()
+                .map(this::toReferenciaDTO)
+                .collect(Collectors.toList()),
+            documento.getReferenciadoPor().stream()
+                .map(this::toReferenciaDTO)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Igual que {@link #toDTO(Documento)}, pero con las referencias ya resueltas
+     * (por ejemplo, leídas con una proyección), así no se inicializan las
+     * colecciones referencias y referenciadoPor del documento.
+     * @param documento La entidad Documento.
+     * @param referencias Los documentos que este referencia.
+     * @param referenciadoPor Los documentos que referencian a este.
+     * @return El DocumentoDTO completo.
+     */
+    public DocumentoDTO toDTO(Documento documento, List<DocumentoReferenciaDTO> referencias,
+                              List<DocumentoReferenciaDTO> referenciadoPor) {
         return DocumentoDTO.builder()
             // Campos simples
             .idDocumento(documento.getIdDocumento())
@@ -62,16 +79,8 @@ public class DocumentoMapper {
                     .map(palabraClaveMapper::toDTO)
                     .collect(Collectors.toList())
             )
-            .referencias(
-                documento.getReferencias().stream()
-                    .map(this::toReferenciaDTO)
-                    .collect(Collectors.toList())
-            )
-            .referenciadoPor(
-                documento.getReferenciadoPor().stream()
-                    .map(this::toReferenciaDTO)
-                    .collect(Collectors.toList())
-            )
+            .referencias(referencias)
+            .referenciadoPor(referenciadoPor)
             .build();
     }
     
@@ -93,28 +102,4 @@ public class DocumentoMapper {
             .activo(documento.isActivo())
             .build();
     }
-
-    /**
-     * Convierte una entidad Documento a un DTO de "Tabla".
-     * DTO "ligero" optimizado para poblar tablas o listas en el frontend.
-     * Contiene solo la información esencial para una fila, evitando la sobrecarga
-     * de cargar colecciones (@ManyToMany, @OneToMany) innecesarias.
-     * @param documento La entidad Documento completa.
-     * @return Un DocumentoTablaDTO listo para una fila de la tabla.
-     */
-    public DocumentoTablaDTO toTablaDTO(Documento documento) {
-        if (documento == null) {
-            return null;
-        }
-        return DocumentoTablaDTO.builder()
-            .idDocumento(documento.getIdDocumento())
-            .titulo(documento.getTitulo())
-            .numDocumento(documento.getNumDocumento())
-            .resumen(documento.getResumen())
-            .fechaCreacion(documento.getFechaCreacion())
-            .activo(documento.isActivo())
-            .tipoDocumento(tipoDocumentoMapper.toDTO(documento.getTipoDocumento()))
-            .estado(estadoMapper.toDTO(documento.getEstado())) 
-            .build();
-    }
 }
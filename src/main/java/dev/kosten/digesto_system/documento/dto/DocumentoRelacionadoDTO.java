@@ -0,0 +1,30 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.util.Date;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO mínimo de un documento relacionado con otro (palabras clave en común,
+ * mismo sector o tipo, cercanía en el grafo de referencias).
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DocumentoRelacionadoDTO {
+    private Integer idDocumento;
+    private String numDocumento;
+    private String titulo;
+    @JsonFormat(pattern = "yyyy-MM-dd", timezone = "America/Argentina/Buenos_Aires")
+    private Date fechaCreacion;
+    private String nombreTipoDocumento;
+    /**
+     * Puntaje de la relación: solo sirve para comparar entre los relacionados de un mismo documento.
+     */
+    private double puntaje;
+}
@@ -0,0 +1,26 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO mínimo de un documento parecido a otro (posible duplicado), con la
+ * similitud estimada entre ambos.
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DocumentoSimilarDTO {
+    private Integer idDocumento;
+    private String numDocumento;
+    private String titulo;
+    private boolean activo;
+    /**
+     * Similitud de Jaccard estimada (entre 0 y 1) de número, título y resumen.
+     */
+    private double similitud;
+}
@@ -3,6 +3,7 @@ package dev.kosten.digesto_system.documento.dto;
 import dev.kosten.digesto_system.estado.dto.EstadoDTO;
 import dev.kosten.digesto_system.tipodocumento.dto.TipoDocumentoDTO;
 import java.util.Date;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -26,4 +27,10 @@ public class DocumentoTablaDTO {
     private String resumen;
     private TipoDocumentoDTO tipoDocumento;
     private EstadoDTO estado;
+
+    /**
+     * Fragmentos resaltados que muestran dónde coincidió la búsqueda simple
+     * (acotados por fila); null si no hubo término de búsqueda.
+     */
+    private List<FragmentoDTO> fragmentos;
 }
@@ -0,0 +1,33 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores de uso de una caché en memoria, para el endpoint de estadísticas.
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EstadisticasCacheDTO {
+    private String nombre;
+    private int entradas;
+    private int maxEntradas;
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+    private long invalidaciones;
+
+    /**
+     * Proporción de aciertos sobre el total de consultas (0 si no hubo consultas).
+     * @return La tasa de aciertos entre 0 y 1.
+     */
+    public double getTasaAciertos() {
+        long consultas = aciertos + fallos;
+        return consultas == 0 ? 0 : (double) aciertos / consultas;
+    }
+}
@@ -0,0 +1,46 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores de la agrupación de búsquedas simultáneas idénticas, para el endpoint de estadísticas.
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EstadisticasCoalescenciaDTO {
+
+    /**
+     * Búsquedas que se ejecutaron contra el índice o la base de datos.
+     */
+    private long ejecutadas;
+
+    /**
+     * Pedidos que no ejecutaron nada: recibieron el resultado de una búsqueda idéntica en curso.
+     */
+    private long compartidas;
+
+    /**
+     * Búsquedas ejecutadas que terminaron con error (sus pedidos agrupados recibieron el mismo error).
+     */
+    private long fallidas;
+
+    /**
+     * Búsquedas ejecutándose en este momento.
+     */
+    private int enCurso;
+
+    /**
+     * Proporción de pedidos resueltos sin ejecutar (0 si no hubo pedidos).
+     * @return La tasa entre 0 y 1.
+     */
+    public double getTasaCompartidas() {
+        long pedidos = ejecutadas + compartidas;
+        return pedidos == 0 ? 0 : (double) compartidas / pedidos;
+    }
+}
@@ -0,0 +1,35 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores de una región de la caché de segundo nivel de Hibernate
+ * (entidades de un catálogo o resultados de consultas), para el endpoint de estadísticas.
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EstadisticasRegionCacheDTO {
+    private String region;
+    /**
+     * Elementos en memoria (-1 si el proveedor no lo informa).
+     */
+    private long entradas;
+    private long aciertos;
+    private long fallos;
+    private long escrituras;
+
+    /**
+     * Proporción de aciertos sobre el total de lecturas (0 si no hubo lecturas).
+     * @return La tasa de aciertos entre 0 y 1.
+     */
+    public double getTasaAciertos() {
+        long lecturas = aciertos + fallos;
+        return lecturas == 0 ? 0 : (double) aciertos / lecturas;
+    }
+}
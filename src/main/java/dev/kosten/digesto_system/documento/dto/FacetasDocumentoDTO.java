@@ -0,0 +1,27 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Conteos por faceta de una búsqueda de documentos: cuántos resultados hay
+ * para cada tipo, sector, estado, unidad ejecutora, palabra clave y año.
+ * Cada mapa va de ID (o año) a cantidad y solo incluye valores con resultados.
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FacetasDocumentoDTO {
+    private long total;
+    private Map<Integer, Long> porTipoDocumento;
+    private Map<Integer, Long> porSector;
+    private Map<Integer, Long> porEstado;
+    private Map<Integer, Long> porUnidadEjecutora;
+    private Map<Integer, Long> porPalabraClave;
+    private Map<Integer, Long> porAnio;
+}
@@ -0,0 +1,167 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import dev.kosten.digesto_system.documento.indice.NormalizadorTexto;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Agrupa los filtros opcionales de la búsqueda de documentos (simple y avanzada)
+ * para no tener que pasar doce parámetros sueltos entre el controlador y el servicio.
+ * Un campo null (o vacío) significa "sin filtro".
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FiltrosBusquedaDocumento {
+
+    // --- Búsqueda Simple ---
+    private String search;
+    private Integer idTipoDocumento;
+    private Boolean soloActivos;
+
+    /**
+     * Si es true, las palabras de search sin coincidencias se corrigen
+     * (errores de tipeo a distancia de edición 1 o 2).
+     */
+    private Boolean busquedaDifusa;
+
+    /**
+     * Si es true, las palabras de search también se buscan en el texto de los PDF
+     * adjuntos (índice de contenido, por inicio de palabra).
+     */
+    private Boolean incluirContenido;
+
+    // --- Búsqueda Avanzada ---
+    private String titulo;
+    private String numDocumento;
+    private Integer idSector;
+    private Integer idEstado;
+    private Date fechaDesde;
+    private Date fechaHasta;
+    private String excluirPalabras;
+    private List<Integer> idsPalabrasClave;
+    private CoincidenciaPalabrasClave coincidenciaPalabrasClave;
+
+    // --- Consulta booleana (se combina con AND con cualquiera de los dos modos) ---
+
+    /**
+     * Consulta con frases, AND/OR/NOT y campos (num:, titulo:, tipo:, sector:).
+     * Ver AnalizadorConsulta.
+     */
+    private String consulta;
+
+    /**
+     * Indica si hay una consulta booleana con contenido.
+     * @return true si consulta tiene texto.
+     */
+    public boolean tieneConsulta() {
+        return tieneTexto(consulta);
+    }
+
+    /**
+     * Indica si se está usando la Búsqueda Avanzada
+     * (si CUALQUIERA de los campos avanzados tiene un valor).
+     * En ese caso la búsqueda simple (search) se ignora.
+     * @return true si hay al menos un filtro avanzado.
+     */
+    public boolean esBusquedaAvanzada() {
+        return tieneTexto(titulo)
+                || tieneTexto(numDocumento)
+                || idSector != null
+                || idEstado != null
+                || fechaDesde != null
+                || fechaHasta != null
+                || tieneTexto(excluirPalabras)
+                || (idsPalabrasClave != null && !idsPalabrasClave.isEmpty());
+    }
+
+    /**
+     * Indica si hay un término de búsqueda simple con contenido.
+     * @return true si search no es null ni está en blanco.
+     */
+    public boolean tieneBusquedaSimple() {
+        return tieneTexto(search);
+    }
+
+    /**
+     * Devuelve una clave canónica del conjunto de filtros efectivos, usada para
+     * cachear resultados y conteos. Dos búsquedas equivalentes producen la misma
+     * clave: los textos se recortan y pasan a minúsculas, las palabras de los
+     * términos (que se combinan con AND) se ordenan y se eliminan repetidas,
+     * y los IDs de palabras clave se ordenan. Los filtros que el modo de búsqueda
+     * ignora (avanzados en la simple, search en la avanzada) no forman parte de la clave.
+     * @return La clave normalizada.
+     */
+    public String clave() {
+        StringBuilder clave = new StringBuilder();
+        clave.append("tipo=").append(idTipoDocumento);
+        clave.append("|activos=").append(Boolean.TRUE.equals(soloActivos));
+        if (tieneConsulta()) {
+            // Los operadores distinguen mayúsculas: la consulta va tal cual, solo recortada
+            clave.append("|consulta=").append(consulta.trim());
+        }
+
+        if (!esBusquedaAvanzada()) {
+            clave.append("|q=").append(palabrasOrdenadas(search));
+            if (Boolean.TRUE.equals(busquedaDifusa)) {
+                clave.append("|difusa");
+            }
+            if (Boolean.TRUE.equals(incluirContenido)) {
+                clave.append("|contenido");
+            }
+            return clave.toString();
+        }
+
+        clave.append("|titulo=").append(palabrasOrdenadas(titulo));
+        clave.append("|num=").append(NormalizadorTexto.normalizar(numDocumento));
+        clave.append("|sector=").append(idSector);
+        clave.append("|estado=").append(idEstado);
+        clave.append("|desde=").append(fechaDesde == null ? "" : fechaDesde.getTime());
+        clave.append("|hasta=").append(fechaHasta == null ? "" : fechaHasta.getTime());
+        clave.append("|excluir=").append(palabrasOrdenadas(excluirPalabras));
+        clave.append("|pc=").append(idsOrdenados(idsPalabrasClave));
+        if (requiereTodasLasPalabrasClave()) {
+            clave.append("|pcTodas");
+        }
+        return clave.toString();
+    }
+
+    /**
+     * Indica si las palabras clave se combinan con AND (el documento debe tenerlas todas).
+     * Por defecto (null) se combinan con OR.
+     * @return true si se pidió coincidencia con TODAS.
+     */
+    public boolean requiereTodasLasPalabrasClave() {
+        return coincidenciaPalabrasClave == CoincidenciaPalabrasClave.TODAS;
+    }
+
+    private static String palabrasOrdenadas(String texto) {
+        return String.join(" ", new TreeSet<>(Arrays.asList(NormalizadorTexto.tokenizar(texto))));
+    }
+
+    private static String idsOrdenados(List<Integer> ids) {
+        if (ids == null) {
+            return "";
+        }
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private static boolean tieneTexto(String valor) {
+        return valor != null && !valor.trim().isEmpty();
+    }
+}
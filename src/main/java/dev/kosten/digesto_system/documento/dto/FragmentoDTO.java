@@ -0,0 +1,34 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fragmento de texto que explica por qué un documento coincidió con la búsqueda
+ * simple. El texto viene escapado para HTML, con las palabras que coinciden
+ * entre etiquetas &lt;mark&gt;.
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FragmentoDTO {
+
+    /**
+     * De dónde sale el fragmento: "titulo", "resumen" o "contenido" (texto de un PDF).
+     */
+    private String campo;
+
+    /**
+     * El archivo del fragmento cuando el campo es "contenido"; null en los demás.
+     */
+    private Integer idArchivo;
+
+    /**
+     * El fragmento resaltado.
+     */
+    private String texto;
+}
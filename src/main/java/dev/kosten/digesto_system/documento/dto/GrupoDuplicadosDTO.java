@@ -0,0 +1,22 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Grupo de documentos que son, probablemente, la misma norma cargada más de una vez.
+ * El primero es el de menor ID (el cargado antes); la similitud de los demás
+ * es contra ese primero.
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class GrupoDuplicadosDTO {
+    private int cantidad;
+    private List<DocumentoSimilarDTO> documentos;
+}
@@ -0,0 +1,81 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Página de resultados del listado de documentos.
+ * Conserva los nombres de campo de Page (content, totalElements, totalPages, number...)
+ * para no romper el frontend, y agrega totalExacto para indicar si el total
+ * fue contado en esta consulta o viene de un conteo aproximado/en caché.
+ * En modo SIN_TOTAL, totalElements y totalPages vienen en null y solo se informa hasNext.
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PaginaDocumentosDTO {
+    private List<DocumentoTablaDTO> content;
+    private int number;
+    private int size;
+    private int numberOfElements;
+    private Long totalElements;
+    private Integer totalPages;
+    private boolean first;
+    private boolean last;
+    private boolean hasNext;
+    private boolean empty;
+
+    /**
+     * true si totalElements es el resultado de un COUNT de esta misma consulta.
+     */
+    private boolean totalExacto;
+
+    /**
+     * Correcciones aplicadas por la búsqueda difusa (vacía si no hizo falta
+     * ninguna); null si no se pidió búsqueda difusa.
+     */
+    private List<CorreccionBusquedaDTO> correcciones;
+
+    /**
+     * Arma la respuesta a partir de una Page con total contado.
+     * @param pagina La página de resultados.
+     * @return La respuesta con totalExacto = true.
+     */
+    public static PaginaDocumentosDTO desde(Page<DocumentoTablaDTO> pagina) {
+        return desde(pagina, pagina.getTotalElements(), true);
+    }
+
+    /**
+     * Arma la respuesta a partir de una Slice (sin COUNT) y un total opcional.
+     * @param porcion La porción de resultados.
+     * @param total El total conocido o estimado, o null si no se informa.
+     * @param totalExacto Si el total es exacto.
+     * @return La respuesta.
+     */
+    public static PaginaDocumentosDTO desde(Slice<DocumentoTablaDTO> porcion, Long total, boolean totalExacto) {
+        Integer totalPages = null;
+        if (total != null) {
+            totalPages = porcion.getSize() == 0 ? 1 : (int) Math.ceil((double) total / porcion.getSize());
+        }
+        return PaginaDocumentosDTO.builder()
+                .content(porcion.getContent())
+                .number(porcion.getNumber())
+                .size(porcion.getSize())
+                .numberOfElements(porcion.getNumberOfElements())
+                .totalElements(total)
+                .totalPages(totalPages)
+                .first(porcion.isFirst())
+                .last(porcion.isLast())
+                .hasNext(porcion.hasNext())
+                .empty(porcion.isEmpty())
+                .totalExacto(total != null && totalExacto)
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import java.util.Date;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO mínimo para las sugerencias del buscador (autocompletado).
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SugerenciaDocumentoDTO {
+    private Integer idDocumento;
+    private String numDocumento;
+    private String titulo;
+    private Date fechaCreacion;
+}
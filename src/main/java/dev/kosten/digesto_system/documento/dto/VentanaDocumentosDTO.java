@@ -0,0 +1,27 @@
+package dev.kosten.digesto_system.documento.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta de la paginación por cursor (keyset) del listado de documentos.
+ * A diferencia de Page, no informa total ni número de página: solo la porción
+ * pedida y el cursor opaco para pedir la siguiente.
+ * @author micael
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class VentanaDocumentosDTO {
+    private List<DocumentoTablaDTO> content;
+    private int size;
+    private boolean hayMas;
+    /**
+     * Cursor a enviar en el próximo pedido, o null si no hay más resultados.
+     */
+    private String siguienteCursor;
+}
@@ -1,7 +1,9 @@
 package dev.kosten.digesto_system.documento.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import dev.kosten.digesto_system.archivo.entity.Archivo;
+import dev.kosten.digesto_system.documento.indice.NormalizadorTexto;
 import dev.kosten.digesto_system.estado.entity.Estado;
 import dev.kosten.digesto_system.palabraclave.entity.PalabraClave;
 import dev.kosten.digesto_system.sector.Sector;
@@ -14,6 +16,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
@@ -26,7 +29,9 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -44,7 +49,21 @@ import lombok.Setter;
  * @author Matias
  */
 @Entity
-@Table(name = "documento")
+@Table(name = "documento", indexes = {
+    // Paginación por cursor: ORDER BY fechaCreacion DESC, idDocumento DESC (db/migraciones/002)
+    @Index(name = "idx_documento_fecha_id", columnList = "fechaCreacion, idDocumento"),
+    @Index(name = "idx_documento_activo_fecha_id", columnList = "activo, fechaCreacion, idDocumento"),
+    // Búsqueda sin lower() sobre las columnas normalizadas (db/migraciones/003)
+    @Index(name = "idx_documento_titulo_norm", columnList = "tituloNormalizado"),
+    @Index(name = "idx_documento_num_norm", columnList = "numDocumentoNormalizado"),
+    // Orden del listado por tipo o estado y luego por fecha (db/migraciones/004, ver CampoOrden)
+    @Index(name = "idx_documento_tipo_fecha_id", columnList = "tipoDocumento_idTipoDocumento, fechaCreacion, idDocumento"),
+    @Index(name = "idx_documento_estado_fecha_id", columnList = "estado_idestado, fechaCreacion, idDocumento"),
+    @Index(name = "idx_documento_activo_tipo_fecha_id", columnList = "activo, tipoDocumento_idTipoDocumento, fechaCreacion, idDocumento"),
+    @Index(name = "idx_documento_activo_estado_fecha_id", columnList = "activo, estado_idestado, fechaCreacion, idDocumento"),
+    @Index(name = "idx_documento_activo_num", columnList = "activo, numDocumento, idDocumento"),
+    @Index(name = "idx_documento_activo_titulo", columnList = "activo, titulo, idDocumento")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -92,6 +111,21 @@ public class Documento {
     @Column(name = "numDocumento", length = 45, unique = true) 
     private String numDocumento;
     
+    // --- Columnas normalizadas para búsqueda (minúsculas y sin tildes) ---
+    // Se calculan con normalizarCamposDeBusqueda() en cada alta/edición; no se exponen en JSON.
+
+    @JsonIgnore
+    @Column(name = "tituloNormalizado", length = 60)
+    private String tituloNormalizado;
+
+    @JsonIgnore
+    @Column(name = "resumenNormalizado", length = 145)
+    private String resumenNormalizado;
+
+    @JsonIgnore
+    @Column(name = "numDocumentoNormalizado", length = 45)
+    private String numDocumentoNormalizado;
+
     @Column(name = "activo", nullable = false)
     @Builder.Default // Para que el Builder use este valor por defecto
     private boolean activo = true; // Por defecto es visible
@@ -107,6 +141,15 @@ public class Documento {
     @JoinColumn(name = "tipoDocumento_idTipoDocumento", nullable = false) 
     private TipoDocumento tipoDocumento;
 
+    /**
+     * Copia de solo lectura de la FK del tipo (la escribe la relación tipoDocumento).
+     * Permite ordenar por tipo sobre la propia tabla, sin JOIN (ver CampoOrden).
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "tipoDocumento_idTipoDocumento", insertable = false, updatable = false)
+    private Integer idTipoDocumento;
+
     /**
      * (FK) El Estado actual del documento (ej. "Vigente", "Derogado").
      * Es una relación obligatoria (nullable = false).
@@ -115,6 +158,15 @@ public class Documento {
     @JoinColumn(name = "estado_idestado", nullable = false) 
     private Estado estado;
 
+    /**
+     * Copia de solo lectura de la FK del estado (la escribe la relación estado).
+     * Permite ordenar por estado sobre la propia tabla, sin JOIN (ver CampoOrden).
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "estado_idestado", insertable = false, updatable = false)
+    private Integer idEstado;
+
     /**
      * (FK) El Sector que emitió el documento.
      * (ej. "Rectorado", "Secretaría Académica", "Consejo Superior").
@@ -180,4 +232,22 @@ public class Documento {
     @ManyToMany(mappedBy = "referencias", fetch = FetchType.LAZY)
     @Builder.Default
     private Set<Documento> referenciadoPor = new HashSet<>();
+
+    /**
+     * Recalcula las columnas normalizadas (tituloNormalizado, resumenNormalizado,
+     * numDocumentoNormalizado) a partir de los valores actuales.
+     * @return true si alguna cambió.
+     */
+    public boolean normalizarCamposDeBusqueda() {
+        String titulo = NormalizadorTexto.normalizarONulo(this.titulo);
+        String resumen = NormalizadorTexto.normalizarONulo(this.resumen);
+        String numero = NormalizadorTexto.normalizarONulo(this.numDocumento);
+        boolean cambio = !Objects.equals(titulo, tituloNormalizado)
+                || !Objects.equals(resumen, resumenNormalizado)
+                || !Objects.equals(numero, numDocumentoNormalizado);
+        tituloNormalizado = titulo;
+        resumenNormalizado = resumen;
+        numDocumentoNormalizado = numero;
+        return cambio;
+    }
 }
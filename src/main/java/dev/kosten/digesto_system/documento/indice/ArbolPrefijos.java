@@ -0,0 +1,286 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Árbol de prefijos (trie) de términos a ids de documento, pensado para sugerencias.
+ * Cada nodo guarda, además de sus hijos, los {@code capacidad} mejores ids de todo
+ * su subárbol según un orden dado (por ejemplo, los más recientes). Así, responder
+ * "los mejores k para este prefijo" es recorrer el prefijo y leer un arreglo,
+ * sin enumerar el subárbol.
+ *
+ * Los hijos se guardan en arreglos ordenados de char en lugar de mapas, para que
+ * el árbol ocupe poco con cientos de miles de términos. No es thread-safe:
+ * quien lo use debe sincronizar el acceso.
+ * @author micael
+ */
+final class ArbolPrefijos {
+
+    /**
+     * Orden entre ids: negativo si {@code a} va antes (es mejor) que {@code b}.
+     */
+    interface Orden {
+        int comparar(int a, int b);
+    }
+
+    private static final char[] SIN_LETRAS = new char[0];
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+    private final int capacidad;
+    private final Orden orden;
+    private final Nodo raiz = new Nodo();
+
+    ArbolPrefijos(int capacidad, Orden orden) {
+        this.capacidad = capacidad;
+        this.orden = orden;
+    }
+
+    /**
+     * Carga masiva: asigna de una vez la lista de ids de un término.
+     * Después de cargar todos los términos hay que llamar a {@link #recalcularTodo()}.
+     * @param termino El término normalizado.
+     * @param ids Los ids ordenados de forma ascendente.
+     */
+    void cargar(String termino, int[] ids) {
+        Nodo nodo = raiz;
+        for (int i = 0; i < termino.length(); i++) {
+            nodo = nodo.hijoOCrear(termino.charAt(i));
+        }
+        nodo.propios = nodo.propios.length == 0 ? ids : ListasPosteo.union(Arrays.asList(nodo.propios, ids));
+    }
+
+    /**
+     * Recalcula los mejores ids y las cantidades de todo el árbol, de las hojas a la raíz.
+     */
+    void recalcularTodo() {
+        // Recorrido en post-orden iterativo: los términos largos no deben agotar la pila
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        Deque<Nodo> postOrden = new ArrayDeque<>();
+        pendientes.push(raiz);
+        while (!pendientes.isEmpty()) {
+            Nodo nodo = pendientes.pop();
+            postOrden.push(nodo);
+            for (Nodo hijo : nodo.hijos) {
+                pendientes.push(hijo);
+            }
+        }
+        while (!postOrden.isEmpty()) {
+            recalcular(postOrden.pop());
+        }
+    }
+
+    /**
+     * Agrega un id a un término, actualizando los mejores de cada prefijo.
+     * @param termino El término normalizado.
+     * @param id El id del documento.
+     */
+    void insertar(String termino, int id) {
+        Nodo[] camino = new Nodo[termino.length() + 1];
+        camino[0] = raiz;
+        for (int i = 0; i < termino.length(); i++) {
+            camino[i + 1] = camino[i].hijoOCrear(termino.charAt(i));
+        }
+        Nodo fin = camino[termino.length()];
+        int[] antes = fin.propios;
+        fin.propios = ListasPosteo.insertar(antes, id);
+        if (fin.propios == antes) {
+            return;
+        }
+        for (Nodo nodo : camino) {
+            nodo.cantidad++;
+            nodo.mejores = conCandidato(nodo.mejores, id);
+        }
+    }
+
+    /**
+     * Quita un id de un término. Los prefijos que lo tenían entre sus mejores
+     * se recalculan a partir de sus hijos, y las ramas que quedan vacías se podan.
+     * @param termino El término normalizado.
+     * @param id El id del documento.
+     */
+    void quitar(String termino, int id) {
+        Nodo[] camino = new Nodo[termino.length() + 1];
+        camino[0] = raiz;
+        for (int i = 0; i < termino.length(); i++) {
+            camino[i + 1] = camino[i].hijo(termino.charAt(i));
+            if (camino[i + 1] == null) {
+                return;
+            }
+        }
+        Nodo fin = camino[termino.length()];
+        int[] antes = fin.propios;
+        fin.propios = ListasPosteo.quitar(antes, id);
+        if (fin.propios == antes) {
+            return;
+        }
+        for (int i = termino.length(); i >= 0; i--) {
+            Nodo nodo = camino[i];
+            nodo.cantidad--;
+            if (contiene(nodo.mejores, id)) {
+                recalcular(nodo);
+            }
+            if (i > 0 && nodo.cantidad == 0) {
+                camino[i - 1].quitarHijo(termino.charAt(i - 1));
+            }
+        }
+    }
+
+    /**
+     * Devuelve los mejores ids (en orden) entre todos los términos que empiezan con el prefijo.
+     * @param prefijo El prefijo normalizado.
+     * @return Hasta {@code capacidad} ids, o un arreglo vacío.
+     */
+    int[] mejores(String prefijo) {
+        Nodo nodo = buscar(prefijo);
+        return nodo == null ? ListasPosteo.VACIA : nodo.mejores;
+    }
+
+    /**
+     * Cantidad de pares (término, id) bajo el prefijo; sirve para elegir el prefijo más selectivo.
+     * @param prefijo El prefijo normalizado.
+     * @return La cantidad, o 0 si ningún término empieza así.
+     */
+    int cantidad(String prefijo) {
+        Nodo nodo = buscar(prefijo);
+        return nodo == null ? 0 : nodo.cantidad;
+    }
+
+    /**
+     * Devuelve todos los ids de los términos que empiezan con el prefijo.
+     * @param prefijo El prefijo normalizado.
+     * @return Los ids ordenados de forma ascendente, sin repetidos.
+     */
+    int[] todos(String prefijo) {
+        Nodo inicio = buscar(prefijo);
+        if (inicio == null) {
+            return ListasPosteo.VACIA;
+        }
+        List<int[]> listas = new ArrayList<>();
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        pendientes.push(inicio);
+        while (!pendientes.isEmpty()) {
+            Nodo nodo = pendientes.pop();
+            if (nodo.propios.length > 0) {
+                listas.add(nodo.propios);
+            }
+            for (Nodo hijo : nodo.hijos) {
+                pendientes.push(hijo);
+            }
+        }
+        return ListasPosteo.union(listas);
+    }
+
+    // --- Métodos internos ---
+
+    private Nodo buscar(String prefijo) {
+        Nodo nodo = raiz;
+        for (int i = 0; i < prefijo.length() && nodo != null; i++) {
+            nodo = nodo.hijo(prefijo.charAt(i));
+        }
+        return nodo;
+    }
+
+    /**
+     * Recalcula mejores y cantidad de un nodo a partir de sus propios ids y de los
+     * mejores de sus hijos (los mejores del subárbol están siempre entre ellos).
+     */
+    private void recalcular(Nodo nodo) {
+        int[] mejores = ListasPosteo.VACIA;
+        int cantidad = nodo.propios.length;
+        for (int id : nodo.propios) {
+            mejores = conCandidato(mejores, id);
+        }
+        for (Nodo hijo : nodo.hijos) {
+            cantidad += hijo.cantidad;
+            for (int id : hijo.mejores) {
+                mejores = conCandidato(mejores, id);
+            }
+        }
+        nodo.mejores = mejores;
+        nodo.cantidad = cantidad;
+    }
+
+    /**
+     * Inserta el id en la lista de mejores si le corresponde un lugar,
+     * descartando el último cuando se supera la capacidad.
+     */
+    private int[] conCandidato(int[] mejores, int id) {
+        if (contiene(mejores, id)) {
+            return mejores;
+        }
+        int pos = 0;
+        while (pos < mejores.length && orden.comparar(mejores[pos], id) <= 0) {
+            pos++;
+        }
+        if (pos >= capacidad) {
+            return mejores;
+        }
+        int largo = Math.min(mejores.length + 1, capacidad);
+        int[] nueva = new int[largo];
+        System.arraycopy(mejores, 0, nueva, 0, pos);
+        nueva[pos] = id;
+        System.arraycopy(mejores, pos, nueva, pos + 1, largo - pos - 1);
+        return nueva;
+    }
+
+    private static boolean contiene(int[] ids, int id) {
+        for (int actual : ids) {
+            if (actual == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Nodo {
+        private char[] letras = SIN_LETRAS;
+        private Nodo[] hijos = SIN_HIJOS;
+        private int[] propios = ListasPosteo.VACIA; // ids cuyo término termina en este nodo
+        private int[] mejores = ListasPosteo.VACIA; // mejores ids del subárbol, en orden
+        private int cantidad; // pares (término, id) del subárbol
+
+        Nodo hijo(char letra) {
+            int pos = Arrays.binarySearch(letras, letra);
+            return pos >= 0 ? hijos[pos] : null;
+        }
+
+        Nodo hijoOCrear(char letra) {
+            int pos = Arrays.binarySearch(letras, letra);
+            if (pos >= 0) {
+                return hijos[pos];
+            }
+            int insercion = -pos - 1;
+            Nodo nuevo = new Nodo();
+            char[] nuevasLetras = new char[letras.length + 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length + 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, insercion);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, insercion);
+            nuevasLetras[insercion] = letra;
+            nuevosHijos[insercion] = nuevo;
+            System.arraycopy(letras, insercion, nuevasLetras, insercion + 1, letras.length - insercion);
+            System.arraycopy(hijos, insercion, nuevosHijos, insercion + 1, hijos.length - insercion);
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+            return nuevo;
+        }
+
+        void quitarHijo(char letra) {
+            int pos = Arrays.binarySearch(letras, letra);
+            if (pos < 0) {
+                return;
+            }
+            char[] nuevasLetras = new char[letras.length - 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length - 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, pos);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, pos);
+            System.arraycopy(letras, pos + 1, nuevasLetras, pos, letras.length - pos - 1);
+            System.arraycopy(hijos, pos + 1, nuevosHijos, pos, hijos.length - pos - 1);
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import dev.kosten.digesto_system.documento.dto.FragmentoDTO;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.springframework.stereotype.Component;
+
+/**
+ * Índice invertido en memoria del texto de los archivos PDF de cada documento.
+ * Guarda, para cada palabra del contenido, un {@link MapaBits} con los archivos
+ * que la tienen, y para cada archivo su documento. Lo alimenta
+ * ExtraccionTextoService a medida que termina de extraer cada PDF.
+ *
+ * A diferencia de IndiceDocumentos (subcadena, como LIKE '%x%'), una palabra de
+ * la búsqueda coincide con las palabras del contenido que EMPIEZAN con ella:
+ * el vocabulario de los PDF es demasiado grande para recorrerlo entero.
+ *
+ * Para los fragmentos resaltados se guarda también, comprimido, el comienzo del
+ * texto de cada archivo y la posición de la primera aparición de cada palabra.
+ * @author micael
+ */
+@Component
+public class ContenidoArchivos {
+
+    /**
+     * Tope de palabras distintas por archivo (los PDF enormes no inflan el índice sin límite).
+     */
+    private static final int MAX_TERMINOS_POR_ARCHIVO = 50_000;
+
+    /**
+     * Caracteres del comienzo de cada texto que se guardan para armar fragmentos.
+     */
+    private static final int MAX_CARACTERES_EXTRACTO = 20_000;
+
+    /**
+     * Archivos de un mismo documento que se revisan como mucho al armar sus fragmentos.
+     */
+    private static final int MAX_ARCHIVOS_POR_FRAGMENTO = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegidos por 'lock'
+    private final TreeMap<String, MapaBits> archivosPorTermino = new TreeMap<>();
+    private final Map<Integer, Archivo> archivos = new HashMap<>();
+    private final Map<Integer, TreeSet<Integer>> archivosPorDocumento = new HashMap<>();
+
+    /**
+     * Indexa (o reindexa) el texto de un archivo.
+     * @param idArchivo El ID del archivo.
+     * @param idDocumento El ID de su documento.
+     * @param texto El texto extraído del PDF.
+     */
+    public void indexar(int idArchivo, int idDocumento, String texto) {
+        // Término -> posición de su primera aparición (el orden de inserción es el del texto)
+        Map<String, Integer> terminos = new LinkedHashMap<>();
+        int[] posiciones = NormalizadorTexto.posicionesDePalabras(texto);
+        for (int i = 0; i + 1 < posiciones.length && terminos.size() < MAX_TERMINOS_POR_ARCHIVO; i += 2) {
+            for (String palabra : NormalizadorTexto.palabras(texto.substring(posiciones[i], posiciones[i + 1]))) {
+                if (palabra.length() > 1) {
+                    terminos.putIfAbsent(palabra, posiciones[i]);
+                }
+            }
+        }
+        byte[] extracto = comprimir(texto.length() > MAX_CARACTERES_EXTRACTO
+                ? texto.substring(0, MAX_CARACTERES_EXTRACTO) : texto);
+
+        lock.writeLock().lock();
+        try {
+            quitarArchivo(idArchivo);
+            String[] guardados = new String[terminos.size()];
+            int[] primeras = new int[terminos.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entrada : terminos.entrySet()) {
+                String termino = entrada.getKey();
+                MapaBits conTermino = archivosPorTermino.get(termino);
+                if (conTermino == null) {
+                    conTermino = new MapaBits();
+                    archivosPorTermino.put(termino, conTermino);
+                } else {
+                    termino = archivosPorTermino.floorKey(termino); // Se comparte la instancia del mapa
+                }
+                conTermino.agregar(idArchivo);
+                guardados[i] = termino;
+                primeras[i++] = entrada.getValue();
+            }
+            archivos.put(idArchivo, new Archivo(idDocumento, guardados, primeras, extracto));
+            archivosPorDocumento.computeIfAbsent(idDocumento, d -> new TreeSet<>()).add(idArchivo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un archivo del índice (por ejemplo, porque se borró).
+     * @param idArchivo El ID del archivo.
+     */
+    public void quitar(int idArchivo) {
+        lock.writeLock().lock();
+        try {
+            quitarArchivo(idArchivo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Documentos con algún archivo que contiene la palabra de la búsqueda.
+     * Si la palabra tiene signos ("12/2024"), cada parte debe estar en el mismo archivo.
+     * @param palabra Una palabra de la búsqueda, normalizada.
+     * @return Los idDocumento, ordenados y sin repetidos.
+     */
+    public int[] documentosCon(String palabra) {
+        String[] partes = NormalizadorTexto.palabras(palabra);
+        if (partes.length == 0) {
+            return ListasPosteo.VACIA;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<MapaBits> porParte = new ArrayList<>(partes.length);
+            for (String parte : partes) {
+                NavigableMap<String, MapaBits> conPrefijo =
+                        archivosPorTermino.subMap(parte, true, parte + Character.MAX_VALUE, false);
+                if (conPrefijo.isEmpty()) {
+                    return ListasPosteo.VACIA;
+                }
+                porParte.add(MapaBits.union(new ArrayList<>(conPrefijo.values())));
+            }
+            int[] conTodas = MapaBits.interseccion(porParte).aArreglo();
+
+            ListaEnteros documentos = new ListaEnteros();
+            for (int idArchivo : conTodas) {
+                Archivo archivo = archivos.get(idArchivo);
+                if (archivo != null) {
+                    documentos.agregar(archivo.idDocumento);
+                }
+            }
+            return ordenadosSinRepetir(documentos.aArreglo());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Arma fragmentos resaltados del texto de los PDF de un documento: uno por
+     * archivo, alrededor de la primera palabra que empieza con alguna de las partes.
+     * Solo se miran los primeros MAX_CARACTERES_EXTRACTO caracteres de cada texto.
+     * @param idDocumento El ID del documento.
+     * @param partes Las palabras de la búsqueda, normalizadas y sin signos.
+     * @param largo Largo máximo de cada fragmento.
+     * @param maximo Cantidad máxima de fragmentos.
+     * @return Los fragmentos, en orden de idArchivo (vacío si no hay coincidencias).
+     */
+    public List<FragmentoDTO> fragmentos(int idDocumento, String[] partes, int largo, int maximo) {
+        List<FragmentoDTO> fragmentos = new ArrayList<>();
+        if (partes.length == 0 || maximo <= 0) {
+            return fragmentos;
+        }
+
+        lock.readLock().lock();
+        try {
+            TreeSet<Integer> delDocumento = archivosPorDocumento.get(idDocumento);
+            if (delDocumento == null) {
+                return fragmentos;
+            }
+            int revisados = 0;
+            for (Integer idArchivo : delDocumento) {
+                if (fragmentos.size() >= maximo || revisados++ >= MAX_ARCHIVOS_POR_FRAGMENTO) {
+                    break;
+                }
+                Archivo archivo = archivos.get(idArchivo);
+                int posicion = archivo.primeraPosicion(partes);
+                if (posicion < 0) {
+                    continue;
+                }
+                String extracto = descomprimir(archivo.extracto);
+                if (posicion < extracto.length()) {
+                    fragmentos.add(new FragmentoDTO("contenido", idArchivo,
+                            Resaltador.ventana(extracto, posicion, partes, true, largo)));
+                }
+            }
+            return fragmentos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return La cantidad de archivos indexados.
+     */
+    public int cantidadArchivos() {
+        lock.readLock().lock();
+        try {
+            return archivos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void quitarArchivo(int idArchivo) {
+        Archivo anterior = archivos.remove(idArchivo);
+        if (anterior == null) {
+            return;
+        }
+        TreeSet<Integer> delDocumento = archivosPorDocumento.get(anterior.idDocumento);
+        if (delDocumento != null) {
+            delDocumento.remove(idArchivo);
+            if (delDocumento.isEmpty()) {
+                archivosPorDocumento.remove(anterior.idDocumento);
+            }
+        }
+        for (String termino : anterior.terminos) {
+            MapaBits conTermino = archivosPorTermino.get(termino);
+            if (conTermino != null) {
+                conTermino.quitar(idArchivo);
+                if (conTermino.cardinalidad() == 0) {
+                    archivosPorTermino.remove(termino);
+                }
+            }
+        }
+    }
+
+    private static byte[] comprimir(String texto) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(texto.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(texto.length() / 3 + 16);
+            byte[] bloque = new byte[4096];
+            while (!deflater.finished()) {
+                salida.write(bloque, 0, deflater.deflate(bloque));
+            }
+            return salida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String descomprimir(byte[] comprimido) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido);
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(comprimido.length * 3);
+            byte[] bloque = new byte[4096];
+            while (!inflater.finished()) {
+                int leidos = inflater.inflate(bloque);
+                if (leidos == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                salida.write(bloque, 0, leidos);
+            }
+            return salida.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            return ""; // Lo comprimió este mismo índice: no debería pasar
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Lo que se guarda de cada archivo indexado.
+     */
+    private static final class Archivo {
+        private final int idDocumento;
+        private final String[] terminos; // En orden de primera aparición
+        private final int[] primeras; // Posición de la primera aparición de cada término
+        private final byte[] extracto; // Comienzo del texto, comprimido
+
+        Archivo(int idDocumento, String[] terminos, int[] primeras, byte[] extracto) {
+            this.idDocumento = idDocumento;
+            this.terminos = terminos;
+            this.primeras = primeras;
+            this.extracto = extracto;
+        }
+
+        /**
+         * Posición del primer término que empieza con alguna de las partes, o -1.
+         * Los términos están en orden de aparición: el primero que coincide es el más temprano.
+         */
+        int primeraPosicion(String[] partes) {
+            for (int i = 0; i < terminos.length && primeras[i] < MAX_CARACTERES_EXTRACTO; i++) {
+                for (String parte : partes) {
+                    if (terminos[i].startsWith(parte)) {
+                        return primeras[i];
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static int[] ordenadosSinRepetir(int[] ids) {
+        Arrays.sort(ids);
+        int largo = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (largo == 0 || ids[largo - 1] != ids[i]) {
+                ids[largo++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, largo);
+    }
+}
@@ -0,0 +1,73 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import dev.kosten.digesto_system.documento.dto.FacetasDocumentoDTO;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Acumula los conteos por faceta de las filas que cumplen un filtro.
+ * Usa un long[] por faceta indexado por el código de diccionario de la columna,
+ * así cada fila suma sin buscar en mapas ni crear objetos.
+ * @author micael
+ */
+final class ConteoFacetas {
+
+    private final TablaDocumentos tabla;
+    private final long[] porTipo;
+    private final long[] porSector;
+    private final long[] porEstado;
+    private final long[] porUnidad;
+    private final long[] porAnio;
+    private final long[] porPalabraClave;
+    private long total;
+
+    ConteoFacetas(TablaDocumentos tabla) {
+        this.tabla = tabla;
+        this.porTipo = new long[tabla.tipos.diccionario.tamanio()];
+        this.porSector = new long[tabla.sectores.diccionario.tamanio()];
+        this.porEstado = new long[tabla.estados.diccionario.tamanio()];
+        this.porUnidad = new long[tabla.unidades.diccionario.tamanio()];
+        this.porAnio = new long[tabla.anios.diccionario.tamanio()];
+        this.porPalabraClave = new long[tabla.diccionarioPalabrasClave.tamanio()];
+    }
+
+    void sumar(int fila) {
+        total++;
+        sumar(porTipo, tabla.tipos.codigos[fila]);
+        sumar(porSector, tabla.sectores.codigos[fila]);
+        sumar(porEstado, tabla.estados.codigos[fila]);
+        sumar(porUnidad, tabla.unidades.codigos[fila]);
+        sumar(porAnio, tabla.anios.codigos[fila]);
+        for (int codigo : tabla.palabrasClave[fila]) {
+            porPalabraClave[codigo]++;
+        }
+    }
+
+    FacetasDocumentoDTO aDTO() {
+        return FacetasDocumentoDTO.builder()
+                .total(total)
+                .porTipoDocumento(aMapa(porTipo, tabla.tipos.diccionario))
+                .porSector(aMapa(porSector, tabla.sectores.diccionario))
+                .porEstado(aMapa(porEstado, tabla.estados.diccionario))
+                .porUnidadEjecutora(aMapa(porUnidad, tabla.unidades.diccionario))
+                .porPalabraClave(aMapa(porPalabraClave, tabla.diccionarioPalabrasClave))
+                .porAnio(aMapa(porAnio, tabla.anios.diccionario))
+                .build();
+    }
+
+    private static void sumar(long[] conteos, int codigo) {
+        if (codigo != TablaDocumentos.SIN_VALOR) {
+            conteos[codigo]++;
+        }
+    }
+
+    private static Map<Integer, Long> aMapa(long[] conteos, TablaDocumentos.Diccionario diccionario) {
+        Map<Integer, Long> mapa = new LinkedHashMap<>();
+        for (int codigo = 0; codigo < conteos.length; codigo++) {
+            if (conteos[codigo] > 0) {
+                mapa.put(diccionario.valorDe(codigo), conteos[codigo]);
+            }
+        }
+        return mapa;
+    }
+}
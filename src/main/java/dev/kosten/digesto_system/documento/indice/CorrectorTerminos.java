@@ -0,0 +1,208 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Corrector de errores de tipeo sobre el vocabulario de títulos y resúmenes.
+ * Para una palabra sin coincidencias busca los términos del vocabulario a
+ * distancia de edición 1 o 2 (inserción, borrado, reemplazo o trasposición de
+ * dos letras vecinas: "ordenansa", "ordneanza" y "ordenaza" dan "ordenanza").
+ *
+ * El vocabulario está en un TreeMap ordenado y se recorre como un árbol de
+ * prefijos: la fila de la matriz de distancias de cada prefijo se reutiliza
+ * para todos los términos que lo comparten, y cuando ningún valor de la fila
+ * queda dentro de la distancia máxima se saltea el rango entero de términos
+ * con ese prefijo. Así no se compara la palabra contra todo el vocabulario ni
+ * hace falta guardar las variantes de cada término (como en SymSpell).
+ *
+ * No es thread-safe: IndiceDocumentos lo usa siempre con su lock tomado.
+ * @author micael
+ */
+final class CorrectorTerminos {
+
+    /**
+     * Largo mínimo de palabra a corregir: con menos letras casi todo está a distancia 1.
+     */
+    private static final int LARGO_MINIMO = 3;
+
+    /**
+     * Hasta este largo se admite una sola edición; desde el siguiente, dos.
+     */
+    private static final int LARGO_MAXIMO_UNA_EDICION = 4;
+
+    // término -> cantidad de documentos que lo usan (se quita al llegar a 0)
+    private final TreeMap<String, Integer> vocabulario = new TreeMap<>();
+
+    /**
+     * Suma (o resta) las palabras de título y resumen de un documento al vocabulario.
+     * @param doc El documento.
+     * @param delta 1 al agregarlo, -1 al quitarlo.
+     */
+    void registrar(DocumentoIndexado doc, int delta) {
+        for (String termino : terminosDe(doc)) {
+            vocabulario.merge(termino, delta, (actual, suma) -> actual + suma > 0 ? actual + suma : null);
+        }
+    }
+
+    int tamanio() {
+        return vocabulario.size();
+    }
+
+    /**
+     * @return Una copia del vocabulario (término -> documentos que lo usan), para la instantánea en disco.
+     */
+    Map<String, Integer> copiarVocabulario() {
+        return new HashMap<>(vocabulario);
+    }
+
+    /**
+     * Carga un término tal como estaba en la instantánea (sin recorrer documentos).
+     * @param termino El término.
+     * @param documentos Cantidad de documentos que lo usan.
+     */
+    void cargar(String termino, int documentos) {
+        vocabulario.put(termino, documentos);
+    }
+
+    /**
+     * Busca los términos del vocabulario más cercanos a la palabra.
+     * @param palabra La palabra normalizada.
+     * @param maximo Cantidad máxima de términos a devolver.
+     * @return Los términos, del más cercano al más lejano (a igual distancia,
+     * el más usado primero); vacío si la palabra es muy corta o no hay ninguno.
+     */
+    List<String> corregir(String palabra, int maximo) {
+        if (palabra.length() < LARGO_MINIMO || maximo <= 0 || vocabulario.isEmpty()) {
+            return List.of();
+        }
+        int distanciaMaxima = palabra.length() <= LARGO_MAXIMO_UNA_EDICION ? 1 : 2;
+        int columnas = palabra.length() + 1;
+
+        List<Candidato> candidatos = new ArrayList<>();
+        // filas[i] = distancias entre los primeros i caracteres del término y cada prefijo de la palabra
+        int[][] filas = new int[16][];
+        filas[0] = new int[columnas];
+        for (int j = 0; j < columnas; j++) {
+            filas[0][j] = j;
+        }
+        String anterior = "";
+        String termino = vocabulario.firstKey();
+        while (termino != null) {
+            int largo = termino.length();
+            if (largo + 1 > filas.length) {
+                filas = Arrays.copyOf(filas, Math.max(largo + 1, filas.length * 2));
+            }
+            // Las filas del prefijo compartido con el término anterior ya están calculadas
+            int desde = prefijoComun(anterior, termino) + 1;
+            int podadaEn = -1;
+            for (int i = desde; i <= largo; i++) {
+                if (filas[i] == null) {
+                    filas[i] = new int[columnas];
+                }
+                if (calcularFila(filas, i, termino, palabra) > distanciaMaxima) {
+                    podadaEn = i;
+                    break;
+                }
+            }
+
+            if (podadaEn > 0) {
+                // Ningún término que empiece con este prefijo puede quedar dentro de la distancia
+                anterior = termino.substring(0, podadaEn);
+                termino = vocabulario.higherKey(anterior + Character.MAX_VALUE);
+                continue;
+            }
+            int distancia = filas[largo][columnas - 1];
+            if (distancia > 0 && distancia <= distanciaMaxima) {
+                candidatos.add(new Candidato(termino, distancia, vocabulario.get(termino)));
+            }
+            anterior = termino;
+            termino = vocabulario.higherKey(termino);
+        }
+
+        candidatos.sort(Comparator.comparingInt((Candidato c) -> c.distancia)
+                .thenComparing(c -> -c.usos)
+                .thenComparing(c -> c.termino));
+        List<String> terminos = new ArrayList<>(Math.min(maximo, candidatos.size()));
+        for (int i = 0; i < candidatos.size() && i < maximo; i++) {
+            terminos.add(candidatos.get(i).termino);
+        }
+        return terminos;
+    }
+
+    /**
+     * Calcula la fila i de la matriz de distancias (Damerau restringida: la
+     * trasposición usa la fila i - 2).
+     * @return El mínimo de la fila, para poder podar.
+     */
+    private static int calcularFila(int[][] filas, int i, String termino, String palabra) {
+        int[] previa = filas[i - 1];
+        int[] fila = filas[i];
+        char letra = termino.charAt(i - 1);
+        fila[0] = i;
+        int minimo = i;
+        for (int j = 1; j < fila.length; j++) {
+            int costo = letra == palabra.charAt(j - 1) ? 0 : 1;
+            int valor = Math.min(Math.min(previa[j] + 1, fila[j - 1] + 1), previa[j - 1] + costo);
+            if (i > 1 && j > 1 && letra == palabra.charAt(j - 2) && termino.charAt(i - 2) == palabra.charAt(j - 1)) {
+                valor = Math.min(valor, filas[i - 2][j - 2] + 1);
+            }
+            fila[j] = valor;
+            minimo = Math.min(minimo, valor);
+        }
+        return minimo;
+    }
+
+    private static int prefijoComun(String a, String b) {
+        int largo = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < largo && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Palabras de título y resumen que tienen al menos una letra (los números
+     * parciales ya los resuelve la búsqueda por subcadena).
+     */
+    private static Set<String> terminosDe(DocumentoIndexado doc) {
+        Set<String> terminos = new LinkedHashSet<>();
+        for (String texto : new String[] {doc.getTitulo(), doc.getResumen()}) {
+            for (String palabra : NormalizadorTexto.palabras(texto)) {
+                if (palabra.length() >= LARGO_MINIMO && tieneLetra(palabra)) {
+                    terminos.add(palabra);
+                }
+            }
+        }
+        return terminos;
+    }
+
+    private static boolean tieneLetra(String palabra) {
+        for (int i = 0; i < palabra.length(); i++) {
+            if (Character.isLetter(palabra.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Candidato {
+        private final String termino;
+        private final int distancia;
+        private final int usos;
+
+        Candidato(String termino, int distancia, int usos) {
+            this.termino = termino;
+            this.distancia = distancia;
+            this.usos = usos;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.palabraclave.entity.PalabraClave;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Copia inmutable y liviana de los datos de un Documento que necesitan los
+ * índices en memoria. Se arma dentro de la transacción (cuando las relaciones
+ * LAZY todavía se pueden leer) y se aplica al índice después del commit.
+ * @author micael
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+public class DocumentoIndexado {
+
+    private final Integer idDocumento;
+    private final String titulo;
+    private final String resumen;
+    private final String numDocumento;
+    private final Date fechaCreacion;
+    private final boolean activo;
+    private final Integer idTipoDocumento;
+    private final String nombreTipoDocumento;
+    private final Integer idSector;
+    private final Integer idEstado;
+    private final Integer idUnidadEjecutora;
+
+    /**
+     * IDs de las palabras clave del documento, ordenados de forma ascendente.
+     */
+    private final int[] idsPalabrasClave;
+
+    /**
+     * IDs de los documentos a los que este hace referencia, ordenados de forma
+     * ascendente. Solo en las copias armadas desde la entidad (las de la carga
+     * masiva y la instantánea no los leen): null = desconocidas.
+     */
+    private final int[] idsReferencias;
+
+    /**
+     * Arma la copia a partir de una entidad gestionada.
+     * Debe llamarse dentro de una transacción abierta porque lee el TipoDocumento,
+     * las palabras clave y las referencias.
+     * @param documento La entidad Documento.
+     * @return La copia para el índice.
+     */
+    public static DocumentoIndexado desde(Documento documento) {
+        int[] idsPalabrasClave = documento.getPalabrasClave().stream()
+                .mapToInt(PalabraClave::getIdPalabraClave)
+                .sorted()
+                .toArray();
+        int[] idsReferencias = documento.getReferencias().stream()
+                .mapToInt(Documento::getIdDocumento)
+                .sorted()
+                .toArray();
+        return DocumentoIndexado.builder()
+                .idDocumento(documento.getIdDocumento())
+                .titulo(documento.getTitulo())
+                .resumen(documento.getResumen())
+                .numDocumento(documento.getNumDocumento())
+                .fechaCreacion(documento.getFechaCreacion())
+                .activo(documento.isActivo())
+                .idTipoDocumento(documento.getTipoDocumento().getIdTipoDocumento())
+                .nombreTipoDocumento(documento.getTipoDocumento().getNombre())
+                .idSector(documento.getSector() == null ? null : documento.getSector().getIdSector())
+                .idEstado(documento.getEstado() == null ? null : documento.getEstado().getIdEstado())
+                .idUnidadEjecutora(documento.getUnidadEjecutora() == null
+                        ? null : documento.getUnidadEjecutora().getIdUnidadEjecutora())
+                .idsPalabrasClave(idsPalabrasClave)
+                .idsReferencias(idsReferencias)
+                .build();
+    }
+
+    /**
+     * Arma la copia a partir de una fila de la carga masiva del índice.
+     * @param fila La proyección leída con DocumentoRepository.findAllParaIndice().
+     * @param idsPalabrasClave Las palabras clave del documento, ordenadas.
+     * @return La copia para el índice.
+     */
+    public static DocumentoIndexado desde(DocumentoIndiceProyeccion fila, int[] idsPalabrasClave) {
+        return DocumentoIndexado.builder()
+                .idDocumento(fila.getIdDocumento())
+                .titulo(fila.getTitulo())
+                .resumen(fila.getResumen())
+                .numDocumento(fila.getNumDocumento())
+                .fechaCreacion(fila.getFechaCreacion())
+                .activo(Boolean.TRUE.equals(fila.getActivo()))
+                .idTipoDocumento(fila.getIdTipoDocumento())
+                .nombreTipoDocumento(fila.getNombreTipoDocumento())
+                .idSector(fila.getIdSector())
+                .idEstado(fila.getIdEstado())
+                .idUnidadEjecutora(fila.getIdUnidadEjecutora())
+                .idsPalabrasClave(idsPalabrasClave)
+                .build();
+    }
+
+    /**
+     * Devuelve la fecha de creación en milisegundos, usada para ordenar en memoria.
+     * @return Los milisegundos de la fecha o Long.MIN_VALUE si no tiene fecha.
+     */
+    public long getFechaCreacionMillis() {
+        return fechaCreacion == null ? Long.MIN_VALUE : fechaCreacion.getTime();
+    }
+
+    /**
+     * Devuelve la copia con el nombre actual de su tipo de documento.
+     * @param nombresDeTipos idTipoDocumento -> nombre actual.
+     * @return Esta misma copia si el nombre no cambió (o el tipo no está en el mapa), o una nueva.
+     */
+    public DocumentoIndexado conNombreDeTipo(Map<Integer, String> nombresDeTipos) {
+        if (!nombresDeTipos.containsKey(idTipoDocumento)
+                || Objects.equals(nombresDeTipos.get(idTipoDocumento), nombreTipoDocumento)) {
+            return this;
+        }
+        return toBuilder().nombreTipoDocumento(nombresDeTipos.get(idTipoDocumento)).build();
+    }
+}
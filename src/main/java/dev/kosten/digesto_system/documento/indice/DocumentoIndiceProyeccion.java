@@ -0,0 +1,34 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.Date;
+
+/**
+ * Proyección de Spring Data con las columnas que necesita el índice en memoria.
+ * Permite cargar toda la tabla en una sola consulta, sin hidratar entidades
+ * ni disparar cargas LAZY por cada fila.
+ * @author micael
+ */
+public interface DocumentoIndiceProyeccion {
+
+    Integer getIdDocumento();
+
+    String getTitulo();
+
+    String getResumen();
+
+    String getNumDocumento();
+
+    Date getFechaCreacion();
+
+    Boolean getActivo();
+
+    Integer getIdTipoDocumento();
+
+    String getNombreTipoDocumento();
+
+    Integer getIdSector();
+
+    Integer getIdEstado();
+
+    Integer getIdUnidadEjecutora();
+}
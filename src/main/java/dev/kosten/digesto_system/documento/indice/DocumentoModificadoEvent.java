@@ -0,0 +1,21 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Evento que publica DocumentoService cada vez que una operación de escritura
+ * cambia un documento (alta, modificación, baja lógica o cambio de activo).
+ * Los índices en memoria lo escuchan después del commit para mantenerse al día
+ * sin volver a consultar la base de datos.
+ * @author micael
+ */
+@Getter
+@RequiredArgsConstructor
+public class DocumentoModificadoEvent {
+
+    /**
+     * Estado del documento tal como quedó al confirmar la transacción.
+     */
+    private final DocumentoIndexado documento;
+}
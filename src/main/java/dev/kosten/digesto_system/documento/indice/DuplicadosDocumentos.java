@@ -0,0 +1,453 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import dev.kosten.digesto_system.documento.dto.DocumentoSimilarDTO;
+import dev.kosten.digesto_system.documento.dto.GrupoDuplicadosDTO;
+import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
+import dev.kosten.digesto_system.log.LogService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Detección de documentos casi duplicados ("Res. 12/24" y "RES-012-2024") con
+ * firmas MinHash y LSH (locality sensitive hashing), en memoria.
+ *
+ * El texto de cada documento (número, título y resumen) se normaliza, se le
+ * quitan los ceros a la izquierda a los números y los años de cuatro cifras se
+ * llevan a dos; de ese texto se toman los trigramas de caracteres. La firma son
+ * los {@link #HASHES} mínimos de los trigramas bajo otras tantas funciones de
+ * hash: la proporción de mínimos iguales entre dos firmas estima la similitud
+ * de Jaccard de sus trigramas.
+ *
+ * Las firmas se parten en {@link #BANDAS} bandas de {@link #FILAS_POR_BANDA}
+ * valores, y cada banda se guarda en una cubeta por su hash. Dos documentos son
+ * candidatos si coinciden en alguna banda entera, así buscar los parecidos a
+ * uno es mirar {@link #BANDAS} cubetas, sin recorrer la tabla. Con 8 x 4, un
+ * par con similitud 0,7 es candidato el 89% de las veces y uno con 0,9, el
+ * 99,9%; uno con 0,3, menos del 7%. Los candidatos se confirman comparando las
+ * firmas completas contra digesto.duplicados.umbral.
+ *
+ * Se construye al iniciar la aplicación y se actualiza con cada
+ * {@link DocumentoModificadoEvent} confirmado, igual que SugerenciasDocumentos.
+ * Incluye los documentos inactivos: una norma derogada cargada de nuevo también es un duplicado.
+ * @author micael
+ */
+@Component
+@RequiredArgsConstructor
+public class DuplicadosDocumentos {
+
+    /**
+     * Funciones de hash de la firma MinHash (= BANDAS * FILAS_POR_BANDA).
+     */
+    static final int HASHES = 32;
+    static final int BANDAS = 8;
+    static final int FILAS_POR_BANDA = 4;
+
+    private static final int TAMANIO_TRIGRAMA = 3;
+
+    /**
+     * Semillas fijas: las firmas tienen que ser las mismas en cada arranque.
+     */
+    private static final long[] SEMILLAS = new SplittableRandom(0x5EED_D16E_5705L).longs(HASHES).toArray();
+
+    private final DocumentoRepository documentoRepo;
+    private final LogService logService;
+
+    /**
+     * Similitud estimada mínima para considerar que dos documentos son duplicados.
+     */
+    @Value("${digesto.duplicados.umbral:0.7}")
+    private double umbral;
+
+    /**
+     * Máximo de candidatos que se comparan por documento (acota una cubeta muy poblada,
+     * como la de un título genérico repetido en cientos de documentos).
+     */
+    @Value("${digesto.duplicados.max-candidatos:200}")
+    private int maxCandidatos;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegidos por 'lock'
+    private Map<Integer, DocumentoIndexado> documentos = new HashMap<>();
+    private Map<Integer, int[]> firmas = new HashMap<>();
+    private Map<Long, int[]> cubetas;
+    private List<DocumentoIndexado> pendientes;
+
+    private volatile boolean listo = false;
+
+    /**
+     * Calcula las firmas cuando la aplicación terminó de arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlIniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Recalcula todas las firmas leyendo la tabla documento en una sola consulta.
+     * Los cambios que lleguen mientras se construye se guardan y se reaplican al final.
+     */
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long inicio = System.currentTimeMillis();
+            List<DocumentoIndiceProyeccion> filas = documentoRepo.findAllParaIndice();
+
+            Map<Integer, DocumentoIndexado> nuevosDocumentos = new HashMap<>(filas.size() * 2);
+            Map<Integer, int[]> nuevasFirmas = new HashMap<>(filas.size() * 2);
+            Map<Long, ListaEnteros> acumuladas = new HashMap<>();
+            // Las filas vienen ordenadas por id, así que cada cubeta queda ordenada
+            for (DocumentoIndiceProyeccion fila : filas) {
+                DocumentoIndexado doc = DocumentoIndexado.desde(fila, ListasPosteo.VACIA);
+                int[] firma = firmaDe(doc);
+                if (firma == null) {
+                    continue;
+                }
+                nuevosDocumentos.put(doc.getIdDocumento(), doc);
+                nuevasFirmas.put(doc.getIdDocumento(), firma);
+                for (long clave : clavesDeBandas(firma)) {
+                    acumuladas.computeIfAbsent(clave, c -> new ListaEnteros()).agregar(doc.getIdDocumento());
+                }
+            }
+            Map<Long, int[]> nuevasCubetas = new HashMap<>(acumuladas.size() * 2);
+            acumuladas.forEach((clave, ids) -> nuevasCubetas.put(clave, ids.aArreglo()));
+
+            lock.writeLock().lock();
+            try {
+                documentos = nuevosDocumentos;
+                firmas = nuevasFirmas;
+                cubetas = nuevasCubetas;
+                for (DocumentoIndexado doc : pendientes) {
+                    aplicar(doc);
+                }
+                pendientes = null;
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logService.info("Firmas de duplicados construidas: " + nuevasFirmas.size() + " documentos, "
+                    + nuevasCubetas.size() + " cubetas en " + (System.currentTimeMillis() - inicio) + " ms.");
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logService.error("No se pudieron construir las firmas de duplicados.", e);
+        }
+    }
+
+    /**
+     * Aplica a las firmas un cambio ya confirmado en la base de datos.
+     * @param evento El evento publicado por DocumentoService.
+     */
+    @TransactionalEventListener
+    public void alModificarDocumento(DocumentoModificadoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            if (pendientes != null) {
+                pendientes.add(evento.getDocumento());
+            }
+            if (cubetas != null) {
+                aplicar(evento.getDocumento());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si las firmas terminaron su construcción inicial.
+     * @return true si están listas.
+     */
+    public boolean estaListo() {
+        return listo;
+    }
+
+    /**
+     * Devuelve los documentos que probablemente son el mismo que el dado, sin
+     * recorrer la tabla: solo se miran las cubetas de sus bandas.
+     * @param numDocumento Número del documento.
+     * @param titulo Título del documento.
+     * @param resumen Resumen del documento.
+     * @param idExcluido ID que no se devuelve (el propio documento), o null.
+     * @param limite Cantidad máxima de documentos a devolver.
+     * @return Los parecidos con similitud de al menos digesto.duplicados.umbral, del más parecido al menos.
+     */
+    public List<DocumentoSimilarDTO> similaresA(String numDocumento, String titulo, String resumen,
+                                                Integer idExcluido, int limite) {
+        int[] firma = firmaDe(numDocumento, titulo, resumen);
+        if (firma == null || limite <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (cubetas == null) {
+                return Collections.emptyList();
+            }
+            Set<Integer> candidatos = new LinkedHashSet<>();
+            for (long clave : clavesDeBandas(firma)) {
+                int[] ids = cubetas.get(clave);
+                for (int i = 0; ids != null && i < ids.length && candidatos.size() < maxCandidatos; i++) {
+                    candidatos.add(ids[i]);
+                }
+            }
+            if (idExcluido != null) {
+                candidatos.remove(idExcluido);
+            }
+
+            List<DocumentoSimilarDTO> similares = new ArrayList<>();
+            for (int id : candidatos) {
+                double similitud = similitud(firma, firmas.get(id));
+                if (similitud >= umbral) {
+                    similares.add(aDTO(documentos.get(id), similitud));
+                }
+            }
+            similares.sort(Comparator.comparingDouble(DocumentoSimilarDTO::getSimilitud).reversed()
+                    .thenComparing(DocumentoSimilarDTO::getIdDocumento));
+            return similares.size() > limite ? new ArrayList<>(similares.subList(0, limite)) : similares;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agrupa todo el corpus en grupos de probables duplicados. Solo se comparan
+     * los pares que comparten alguna cubeta, y los pares que superan el umbral
+     * se unen (union-find): si A se parece a B y B a C, los tres quedan en un grupo.
+     * @param umbralPedido Similitud mínima (null = digesto.duplicados.umbral); por debajo
+     *                     de ~0,5 la mayoría de los pares parecidos no comparten cubeta y no se encuentran.
+     * @return Los grupos de dos o más documentos, de los más grandes a los más chicos.
+     */
+    public List<GrupoDuplicadosDTO> grupos(Double umbralPedido) {
+        double minimo = umbralPedido == null ? umbral : umbralPedido;
+        lock.readLock().lock();
+        try {
+            if (cubetas == null) {
+                return Collections.emptyList();
+            }
+            Map<Integer, Integer> padres = new HashMap<>();
+            Set<Long> comparados = new HashSet<>();
+            for (int[] ids : cubetas.values()) {
+                for (int i = 0; i < ids.length; i++) {
+                    // Igual que en similaresA: en una cubeta enorme se compara cada uno con los siguientes maxCandidatos
+                    for (int j = i + 1; j < ids.length && j <= i + maxCandidatos; j++) {
+                        long par = ((long) ids[i] << 32) | (ids[j] & 0xFFFFFFFFL);
+                        if (comparados.add(par) && similitud(firmas.get(ids[i]), firmas.get(ids[j])) >= minimo) {
+                            unir(padres, ids[i], ids[j]);
+                        }
+                    }
+                }
+            }
+
+            Map<Integer, List<Integer>> porRaiz = new HashMap<>();
+            for (Integer id : padres.keySet()) {
+                porRaiz.computeIfAbsent(raiz(padres, id), r -> new ArrayList<>()).add(id);
+            }
+            List<GrupoDuplicadosDTO> grupos = new ArrayList<>(porRaiz.size());
+            for (List<Integer> ids : porRaiz.values()) {
+                Collections.sort(ids);
+                int[] primera = firmas.get(ids.get(0));
+                List<DocumentoSimilarDTO> miembros = ids.stream()
+                        .map(id -> aDTO(documentos.get(id), similitud(primera, firmas.get(id))))
+                        .collect(Collectors.toList());
+                grupos.add(GrupoDuplicadosDTO.builder().cantidad(miembros.size()).documentos(miembros).build());
+            }
+            grupos.sort(Comparator.comparingInt(GrupoDuplicadosDTO::getCantidad).reversed()
+                    .thenComparing(g -> g.getDocumentos().get(0).getIdDocumento()));
+            return grupos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Métodos internos (se llaman con el lock tomado) ---
+
+    private void aplicar(DocumentoIndexado doc) {
+        int id = doc.getIdDocumento();
+        int[] anterior = firmas.remove(id);
+        if (anterior != null) {
+            for (long clave : clavesDeBandas(anterior)) {
+                int[] ids = ListasPosteo.quitar(cubetas.getOrDefault(clave, ListasPosteo.VACIA), id);
+                if (ids.length == 0) {
+                    cubetas.remove(clave);
+                } else {
+                    cubetas.put(clave, ids);
+                }
+            }
+            documentos.remove(id);
+        }
+        int[] firma = firmaDe(doc);
+        if (firma != null) {
+            documentos.put(id, doc);
+            firmas.put(id, firma);
+            for (long clave : clavesDeBandas(firma)) {
+                cubetas.put(clave, ListasPosteo.insertar(cubetas.getOrDefault(clave, ListasPosteo.VACIA), id));
+            }
+        }
+    }
+
+    private static void unir(Map<Integer, Integer> padres, int a, int b) {
+        int raizA = raiz(padres, a);
+        int raizB = raiz(padres, b);
+        if (raizA != raizB) {
+            padres.put(Math.max(raizA, raizB), Math.min(raizA, raizB));
+        }
+    }
+
+    private static int raiz(Map<Integer, Integer> padres, int id) {
+        int actual = id;
+        Integer padre;
+        while ((padre = padres.putIfAbsent(actual, actual)) != null && padre != actual) {
+            // Compresión a la mitad: cada nodo pasa a apuntar a su abuelo
+            Integer abuelo = padres.get(padre);
+            padres.put(actual, abuelo);
+            actual = abuelo;
+        }
+        return actual;
+    }
+
+    private static DocumentoSimilarDTO aDTO(DocumentoIndexado doc, double similitud) {
+        return DocumentoSimilarDTO.builder()
+                .idDocumento(doc.getIdDocumento())
+                .numDocumento(doc.getNumDocumento())
+                .titulo(doc.getTitulo())
+                .activo(doc.isActivo())
+                .similitud(Math.round(similitud * 1000) / 1000.0)
+                .build();
+    }
+
+    // --- Firmas ---
+
+    private static int[] firmaDe(DocumentoIndexado doc) {
+        return firmaDe(doc.getNumDocumento(), doc.getTitulo(), doc.getResumen());
+    }
+
+    /**
+     * Calcula la firma MinHash del texto canónico de un documento.
+     * @return La firma, o null si el documento no tiene texto.
+     */
+    static int[] firmaDe(String numDocumento, String titulo, String resumen) {
+        String texto = textoCanonico(numDocumento, titulo, resumen);
+        if (texto.isEmpty()) {
+            return null;
+        }
+        int[] firma = new int[HASHES];
+        Arrays.fill(firma, Integer.MAX_VALUE);
+        int ultimo = Math.max(0, texto.length() - TAMANIO_TRIGRAMA);
+        for (int inicio = 0; inicio <= ultimo; inicio++) {
+            // Los tres caracteres (16 bits cada uno) entran enteros en un long: no se crea ningún String
+            long trigrama = 0;
+            for (int k = inicio; k < Math.min(texto.length(), inicio + TAMANIO_TRIGRAMA); k++) {
+                trigrama = (trigrama << 16) | texto.charAt(k);
+            }
+            for (int h = 0; h < HASHES; h++) {
+                int valor = (int) mezclar(trigrama ^ SEMILLAS[h]);
+                if (valor < firma[h]) {
+                    firma[h] = valor;
+                }
+            }
+        }
+        return firma;
+    }
+
+    /**
+     * Número, título y resumen normalizados, en palabras separadas por un espacio,
+     * con los números sin ceros a la izquierda y los años 19xx/20xx en dos cifras
+     * ("RES-012-2024" da "res 12 24", igual que "Res. 12/24").
+     */
+    static String textoCanonico(String numDocumento, String titulo, String resumen) {
+        StringBuilder texto = new StringBuilder();
+        for (String campo : new String[] {numDocumento, titulo, resumen}) {
+            for (String palabra : NormalizadorTexto.palabras(campo)) {
+                if (texto.length() > 0) {
+                    texto.append(' ');
+                }
+                texto.append(canonica(palabra));
+            }
+        }
+        return texto.toString();
+    }
+
+    private static String canonica(String palabra) {
+        for (int i = 0; i < palabra.length(); i++) {
+            if (palabra.charAt(i) < '0' || palabra.charAt(i) > '9') {
+                return palabra;
+            }
+        }
+        int ceros = 0;
+        while (ceros < palabra.length() - 1 && palabra.charAt(ceros) == '0') {
+            ceros++;
+        }
+        String numero = palabra.substring(ceros);
+        if (numero.length() == 4 && (numero.startsWith("19") || numero.startsWith("20"))) {
+            return numero.substring(2);
+        }
+        return numero;
+    }
+
+    /**
+     * Fracción de posiciones iguales entre dos firmas (estimación de Jaccard).
+     */
+    static double similitud(int[] a, int[] b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        int iguales = 0;
+        for (int h = 0; h < HASHES; h++) {
+            if (a[h] == b[h]) {
+                iguales++;
+            }
+        }
+        return (double) iguales / HASHES;
+    }
+
+    private static long[] clavesDeBandas(int[] firma) {
+        long[] claves = new long[BANDAS];
+        for (int banda = 0; banda < BANDAS; banda++) {
+            long clave = banda;
+            for (int fila = 0; fila < FILAS_POR_BANDA; fila++) {
+                clave = clave * 0x9E3779B97F4A7C15L + firma[banda * FILAS_POR_BANDA + fila];
+            }
+            claves[banda] = mezclar(clave);
+        }
+        return claves;
+    }
+
+    /**
+     * Mezcla final de MurmurHash3 (64 bits): reparte cada bit de la entrada en toda la salida.
+     */
+    private static long mezclar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xFF51AFD7ED558CCDL;
+        valor ^= valor >>> 33;
+        valor *= 0xC4CEB93FE1A85EC3L;
+        valor ^= valor >>> 33;
+        return valor;
+    }
+}
@@ -0,0 +1,13 @@
+package dev.kosten.digesto_system.documento.indice;
+
+/**
+ * Proyección de Spring Data de una fila de la tabla etiqueta
+ * (relación documento - palabra clave), para la carga masiva de los índices.
+ * @author micael
+ */
+public interface EtiquetaProyeccion {
+
+    Integer getIdDocumento();
+
+    Integer getIdPalabraClave();
+}
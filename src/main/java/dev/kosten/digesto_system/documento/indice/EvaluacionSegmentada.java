@@ -0,0 +1,173 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Evalúa un {@link FiltroEnMemoria} sobre las filas de una {@link TablaDocumentos}
+ * repartidas en segmentos que se recorren en paralelo en un ForkJoinPool.
+ * Cada segmento cuenta sus coincidencias y se queda con sus mejores "limite"
+ * filas por fecha (heap acotado); al unir dos segmentos se mezclan sus listas
+ * ya ordenadas y se vuelve a cortar en el límite. Así una búsqueda sobre
+ * millones de filas usa todos los núcleos y nunca ordena más que limite * segmentos filas.
+ *
+ * Las filas se leen sin lock propio: quien llama debe tener tomado el lock de
+ * lectura de IndiceDocumentos durante toda la evaluación (las escrituras
+ * esperan, y las tareas del pool ven la tabla tal como estaba al enviarlas).
+ * @author micael
+ */
+final class EvaluacionSegmentada {
+
+    private static final int[] SIN_FILAS = new int[0];
+
+    private final ForkJoinPool pool;
+    private final int maxSegmentos;
+    private final int filasPorSegmento;
+
+    /**
+     * @param pool El pool donde se evalúan los segmentos (null = siempre en el hilo que llama).
+     * @param maxSegmentos Cantidad máxima de segmentos (normalmente, los hilos del pool).
+     * @param filasPorSegmento Mínimo de filas de un segmento: con menos, repartir cuesta más de lo que ahorra.
+     */
+    EvaluacionSegmentada(ForkJoinPool pool, int maxSegmentos, int filasPorSegmento) {
+        this.pool = pool;
+        this.maxSegmentos = Math.max(1, maxSegmentos);
+        this.filasPorSegmento = Math.max(1, filasPorSegmento);
+    }
+
+    /**
+     * Resultado de una evaluación: el total de filas que cumplen y las mejores, en orden.
+     */
+    static final class Resultado {
+        final int total;
+        final int[] filas;
+
+        Resultado(int total, int[] filas) {
+            this.total = total;
+            this.filas = filas;
+        }
+    }
+
+    /**
+     * Evalúa el filtro y devuelve las primeras filas por fechaCreacion (desempata idDocumento).
+     * @param tabla La tabla con la que se armó el filtro.
+     * @param filtro Las condiciones a evaluar en cada fila.
+     * @param candidatos IDs de documento a evaluar, o null para recorrer todas las filas.
+     * @param limite Cantidad máxima de filas a devolver.
+     * @param descendente true para las más recientes primero.
+     * @return El total de coincidencias y las mejores filas.
+     */
+    Resultado evaluar(TablaDocumentos tabla, FiltroEnMemoria filtro, int[] candidatos, int limite, boolean descendente) {
+        int cantidad = candidatos == null ? tabla.tamanio() : candidatos.length;
+        int segmentos = segmentosPara(cantidad);
+        Segmento todo = new Segmento(tabla, filtro, candidatos, 0, cantidad,
+                Math.max(0, limite), descendente, (cantidad + segmentos - 1) / Math.max(1, segmentos));
+        return segmentos <= 1 || pool == null ? todo.compute() : pool.invoke(todo);
+    }
+
+    /**
+     * @param cantidad Filas (o candidatos) a evaluar.
+     * @return En cuántos segmentos conviene repartirlas.
+     */
+    int segmentosPara(int cantidad) {
+        return (int) Math.max(1, Math.min(maxSegmentos, (long) cantidad / filasPorSegmento));
+    }
+
+    /**
+     * Un rango [desde, hasta) de posiciones: si es más grande que un segmento se
+     * parte en dos mitades (una se envía al pool y la otra se evalúa en el mismo hilo).
+     */
+    private static final class Segmento extends RecursiveTask<Resultado> {
+
+        private final TablaDocumentos tabla;
+        private final FiltroEnMemoria filtro;
+        private final int[] candidatos;
+        private final int desde;
+        private final int hasta;
+        private final int limite;
+        private final boolean descendente;
+        private final int tamanioHoja;
+
+        Segmento(TablaDocumentos tabla, FiltroEnMemoria filtro, int[] candidatos, int desde, int hasta,
+                 int limite, boolean descendente, int tamanioHoja) {
+            this.tabla = tabla;
+            this.filtro = filtro;
+            this.candidatos = candidatos;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.limite = limite;
+            this.descendente = descendente;
+            this.tamanioHoja = Math.max(1, tamanioHoja);
+        }
+
+        @Override
+        protected Resultado compute() {
+            if (hasta - desde <= tamanioHoja) {
+                return recorrer();
+            }
+            int medio = (desde + hasta) >>> 1;
+            Segmento izquierda = new Segmento(tabla, filtro, candidatos, desde, medio, limite, descendente, tamanioHoja);
+            Segmento derecha = new Segmento(tabla, filtro, candidatos, medio, hasta, limite, descendente, tamanioHoja);
+            izquierda.fork();
+            Resultado resultadoDerecha = derecha.compute();
+            return unir(izquierda.join(), resultadoDerecha);
+        }
+
+        private Resultado recorrer() {
+            // Heap con la peor de las mejores arriba: se reemplaza cuando llega una fila mejor
+            PriorityQueue<Integer> mejores = new PriorityQueue<>(Math.max(1, Math.min(limite, 1024)),
+                    (a, b) -> comparar(b, a));
+            int total = 0;
+            for (int i = desde; i < hasta; i++) {
+                int fila = candidatos == null ? i : tabla.filaDe(candidatos[i]);
+                if (fila < 0 || !filtro.acepta(tabla, fila)) {
+                    continue;
+                }
+                total++;
+                if (limite == 0) {
+                    continue;
+                }
+                if (mejores.size() < limite) {
+                    mejores.add(fila);
+                } else if (comparar(fila, mejores.peek()) < 0) {
+                    mejores.poll();
+                    mejores.add(fila);
+                }
+            }
+            int[] filas = mejores.isEmpty() ? SIN_FILAS : new int[mejores.size()];
+            for (int i = filas.length - 1; i >= 0; i--) {
+                filas[i] = mejores.poll(); // Sale la peor primero: se llena desde el final
+            }
+            return new Resultado(total, filas);
+        }
+
+        /**
+         * Mezcla dos listas ya ordenadas y se queda con las primeras "limite".
+         */
+        private Resultado unir(Resultado a, Resultado b) {
+            int largo = Math.min(limite, a.filas.length + b.filas.length);
+            int[] filas = largo == 0 ? SIN_FILAS : new int[largo];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < largo; k++) {
+                if (j >= b.filas.length || (i < a.filas.length && comparar(a.filas[i], b.filas[j]) <= 0)) {
+                    filas[k] = a.filas[i++];
+                } else {
+                    filas[k] = b.filas[j++];
+                }
+            }
+            return new Resultado(a.total + b.total, filas);
+        }
+
+        /**
+         * Negativo si la fila a va antes que la b en el resultado.
+         */
+        private int comparar(int a, int b) {
+            int porFecha = Long.compare(tabla.fechas[a], tabla.fechas[b]);
+            int resultado = porFecha != 0 ? porFecha
+                    : Integer.compare(tabla.documentos[a].getIdDocumento(), tabla.documentos[b].getIdDocumento());
+            return descendente ? -resultado : resultado;
+        }
+    }
+}
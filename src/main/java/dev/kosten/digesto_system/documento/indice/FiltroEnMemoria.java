@@ -0,0 +1,229 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import dev.kosten.digesto_system.documento.dto.FiltrosBusquedaDocumento;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Los filtros de FiltrosBusquedaDocumento traducidos a condiciones sobre las
+ * columnas de {@link TablaDocumentos}. Replica la semántica de las
+ * Specifications de DocumentoSpecification (LIKE '%palabra%' sin distinguir
+ * mayúsculas ni tildes, rango de fechas, palabras clave con lógica OR o AND), para que un
+ * resultado en memoria coincida con el de la base de datos.
+ *
+ * El término de la búsqueda simple no se evalúa fila por fila: lo resuelven
+ * las listas de posteo de IndiceDocumentos, que entregan los candidatos.
+ * @author micael
+ */
+final class FiltroEnMemoria {
+
+    /**
+     * Marca de "sin filtro" para las columnas de catálogo.
+     */
+    private static final int NO_FILTRA = -2;
+
+    private final String terminoDeBusqueda;
+    private final boolean soloActivos;
+    private final int tipo;
+    private final int sector;
+    private final int estado;
+    private final String[] palabrasTitulo;
+    private final String numDocumento;
+    private final String[] palabrasExcluidas;
+    private final boolean conFechas;
+    private final long fechaDesde;
+    private final long fechaHasta;
+    private final List<Integer> idsPalabrasClave;
+    private final boolean todasLasPalabrasClave;
+    private final int[] palabrasClave;
+    private final boolean imposible;
+
+    private FiltroEnMemoria(FiltrosBusquedaDocumento filtros, TablaDocumentos tabla) {
+        boolean avanzada = filtros.esBusquedaAvanzada();
+
+        // Igual que especificacionPara: en la avanzada se ignora search, en la simple los avanzados
+        this.terminoDeBusqueda = terminoDe(filtros);
+        this.soloActivos = Boolean.TRUE.equals(filtros.getSoloActivos());
+
+        boolean sinCoincidencias = false;
+        this.tipo = codigo(tabla.tipos, filtros.getIdTipoDocumento());
+        this.sector = avanzada ? codigo(tabla.sectores, filtros.getIdSector()) : NO_FILTRA;
+        this.estado = avanzada ? codigo(tabla.estados, filtros.getIdEstado()) : NO_FILTRA;
+        // Un ID que ninguna fila tiene no puede coincidir con nada
+        sinCoincidencias |= tipo == TablaDocumentos.SIN_VALOR
+                || sector == TablaDocumentos.SIN_VALOR
+                || estado == TablaDocumentos.SIN_VALOR;
+
+        this.palabrasTitulo = avanzada ? NormalizadorTexto.tokenizar(filtros.getTitulo()) : new String[0];
+        this.numDocumento = avanzada && tieneTexto(filtros.getNumDocumento())
+                ? NormalizadorTexto.normalizar(filtros.getNumDocumento()) : null;
+        this.palabrasExcluidas = avanzada ? NormalizadorTexto.tokenizar(filtros.getExcluirPalabras()) : new String[0];
+
+        Date desde = avanzada ? filtros.getFechaDesde() : null;
+        Date hasta = avanzada ? filtros.getFechaHasta() : null;
+        this.conFechas = desde != null || hasta != null;
+        if (desde != null && hasta == null) {
+            // Solo "desde": documentos de ese mismo día (DATE(fechaCreacion) = DATE(desde))
+            ZoneId zona = ZoneId.systemDefault();
+            LocalDate dia = Instant.ofEpochMilli(desde.getTime()).atZone(zona).toLocalDate();
+            this.fechaDesde = dia.atStartOfDay(zona).toInstant().toEpochMilli();
+            this.fechaHasta = dia.plusDays(1).atStartOfDay(zona).toInstant().toEpochMilli() - 1;
+        } else {
+            this.fechaDesde = desde == null ? Long.MIN_VALUE : desde.getTime();
+            this.fechaHasta = hasta == null ? Long.MAX_VALUE : hasta.getTime();
+        }
+
+        List<Integer> ids = avanzada ? filtros.getIdsPalabrasClave() : null;
+        this.todasLasPalabrasClave = filtros.requiereTodasLasPalabrasClave();
+        if (ids == null || ids.isEmpty()) {
+            this.idsPalabrasClave = null;
+            this.palabrasClave = null;
+        } else {
+            this.idsPalabrasClave = ids;
+            int[] codigos = ids.stream()
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .mapToInt(tabla.diccionarioPalabrasClave::codigoDe)
+                    .toArray();
+            // Con OR se descartan las que nadie tiene; con AND una sola de esas anula todo
+            boolean algunaDesconocida = Arrays.stream(codigos).anyMatch(codigo -> codigo == TablaDocumentos.SIN_VALOR);
+            this.palabrasClave = Arrays.stream(codigos)
+                    .filter(codigo -> codigo != TablaDocumentos.SIN_VALOR)
+                    .sorted()
+                    .toArray();
+            sinCoincidencias |= palabrasClave.length == 0 || (todasLasPalabrasClave && algunaDesconocida);
+        }
+        this.imposible = sinCoincidencias;
+    }
+
+    /**
+     * Traduce los filtros usando los diccionarios de la tabla.
+     * @param filtros Los filtros de la búsqueda.
+     * @param tabla La tabla sobre la que se van a evaluar.
+     * @return El filtro listo para evaluar filas.
+     */
+    static FiltroEnMemoria desde(FiltrosBusquedaDocumento filtros, TablaDocumentos tabla) {
+        return new FiltroEnMemoria(filtros, tabla);
+    }
+
+    /**
+     * El término que va a usar el filtro, sin necesidad de la tabla: así se pueden
+     * buscar sus palabras en los PDF antes de tomar el lock del índice.
+     * @param filtros Los filtros de la búsqueda.
+     * @return El término de la búsqueda simple, o null.
+     */
+    static String terminoDe(FiltrosBusquedaDocumento filtros) {
+        return !filtros.esBusquedaAvanzada() && filtros.tieneBusquedaSimple() ? filtros.getSearch() : null;
+    }
+
+    /**
+     * @return El término de la búsqueda simple a resolver con las listas de posteo, o null.
+     */
+    String getTerminoDeBusqueda() {
+        return terminoDeBusqueda;
+    }
+
+    /**
+     * @return Las palabras clave pedidas, para resolverlas con los mapas de bits, o null.
+     */
+    List<Integer> getIdsPalabrasClave() {
+        return idsPalabrasClave;
+    }
+
+    /**
+     * @return true si el documento debe tener todas las palabras clave pedidas.
+     */
+    boolean requiereTodasLasPalabrasClave() {
+        return todasLasPalabrasClave;
+    }
+
+    /**
+     * @return true si se sabe de antemano que ninguna fila puede coincidir.
+     */
+    boolean esImposible() {
+        return imposible;
+    }
+
+    /**
+     * Evalúa todas las condiciones (salvo el término de búsqueda) sobre una fila.
+     * Primero las columnas numéricas, que son baratas; los textos al final.
+     * @param tabla La tabla con la que se armó el filtro.
+     * @param fila El número de fila.
+     * @return true si la fila cumple.
+     */
+    boolean acepta(TablaDocumentos tabla, int fila) {
+        if (soloActivos && !tabla.activos[fila]) {
+            return false;
+        }
+        if (tipo != NO_FILTRA && tabla.tipos.codigos[fila] != tipo) {
+            return false;
+        }
+        if (sector != NO_FILTRA && tabla.sectores.codigos[fila] != sector) {
+            return false;
+        }
+        if (estado != NO_FILTRA && tabla.estados.codigos[fila] != estado) {
+            return false;
+        }
+        if (conFechas) {
+            long fecha = tabla.fechas[fila];
+            if (fecha == Long.MIN_VALUE || fecha < fechaDesde || fecha > fechaHasta) {
+                return false; // Sin fecha no entra en ningún rango (como NULL en SQL)
+            }
+        }
+        if (palabrasClave != null && !cumplePalabrasClave(tabla.palabrasClave[fila])) {
+            return false;
+        }
+        if (palabrasTitulo.length == 0 && numDocumento == null && palabrasExcluidas.length == 0) {
+            return true;
+        }
+
+        DocumentoIndexado doc = tabla.documentos[fila];
+        String titulo = NormalizadorTexto.normalizar(doc.getTitulo());
+        for (String palabra : palabrasTitulo) {
+            if (!titulo.contains(palabra)) {
+                return false;
+            }
+        }
+        if (numDocumento != null && !NormalizadorTexto.normalizar(doc.getNumDocumento()).contains(numDocumento)) {
+            return false;
+        }
+        if (palabrasExcluidas.length > 0) {
+            String resumen = NormalizadorTexto.normalizar(doc.getResumen());
+            String numero = NormalizadorTexto.normalizar(doc.getNumDocumento());
+            String tipoNombre = NormalizadorTexto.normalizar(doc.getNombreTipoDocumento());
+            for (String palabra : palabrasExcluidas) {
+                if (titulo.contains(palabra) || resumen.contains(palabra)
+                        || numero.contains(palabra) || tipoNombre.contains(palabra)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean cumplePalabrasClave(int[] codigosFila) {
+        int encontradas = 0;
+        for (int codigo : codigosFila) {
+            if (Arrays.binarySearch(palabrasClave, codigo) >= 0) {
+                if (!todasLasPalabrasClave) {
+                    return true;
+                }
+                encontradas++;
+            }
+        }
+        return todasLasPalabrasClave && encontradas == palabrasClave.length;
+    }
+
+    private static int codigo(TablaDocumentos.Columna columna, Integer valor) {
+        return valor == null ? NO_FILTRA : columna.diccionario.codigoDe(valor);
+    }
+
+    private static boolean tieneTexto(String valor) {
+        return valor != null && !valor.trim().isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Evento que publica IndiceDocumentos después de aplicar al índice un
+ * {@link DocumentoModificadoEvent} confirmado. Quien guarde resultados de
+ * búsqueda lo escucha para invalidarlos: a partir de este evento las búsquedas
+ * ya leen el índice con el cambio.
+ * @author micael
+ */
+@Getter
+@RequiredArgsConstructor
+public class IndiceActualizadoEvent {
+
+    /**
+     * ID del documento que cambió en el índice.
+     */
+    private final int idDocumento;
+}
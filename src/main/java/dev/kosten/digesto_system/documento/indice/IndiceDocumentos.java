@@ -0,0 +1,1021 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import dev.kosten.digesto_system.documento.dto.FacetasDocumentoDTO;
+import dev.kosten.digesto_system.documento.dto.FiltrosBusquedaDocumento;
+import dev.kosten.digesto_system.documento.dto.FragmentoDTO;
+import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
+import dev.kosten.digesto_system.log.LogService;
+import dev.kosten.digesto_system.registro.repository.RegistroRepository;
+import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import dev.kosten.digesto_system.tipodocumento.repository.TipoDocumentoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Índice invertido en memoria para la búsqueda simple de documentos.
+ * Mantiene, para cada término (token en minúsculas) de título, resumen,
+ * número de documento y nombre del tipo, la lista ordenada de idDocumento
+ * que lo contienen. Se construye al iniciar la aplicación y se actualiza
+ * con cada {@link DocumentoModificadoEvent} confirmado.
+ * Las copias de los documentos se guardan en una {@link TablaDocumentos}
+ * (en columnas), que permite además contar facetas con un solo recorrido,
+ * y para cada palabra clave se mantiene un {@link MapaBits} con sus documentos.
+ *
+ * Una palabra de la búsqueda coincide con todos los términos que la contienen
+ * como subcadena, igual que el LIKE '%palabra%' de DocumentoSpecification; esos
+ * términos se encuentran con los trigramas del vocabulario ({@link TrigramasTerminos}).
+ * Los resultados se pueden ordenar por relevancia con {@link PuntuacionBM25}, y
+ * las palabras sin coincidencias se pueden corregir con {@link CorrectorTerminos}.
+ * A pedido, cada palabra también puede coincidir con el texto de los PDF del
+ * documento ({@link ContenidoArchivos}). Las posiciones de las palabras de título
+ * y resumen quedan en la tabla para resaltar los resultados ({@link Resaltador}).
+ * Los filtros de una búsqueda ordenada por fecha se evalúan por segmentos de la
+ * tabla en paralelo ({@link EvaluacionSegmentada}), en un ForkJoinPool propio.
+ *
+ * Para no leer documento y etiqueta completas en cada arranque, el índice se
+ * guarda en disco ({@link InstantaneaIndice}, bajo storage.location) después de
+ * construirlo y al apagar la aplicación. Al iniciar se carga esa instantánea y
+ * solo se leen de la base los documentos que cambiaron después: los que tienen
+ * operaciones en la auditoría (registro) posteriores a la marca guardada, más
+ * los de IDs mayores al último incluido.
+ * @author micael
+ */
+@Component
+@RequiredArgsConstructor
+public class IndiceDocumentos {
+
+    /**
+     * Días antes de la instantánea desde los que se reaplican los cambios de la
+     * auditoría, además de los posteriores a la marca. Cubre las transacciones que
+     * tenían su registro sin confirmar cuando se leyó la marca (fechaCarga es solo la fecha).
+     */
+    private static final int DIAS_DE_MARGEN = 1;
+
+    /**
+     * Documentos que se leen por consulta al reaplicar los cambios (largo del IN).
+     */
+    private static final int TAMANIO_LOTE = 1000;
+
+    private final DocumentoRepository documentoRepo;
+    private final RegistroRepository registroRepo;
+    private final TipoDocumentoRepository tipoDocumentoRepo;
+    private final ContenidoArchivos contenidoArchivos;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LogService logService;
+
+    @Value("${storage.location}")
+    private String ubicacionAlmacenamiento;
+
+    /**
+     * Si es false el índice se construye siempre desde la base de datos y no se guarda en disco.
+     */
+    @Value("${digesto.indice.instantanea.habilitada:true}")
+    private boolean instantaneaHabilitada;
+
+    /**
+     * Cantidad máxima de términos por los que se reemplaza una palabra en la búsqueda difusa.
+     */
+    @Value("${digesto.busqueda.difusa.max-correcciones:5}")
+    private int maxCorrecciones;
+
+    /**
+     * Hilos del pool que evalúa los segmentos (0 = uno por procesador; 1 = sin paralelismo).
+     */
+    @Value("${digesto.busqueda.paralela.hilos:0}")
+    private int hilosEvaluacion;
+
+    /**
+     * Mínimo de filas por segmento: una búsqueda con menos candidatos se evalúa en el hilo de la petición.
+     */
+    @Value("${digesto.busqueda.paralela.filas-por-segmento:50000}")
+    private int filasPorSegmento;
+
+    private ForkJoinPool poolEvaluacion;
+    private EvaluacionSegmentada evaluacion;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegidos por 'lock'
+    private TablaDocumentos tabla = new TablaDocumentos();
+    private Map<String, int[]> posteos = new HashMap<>();
+    private TrigramasTerminos trigramas = new TrigramasTerminos();
+    private Map<Integer, MapaBits> porPalabraClave = new HashMap<>();
+    private PuntuacionBM25 puntuacion = new PuntuacionBM25();
+    private CorrectorTerminos corrector = new CorrectorTerminos();
+    private List<DocumentoIndexado> pendientes;
+    // Nombres de los tipos que cambiaron mientras se construía: se aplican al terminar
+    private SortedMap<Integer, String> nombresDeTiposPendientes;
+    // Marca de la auditoría y firma de los tipos con las que se armó el estado actual (para la instantánea)
+    private int marcaRegistro;
+    private long firmaTipos;
+
+    private volatile boolean listo = false;
+
+    @PostConstruct
+    void init() {
+        int hilos = hilosEvaluacion > 0 ? hilosEvaluacion : Runtime.getRuntime().availableProcessors();
+        if (hilos > 1) {
+            // Pool propio: el común lo comparten los parallel streams de toda la aplicación
+            poolEvaluacion = new ForkJoinPool(hilos, pool -> {
+                ForkJoinWorkerThread hilo = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                hilo.setName("indice-evaluacion-" + hilo.getPoolIndex());
+                hilo.setDaemon(true);
+                return hilo;
+            }, null, false);
+        }
+        evaluacion = new EvaluacionSegmentada(poolEvaluacion, hilos, filasPorSegmento);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (poolEvaluacion != null) {
+            poolEvaluacion.shutdownNow();
+        }
+        // Los cambios aplicados desde el último arranque se reaplican igual en el próximo:
+        // guardar ahora solo acorta esa lista
+        guardarInstantanea();
+    }
+
+    /**
+     * Carga el índice desde la instantánea en disco cuando la aplicación terminó
+     * de arrancar, o lo construye desde la base de datos si no hay una utilizable.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlIniciar() {
+        if (!instantaneaHabilitada || !cargarDesdeInstantanea()) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Reconstruye el índice completo leyendo la tabla documento en una sola consulta.
+     * Los cambios que lleguen mientras se construye se guardan y se reaplican al final.
+     */
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long inicio = System.currentTimeMillis();
+            // La marca se lee antes que los datos: lo que se registre después se reaplica al cargar la instantánea
+            int marca = marcaDeRegistro();
+            long firma = firmaDeTipos();
+            List<DocumentoIndexado> documentos = unirConEtiquetas(documentoRepo.findAllParaIndice(),
+                    documentoRepo.findAllEtiquetasParaIndice());
+
+            TablaDocumentos nuevaTabla = new TablaDocumentos();
+            PuntuacionBM25 nuevaPuntuacion = new PuntuacionBM25();
+            CorrectorTerminos nuevoCorrector = new CorrectorTerminos();
+            Map<String, ListaEnteros> acumulados = new HashMap<>();
+            Map<Integer, MapaBits> nuevosPorPalabraClave = new HashMap<>();
+            for (DocumentoIndexado doc : documentos) {
+                for (int idPalabraClave : doc.getIdsPalabrasClave()) {
+                    nuevosPorPalabraClave.computeIfAbsent(idPalabraClave, p -> new MapaBits()).agregar(doc.getIdDocumento());
+                }
+                nuevaTabla.guardar(doc);
+                nuevaPuntuacion.registrar(null, doc);
+                nuevoCorrector.registrar(doc, 1);
+                for (String termino : terminosDe(doc)) {
+                    acumulados.computeIfAbsent(termino, t -> new ListaEnteros()).agregar(doc.getIdDocumento());
+                }
+            }
+            Map<String, int[]> nuevosPosteos = new HashMap<>(acumulados.size() * 2);
+            acumulados.forEach((termino, ids) -> nuevosPosteos.put(termino, ids.aArreglo()));
+            TrigramasTerminos nuevosTrigramas = TrigramasTerminos.desde(nuevosPosteos.keySet());
+
+            lock.writeLock().lock();
+            try {
+                tabla = nuevaTabla;
+                posteos = nuevosPosteos;
+                trigramas = nuevosTrigramas;
+                porPalabraClave = nuevosPorPalabraClave;
+                puntuacion = nuevaPuntuacion;
+                corrector = nuevoCorrector;
+                for (DocumentoIndexado doc : pendientes) {
+                    aplicar(doc);
+                }
+                pendientes = null;
+                marcaRegistro = marca;
+                firmaTipos = firma;
+                if (nombresDeTiposPendientes != null) {
+                    renombrarTipos(nombresDeTiposPendientes);
+                    nombresDeTiposPendientes = null;
+                }
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logService.info("Índice de documentos construido: " + nuevaTabla.tamanio() + " documentos, "
+                    + nuevosPosteos.size() + " términos (" + nuevoCorrector.tamanio() + " en el vocabulario de corrección), "
+                    + nuevosPorPalabraClave.size() + " palabras clave en " + (System.currentTimeMillis() - inicio) + " ms.");
+            guardarInstantanea();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logService.error("No se pudo construir el índice de documentos. Se usará la búsqueda en base de datos.", e);
+        }
+    }
+
+    /**
+     * Carga el índice desde la instantánea en disco y le reaplica los documentos
+     * que cambiaron después. Los cambios que lleguen mientras se carga se guardan
+     * y se reaplican al final, igual que en {@link #reconstruir()}.
+     * @return true si el índice quedó listo; false si no hay una instantánea
+     * utilizable (no existe, es de otra versión, está dañada o los tipos cambiaron).
+     */
+    private boolean cargarDesdeInstantanea() {
+        Path archivo = rutaInstantanea();
+        if (!Files.isRegularFile(archivo)) {
+            logService.info("No hay instantánea del índice de documentos en " + archivo + ": se construye desde la base de datos.");
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long inicio = System.currentTimeMillis();
+            InstantaneaIndice instantanea = InstantaneaIndice.leer(archivo);
+            long firma = firmaDeTipos();
+            if (instantanea.firmaTipos != firma) {
+                // El nombre del tipo está indexado en cada documento y un cambio de nombre no pasa por la auditoría
+                logService.info("Los tipos de documento cambiaron desde la instantánea del índice: se construye desde la base de datos.");
+                return false;
+            }
+            int marca = marcaDeRegistro();
+            List<DocumentoIndexado> cambiados = cambiadosDesde(instantanea);
+
+            TablaDocumentos nuevaTabla = new TablaDocumentos();
+            Map<Integer, MapaBits> nuevosPorPalabraClave = new HashMap<>();
+            for (DocumentoIndexado doc : instantanea.documentos) {
+                nuevaTabla.guardar(doc);
+                for (int idPalabraClave : doc.getIdsPalabrasClave()) {
+                    nuevosPorPalabraClave.computeIfAbsent(idPalabraClave, p -> new MapaBits()).agregar(doc.getIdDocumento());
+                }
+            }
+            CorrectorTerminos nuevoCorrector = new CorrectorTerminos();
+            instantanea.vocabulario.forEach(nuevoCorrector::cargar);
+            TrigramasTerminos nuevosTrigramas = TrigramasTerminos.desde(instantanea.posteos.keySet());
+
+            lock.writeLock().lock();
+            try {
+                tabla = nuevaTabla;
+                posteos = instantanea.posteos;
+                trigramas = nuevosTrigramas;
+                porPalabraClave = nuevosPorPalabraClave;
+                puntuacion = PuntuacionBM25.desde(instantanea.documentosBm25, instantanea.tokensTotales);
+                corrector = nuevoCorrector;
+                // Primero lo leído de la base y después los eventos, que son iguales o más nuevos
+                for (DocumentoIndexado doc : cambiados) {
+                    aplicar(doc);
+                }
+                for (DocumentoIndexado doc : pendientes) {
+                    aplicar(doc);
+                }
+                pendientes = null;
+                marcaRegistro = marca;
+                firmaTipos = firma;
+                if (nombresDeTiposPendientes != null) {
+                    renombrarTipos(nombresDeTiposPendientes);
+                    nombresDeTiposPendientes = null;
+                }
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logService.info("Índice de documentos cargado de la instantánea: " + instantanea.documentos.size()
+                    + " documentos, " + instantanea.posteos.size() + " términos, " + cambiados.size()
+                    + " documentos reaplicados en " + (System.currentTimeMillis() - inicio) + " ms.");
+            if (!cambiados.isEmpty()) {
+                guardarInstantanea(); // Con la marca nueva, el próximo arranque no los vuelve a leer
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logService.warn("No se pudo usar la instantánea del índice de documentos (" + e.getMessage()
+                    + "): se construye desde la base de datos.");
+            return false;
+        }
+    }
+
+    /**
+     * Escribe el estado actual del índice en disco. Solo se copian las referencias
+     * con el lock tomado: las listas de posteo y las copias de los documentos no se
+     * modifican nunca (se reemplazan), así que se escriben sin bloquear las búsquedas.
+     */
+    private synchronized void guardarInstantanea() {
+        if (!instantaneaHabilitada || !listo) {
+            return;
+        }
+        InstantaneaIndice instantanea;
+        lock.readLock().lock();
+        try {
+            List<DocumentoIndexado> documentos = new ArrayList<>(tabla.tamanio());
+            int maxIdDocumento = 0;
+            for (int fila = 0; fila < tabla.tamanio(); fila++) {
+                documentos.add(tabla.documentos[fila]);
+                maxIdDocumento = Math.max(maxIdDocumento, tabla.documentos[fila].getIdDocumento());
+            }
+            instantanea = new InstantaneaIndice(System.currentTimeMillis(), marcaRegistro, maxIdDocumento, firmaTipos,
+                    puntuacion.getDocumentos(), puntuacion.copiarTokensTotales(), documentos,
+                    new HashMap<>(posteos), corrector.copiarVocabulario());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Path archivo = rutaInstantanea();
+        try {
+            long inicio = System.currentTimeMillis();
+            instantanea.escribir(archivo);
+            logService.info("Instantánea del índice de documentos guardada en " + archivo + " ("
+                    + Files.size(archivo) / 1024 + " KB, " + (System.currentTimeMillis() - inicio) + " ms).");
+        } catch (IOException | RuntimeException e) {
+            // Sin instantánea el próximo arranque reconstruye desde la base: no afecta a las búsquedas
+            logService.warn("No se pudo guardar la instantánea del índice de documentos en " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lee de la base los documentos que cambiaron después de la instantánea: los
+     * afectados por operaciones de la auditoría posteriores a su marca (o desde el
+     * día anterior a su creación) y los de ID mayor al último que incluye.
+     */
+    private List<DocumentoIndexado> cambiadosDesde(InstantaneaIndice instantanea) {
+        ZoneId zona = ZoneId.systemDefault();
+        Date desde = Date.from(Instant.ofEpochMilli(instantanea.creadaEn).atZone(zona).toLocalDate()
+                .minusDays(DIAS_DE_MARGEN).atStartOfDay(zona).toInstant());
+        Set<Integer> ids = new TreeSet<>(registroRepo.findIdsDocumentosAfectadosDesde(instantanea.marcaRegistro, desde));
+        ids.addAll(documentoRepo.findIdsMayoresA(instantanea.maxIdDocumento));
+
+        List<Integer> todos = new ArrayList<>(ids);
+        List<DocumentoIndexado> cambiados = new ArrayList<>(todos.size());
+        for (int i = 0; i < todos.size(); i += TAMANIO_LOTE) {
+            List<Integer> lote = todos.subList(i, Math.min(i + TAMANIO_LOTE, todos.size()));
+            cambiados.addAll(unirConEtiquetas(documentoRepo.findParaIndiceByIds(lote),
+                    documentoRepo.findEtiquetasParaIndiceByIds(lote)));
+        }
+        return cambiados;
+    }
+
+    /**
+     * Arma las copias de los documentos con sus palabras clave. Documentos y
+     * etiquetas vienen ordenados por id: se recorren juntos, como un merge.
+     * También la usa RelacionadosDocumentos para su carga inicial.
+     */
+    static List<DocumentoIndexado> unirConEtiquetas(List<DocumentoIndiceProyeccion> filas,
+                                                            List<EtiquetaProyeccion> etiquetas) {
+        List<DocumentoIndexado> documentos = new ArrayList<>(filas.size());
+        int e = 0;
+        for (DocumentoIndiceProyeccion fila : filas) {
+            int id = fila.getIdDocumento();
+            while (e < etiquetas.size() && etiquetas.get(e).getIdDocumento() < id) {
+                e++;
+            }
+            ListaEnteros palabrasClave = new ListaEnteros();
+            for (; e < etiquetas.size() && etiquetas.get(e).getIdDocumento() == id; e++) {
+                palabrasClave.agregar(etiquetas.get(e).getIdPalabraClave());
+            }
+            documentos.add(DocumentoIndexado.desde(fila, palabrasClave.aArreglo()));
+        }
+        return documentos;
+    }
+
+    private int marcaDeRegistro() {
+        Integer marca = registroRepo.findMaxIdRegistro();
+        return marca == null ? 0 : marca;
+    }
+
+    /**
+     * Firma de los nombres de los tipos de documento, que están copiados en cada
+     * documento indexado: si cambia, la instantánea ya no sirve.
+     */
+    private long firmaDeTipos() {
+        return firmaDe(nombresDeTipos());
+    }
+
+    private static long firmaDe(SortedMap<Integer, String> nombresDeTipos) {
+        long firma = 17;
+        for (Map.Entry<Integer, String> tipo : nombresDeTipos.entrySet()) {
+            firma = 31 * firma + tipo.getKey();
+            firma = 31 * firma + (tipo.getValue() == null ? 0 : tipo.getValue().hashCode());
+        }
+        return firma;
+    }
+
+    /**
+     * idTipoDocumento -> nombre de todos los tipos, ordenados por id.
+     */
+    private SortedMap<Integer, String> nombresDeTipos() {
+        SortedMap<Integer, String> nombres = new TreeMap<>();
+        for (TipoDocumento tipo : tipoDocumentoRepo.findAll()) {
+            nombres.put(tipo.getIdTipoDocumento(), tipo.getNombre());
+        }
+        return nombres;
+    }
+
+    private Path rutaInstantanea() {
+        return Paths.get(ubicacionAlmacenamiento, ".indice", "documentos-v" + InstantaneaIndice.VERSION + ".idx");
+    }
+
+    /**
+     * Aplica al índice un cambio ya confirmado en la base de datos y después
+     * publica un {@link IndiceActualizadoEvent}, con el que se invalida la caché de
+     * búsquedas. El evento sale de acá y no de DocumentoService: si la caché se
+     * invalidara antes de aplicar el cambio, una búsqueda podría leer el índice
+     * todavía sin él y guardarse con la versión nueva.
+     * @param evento El evento publicado por DocumentoService.
+     */
+    @TransactionalEventListener
+    public void alModificarDocumento(DocumentoModificadoEvent evento) {
+        indexar(evento.getDocumento());
+        eventPublisher.publishEvent(new IndiceActualizadoEvent(evento.getDocumento().getIdDocumento()));
+    }
+
+    /**
+     * Agrega o reemplaza un documento en el índice.
+     * @param doc La copia del documento a indexar.
+     */
+    public void indexar(DocumentoIndexado doc) {
+        lock.writeLock().lock();
+        try {
+            if (pendientes != null) {
+                pendientes.add(doc);
+            }
+            aplicar(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a leer los nombres de los tipos de documento y reindexa los documentos
+     * cuyo tipo cambió de nombre: el nombre está copiado en cada documento y se busca
+     * como un término más. Lo llama CacheCatalogos después de confirmar el cambio.
+     * Si el índice se está construyendo, se aplica al terminar.
+     * @return idTipoDocumento -> nombre actual, para actualizar las demás copias.
+     */
+    public Map<Integer, String> actualizarNombresDeTipos() {
+        SortedMap<Integer, String> nombres = nombresDeTipos();
+        int renombrados;
+        lock.writeLock().lock();
+        try {
+            if (pendientes != null) {
+                nombresDeTiposPendientes = nombres;
+                return nombres;
+            }
+            renombrados = renombrarTipos(nombres);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (renombrados > 0) {
+            logService.info("Índice de documentos: " + renombrados
+                    + " documentos reindexados por cambios en los nombres de los tipos.");
+        }
+        return nombres;
+    }
+
+    /**
+     * Indica si el índice terminó su construcción inicial y puede responder búsquedas.
+     * @return true si está listo.
+     */
+    public boolean estaListo() {
+        return listo;
+    }
+
+    /**
+     * Arma los fragmentos resaltados de una página de resultados de la búsqueda simple:
+     * primero título y resumen (con las posiciones de palabras guardadas en la tabla)
+     * y, si se buscó en el contenido, el texto de los PDF. Una palabra del texto se
+     * resalta con el mismo criterio que la hizo coincidir (subcadena en los campos,
+     * inicio de palabra en el contenido).
+     * @param idsDocumento Los documentos de la página.
+     * @param terminoDeBusqueda El texto ingresado por el usuario.
+     * @param correcciones Palabra normalizada -> términos que la reemplazan (búsqueda difusa).
+     * @param conContenido Si es true, también se arman fragmentos del texto de los PDF.
+     * @param largo Largo máximo de cada fragmento.
+     * @param maximo Cantidad máxima de fragmentos por documento.
+     * @return idDocumento -> sus fragmentos (los que no están en el índice no aparecen).
+     */
+    public Map<Integer, List<FragmentoDTO>> fragmentos(List<Integer> idsDocumento, String terminoDeBusqueda,
+                                                       Map<String, List<String>> correcciones,
+                                                       boolean conContenido, int largo, int maximo) {
+        Set<String> partes = new LinkedHashSet<>();
+        for (String palabra : NormalizadorTexto.tokenizar(terminoDeBusqueda)) {
+            for (String forma : correcciones.getOrDefault(palabra, List.of(palabra))) {
+                Collections.addAll(partes, NormalizadorTexto.palabras(forma));
+            }
+        }
+        String[] buscadas = partes.toArray(new String[0]);
+        Map<Integer, List<FragmentoDTO>> resultado = new HashMap<>();
+        if (buscadas.length == 0) {
+            return resultado;
+        }
+
+        lock.readLock().lock();
+        try {
+            for (Integer id : idsDocumento) {
+                int fila = id == null ? -1 : tabla.filaDe(id);
+                if (fila < 0) {
+                    continue;
+                }
+                DocumentoIndexado doc = tabla.documentos[fila];
+                List<FragmentoDTO> delDocumento = new ArrayList<>(maximo);
+                String enTitulo = Resaltador.fragmento(doc.getTitulo(), tabla.posicionesTitulo[fila],
+                        buscadas, false, largo);
+                if (enTitulo != null && delDocumento.size() < maximo) {
+                    delDocumento.add(new FragmentoDTO("titulo", null, enTitulo));
+                }
+                String enResumen = Resaltador.fragmento(doc.getResumen(), tabla.posicionesResumen[fila],
+                        buscadas, false, largo);
+                if (enResumen != null && delDocumento.size() < maximo) {
+                    delDocumento.add(new FragmentoDTO("resumen", null, enResumen));
+                }
+                resultado.put(id, delDocumento);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // El contenido tiene su propio lock: se consulta sin tomar el del índice
+        if (conContenido) {
+            resultado.forEach((id, delDocumento) -> delDocumento.addAll(
+                    contenidoArchivos.fragmentos(id, buscadas, largo, maximo - delDocumento.size())));
+        }
+        return resultado;
+    }
+
+    /**
+     * Corrige las palabras del término que no tienen ninguna coincidencia,
+     * reemplazando cada una por los términos del vocabulario de títulos y
+     * resúmenes a distancia de edición 1 o 2 (como mucho digesto.busqueda.difusa.max-correcciones).
+     * Las palabras que ya coinciden con algo no se tocan.
+     * @param terminoDeBusqueda El texto ingresado por el usuario.
+     * @param conContenido Si es true, una palabra que está en algún PDF no se corrige.
+     * @return Palabra normalizada -> términos corregidos, en el orden de la búsqueda;
+     * vacío si no hubo nada que corregir.
+     */
+    public Map<String, List<String>> corregir(String terminoDeBusqueda, boolean conContenido) {
+        Set<String> palabras = new LinkedHashSet<>(List.of(NormalizadorTexto.tokenizar(terminoDeBusqueda)));
+        if (palabras.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, int[]> enContenido = enContenido(palabras, Map.of(), conContenido);
+        lock.readLock().lock();
+        try {
+            return correccionesDe(palabras, enContenido);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los documentos que contienen TODAS las palabras del término (cada una
+     * en cualquiera de los cuatro campos indexados) y devuelve solo los {@code limite}
+     * más relevantes según BM25 (ver {@link PuntuacionBM25}).
+     * Los candidatos pasan por un heap acotado al límite, así que no se ordena
+     * todo el conjunto de coincidencias. A igual puntaje va primero el más reciente.
+     * @param terminoDeBusqueda El texto ingresado por el usuario.
+     * @param idTipoDocumento Filtro por tipo de documento (null = todos).
+     * @param soloActivos Si es true, descarta los documentos inactivos.
+     * @param limite Cantidad de documentos a devolver (offset + tamaño de página).
+     * @param correcciones Palabra normalizada -> términos que la reemplazan (búsqueda difusa).
+     * @param conContenido Si es true, también entran los documentos con la palabra en sus PDF
+     * (el puntaje sigue saliendo de los cuatro campos indexados).
+     * @return Los mejores documentos, del más relevante al menos relevante, y el total.
+     */
+    public ResultadoRelevancia buscarPorRelevancia(String terminoDeBusqueda, Integer idTipoDocumento,
+                                                   boolean soloActivos, int limite,
+                                                   Map<String, List<String>> correcciones, boolean conContenido) {
+        String[] palabras = new LinkedHashSet<>(List.of(NormalizadorTexto.tokenizar(terminoDeBusqueda))).toArray(new String[0]);
+        if (palabras.length == 0 || limite <= 0) {
+            return new ResultadoRelevancia(0, Collections.emptyList());
+        }
+
+        Map<String, int[]> enContenido = enContenido(List.of(palabras), correcciones, conContenido);
+        lock.readLock().lock();
+        try {
+            int[][] listas = new int[palabras.length][];
+            int[] frecuencias = new int[palabras.length];
+            String[][] formas = new String[palabras.length][];
+            for (int i = 0; i < palabras.length; i++) {
+                List<String> corregidas = correcciones.get(palabras[i]);
+                formas[i] = corregidas == null ? new String[] {palabras[i]} : corregidas.toArray(new String[0]);
+                listas[i] = posteosDe(palabras[i], corregidas, enContenido);
+                frecuencias[i] = listas[i].length;
+            }
+            int[] candidatos = intersectarTodas(listas);
+            double[] idf = puntuacion.idf(frecuencias);
+
+            // Min-heap: en la cima está el peor de los mejores, que es el que se descarta
+            PriorityQueue<Puntuado> mejores = new PriorityQueue<>(Math.min(limite, candidatos.length) + 1,
+                    IndiceDocumentos::compararRelevancia);
+            int total = 0;
+            for (int id : candidatos) {
+                int fila = tabla.filaDe(id);
+                if (fila < 0 || (soloActivos && !tabla.activos[fila])) {
+                    continue;
+                }
+                DocumentoIndexado doc = tabla.documentos[fila];
+                if (idTipoDocumento != null && !idTipoDocumento.equals(doc.getIdTipoDocumento())) {
+                    continue;
+                }
+                total++;
+                Puntuado candidato = new Puntuado(doc, puntuacion.puntuar(doc, formas, idf));
+                if (mejores.size() < limite) {
+                    mejores.add(candidato);
+                } else if (compararRelevancia(candidato, mejores.peek()) > 0) {
+                    mejores.poll();
+                    mejores.add(candidato);
+                }
+            }
+
+            DocumentoIndexado[] ordenados = new DocumentoIndexado[mejores.size()];
+            for (int i = ordenados.length - 1; i >= 0; i--) {
+                ordenados[i] = mejores.poll().doc;
+            }
+            return new ResultadoRelevancia(total, List.of(ordenados));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca con los filtros de la búsqueda (término, tipo, sector, estado, fechas,
+     * palabras clave, exclusiones) y devuelve los primeros por fechaCreacion.
+     * Los candidatos salen de las listas de posteo y de los mapas de bits (o son
+     * todas las filas, si no hay término ni palabras clave) y el resto de las
+     * condiciones se evalúa por segmentos en paralelo, cada uno con su propio top-k.
+     * @param filtros Los filtros de la búsqueda (con la semántica de las Specifications).
+     * @param correcciones Palabra normalizada -> términos que la reemplazan (búsqueda difusa).
+     * @param conContenido Si es true, una palabra también coincide si está en los PDF del documento.
+     * @param limite Cantidad de documentos a devolver (offset + tamaño de página).
+     * @param descendente true para los más recientes primero (desempata idDocumento, en el mismo sentido).
+     * @return Los primeros documentos y el total de coincidencias.
+     */
+    public ResultadoPorFecha buscarPorFecha(FiltrosBusquedaDocumento filtros, Map<String, List<String>> correcciones,
+                                            boolean conContenido, int limite, boolean descendente) {
+        Map<String, int[]> enContenido = enContenido(palabrasDe(FiltroEnMemoria.terminoDe(filtros)),
+                correcciones, conContenido);
+        lock.readLock().lock();
+        try {
+            FiltroEnMemoria filtro = FiltroEnMemoria.desde(filtros, tabla);
+            if (filtro.esImposible()) {
+                return new ResultadoPorFecha(0, Collections.emptyList());
+            }
+            int[] candidatos = candidatosDe(filtro, correcciones, enContenido);
+            EvaluacionSegmentada.Resultado resultado = evaluacion.evaluar(tabla, filtro, candidatos, limite, descendente);
+
+            List<DocumentoIndexado> documentos = new ArrayList<>(resultado.filas.length);
+            for (int fila : resultado.filas) {
+                documentos.add(tabla.documentos[fila]);
+            }
+            return new ResultadoPorFecha(resultado.total, documentos);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resuelve el filtro de palabras clave con los mapas de bits, sin tocar la tabla etiqueta.
+     * @param idsPalabrasClave Las palabras clave pedidas.
+     * @param todas true para exigir todas (AND); false para al menos una (OR).
+     * @return Los idDocumento que cumplen, ordenados, o null si el índice no está listo.
+     */
+    public int[] idsConPalabrasClave(List<Integer> idsPalabrasClave, boolean todas) {
+        if (!listo) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return conPalabrasClave(idsPalabrasClave, todas).aArreglo();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cuenta los resultados de una búsqueda por tipo, sector, estado, unidad
+     * ejecutora, palabra clave y año, con un único recorrido sobre la tabla en columnas
+     * (o sobre los candidatos del término de búsqueda, si lo hay).
+     * Aplica los mismos criterios que las Specifications con el motor LIKE/INDICE.
+     * @param filtros Los filtros de la búsqueda.
+     * @return Los conteos por faceta.
+     */
+    public FacetasDocumentoDTO contarFacetas(FiltrosBusquedaDocumento filtros) {
+        String terminoDeBusqueda = FiltroEnMemoria.terminoDe(filtros);
+        boolean conContenido = Boolean.TRUE.equals(filtros.getIncluirContenido());
+        Map<String, List<String>> correcciones = Map.of();
+        if (terminoDeBusqueda != null && Boolean.TRUE.equals(filtros.getBusquedaDifusa())) {
+            correcciones = corregir(terminoDeBusqueda, conContenido);
+        }
+        Map<String, int[]> enContenido = enContenido(palabrasDe(terminoDeBusqueda), correcciones, conContenido);
+
+        lock.readLock().lock();
+        try {
+            FiltroEnMemoria filtro = FiltroEnMemoria.desde(filtros, tabla);
+            ConteoFacetas conteo = new ConteoFacetas(tabla);
+            if (filtro.esImposible()) {
+                return conteo.aDTO();
+            }
+            int[] candidatos = candidatosDe(filtro, correcciones, enContenido);
+
+            if (candidatos == null) {
+                for (int fila = 0; fila < tabla.tamanio(); fila++) {
+                    if (filtro.acepta(tabla, fila)) {
+                        conteo.sumar(fila);
+                    }
+                }
+            } else {
+                for (int id : candidatos) {
+                    int fila = tabla.filaDe(id);
+                    if (fila >= 0 && filtro.acepta(tabla, fila)) {
+                        conteo.sumar(fila);
+                    }
+                }
+            }
+            return conteo.aDTO();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Los documentos que tienen en sus PDF cada palabra y cada una de sus
+     * correcciones, o un mapa vacío sin conContenido. Se llama antes de tomar el
+     * lock del índice: ContenidoArchivos tiene el suyo y una búsqueda en los PDF
+     * no tiene por qué demorar la indexación de un documento.
+     */
+    private Map<String, int[]> enContenido(Collection<String> palabras, Map<String, List<String>> correcciones,
+                                           boolean conContenido) {
+        Map<String, int[]> enContenido = new HashMap<>();
+        if (!conContenido) {
+            return enContenido;
+        }
+        for (String palabra : palabras) {
+            enContenido.computeIfAbsent(palabra, contenidoArchivos::documentosCon);
+            for (String forma : correcciones.getOrDefault(palabra, List.of())) {
+                enContenido.computeIfAbsent(forma, contenidoArchivos::documentosCon);
+            }
+        }
+        return enContenido;
+    }
+
+    /**
+     * Las palabras normalizadas del término, sin repetir y en orden; vacío si es null.
+     */
+    private static Set<String> palabrasDe(String terminoDeBusqueda) {
+        return new LinkedHashSet<>(List.of(NormalizadorTexto.tokenizar(terminoDeBusqueda)));
+    }
+
+    // --- Métodos internos (se llaman con el lock tomado) ---
+
+    /**
+     * Candidatos de un filtro: los del término de búsqueda y/o los de las palabras clave,
+     * ordenados por id, o null si no hay ninguno de los dos (hay que recorrer todas las filas).
+     */
+    private int[] candidatosDe(FiltroEnMemoria filtro, Map<String, List<String>> correcciones,
+                               Map<String, int[]> enContenido) {
+        int[] candidatos = null;
+        if (filtro.getTerminoDeBusqueda() != null) {
+            candidatos = idsConTodas(palabrasDe(filtro.getTerminoDeBusqueda()), correcciones, enContenido);
+        }
+        if (filtro.getIdsPalabrasClave() != null) {
+            int[] conPalabras = conPalabrasClave(filtro.getIdsPalabrasClave(), filtro.requiereTodasLasPalabrasClave()).aArreglo();
+            candidatos = candidatos == null ? conPalabras : ListasPosteo.interseccion(candidatos, conPalabras);
+        }
+        return candidatos;
+    }
+
+    /**
+     * Une (OR) o intersecta (AND) los mapas de bits de las palabras clave pedidas.
+     */
+    private MapaBits conPalabrasClave(List<Integer> idsPalabrasClave, boolean todas) {
+        List<MapaBits> mapas = new ArrayList<>();
+        for (Integer idPalabraClave : new LinkedHashSet<>(idsPalabrasClave)) {
+            MapaBits mapa = idPalabraClave == null ? null : porPalabraClave.get(idPalabraClave);
+            if (mapa != null) {
+                mapas.add(mapa);
+            } else if (todas) {
+                return new MapaBits(); // Una palabra clave sin documentos anula el AND
+            }
+        }
+        return todas ? MapaBits.interseccion(mapas) : MapaBits.union(mapas);
+    }
+
+    /**
+     * Intersecta las listas de cada palabra, empezando por la más corta.
+     */
+    private int[] idsConTodas(Set<String> palabras, Map<String, List<String>> correcciones,
+                              Map<String, int[]> enContenido) {
+        int[][] listas = new int[palabras.size()][];
+        int i = 0;
+        for (String palabra : palabras) {
+            listas[i] = posteosDe(palabra, correcciones.get(palabra), enContenido);
+            if (listas[i].length == 0) {
+                return ListasPosteo.VACIA; // Una palabra sin resultados anula el AND
+            }
+            i++;
+        }
+        return intersectarTodas(listas);
+    }
+
+    private static int[] intersectarTodas(int[][] listas) {
+        if (listas.length == 0) {
+            return ListasPosteo.VACIA;
+        }
+        int[][] porLargo = listas.clone();
+        Arrays.sort(porLargo, (a, b) -> Integer.compare(a.length, b.length));
+
+        int[] resultado = porLargo[0];
+        for (int i = 1; i < porLargo.length && resultado.length > 0; i++) {
+            resultado = ListasPosteo.interseccion(resultado, porLargo[i]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Orden de relevancia: mayor puntaje; a igual puntaje, más reciente y luego mayor id.
+     * Devuelve positivo si {@code a} es mejor que {@code b}.
+     */
+    private static int compararRelevancia(Puntuado a, Puntuado b) {
+        int porPuntaje = Double.compare(a.puntaje, b.puntaje);
+        if (porPuntaje != 0) {
+            return porPuntaje;
+        }
+        int porFecha = Long.compare(a.doc.getFechaCreacionMillis(), b.doc.getFechaCreacionMillis());
+        return porFecha != 0 ? porFecha : Integer.compare(a.doc.getIdDocumento(), b.doc.getIdDocumento());
+    }
+
+    /**
+     * Las palabras sin ninguna coincidencia, con sus correcciones (si las hay).
+     */
+    private Map<String, List<String>> correccionesDe(Set<String> palabras, Map<String, int[]> enContenido) {
+        Map<String, List<String>> correcciones = new LinkedHashMap<>();
+        for (String palabra : palabras) {
+            if (posteosDe(palabra, null, enContenido).length > 0) {
+                continue;
+            }
+            List<String> terminos = corrector.corregir(palabra, maxCorrecciones);
+            if (!terminos.isEmpty()) {
+                correcciones.put(palabra, terminos);
+            }
+        }
+        return correcciones;
+    }
+
+    /**
+     * La lista de la palabra o, si fue corregida, la unión de las de sus términos corregidos;
+     * se suman los documentos que la tienen en sus PDF, si están en enContenido.
+     */
+    private int[] posteosDe(String palabra, List<String> corregidas, Map<String, int[]> enContenido) {
+        List<String> formas = corregidas == null ? List.of(palabra) : corregidas;
+        List<int[]> listas = new ArrayList<>(formas.size() * 2);
+        for (String forma : formas) {
+            listas.add(posteosQueContienen(forma));
+            int[] conLaForma = enContenido.get(forma);
+            if (conLaForma != null) {
+                listas.add(conLaForma);
+            }
+        }
+        return ListasPosteo.union(listas);
+    }
+
+    /**
+     * Une las listas de todos los términos del vocabulario que contienen la palabra.
+     */
+    private int[] posteosQueContienen(String palabra) {
+        List<int[]> coincidencias = new ArrayList<>();
+        for (String termino : trigramas.queContienen(palabra)) {
+            coincidencias.add(posteos.get(termino));
+        }
+        return ListasPosteo.union(coincidencias);
+    }
+
+    /**
+     * Reaplica los documentos cuyo nombre de tipo no es el actual y deja la firma
+     * de los tipos al día (así la próxima instantánea sigue sirviendo).
+     */
+    private int renombrarTipos(SortedMap<Integer, String> nombresDeTipos) {
+        List<DocumentoIndexado> renombrados = new ArrayList<>();
+        for (int fila = 0; fila < tabla.tamanio(); fila++) {
+            DocumentoIndexado doc = tabla.documentos[fila];
+            DocumentoIndexado conNombre = doc.conNombreDeTipo(nombresDeTipos);
+            if (conNombre != doc) {
+                renombrados.add(conNombre);
+            }
+        }
+        for (DocumentoIndexado doc : renombrados) {
+            aplicar(doc);
+        }
+        firmaTipos = firmaDe(nombresDeTipos);
+        return renombrados.size();
+    }
+
+    private void aplicar(DocumentoIndexado doc) {
+        int id = doc.getIdDocumento();
+        DocumentoIndexado anterior = tabla.obtener(id);
+        tabla.guardar(doc);
+        puntuacion.registrar(anterior, doc);
+        if (anterior != null) {
+            corrector.registrar(anterior, -1);
+        }
+        corrector.registrar(doc, 1);
+        actualizarPalabrasClave(id, anterior == null ? ListasPosteo.VACIA : anterior.getIdsPalabrasClave(),
+                doc.getIdsPalabrasClave());
+        if (anterior != null) {
+            for (String termino : terminosDe(anterior)) {
+                int[] lista = posteos.get(termino);
+                if (lista == null) {
+                    continue;
+                }
+                int[] sinDoc = ListasPosteo.quitar(lista, id);
+                if (sinDoc.length == 0) {
+                    posteos.remove(termino);
+                    trigramas.quitar(termino);
+                } else {
+                    posteos.put(termino, sinDoc);
+                }
+            }
+        }
+        for (String termino : terminosDe(doc)) {
+            int[] lista = posteos.get(termino);
+            if (lista == null) {
+                trigramas.agregar(termino);
+                lista = ListasPosteo.VACIA;
+            }
+            posteos.put(termino, ListasPosteo.insertar(lista, id));
+        }
+    }
+
+    private void actualizarPalabrasClave(int id, int[] anteriores, int[] nuevas) {
+        for (int idPalabraClave : anteriores) {
+            MapaBits mapa = porPalabraClave.get(idPalabraClave);
+            if (mapa != null) {
+                mapa.quitar(id);
+            }
+        }
+        for (int idPalabraClave : nuevas) {
+            porPalabraClave.computeIfAbsent(idPalabraClave, p -> new MapaBits()).agregar(id);
+        }
+    }
+
+    private static Set<String> terminosDe(DocumentoIndexado doc) {
+        Set<String> terminos = new LinkedHashSet<>();
+        Collections.addAll(terminos, NormalizadorTexto.tokenizar(doc.getTitulo()));
+        Collections.addAll(terminos, NormalizadorTexto.tokenizar(doc.getResumen()));
+        Collections.addAll(terminos, NormalizadorTexto.tokenizar(doc.getNumDocumento()));
+        Collections.addAll(terminos, NormalizadorTexto.tokenizar(doc.getNombreTipoDocumento()));
+        return terminos;
+    }
+
+    private static final class Puntuado {
+        private final DocumentoIndexado doc;
+        private final double puntaje;
+
+        Puntuado(DocumentoIndexado doc, double puntaje) {
+            this.doc = doc;
+            this.puntaje = puntaje;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Copia en disco del índice de documentos, para arrancar sin leer las tablas
+ * documento y etiqueta completas. Guarda las copias de los documentos, las
+ * listas de posteo, el vocabulario del corrector y los largos de BM25, más las
+ * marcas con las que se sabe qué cambió después: el último idRegistro de la
+ * auditoría y el mayor idDocumento incluidos.
+ *
+ * Formato (big endian), versión {@link #VERSION}:
+ * <pre>
+ *   cabecera   mágico, versión, creadaEn, marcaRegistro, maxIdDocumento, firmaTipos
+ *   bm25       documentos, tokensTotales[4]
+ *   documentos cantidad, y por cada uno sus campos (textos UTF-8 con largo, -1 = null)
+ *   posteos    cantidad, y por cada término: texto, largo, ids
+ *   corrector  cantidad, y por cada término: texto, documentos
+ *   CRC32 de todo lo anterior
+ * </pre>
+ * Se escribe en un archivo temporal que después reemplaza al anterior, así un
+ * corte a mitad de escritura no deja una instantánea a medias. Se lee mapeando
+ * el archivo en memoria: las listas de posteo se copian en bloque desde el mapa,
+ * sin tokenizar ningún texto. Una versión distinta o un CRC que no coincide
+ * hacen que se descarte (y el índice se reconstruye desde la base de datos).
+ * @author micael
+ */
+final class InstantaneaIndice {
+
+    /**
+     * Versión del formato: se incrementa con cualquier cambio en la estructura.
+     */
+    static final int VERSION = 1;
+
+    // "DGIX"
+    private static final int MAGICO = 0x44474958;
+    private static final int SIN_ENTERO = Integer.MIN_VALUE;
+
+    final long creadaEn;
+    final int marcaRegistro;
+    final int maxIdDocumento;
+    final long firmaTipos;
+    final int documentosBm25;
+    final long[] tokensTotales;
+    final List<DocumentoIndexado> documentos;
+    final Map<String, int[]> posteos;
+    final Map<String, Integer> vocabulario;
+
+    InstantaneaIndice(long creadaEn, int marcaRegistro, int maxIdDocumento, long firmaTipos,
+                      int documentosBm25, long[] tokensTotales, List<DocumentoIndexado> documentos,
+                      Map<String, int[]> posteos, Map<String, Integer> vocabulario) {
+        this.creadaEn = creadaEn;
+        this.marcaRegistro = marcaRegistro;
+        this.maxIdDocumento = maxIdDocumento;
+        this.firmaTipos = firmaTipos;
+        this.documentosBm25 = documentosBm25;
+        this.tokensTotales = tokensTotales;
+        this.documentos = documentos;
+        this.posteos = posteos;
+        this.vocabulario = vocabulario;
+    }
+
+    /**
+     * Escribe la instantánea reemplazando la anterior (si la había).
+     * @param archivo La ruta final del archivo.
+     * @throws IOException si no se pudo escribir o reemplazar.
+     */
+    void escribir(Path archivo) throws IOException {
+        Files.createDirectories(archivo.toAbsolutePath().getParent());
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream archivoTemporal = Files.newOutputStream(temporal);
+             DataOutputStream salida = new DataOutputStream(
+                     new BufferedOutputStream(new CheckedOutputStream(archivoTemporal, crc), 1 << 16))) {
+            salida.writeInt(MAGICO);
+            salida.writeInt(VERSION);
+            salida.writeLong(creadaEn);
+            salida.writeInt(marcaRegistro);
+            salida.writeInt(maxIdDocumento);
+            salida.writeLong(firmaTipos);
+
+            salida.writeInt(documentosBm25);
+            salida.writeInt(tokensTotales.length);
+            for (long tokens : tokensTotales) {
+                salida.writeLong(tokens);
+            }
+
+            salida.writeInt(documentos.size());
+            for (DocumentoIndexado doc : documentos) {
+                salida.writeInt(doc.getIdDocumento());
+                escribirTexto(salida, doc.getTitulo());
+                escribirTexto(salida, doc.getResumen());
+                escribirTexto(salida, doc.getNumDocumento());
+                salida.writeLong(doc.getFechaCreacionMillis());
+                salida.writeBoolean(doc.isActivo());
+                escribirEntero(salida, doc.getIdTipoDocumento());
+                escribirTexto(salida, doc.getNombreTipoDocumento());
+                escribirEntero(salida, doc.getIdSector());
+                escribirEntero(salida, doc.getIdEstado());
+                escribirEntero(salida, doc.getIdUnidadEjecutora());
+                escribirEnteros(salida, doc.getIdsPalabrasClave() == null ? ListasPosteo.VACIA : doc.getIdsPalabrasClave());
+            }
+
+            salida.writeInt(posteos.size());
+            for (Map.Entry<String, int[]> posteo : posteos.entrySet()) {
+                escribirTexto(salida, posteo.getKey());
+                escribirEnteros(salida, posteo.getValue());
+            }
+
+            salida.writeInt(vocabulario.size());
+            for (Map.Entry<String, Integer> termino : vocabulario.entrySet()) {
+                escribirTexto(salida, termino.getKey());
+                salida.writeInt(termino.getValue());
+            }
+            salida.flush();
+            // El CRC va fuera de lo que cubre: se escribe directo al archivo
+            archivoTemporal.write(ByteBuffer.allocate(Long.BYTES).putLong(crc.getValue()).array());
+        }
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lee una instantánea mapeando el archivo en memoria.
+     * @param archivo La ruta del archivo.
+     * @return La instantánea.
+     * @throws IOException si no existe, no se puede leer, es de otra versión o está dañada.
+     */
+    static InstantaneaIndice leer(Path archivo) throws IOException {
+        MappedByteBuffer mapa;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long largo = canal.size();
+            if (largo < 2 * Integer.BYTES + Long.BYTES || largo > Integer.MAX_VALUE) {
+                throw new IOException("Tamaño de instantánea inválido: " + largo + " bytes.");
+            }
+            mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, largo);
+        }
+        if (mapa.getInt() != MAGICO) {
+            throw new IOException("El archivo no es una instantánea del índice.");
+        }
+        int version = mapa.getInt();
+        if (version != VERSION) {
+            throw new IOException("Instantánea de versión " + version + " (se esperaba " + VERSION + ").");
+        }
+        int finDatos = mapa.limit() - Long.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(mapa.duplicate().position(0).limit(finDatos));
+        if (crc.getValue() != mapa.getLong(finDatos)) {
+            throw new IOException("La instantánea está dañada (CRC no coincide).");
+        }
+
+        try {
+            long creadaEn = mapa.getLong();
+            int marcaRegistro = mapa.getInt();
+            int maxIdDocumento = mapa.getInt();
+            long firmaTipos = mapa.getLong();
+
+            int documentosBm25 = mapa.getInt();
+            long[] tokensTotales = new long[mapa.getInt()];
+            for (int i = 0; i < tokensTotales.length; i++) {
+                tokensTotales[i] = mapa.getLong();
+            }
+
+            int cantidad = mapa.getInt();
+            List<DocumentoIndexado> documentos = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                DocumentoIndexado.DocumentoIndexadoBuilder doc = DocumentoIndexado.builder()
+                        .idDocumento(mapa.getInt())
+                        .titulo(leerTexto(mapa))
+                        .resumen(leerTexto(mapa))
+                        .numDocumento(leerTexto(mapa));
+                long fecha = mapa.getLong();
+                documentos.add(doc
+                        .fechaCreacion(fecha == Long.MIN_VALUE ? null : new Date(fecha))
+                        .activo(mapa.get() != 0)
+                        .idTipoDocumento(leerEntero(mapa))
+                        .nombreTipoDocumento(leerTexto(mapa))
+                        .idSector(leerEntero(mapa))
+                        .idEstado(leerEntero(mapa))
+                        .idUnidadEjecutora(leerEntero(mapa))
+                        .idsPalabrasClave(leerEnteros(mapa))
+                        .build());
+            }
+
+            int terminos = mapa.getInt();
+            Map<String, int[]> posteos = new HashMap<>(terminos * 2);
+            for (int i = 0; i < terminos; i++) {
+                posteos.put(leerTexto(mapa), leerEnteros(mapa));
+            }
+
+            int palabras = mapa.getInt();
+            Map<String, Integer> vocabulario = new HashMap<>(palabras * 2);
+            for (int i = 0; i < palabras; i++) {
+                vocabulario.put(leerTexto(mapa), mapa.getInt());
+            }
+            return new InstantaneaIndice(creadaEn, marcaRegistro, maxIdDocumento, firmaTipos, documentosBm25,
+                    tokensTotales, documentos, posteos, vocabulario);
+        } catch (RuntimeException e) {
+            // Un largo fuera de rango con el CRC correcto: archivo escrito por otro programa
+            throw new IOException("La instantánea tiene una estructura inválida.", e);
+        }
+    }
+
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        if (texto == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static void escribirEntero(DataOutputStream salida, Integer valor) throws IOException {
+        salida.writeInt(valor == null ? SIN_ENTERO : valor);
+    }
+
+    private static void escribirEnteros(DataOutputStream salida, int[] valores) throws IOException {
+        salida.writeInt(valores.length);
+        for (int valor : valores) {
+            salida.writeInt(valor);
+        }
+    }
+
+    private static String leerTexto(ByteBuffer mapa) {
+        int largo = mapa.getInt();
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        mapa.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Integer leerEntero(ByteBuffer mapa) {
+        int valor = mapa.getInt();
+        return valor == SIN_ENTERO ? null : valor;
+    }
+
+    private static int[] leerEnteros(ByteBuffer mapa) {
+        int largo = mapa.getInt();
+        if (largo == 0) {
+            return ListasPosteo.VACIA;
+        }
+        int[] valores = new int[largo];
+        // Copia en bloque desde el archivo mapeado
+        mapa.asIntBuffer().get(valores);
+        mapa.position(mapa.position() + largo * Integer.BYTES);
+        return valores;
+    }
+}
@@ -0,0 +1,34 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.Arrays;
+
+/**
+ * Lista de int que crece sin encapsular cada valor en un Integer.
+ * Se usa durante la reconstrucción de los índices, donde se agregan
+ * millones de ids y el boxing tendría un costo notable.
+ * @author micael
+ */
+final class ListaEnteros {
+
+    private int[] valores = new int[4];
+    private int tamanio;
+
+    void agregar(int valor) {
+        if (tamanio == valores.length) {
+            valores = Arrays.copyOf(valores, tamanio * 2);
+        }
+        valores[tamanio++] = valor;
+    }
+
+    int obtener(int posicion) {
+        return valores[posicion];
+    }
+
+    int tamanio() {
+        return tamanio;
+    }
+
+    int[] aArreglo() {
+        return Arrays.copyOf(valores, tamanio);
+    }
+}
@@ -0,0 +1,109 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Operaciones sobre listas de posteo: arreglos de int ordenados de forma
+ * ascendente y sin repetidos (cada valor es un idDocumento).
+ * @author micael
+ */
+public final class ListasPosteo {
+
+    public static final int[] VACIA = new int[0];
+
+    private ListasPosteo() {
+    }
+
+    /**
+     * Inserta un id manteniendo el orden. Si ya estaba, devuelve la misma lista.
+     * @param lista La lista ordenada actual.
+     * @param id El id a insertar.
+     * @return Una lista nueva con el id, o la misma si ya lo contenía.
+     */
+    public static int[] insertar(int[] lista, int id) {
+        int pos = Arrays.binarySearch(lista, id);
+        if (pos >= 0) {
+            return lista;
+        }
+        int insercion = -pos - 1;
+        int[] nueva = new int[lista.length + 1];
+        System.arraycopy(lista, 0, nueva, 0, insercion);
+        nueva[insercion] = id;
+        System.arraycopy(lista, insercion, nueva, insercion + 1, lista.length - insercion);
+        return nueva;
+    }
+
+    /**
+     * Quita un id de la lista. Si no estaba, devuelve la misma lista.
+     * @param lista La lista ordenada actual.
+     * @param id El id a quitar.
+     * @return Una lista nueva sin el id, o la misma si no lo contenía.
+     */
+    public static int[] quitar(int[] lista, int id) {
+        int pos = Arrays.binarySearch(lista, id);
+        if (pos < 0) {
+            return lista;
+        }
+        int[] nueva = new int[lista.length - 1];
+        System.arraycopy(lista, 0, nueva, 0, pos);
+        System.arraycopy(lista, pos + 1, nueva, pos, lista.length - pos - 1);
+        return nueva;
+    }
+
+    /**
+     * Intersección de dos listas ordenadas (recorrido en paralelo).
+     * @param a Primera lista.
+     * @param b Segunda lista.
+     * @return Los ids presentes en ambas.
+     */
+    public static int[] interseccion(int[] a, int[] b) {
+        int[] salida = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                salida[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == salida.length ? salida : Arrays.copyOf(salida, n);
+    }
+
+    /**
+     * Unión de varias listas ordenadas.
+     * @param listas Las listas a unir.
+     * @return Una lista ordenada con todos los ids, sin repetidos.
+     */
+    public static int[] union(List<int[]> listas) {
+        if (listas.isEmpty()) {
+            return VACIA;
+        }
+        if (listas.size() == 1) {
+            return listas.get(0);
+        }
+        int total = 0;
+        for (int[] lista : listas) {
+            total += lista.length;
+        }
+        int[] todos = new int[total];
+        int n = 0;
+        for (int[] lista : listas) {
+            System.arraycopy(lista, 0, todos, n, lista.length);
+            n += lista.length;
+        }
+        Arrays.sort(todos);
+        // Compacta los repetidos in-place
+        int unicos = 0;
+        for (int k = 0; k < todos.length; k++) {
+            if (k == 0 || todos[k] != todos[k - 1]) {
+                todos[unicos++] = todos[k];
+            }
+        }
+        return Arrays.copyOf(todos, unicos);
+    }
+}
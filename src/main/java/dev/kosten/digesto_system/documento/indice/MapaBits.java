@@ -0,0 +1,464 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conjunto comprimido de enteros no negativos, al estilo de Roaring Bitmap.
+ * Los valores se agrupan por sus 16 bits altos; cada grupo se guarda en un
+ * contenedor que puede ser:
+ * <ul>
+ *   <li>un arreglo ordenado de char (hasta 4096 valores, 2 bytes por valor), o</li>
+ *   <li>un mapa de bits de 65536 bits (8 KB fijos) cuando el grupo es denso.</li>
+ * </ul>
+ * Así un conjunto chico ocupa poco y uno denso se intersecta con AND de palabras de 64 bits.
+ * No es thread-safe: quien lo use debe sincronizar el acceso.
+ * @author micael
+ */
+public final class MapaBits {
+
+    /**
+     * Cantidad de valores a partir de la cual un contenedor arreglo pasa a ser de bits
+     * (a partir de ahí el arreglo ocuparía más que los 8 KB del mapa de bits).
+     */
+    private static final int MAX_ARREGLO = 4096;
+
+    private char[] claves = new char[4];
+    private Contenedor[] contenedores = new Contenedor[4];
+    private int tamanio;
+
+    /**
+     * Agrega un valor al conjunto.
+     * @param valor El valor (no negativo).
+     */
+    public void agregar(int valor) {
+        char alto = (char) (valor >>> 16);
+        int pos = Arrays.binarySearch(claves, 0, tamanio, alto);
+        if (pos >= 0) {
+            contenedores[pos] = contenedores[pos].agregar((char) valor);
+            return;
+        }
+        ContenedorArreglo nuevo = new ContenedorArreglo();
+        nuevo.agregar((char) valor);
+        insertarContenedor(-pos - 1, alto, nuevo);
+    }
+
+    /**
+     * Quita un valor del conjunto, si estaba.
+     * @param valor El valor.
+     */
+    public void quitar(int valor) {
+        int pos = Arrays.binarySearch(claves, 0, tamanio, (char) (valor >>> 16));
+        if (pos < 0) {
+            return;
+        }
+        Contenedor resultado = contenedores[pos].quitar((char) valor);
+        if (resultado == null) {
+            System.arraycopy(claves, pos + 1, claves, pos, tamanio - pos - 1);
+            System.arraycopy(contenedores, pos + 1, contenedores, pos, tamanio - pos - 1);
+            contenedores[--tamanio] = null;
+        } else {
+            contenedores[pos] = resultado;
+        }
+    }
+
+    /**
+     * @param valor El valor a buscar.
+     * @return true si el valor está en el conjunto.
+     */
+    public boolean contiene(int valor) {
+        int pos = Arrays.binarySearch(claves, 0, tamanio, (char) (valor >>> 16));
+        return pos >= 0 && contenedores[pos].contiene((char) valor);
+    }
+
+    /**
+     * @return La cantidad de valores del conjunto.
+     */
+    public int cardinalidad() {
+        int total = 0;
+        for (int i = 0; i < tamanio; i++) {
+            total += contenedores[i].cardinalidad();
+        }
+        return total;
+    }
+
+    /**
+     * @return Los valores en orden ascendente.
+     */
+    public int[] aArreglo() {
+        int[] valores = new int[cardinalidad()];
+        int n = 0;
+        for (int i = 0; i < tamanio; i++) {
+            n = contenedores[i].volcar(claves[i] << 16, valores, n);
+        }
+        return valores;
+    }
+
+    /**
+     * Unión (OR) de varios conjuntos. No modifica los originales.
+     * @param mapas Los conjuntos a unir.
+     * @return Un conjunto nuevo con todos los valores.
+     */
+    public static MapaBits union(List<MapaBits> mapas) {
+        MapaBits resultado = new MapaBits();
+        for (MapaBits mapa : mapas) {
+            resultado = union(resultado, mapa);
+        }
+        return resultado;
+    }
+
+    /**
+     * Intersección (AND) de varios conjuntos, empezando por el más chico.
+     * No modifica los originales.
+     * @param mapas Los conjuntos a intersectar.
+     * @return Un conjunto nuevo con los valores presentes en todos (vacío si la lista lo está).
+     */
+    public static MapaBits interseccion(List<MapaBits> mapas) {
+        if (mapas.isEmpty()) {
+            return new MapaBits();
+        }
+        MapaBits[] ordenados = mapas.toArray(new MapaBits[0]);
+        Arrays.sort(ordenados, (a, b) -> Integer.compare(a.cardinalidad(), b.cardinalidad()));
+        MapaBits resultado = ordenados[0];
+        for (int i = 1; i < ordenados.length && resultado.tamanio > 0; i++) {
+            resultado = interseccion(resultado, ordenados[i]);
+        }
+        // Con un solo conjunto se devuelve una copia para no exponer el original
+        return resultado == ordenados[0] ? union(new MapaBits(), resultado) : resultado;
+    }
+
+    // --- Operaciones entre dos conjuntos (recorrido en paralelo de las claves) ---
+
+    private static MapaBits union(MapaBits a, MapaBits b) {
+        MapaBits resultado = new MapaBits();
+        int i = 0, j = 0;
+        while (i < a.tamanio || j < b.tamanio) {
+            if (j >= b.tamanio || (i < a.tamanio && a.claves[i] < b.claves[j])) {
+                resultado.agregarAlFinal(a.claves[i], a.contenedores[i].copiar());
+                i++;
+            } else if (i >= a.tamanio || b.claves[j] < a.claves[i]) {
+                resultado.agregarAlFinal(b.claves[j], b.contenedores[j].copiar());
+                j++;
+            } else {
+                resultado.agregarAlFinal(a.claves[i], a.contenedores[i].o(b.contenedores[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    private static MapaBits interseccion(MapaBits a, MapaBits b) {
+        MapaBits resultado = new MapaBits();
+        int i = 0, j = 0;
+        while (i < a.tamanio && j < b.tamanio) {
+            if (a.claves[i] < b.claves[j]) {
+                i++;
+            } else if (a.claves[i] > b.claves[j]) {
+                j++;
+            } else {
+                Contenedor comun = a.contenedores[i].y(b.contenedores[j]);
+                if (comun != null) {
+                    resultado.agregarAlFinal(a.claves[i], comun);
+                }
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    private void agregarAlFinal(char clave, Contenedor contenedor) {
+        insertarContenedor(tamanio, clave, contenedor);
+    }
+
+    private void insertarContenedor(int pos, char clave, Contenedor contenedor) {
+        if (tamanio == claves.length) {
+            claves = Arrays.copyOf(claves, tamanio * 2);
+            contenedores = Arrays.copyOf(contenedores, tamanio * 2);
+        }
+        System.arraycopy(claves, pos, claves, pos + 1, tamanio - pos);
+        System.arraycopy(contenedores, pos, contenedores, pos + 1, tamanio - pos);
+        claves[pos] = clave;
+        contenedores[pos] = contenedor;
+        tamanio++;
+    }
+
+    // --- Contenedores ---
+
+    /**
+     * Los 16 bits bajos de los valores de un mismo grupo. Las operaciones que
+     * pueden cambiar de representación devuelven el contenedor a usar desde entonces.
+     */
+    private interface Contenedor {
+
+        Contenedor agregar(char valor);
+
+        /**
+         * @return El contenedor resultante, o null si quedó vacío.
+         */
+        Contenedor quitar(char valor);
+
+        boolean contiene(char valor);
+
+        int cardinalidad();
+
+        Contenedor o(Contenedor otro);
+
+        /**
+         * @return La intersección, o null si es vacía.
+         */
+        Contenedor y(Contenedor otro);
+
+        Contenedor copiar();
+
+        int volcar(int alto, int[] destino, int desde);
+    }
+
+    private static final class ContenedorArreglo implements Contenedor {
+        private char[] valores;
+        private int cantidad;
+
+        ContenedorArreglo() {
+            this(new char[4], 0);
+        }
+
+        ContenedorArreglo(char[] valores, int cantidad) {
+            this.valores = valores;
+            this.cantidad = cantidad;
+        }
+
+        @Override
+        public Contenedor agregar(char valor) {
+            int pos = Arrays.binarySearch(valores, 0, cantidad, valor);
+            if (pos >= 0) {
+                return this;
+            }
+            if (cantidad >= MAX_ARREGLO) {
+                return aBits().agregar(valor);
+            }
+            int insercion = -pos - 1;
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(cantidad * 2, MAX_ARREGLO));
+            }
+            System.arraycopy(valores, insercion, valores, insercion + 1, cantidad - insercion);
+            valores[insercion] = valor;
+            cantidad++;
+            return this;
+        }
+
+        @Override
+        public Contenedor quitar(char valor) {
+            int pos = Arrays.binarySearch(valores, 0, cantidad, valor);
+            if (pos >= 0) {
+                System.arraycopy(valores, pos + 1, valores, pos, cantidad - pos - 1);
+                cantidad--;
+            }
+            return cantidad == 0 ? null : this;
+        }
+
+        @Override
+        public boolean contiene(char valor) {
+            return Arrays.binarySearch(valores, 0, cantidad, valor) >= 0;
+        }
+
+        @Override
+        public int cardinalidad() {
+            return cantidad;
+        }
+
+        @Override
+        public Contenedor o(Contenedor otro) {
+            if (otro instanceof ContenedorBits) {
+                return otro.o(this);
+            }
+            ContenedorArreglo b = (ContenedorArreglo) otro;
+            char[] unidos = new char[cantidad + b.cantidad];
+            int i = 0, j = 0, n = 0;
+            while (i < cantidad || j < b.cantidad) {
+                if (j >= b.cantidad || (i < cantidad && valores[i] < b.valores[j])) {
+                    unidos[n++] = valores[i++];
+                } else if (i >= cantidad || b.valores[j] < valores[i]) {
+                    unidos[n++] = b.valores[j++];
+                } else {
+                    unidos[n++] = valores[i++];
+                    j++;
+                }
+            }
+            ContenedorArreglo resultado = new ContenedorArreglo(unidos, n);
+            return n > MAX_ARREGLO ? resultado.aBits() : resultado;
+        }
+
+        @Override
+        public Contenedor y(Contenedor otro) {
+            char[] comunes = new char[cantidad];
+            int n = 0;
+            if (otro instanceof ContenedorBits) {
+                for (int i = 0; i < cantidad; i++) {
+                    if (otro.contiene(valores[i])) {
+                        comunes[n++] = valores[i];
+                    }
+                }
+            } else {
+                ContenedorArreglo b = (ContenedorArreglo) otro;
+                int i = 0, j = 0;
+                while (i < cantidad && j < b.cantidad) {
+                    if (valores[i] < b.valores[j]) {
+                        i++;
+                    } else if (valores[i] > b.valores[j]) {
+                        j++;
+                    } else {
+                        comunes[n++] = valores[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return n == 0 ? null : new ContenedorArreglo(comunes, n);
+        }
+
+        @Override
+        public Contenedor copiar() {
+            return new ContenedorArreglo(Arrays.copyOf(valores, cantidad), cantidad);
+        }
+
+        @Override
+        public int volcar(int alto, int[] destino, int desde) {
+            for (int i = 0; i < cantidad; i++) {
+                destino[desde++] = alto | valores[i];
+            }
+            return desde;
+        }
+
+        private ContenedorBits aBits() {
+            ContenedorBits bits = new ContenedorBits();
+            for (int i = 0; i < cantidad; i++) {
+                bits.agregar(valores[i]);
+            }
+            return bits;
+        }
+    }
+
+    private static final class ContenedorBits implements Contenedor {
+        private final long[] palabras;
+        private int cardinalidad;
+
+        ContenedorBits() {
+            this(new long[1024], 0);
+        }
+
+        ContenedorBits(long[] palabras, int cardinalidad) {
+            this.palabras = palabras;
+            this.cardinalidad = cardinalidad;
+        }
+
+        @Override
+        public Contenedor agregar(char valor) {
+            long antes = palabras[valor >>> 6];
+            long despues = antes | (1L << valor);
+            if (antes != despues) {
+                palabras[valor >>> 6] = despues;
+                cardinalidad++;
+            }
+            return this;
+        }
+
+        @Override
+        public Contenedor quitar(char valor) {
+            long antes = palabras[valor >>> 6];
+            long despues = antes & ~(1L << valor);
+            if (antes != despues) {
+                palabras[valor >>> 6] = despues;
+                cardinalidad--;
+            }
+            if (cardinalidad == 0) {
+                return null;
+            }
+            return cardinalidad <= MAX_ARREGLO ? aArreglo() : this;
+        }
+
+        @Override
+        public boolean contiene(char valor) {
+            return (palabras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        public int cardinalidad() {
+            return cardinalidad;
+        }
+
+        @Override
+        public Contenedor o(Contenedor otro) {
+            long[] unidas = palabras.clone();
+            if (otro instanceof ContenedorBits) {
+                long[] otras = ((ContenedorBits) otro).palabras;
+                for (int k = 0; k < unidas.length; k++) {
+                    unidas[k] |= otras[k];
+                }
+                return new ContenedorBits(unidas, contarBits(unidas));
+            }
+            ContenedorBits resultado = new ContenedorBits(unidas, cardinalidad);
+            ContenedorArreglo arreglo = (ContenedorArreglo) otro;
+            for (int i = 0; i < arreglo.cantidad; i++) {
+                resultado.agregar(arreglo.valores[i]);
+            }
+            return resultado;
+        }
+
+        @Override
+        public Contenedor y(Contenedor otro) {
+            if (otro instanceof ContenedorArreglo) {
+                return otro.y(this);
+            }
+            long[] otras = ((ContenedorBits) otro).palabras;
+            long[] comunes = new long[palabras.length];
+            for (int k = 0; k < comunes.length; k++) {
+                comunes[k] = palabras[k] & otras[k];
+            }
+            int total = contarBits(comunes);
+            if (total == 0) {
+                return null;
+            }
+            ContenedorBits resultado = new ContenedorBits(comunes, total);
+            return total <= MAX_ARREGLO ? resultado.aArreglo() : resultado;
+        }
+
+        @Override
+        public Contenedor copiar() {
+            return new ContenedorBits(palabras.clone(), cardinalidad);
+        }
+
+        @Override
+        public int volcar(int alto, int[] destino, int desde) {
+            for (int k = 0; k < palabras.length; k++) {
+                long palabra = palabras[k];
+                while (palabra != 0) {
+                    destino[desde++] = alto | (k << 6) | Long.numberOfTrailingZeros(palabra);
+                    palabra &= palabra - 1; // Apaga el bit más bajo
+                }
+            }
+            return desde;
+        }
+
+        private ContenedorArreglo aArreglo() {
+            char[] valores = new char[cardinalidad];
+            int n = 0;
+            for (int k = 0; k < palabras.length; k++) {
+                long palabra = palabras[k];
+                while (palabra != 0) {
+                    valores[n++] = (char) ((k << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+            return new ContenedorArreglo(valores, n);
+        }
+
+        private static int contarBits(long[] palabras) {
+            int total = 0;
+            for (long palabra : palabras) {
+                total += Long.bitCount(palabra);
+            }
+            return total;
+        }
+    }
+}
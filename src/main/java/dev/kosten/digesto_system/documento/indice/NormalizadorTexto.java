@@ -0,0 +1,135 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utilidades de normalización y tokenización de texto para los índices en memoria.
+ * Todos los índices de búsqueda deben pasar el texto por esta clase, tanto al
+ * indexar como al consultar, para que ambos lados comparen la misma forma.
+ * @author micael
+ */
+public final class NormalizadorTexto {
+
+    private static final String[] SIN_TOKENS = new String[0];
+    private static final Pattern SEPARADOR_PALABRAS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+
+    private NormalizadorTexto() {
+    }
+
+    /**
+     * Devuelve el texto en minúsculas, sin tildes ni diéresis y sin espacios
+     * sobrantes en los extremos ("  Resolución " da "resolucion").
+     * Es la misma forma que se guarda en las columnas *Normalizado de documento.
+     * @param texto El texto original (puede ser null).
+     * @return El texto normalizado, o una cadena vacía si era null.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String recortado = texto.trim();
+        if (esAscii(recortado)) {
+            return recortado.toLowerCase(Locale.ROOT); // Sin tildes posibles: se evita el NFD
+        }
+        // NFD separa cada letra de su tilde ("ó" = "o" + U+0301); luego se quitan las marcas
+        String sinMarcas = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(recortado, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Igual que {@link #normalizar(String)}, pero conserva el null
+     * (para columnas opcionales, donde null y "" no son lo mismo).
+     * @param texto El texto original (puede ser null).
+     * @return El texto normalizado, o null si era null.
+     */
+    public static String normalizarONulo(String texto) {
+        return texto == null ? null : normalizar(texto);
+    }
+
+    /**
+     * Normaliza el texto y lo divide en palabras separadas por espacios.
+     * Se corta solo por espacios (igual que conTerminoDeBusqueda) para que
+     * buscar una palabra como subcadena de un token equivalga a un LIKE '%palabra%'.
+     * @param texto El texto original (puede ser null).
+     * @return Los tokens normalizados, sin vacíos.
+     */
+    public static String[] tokenizar(String texto) {
+        String normalizado = normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return SIN_TOKENS;
+        }
+        return normalizado.split("\\s+");
+    }
+
+    /**
+     * Normaliza el texto y lo divide en palabras de letras y dígitos, cortando
+     * también por signos de puntuación ("RES-12/2024" da "res", "12" y "2024").
+     * Se usa donde importa el inicio de cada palabra, como en las sugerencias por prefijo.
+     * @param texto El texto original (puede ser null).
+     * @return Las palabras normalizadas, sin vacías.
+     */
+    public static String[] palabras(String texto) {
+        String normalizado = normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return SIN_TOKENS;
+        }
+        String[] partes = SEPARADOR_PALABRAS.split(normalizado);
+        if (partes.length > 0 && partes[0].isEmpty()) {
+            // split deja un vacío inicial si el texto empieza con un separador
+            return Arrays.copyOfRange(partes, 1, partes.length);
+        }
+        return partes;
+    }
+
+    /**
+     * Ubica las palabras (tramos de letras y dígitos) del texto ORIGINAL, sin normalizarlo,
+     * para poder resaltarlas después sobre el texto tal como se muestra.
+     * Las tildes sueltas (marcas combinantes) quedan dentro de la palabra.
+     * @param texto El texto original (puede ser null).
+     * @return Pares [inicio, fin) consecutivos: {inicio0, fin0, inicio1, fin1, ...}.
+     */
+    public static int[] posicionesDePalabras(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return new int[0];
+        }
+        int[] posiciones = new int[16];
+        int cantidad = 0;
+        int inicio = -1;
+        for (int i = 0; i <= texto.length(); i++) {
+            boolean enPalabra = i < texto.length() && esParteDePalabra(texto.charAt(i), inicio >= 0);
+            if (enPalabra && inicio < 0) {
+                inicio = i;
+            } else if (!enPalabra && inicio >= 0) {
+                if (cantidad + 2 > posiciones.length) {
+                    posiciones = Arrays.copyOf(posiciones, posiciones.length * 2);
+                }
+                posiciones[cantidad++] = inicio;
+                posiciones[cantidad++] = i;
+                inicio = -1;
+            }
+        }
+        return Arrays.copyOf(posiciones, cantidad);
+    }
+
+    private static boolean esParteDePalabra(char c, boolean dentroDePalabra) {
+        if (Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        int tipo = Character.getType(c);
+        return dentroDePalabra && (tipo == Character.NON_SPACING_MARK || tipo == Character.COMBINING_SPACING_MARK
+                || tipo == Character.ENCLOSING_MARK);
+    }
+
+    private static boolean esAscii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
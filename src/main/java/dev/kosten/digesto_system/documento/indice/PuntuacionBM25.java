@@ -0,0 +1,147 @@
+package dev.kosten.digesto_system.documento.indice;
+
+/**
+ * Puntaje de relevancia BM25 sobre los cuatro campos de texto de un documento
+ * (título, resumen, número y nombre del tipo), en su variante por campos (BM25F):
+ * la frecuencia de cada palabra se normaliza por el largo de cada campo, se
+ * multiplica por el peso del campo y recién después se satura con k1.
+ * Así una coincidencia en el número o en el título vale más que una en el resumen,
+ * y un resumen largo que repite la palabra no le gana a un título corto que la tiene.
+ *
+ * Una palabra "aparece" en un token si es subcadena de él, igual que en el índice.
+ * Guarda la cantidad total de tokens de cada campo para calcular los largos promedio.
+ * No es thread-safe: IndiceDocumentos la usa siempre con su lock tomado.
+ * @author micael
+ */
+final class PuntuacionBM25 {
+
+    /**
+     * Saturación de la frecuencia: con k1 = 1.2 la tercera aparición ya suma poco.
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * Cuánto penaliza el largo del campo (0 = nada, 1 = proporcional).
+     */
+    private static final double B = 0.75;
+
+    // Campos, en el orden de PESOS: título, resumen, número y nombre del tipo
+    private static final int CAMPOS = 4;
+    private static final double[] PESOS = {2.5, 1.0, 3.0, 1.5};
+
+    private final long[] tokensTotales = new long[CAMPOS];
+    private int documentos;
+
+    /**
+     * Restaura los largos guardados en la instantánea del índice.
+     * @param documentos Cantidad de documentos registrados.
+     * @param tokensTotales Tokens de cada campo, en el orden de PESOS.
+     * @return La puntuación con esos largos.
+     */
+    static PuntuacionBM25 desde(int documentos, long[] tokensTotales) {
+        PuntuacionBM25 puntuacion = new PuntuacionBM25();
+        System.arraycopy(tokensTotales, 0, puntuacion.tokensTotales, 0, Math.min(CAMPOS, tokensTotales.length));
+        puntuacion.documentos = documentos;
+        return puntuacion;
+    }
+
+    int getDocumentos() {
+        return documentos;
+    }
+
+    long[] copiarTokensTotales() {
+        return tokensTotales.clone();
+    }
+
+    /**
+     * Actualiza los largos totales al agregar, reemplazar o quitar un documento.
+     * @param anterior La copia que se reemplaza (null si es nuevo).
+     * @param nuevo La copia nueva (null si se quita).
+     */
+    void registrar(DocumentoIndexado anterior, DocumentoIndexado nuevo) {
+        if (anterior != null) {
+            String[][] campos = camposDe(anterior);
+            for (int c = 0; c < CAMPOS; c++) {
+                tokensTotales[c] -= campos[c].length;
+            }
+            documentos--;
+        }
+        if (nuevo != null) {
+            String[][] campos = camposDe(nuevo);
+            for (int c = 0; c < CAMPOS; c++) {
+                tokensTotales[c] += campos[c].length;
+            }
+            documentos++;
+        }
+    }
+
+    /**
+     * Calcula el IDF de cada palabra: las palabras raras pesan más que las comunes.
+     * @param frecuencias Cantidad de documentos que contienen cada palabra.
+     * @return El IDF de cada palabra, en el mismo orden.
+     */
+    double[] idf(int[] frecuencias) {
+        double[] idf = new double[frecuencias.length];
+        for (int i = 0; i < frecuencias.length; i++) {
+            double df = frecuencias[i];
+            // Variante de Lucene: nunca negativo, aunque la palabra esté en casi todos
+            idf[i] = Math.log(1 + (documentos - df + 0.5) / (df + 0.5));
+        }
+        return idf;
+    }
+
+    /**
+     * Puntúa un documento contra las palabras normalizadas de la búsqueda.
+     * Cada palabra puede tener alternativas (las correcciones de la búsqueda
+     * difusa): un token cuenta si contiene cualquiera de ellas.
+     * @param doc El documento.
+     * @param palabras Para cada palabra de la búsqueda, sus formas aceptadas.
+     * @param idf El IDF de cada palabra (ver {@link #idf(int[])}).
+     * @return El puntaje (mayor es más relevante).
+     */
+    double puntuar(DocumentoIndexado doc, String[][] palabras, double[] idf) {
+        String[][] campos = camposDe(doc);
+        double[] normalizacion = new double[CAMPOS];
+        for (int c = 0; c < CAMPOS; c++) {
+            double promedio = documentos == 0 ? 0 : (double) tokensTotales[c] / documentos;
+            double relativo = promedio == 0 ? 1 : campos[c].length / promedio;
+            normalizacion[c] = 1 - B + B * relativo;
+        }
+
+        double puntaje = 0;
+        for (int p = 0; p < palabras.length; p++) {
+            double frecuencia = 0;
+            for (int c = 0; c < CAMPOS; c++) {
+                int apariciones = 0;
+                for (String token : campos[c]) {
+                    if (contieneAlguna(token, palabras[p])) {
+                        apariciones++;
+                    }
+                }
+                if (apariciones > 0) {
+                    frecuencia += PESOS[c] * apariciones / normalizacion[c];
+                }
+            }
+            puntaje += idf[p] * frecuencia * (K1 + 1) / (frecuencia + K1);
+        }
+        return puntaje;
+    }
+
+    private static boolean contieneAlguna(String token, String[] formas) {
+        for (String forma : formas) {
+            if (token.contains(forma)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[][] camposDe(DocumentoIndexado doc) {
+        return new String[][] {
+            NormalizadorTexto.tokenizar(doc.getTitulo()),
+            NormalizadorTexto.tokenizar(doc.getResumen()),
+            NormalizadorTexto.tokenizar(doc.getNumDocumento()),
+            NormalizadorTexto.tokenizar(doc.getNombreTipoDocumento())
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package dev.kosten.digesto_system.documento.indice;
+
+/**
+ * Proyección de Spring Data de una fila de la tabla referencia
+ * (documento que cita - documento citado), para la carga masiva de los índices.
+ * @author micael
+ */
+public interface ReferenciaProyeccion {
+
+    Integer getIdDocumento();
+
+    Integer getIdReferencia();
+}
@@ -0,0 +1,476 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import dev.kosten.digesto_system.documento.dto.DocumentoRelacionadoDTO;
+import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
+import dev.kosten.digesto_system.log.LogService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Documentos relacionados con cada documento activo, calculados de antemano en
+ * memoria para que GET /{id}/relacionados no tenga que cruzar las tablas
+ * etiqueta y referencia en cada pedido.
+ *
+ * El puntaje entre dos documentos suma:
+ * <ul>
+ *   <li>por cada palabra clave en común, su rareza: ln(1 + documentos / documentos con la palabra);</li>
+ *   <li>{@link #PESO_REFERENCIA_DIRECTA} si uno cita al otro, y {@link #PESO_REFERENCIA_COMUN}
+ *       por cada documento que ambos citan o que los cita a ambos (hasta {@link #MAX_REFERENCIAS_COMUNES});</li>
+ *   <li>si ya hay alguna relación de las anteriores, un extra por mismo sector y por mismo tipo
+ *       (solos no alcanzan: relacionarían a todo el sector entre sí).</li>
+ * </ul>
+ * Cada documento guarda su lista dispersa con los mejores puntajes (el doble de
+ * digesto.relacionados.guardados). Al cambiar un documento se recalcula su lista y se actualiza
+ * solo su entrada en las listas de los documentos que comparten con él una
+ * palabra clave o una referencia (antes o después del cambio). Las rarezas y los
+ * caminos de dos pasos que pasan por el documento cambiado se corrigen en el
+ * resto de las listas cuando esos documentos cambian o al reconstruir.
+ *
+ * Se construye al iniciar la aplicación y se actualiza con cada
+ * {@link DocumentoModificadoEvent} confirmado, igual que SugerenciasDocumentos.
+ * @author micael
+ */
+@Component
+@RequiredArgsConstructor
+public class RelacionadosDocumentos {
+
+    private static final double PESO_REFERENCIA_DIRECTA = 3.0;
+    private static final double PESO_REFERENCIA_COMUN = 1.0;
+    private static final int MAX_REFERENCIAS_COMUNES = 3;
+    private static final double PESO_MISMO_SECTOR = 0.5;
+    private static final double PESO_MISMO_TIPO = 0.25;
+
+    private final DocumentoRepository documentoRepo;
+    private final LogService logService;
+
+    /**
+     * Cantidad máxima de relacionados que se pueden pedir. Se guarda el doble:
+     * si un cambio saca a uno de la lista, el siguiente ya está calculado.
+     */
+    @Value("${digesto.relacionados.guardados:20}")
+    private int guardados;
+
+    /**
+     * Una palabra clave (o un documento citado) con más documentos que esto es
+     * demasiado general: no propone candidatos, aunque sigue sumando puntaje.
+     */
+    @Value("${digesto.relacionados.max-frecuencia:1000}")
+    private int maxFrecuencia;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegidos por 'lock'
+    private Relaciones relaciones;
+    private List<DocumentoIndexado> pendientes;
+    private Map<Integer, String> nombresDeTiposPendientes;
+
+    private volatile boolean listo = false;
+
+    /**
+     * Calcula los relacionados cuando la aplicación terminó de arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlIniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Recalcula todos los relacionados leyendo documentos, etiquetas y referencias
+     * en tres consultas. Los cambios que lleguen mientras se construye se guardan
+     * y se reaplican al final.
+     */
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long inicio = System.currentTimeMillis();
+            List<DocumentoIndexado> todos = IndiceDocumentos.unirConEtiquetas(documentoRepo.findAllParaIndice(),
+                    documentoRepo.findAllEtiquetasParaIndice());
+            List<ReferenciaProyeccion> referencias = documentoRepo.findAllReferenciasParaIndice();
+
+            Relaciones nuevas = new Relaciones();
+            // Documentos y referencias vienen ordenados por id, así que cada lista queda ordenada
+            Map<Integer, ListaEnteros> porPalabra = new HashMap<>();
+            for (DocumentoIndexado doc : todos) {
+                if (!doc.isActivo()) {
+                    continue;
+                }
+                nuevas.documentos.put(doc.getIdDocumento(), doc);
+                for (int palabra : doc.getIdsPalabrasClave()) {
+                    porPalabra.computeIfAbsent(palabra, p -> new ListaEnteros()).agregar(doc.getIdDocumento());
+                }
+            }
+            Map<Integer, ListaEnteros> salientes = new HashMap<>();
+            Map<Integer, ListaEnteros> entrantes = new HashMap<>();
+            // Ordenadas por quien cita: las listas de entrantes también quedan ordenadas
+            for (ReferenciaProyeccion referencia : referencias) {
+                salientes.computeIfAbsent(referencia.getIdDocumento(), d -> new ListaEnteros())
+                        .agregar(referencia.getIdReferencia());
+                entrantes.computeIfAbsent(referencia.getIdReferencia(), d -> new ListaEnteros())
+                        .agregar(referencia.getIdDocumento());
+            }
+            porPalabra.forEach((palabra, ids) -> nuevas.porPalabra.put(palabra, ids.aArreglo()));
+            salientes.forEach((id, ids) -> nuevas.salientes.put(id, ids.aArreglo()));
+            entrantes.forEach((id, ids) -> nuevas.entrantes.put(id, ids.aArreglo()));
+            for (DocumentoIndexado doc : nuevas.documentos.values()) {
+                nuevas.relacionados.put(doc.getIdDocumento(), nuevas.calcular(doc, nuevas.candidatos(doc)));
+            }
+
+            lock.writeLock().lock();
+            try {
+                relaciones = nuevas;
+                for (DocumentoIndexado doc : pendientes) {
+                    relaciones.aplicar(doc);
+                }
+                pendientes = null;
+                if (nombresDeTiposPendientes != null) {
+                    relaciones.renombrarTipos(nombresDeTiposPendientes);
+                    nombresDeTiposPendientes = null;
+                }
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logService.info("Documentos relacionados calculados: " + nuevas.documentos.size() + " documentos, "
+                    + referencias.size() + " referencias en " + (System.currentTimeMillis() - inicio) + " ms.");
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logService.error("No se pudieron calcular los documentos relacionados.", e);
+        }
+    }
+
+    /**
+     * Aplica a los relacionados un cambio ya confirmado en la base de datos.
+     * @param evento El evento publicado por DocumentoService.
+     */
+    @TransactionalEventListener
+    public void alModificarDocumento(DocumentoModificadoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            if (pendientes != null) {
+                pendientes.add(evento.getDocumento());
+            }
+            if (relaciones != null) {
+                relaciones.aplicar(evento.getDocumento());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Pone el nombre actual del tipo en las copias de los documentos (es lo que
+     * muestra {@link #relacionadosDe}). No cambia ningún puntaje: el tipo pesa por su ID.
+     * Si se están construyendo, se aplica al terminar.
+     * @param nombresDeTipos idTipoDocumento -> nombre actual (ver IndiceDocumentos.actualizarNombresDeTipos).
+     */
+    public void actualizarNombresDeTipos(Map<Integer, String> nombresDeTipos) {
+        lock.writeLock().lock();
+        try {
+            if (pendientes != null) {
+                nombresDeTiposPendientes = nombresDeTipos;
+            } else if (relaciones != null) {
+                relaciones.renombrarTipos(nombresDeTipos);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si los relacionados terminaron su construcción inicial.
+     * @return true si están listos.
+     */
+    public boolean estaListo() {
+        return listo;
+    }
+
+    /**
+     * Devuelve los relacionados ya calculados de un documento, sin consultar la base de datos.
+     * @param idDocumento El ID del documento.
+     * @param limite Cantidad máxima de relacionados (se acota a digesto.relacionados.guardados).
+     * @return Los relacionados, del más al menos relacionado, o null si el documento
+     * no está (no existe o está inactivo).
+     */
+    public List<DocumentoRelacionadoDTO> relacionadosDe(Integer idDocumento, int limite) {
+        lock.readLock().lock();
+        try {
+            if (relaciones == null || !relaciones.documentos.containsKey(idDocumento)) {
+                return null;
+            }
+            Vecinos vecinos = relaciones.relacionados.getOrDefault(idDocumento, Vecinos.NINGUNO);
+            int cantidad = Math.min(Math.min(limite, guardados), vecinos.ids.length);
+            List<DocumentoRelacionadoDTO> resultado = new ArrayList<>(cantidad);
+            for (int i = 0; i < vecinos.ids.length && resultado.size() < cantidad; i++) {
+                DocumentoIndexado doc = relaciones.documentos.get(vecinos.ids[i]);
+                if (doc != null) {
+                    resultado.add(DocumentoRelacionadoDTO.builder()
+                            .idDocumento(doc.getIdDocumento())
+                            .numDocumento(doc.getNumDocumento())
+                            .titulo(doc.getTitulo())
+                            .fechaCreacion(doc.getFechaCreacion())
+                            .nombreTipoDocumento(doc.getNombreTipoDocumento())
+                            .puntaje(Math.round(vecinos.puntajes[i] * 1000) / 1000.0)
+                            .build());
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int capacidad() {
+        return guardados * 2;
+    }
+
+    /**
+     * Palabras clave, grafo de referencias y listas de relacionados. Los métodos
+     * que modifican se llaman con el lock de escritura tomado (o, al construir,
+     * antes de publicar la instancia).
+     */
+    private final class Relaciones {
+
+        // Solo activos: son los únicos que se relacionan
+        final Map<Integer, DocumentoIndexado> documentos = new HashMap<>();
+        final Map<Integer, int[]> porPalabra = new HashMap<>();
+        // El grafo incluye a los inactivos: un documento derogado sigue uniendo a quienes lo citan
+        final Map<Integer, int[]> salientes = new HashMap<>();
+        final Map<Integer, int[]> entrantes = new HashMap<>();
+        final Map<Integer, Vecinos> relacionados = new HashMap<>();
+
+        void renombrarTipos(Map<Integer, String> nombresDeTipos) {
+            documentos.replaceAll((id, doc) -> doc.conNombreDeTipo(nombresDeTipos));
+        }
+
+        void aplicar(DocumentoIndexado doc) {
+            int id = doc.getIdDocumento();
+            // Los candidatos anteriores se calculan antes de tocar nada: son los que pueden tener al documento en su lista
+            Set<Integer> afectados = new HashSet<>();
+            DocumentoIndexado anterior = documentos.get(id);
+            if (anterior != null) {
+                afectados.addAll(candidatos(anterior));
+                documentos.remove(id);
+                for (int palabra : anterior.getIdsPalabrasClave()) {
+                    quitarDe(porPalabra, palabra, id);
+                }
+                relacionados.remove(id);
+            }
+            if (doc.getIdsReferencias() != null) {
+                for (int citado : salientes.getOrDefault(id, ListasPosteo.VACIA)) {
+                    quitarDe(entrantes, citado, id);
+                }
+                salientes.remove(id);
+                if (doc.getIdsReferencias().length > 0) {
+                    salientes.put(id, doc.getIdsReferencias());
+                }
+                for (int citado : doc.getIdsReferencias()) {
+                    entrantes.put(citado, ListasPosteo.insertar(entrantes.getOrDefault(citado, ListasPosteo.VACIA), id));
+                }
+            }
+
+            if (doc.isActivo()) {
+                documentos.put(id, doc);
+                for (int palabra : doc.getIdsPalabrasClave()) {
+                    porPalabra.put(palabra, ListasPosteo.insertar(porPalabra.getOrDefault(palabra, ListasPosteo.VACIA), id));
+                }
+                Set<Integer> nuevos = candidatos(doc);
+                afectados.addAll(nuevos);
+                relacionados.put(id, calcular(doc, nuevos));
+            }
+
+            for (int otro : afectados) {
+                DocumentoIndexado relacionado = documentos.get(otro);
+                if (relacionado == null || otro == id) {
+                    continue;
+                }
+                double puntaje = doc.isActivo() ? puntaje(relacionado, vecindad(otro), doc) : 0;
+                relacionados.put(otro, relacionados.getOrDefault(otro, Vecinos.NINGUNO).con(id, puntaje, capacidad()));
+            }
+        }
+
+        /**
+         * Documentos activos que comparten con doc una palabra clave, una referencia
+         * directa o un documento en el grafo (dos pasos).
+         */
+        Set<Integer> candidatos(DocumentoIndexado doc) {
+            Set<Integer> candidatos = new HashSet<>();
+            for (int palabra : doc.getIdsPalabrasClave()) {
+                agregarSiNoEsGeneral(candidatos, porPalabra.get(palabra));
+            }
+            for (int vecino : vecindad(doc.getIdDocumento())) {
+                candidatos.add(vecino);
+                agregarSiNoEsGeneral(candidatos, vecindad(vecino));
+            }
+            candidatos.remove(doc.getIdDocumento());
+            candidatos.retainAll(documentos.keySet());
+            return candidatos;
+        }
+
+        Vecinos calcular(DocumentoIndexado doc, Collection<Integer> candidatos) {
+            int[] vecindad = vecindad(doc.getIdDocumento());
+            int[] ids = new int[candidatos.size()];
+            double[] puntajes = new double[candidatos.size()];
+            int cantidad = 0;
+            for (int candidato : candidatos) {
+                double puntaje = puntaje(doc, vecindad, documentos.get(candidato));
+                if (puntaje > 0) {
+                    ids[cantidad] = candidato;
+                    puntajes[cantidad++] = puntaje;
+                }
+            }
+            return Vecinos.mejores(ids, puntajes, cantidad, capacidad());
+        }
+
+        double puntaje(DocumentoIndexado a, int[] vecindadA, DocumentoIndexado b) {
+            double puntaje = 0;
+            int[] palabrasA = a.getIdsPalabrasClave();
+            int[] palabrasB = b.getIdsPalabrasClave();
+            for (int i = 0, j = 0; i < palabrasA.length && j < palabrasB.length; ) {
+                if (palabrasA[i] < palabrasB[j]) {
+                    i++;
+                } else if (palabrasA[i] > palabrasB[j]) {
+                    j++;
+                } else {
+                    int conPalabra = porPalabra.getOrDefault(palabrasA[i], ListasPosteo.VACIA).length;
+                    puntaje += Math.log(1 + (double) documentos.size() / Math.max(1, conPalabra));
+                    i++;
+                    j++;
+                }
+            }
+
+            int idA = a.getIdDocumento();
+            int idB = b.getIdDocumento();
+            if (Arrays.binarySearch(salientes.getOrDefault(idA, ListasPosteo.VACIA), idB) >= 0
+                    || Arrays.binarySearch(salientes.getOrDefault(idB, ListasPosteo.VACIA), idA) >= 0) {
+                puntaje += PESO_REFERENCIA_DIRECTA;
+            }
+            if (vecindadA.length > 0) {
+                int comunes = ListasPosteo.interseccion(vecindadA, vecindad(idB)).length;
+                puntaje += PESO_REFERENCIA_COMUN * Math.min(comunes, MAX_REFERENCIAS_COMUNES);
+            }
+
+            if (puntaje > 0) {
+                if (a.getIdSector() != null && a.getIdSector().equals(b.getIdSector())) {
+                    puntaje += PESO_MISMO_SECTOR;
+                }
+                if (a.getIdTipoDocumento() != null && a.getIdTipoDocumento().equals(b.getIdTipoDocumento())) {
+                    puntaje += PESO_MISMO_TIPO;
+                }
+            }
+            return puntaje;
+        }
+
+        /**
+         * Documentos que el documento cita o que lo citan, ordenados y sin repetidos.
+         */
+        int[] vecindad(int id) {
+            int[] citados = salientes.getOrDefault(id, ListasPosteo.VACIA);
+            int[] citadoPor = entrantes.getOrDefault(id, ListasPosteo.VACIA);
+            if (citadoPor.length == 0) {
+                return citados;
+            }
+            return citados.length == 0 ? citadoPor : ListasPosteo.union(List.of(citados, citadoPor));
+        }
+
+        private void agregarSiNoEsGeneral(Set<Integer> candidatos, int[] ids) {
+            if (ids != null && ids.length <= maxFrecuencia) {
+                for (int id : ids) {
+                    candidatos.add(id);
+                }
+            }
+        }
+
+        private void quitarDe(Map<Integer, int[]> listas, int clave, int id) {
+            int[] ids = ListasPosteo.quitar(listas.getOrDefault(clave, ListasPosteo.VACIA), id);
+            if (ids.length == 0) {
+                listas.remove(clave);
+            } else {
+                listas.put(clave, ids);
+            }
+        }
+    }
+
+    /**
+     * Lista dispersa de relacionados de un documento: IDs y puntajes, del mayor
+     * puntaje al menor (a igual puntaje, el menor ID). Inmutable: cada cambio arma otra.
+     */
+    static final class Vecinos {
+
+        static final Vecinos NINGUNO = new Vecinos(ListasPosteo.VACIA, new float[0]);
+
+        final int[] ids;
+        final float[] puntajes;
+
+        private Vecinos(int[] ids, float[] puntajes) {
+            this.ids = ids;
+            this.puntajes = puntajes;
+        }
+
+        /**
+         * Se queda con los "maximo" mejores de los primeros "cantidad" pares.
+         */
+        static Vecinos mejores(int[] ids, double[] puntajes, int cantidad, int maximo) {
+            Integer[] orden = new Integer[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                orden[i] = i;
+            }
+            Arrays.sort(orden, (x, y) -> {
+                int porPuntaje = Double.compare(puntajes[y], puntajes[x]);
+                return porPuntaje != 0 ? porPuntaje : Integer.compare(ids[x], ids[y]);
+            });
+            int largo = Math.min(cantidad, maximo);
+            int[] mejoresIds = new int[largo];
+            float[] mejoresPuntajes = new float[largo];
+            for (int i = 0; i < largo; i++) {
+                mejoresIds[i] = ids[orden[i]];
+                mejoresPuntajes[i] = (float) puntajes[orden[i]];
+            }
+            return new Vecinos(mejoresIds, mejoresPuntajes);
+        }
+
+        /**
+         * Devuelve la lista con el puntaje de id reemplazado (o quitado si es 0),
+         * recortada a "maximo" entradas.
+         */
+        Vecinos con(int id, double puntaje, int maximo) {
+            int[] nuevosIds = new int[ids.length + 1];
+            double[] nuevosPuntajes = new double[ids.length + 1];
+            int cantidad = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != id) {
+                    nuevosIds[cantidad] = ids[i];
+                    nuevosPuntajes[cantidad++] = puntajes[i];
+                }
+            }
+            if (puntaje > 0) {
+                nuevosIds[cantidad] = id;
+                nuevosPuntajes[cantidad++] = puntaje;
+            }
+            return mejores(nuevosIds, nuevosPuntajes, cantidad, maximo);
+        }
+    }
+}
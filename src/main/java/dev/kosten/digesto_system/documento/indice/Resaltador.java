@@ -0,0 +1,140 @@
+package dev.kosten.digesto_system.documento.indice;
+
+/**
+ * Arma fragmentos resaltados ("...dispone la <mark>licitación</mark> del...") a partir
+ * de las posiciones de palabras guardadas en los índices en memoria.
+ * La palabra que coincide se ubica con las posiciones ya calculadas al indexar;
+ * solo se vuelve a recorrer la ventana del fragmento, cuyo largo está acotado,
+ * así el costo por fila no depende del largo del texto.
+ *
+ * El fragmento se devuelve con el texto escapado para HTML y cada palabra que
+ * coincide entre etiquetas &lt;mark&gt;, listo para mostrarse en la tabla.
+ * @author micael
+ */
+final class Resaltador {
+
+    static final String INICIO_MARCA = "<mark>";
+    static final String FIN_MARCA = "</mark>";
+    private static final String CORTE = "…";
+
+    /**
+     * Tope de palabras que se revisan buscando la primera coincidencia.
+     */
+    private static final int MAX_PALABRAS_REVISADAS = 2_000;
+
+    private Resaltador() {
+    }
+
+    /**
+     * Busca la primera palabra del texto que coincide con alguna de las partes
+     * y arma el fragmento alrededor de ella.
+     * @param texto El texto original.
+     * @param posiciones Las palabras del texto (ver NormalizadorTexto.posicionesDePalabras).
+     * @param partes Las palabras de la búsqueda, normalizadas.
+     * @param porPrefijo true si la palabra debe empezar con la parte; false si basta con contenerla.
+     * @param largo Largo máximo del fragmento, en caracteres.
+     * @return El fragmento resaltado, o null si ninguna palabra coincide.
+     */
+    static String fragmento(String texto, int[] posiciones, String[] partes, boolean porPrefijo, int largo) {
+        if (texto == null || partes.length == 0) {
+            return null;
+        }
+        int limite = Math.min(posiciones.length, MAX_PALABRAS_REVISADAS * 2);
+        for (int i = 0; i + 1 < limite; i += 2) {
+            if (coincide(texto, posiciones[i], posiciones[i + 1], partes, porPrefijo)) {
+                return ventana(texto, posiciones[i], partes, porPrefijo, largo);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Arma el fragmento de hasta {@code largo} caracteres que rodea a la posición,
+     * sin cortar palabras, resaltando todas las palabras que coinciden dentro de él.
+     * @param texto El texto original.
+     * @param centro Posición de la palabra que motivó el fragmento.
+     * @param partes Las palabras de la búsqueda, normalizadas.
+     * @param porPrefijo true si la palabra debe empezar con la parte; false si basta con contenerla.
+     * @param largo Largo máximo del fragmento, en caracteres.
+     * @return El fragmento resaltado y escapado para HTML.
+     */
+    static String ventana(String texto, int centro, String[] partes, boolean porPrefijo, int largo) {
+        // La coincidencia queda en el primer tercio: se lee algo de contexto antes y más después
+        int desde = Math.max(0, centro - largo / 3);
+        int hasta = Math.min(texto.length(), desde + largo);
+        desde = Math.max(0, Math.min(desde, hasta - largo));
+
+        String recorte = texto.substring(desde, hasta);
+        int[] posiciones = NormalizadorTexto.posicionesDePalabras(recorte);
+        int primera = 0;
+        int ultima = posiciones.length;
+        // Las palabras que tocan un borde cortado pueden estar incompletas: se dejan afuera
+        if (desde > 0 && primera < ultima && posiciones[0] == 0 && centro > desde) {
+            primera += 2;
+        }
+        if (hasta < texto.length() && primera < ultima && posiciones[ultima - 1] == recorte.length()) {
+            ultima -= 2;
+        }
+        if (primera >= ultima) {
+            return escapar(recorte.trim());
+        }
+
+        StringBuilder fragmento = new StringBuilder(largo + 32);
+        if (desde > 0 || primera > 0) {
+            fragmento.append(CORTE);
+        }
+        int anterior = posiciones[primera];
+        for (int i = primera; i < ultima; i += 2) {
+            int inicio = posiciones[i];
+            int fin = posiciones[i + 1];
+            fragmento.append(escapar(recorte.substring(anterior, inicio)));
+            String palabra = escapar(recorte.substring(inicio, fin));
+            if (coincide(recorte, inicio, fin, partes, porPrefijo)) {
+                fragmento.append(INICIO_MARCA).append(palabra).append(FIN_MARCA);
+            } else {
+                fragmento.append(palabra);
+            }
+            anterior = fin;
+        }
+        if (hasta < texto.length() || ultima < posiciones.length) {
+            fragmento.append(CORTE);
+        }
+        return fragmento.toString();
+    }
+
+    private static boolean coincide(String texto, int inicio, int fin, String[] partes, boolean porPrefijo) {
+        String palabra = NormalizadorTexto.normalizar(texto.substring(inicio, fin));
+        for (String parte : partes) {
+            if (porPrefijo ? palabra.startsWith(parte) : palabra.contains(parte)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String escapar(String texto) {
+        StringBuilder escapado = null;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            String reemplazo = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (reemplazo != null && escapado == null) {
+                escapado = new StringBuilder(texto.length() + 16).append(texto, 0, i);
+            }
+            if (escapado != null) {
+                if (reemplazo != null) {
+                    escapado.append(reemplazo);
+                } else {
+                    escapado.append(c);
+                }
+            }
+        }
+        return escapado == null ? texto : escapado.toString();
+    }
+}
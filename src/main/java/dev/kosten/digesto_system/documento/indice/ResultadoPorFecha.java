@@ -0,0 +1,25 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Resultado de {@link IndiceDocumentos#buscarPorFecha}: los primeros documentos
+ * en el orden de fechaCreacion pedido y el total de coincidencias.
+ * @author micael
+ */
+@Getter
+@AllArgsConstructor
+public class ResultadoPorFecha {
+
+    /**
+     * Cantidad de documentos que cumplen todos los filtros.
+     */
+    private final int total;
+
+    /**
+     * Los primeros documentos, como mucho el límite pedido.
+     */
+    private final List<DocumentoIndexado> documentos;
+}
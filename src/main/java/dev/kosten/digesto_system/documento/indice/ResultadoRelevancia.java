@@ -0,0 +1,25 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Resultado de {@link IndiceDocumentos#buscarPorRelevancia}: los documentos
+ * mejor puntuados, del más relevante al menos relevante, y el total de coincidencias.
+ * @author micael
+ */
+@Getter
+@AllArgsConstructor
+public class ResultadoRelevancia {
+
+    /**
+     * Cantidad de documentos que coinciden con la búsqueda (después de los filtros).
+     */
+    private final int total;
+
+    /**
+     * Los mejores documentos, como mucho el límite pedido.
+     */
+    private final List<DocumentoIndexado> documentos;
+}
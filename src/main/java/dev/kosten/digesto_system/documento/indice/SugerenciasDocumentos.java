@@ -0,0 +1,265 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
+import dev.kosten.digesto_system.log.LogService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Sugerencias por prefijo (autocompletado) sobre el número y el título de los
+ * documentos activos, resueltas en memoria con un {@link ArbolPrefijos}.
+ * Cada palabra de numDocumento y titulo es un término; cada prefijo del árbol
+ * guarda los documentos más recientes que lo contienen, así la sugerencia de
+ * una sola palabra no recorre ninguna lista.
+ *
+ * Se construye al iniciar la aplicación y se actualiza con cada
+ * {@link DocumentoModificadoEvent} confirmado, igual que IndiceDocumentos.
+ * @author micael
+ */
+@Component
+@RequiredArgsConstructor
+public class SugerenciasDocumentos {
+
+    private final DocumentoRepository documentoRepo;
+    private final LogService logService;
+
+    /**
+     * Cantidad de documentos recientes que guarda cada prefijo (máximo que se puede pedir).
+     */
+    @Value("${digesto.sugerencias.max:10}")
+    private int maxSugerencias;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegidos por 'lock'
+    private Map<Integer, DocumentoIndexado> documentos = new HashMap<>();
+    private ArbolPrefijos arbol;
+    private List<DocumentoIndexado> pendientes;
+
+    private volatile boolean listo = false;
+
+    /**
+     * Construye el árbol cuando la aplicación terminó de arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlIniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Reconstruye el árbol completo leyendo la tabla documento en una sola consulta.
+     * Los cambios que lleguen mientras se construye se guardan y se reaplican al final.
+     */
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long inicio = System.currentTimeMillis();
+            // Las sugerencias no usan palabras clave: no hace falta leer la tabla etiqueta
+            List<DocumentoIndiceProyeccion> filas = documentoRepo.findAllParaIndice();
+
+            Map<Integer, DocumentoIndexado> nuevosDocumentos = new HashMap<>(filas.size() * 2);
+            Map<String, ListaEnteros> acumulados = new HashMap<>();
+            // Las filas vienen ordenadas por id, así que cada lista queda ordenada
+            for (DocumentoIndiceProyeccion fila : filas) {
+                DocumentoIndexado doc = DocumentoIndexado.desde(fila, ListasPosteo.VACIA);
+                if (!doc.isActivo()) {
+                    continue;
+                }
+                nuevosDocumentos.put(doc.getIdDocumento(), doc);
+                for (String termino : terminosDe(doc)) {
+                    acumulados.computeIfAbsent(termino, t -> new ListaEnteros()).agregar(doc.getIdDocumento());
+                }
+            }
+            ArbolPrefijos nuevoArbol = new ArbolPrefijos(maxSugerencias, ordenPorRecencia(nuevosDocumentos));
+            acumulados.forEach((termino, ids) -> nuevoArbol.cargar(termino, ids.aArreglo()));
+            nuevoArbol.recalcularTodo();
+
+            lock.writeLock().lock();
+            try {
+                documentos = nuevosDocumentos;
+                arbol = nuevoArbol;
+                for (DocumentoIndexado doc : pendientes) {
+                    aplicar(doc);
+                }
+                pendientes = null;
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logService.info("Sugerencias de documentos construidas: " + nuevosDocumentos.size() + " documentos, "
+                    + acumulados.size() + " términos en " + (System.currentTimeMillis() - inicio) + " ms.");
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logService.error("No se pudieron construir las sugerencias de documentos.", e);
+        }
+    }
+
+    /**
+     * Aplica a las sugerencias un cambio ya confirmado en la base de datos.
+     * @param evento El evento publicado por DocumentoService.
+     */
+    @TransactionalEventListener
+    public void alModificarDocumento(DocumentoModificadoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            if (pendientes != null) {
+                pendientes.add(evento.getDocumento());
+            }
+            if (arbol != null) {
+                aplicar(evento.getDocumento());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si el árbol terminó su construcción inicial.
+     * @return true si está listo.
+     */
+    public boolean estaListo() {
+        return listo;
+    }
+
+    /**
+     * Devuelve los documentos activos más recientes cuyo número o título tiene
+     * palabras que empiezan con cada palabra del prefijo ("res 20" sugiere
+     * "Resolución 20/2024"). La última palabra puede estar incompleta.
+     * @param prefijo El texto tipeado por el usuario.
+     * @param limite Cantidad máxima de sugerencias (se acota a digesto.sugerencias.max).
+     * @return Los documentos, del más reciente al más antiguo.
+     */
+    public List<DocumentoIndexado> sugerir(String prefijo, int limite) {
+        String[] palabras = new LinkedHashSet<>(List.of(NormalizadorTexto.palabras(prefijo))).toArray(new String[0]);
+        int cantidad = Math.min(limite, maxSugerencias);
+        if (palabras.length == 0 || cantidad <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (arbol == null) {
+                return Collections.emptyList();
+            }
+
+            // La palabra con menos documentos es la que más acota la búsqueda
+            String masSelectiva = null;
+            int menorCantidad = Integer.MAX_VALUE;
+            for (String palabra : palabras) {
+                int enArbol = arbol.cantidad(palabra);
+                if (enArbol == 0) {
+                    return Collections.emptyList();
+                }
+                if (enArbol < menorCantidad) {
+                    menorCantidad = enArbol;
+                    masSelectiva = palabra;
+                }
+            }
+
+            // Si los más recientes de esa palabra ya cumplen con todas, no hace falta seguir
+            List<DocumentoIndexado> encontrados = filtrar(arbol.mejores(masSelectiva), palabras, cantidad);
+            if (palabras.length == 1 || encontrados.size() >= cantidad) {
+                return encontrados;
+            }
+            return masRecientes(filtrar(arbol.todos(masSelectiva), palabras, Integer.MAX_VALUE), cantidad);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Métodos internos (se llaman con el lock tomado) ---
+
+    private List<DocumentoIndexado> filtrar(int[] ids, String[] palabras, int limite) {
+        List<DocumentoIndexado> encontrados = new ArrayList<>();
+        for (int i = 0; i < ids.length && encontrados.size() < limite; i++) {
+            DocumentoIndexado doc = documentos.get(ids[i]);
+            if (doc != null && (palabras.length == 1 || cubrePrefijos(doc, palabras))) {
+                encontrados.add(doc);
+            }
+        }
+        return encontrados;
+    }
+
+    private List<DocumentoIndexado> masRecientes(List<DocumentoIndexado> candidatos, int limite) {
+        candidatos.sort((a, b) -> compararRecencia(a, b));
+        return candidatos.size() > limite ? new ArrayList<>(candidatos.subList(0, limite)) : candidatos;
+    }
+
+    private void aplicar(DocumentoIndexado doc) {
+        int id = doc.getIdDocumento();
+        // La copia anterior sigue en el mapa mientras se quitan sus términos: el orden del árbol la consulta
+        DocumentoIndexado anterior = documentos.get(id);
+        if (anterior != null) {
+            for (String termino : terminosDe(anterior)) {
+                arbol.quitar(termino, id);
+            }
+            documentos.remove(id);
+        }
+        // Los inactivos no se sugieren
+        if (doc.isActivo()) {
+            documentos.put(id, doc);
+            for (String termino : terminosDe(doc)) {
+                arbol.insertar(termino, id);
+            }
+        }
+    }
+
+    private static boolean cubrePrefijos(DocumentoIndexado doc, String[] prefijos) {
+        Set<String> terminos = terminosDe(doc);
+        for (String prefijo : prefijos) {
+            boolean cubierto = false;
+            for (String termino : terminos) {
+                if (termino.startsWith(prefijo)) {
+                    cubierto = true;
+                    break;
+                }
+            }
+            if (!cubierto) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ArbolPrefijos.Orden ordenPorRecencia(Map<Integer, DocumentoIndexado> documentos) {
+        return (a, b) -> compararRecencia(documentos.get(a), documentos.get(b));
+    }
+
+    /**
+     * Más reciente primero; a igual fecha, el de mayor id.
+     */
+    private static int compararRecencia(DocumentoIndexado a, DocumentoIndexado b) {
+        int porFecha = Long.compare(b.getFechaCreacionMillis(), a.getFechaCreacionMillis());
+        return porFecha != 0 ? porFecha : Integer.compare(b.getIdDocumento(), a.getIdDocumento());
+    }
+
+    private static Set<String> terminosDe(DocumentoIndexado doc) {
+        Set<String> terminos = new LinkedHashSet<>();
+        Collections.addAll(terminos, NormalizadorTexto.palabras(doc.getNumDocumento()));
+        Collections.addAll(terminos, NormalizadorTexto.palabras(doc.getTitulo()));
+        return terminos;
+    }
+}
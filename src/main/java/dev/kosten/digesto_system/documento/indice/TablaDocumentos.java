@@ -0,0 +1,171 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copia en columnas de la tabla documento: un arreglo por atributo, indexado
+ * por número de fila. Las columnas de catálogos (tipo, sector, estado, unidad
+ * ejecutora, año y palabras clave) están codificadas con un diccionario, así
+ * un conteo por faceta es incrementar una posición de un long[].
+ *
+ * Los documentos no se borran físicamente (la baja es lógica), por eso una
+ * fila nunca se libera: un cambio reescribe la fila del mismo idDocumento.
+ * No es thread-safe: IndiceDocumentos la usa siempre con su lock tomado.
+ * @author micael
+ */
+final class TablaDocumentos {
+
+    /**
+     * Código de las columnas de catálogo cuando el documento no tiene valor.
+     */
+    static final int SIN_VALOR = -1;
+
+    private static final int[] SIN_CODIGOS = new int[0];
+
+    private final ZoneId zona = ZoneId.systemDefault();
+    private final Map<Integer, Integer> filaPorId = new HashMap<>();
+    private int filas;
+
+    // --- Columnas (package-private para que FiltroEnMemoria las lea sin copiar) ---
+    DocumentoIndexado[] documentos = new DocumentoIndexado[16];
+    long[] fechas = new long[16];
+    boolean[] activos = new boolean[16];
+    final Columna tipos = new Columna();
+    final Columna sectores = new Columna();
+    final Columna estados = new Columna();
+    final Columna unidades = new Columna();
+    final Columna anios = new Columna();
+    int[][] palabrasClave = new int[16][];
+    // Palabras de título y resumen: pares [inicio, fin) sobre el texto original (ver Resaltador)
+    int[][] posicionesTitulo = new int[16][];
+    int[][] posicionesResumen = new int[16][];
+    final Diccionario diccionarioPalabrasClave = new Diccionario();
+
+    /**
+     * Agrega el documento o reescribe su fila si ya estaba.
+     * @param doc La copia del documento.
+     */
+    void guardar(DocumentoIndexado doc) {
+        Integer fila = filaPorId.get(doc.getIdDocumento());
+        if (fila == null) {
+            fila = filas++;
+            asegurarCapacidad(filas);
+            filaPorId.put(doc.getIdDocumento(), fila);
+        }
+        documentos[fila] = doc;
+        fechas[fila] = doc.getFechaCreacionMillis();
+        activos[fila] = doc.isActivo();
+        tipos.guardar(fila, doc.getIdTipoDocumento());
+        sectores.guardar(fila, doc.getIdSector());
+        estados.guardar(fila, doc.getIdEstado());
+        unidades.guardar(fila, doc.getIdUnidadEjecutora());
+        anios.guardar(fila, doc.getFechaCreacion() == null
+                ? null : Instant.ofEpochMilli(fechas[fila]).atZone(zona).getYear());
+
+        int[] ids = doc.getIdsPalabrasClave();
+        int[] codigos = ids == null || ids.length == 0 ? SIN_CODIGOS : new int[ids.length];
+        for (int i = 0; i < codigos.length; i++) {
+            codigos[i] = diccionarioPalabrasClave.codificar(ids[i]);
+        }
+        palabrasClave[fila] = codigos;
+        posicionesTitulo[fila] = NormalizadorTexto.posicionesDePalabras(doc.getTitulo());
+        posicionesResumen[fila] = NormalizadorTexto.posicionesDePalabras(doc.getResumen());
+    }
+
+    /**
+     * @param idDocumento El ID del documento.
+     * @return Su fila, o -1 si no está en la tabla.
+     */
+    int filaDe(int idDocumento) {
+        Integer fila = filaPorId.get(idDocumento);
+        return fila == null ? -1 : fila;
+    }
+
+    /**
+     * @param idDocumento El ID del documento.
+     * @return La copia del documento, o null si no está en la tabla.
+     */
+    DocumentoIndexado obtener(int idDocumento) {
+        int fila = filaDe(idDocumento);
+        return fila < 0 ? null : documentos[fila];
+    }
+
+    int tamanio() {
+        return filas;
+    }
+
+    private void asegurarCapacidad(int requerida) {
+        if (requerida <= documentos.length) {
+            return;
+        }
+        int capacidad = Math.max(requerida, documentos.length * 2);
+        documentos = Arrays.copyOf(documentos, capacidad);
+        fechas = Arrays.copyOf(fechas, capacidad);
+        activos = Arrays.copyOf(activos, capacidad);
+        palabrasClave = Arrays.copyOf(palabrasClave, capacidad);
+        posicionesTitulo = Arrays.copyOf(posicionesTitulo, capacidad);
+        posicionesResumen = Arrays.copyOf(posicionesResumen, capacidad);
+        tipos.asegurarCapacidad(capacidad);
+        sectores.asegurarCapacidad(capacidad);
+        estados.asegurarCapacidad(capacidad);
+        unidades.asegurarCapacidad(capacidad);
+        anios.asegurarCapacidad(capacidad);
+    }
+
+    /**
+     * Asigna un código denso (0, 1, 2...) a cada valor distinto de una columna.
+     */
+    static final class Diccionario {
+        private final Map<Integer, Integer> codigoPorValor = new HashMap<>();
+        private final ListaEnteros valores = new ListaEnteros();
+
+        int codificar(Integer valor) {
+            if (valor == null) {
+                return SIN_VALOR;
+            }
+            Integer codigo = codigoPorValor.get(valor);
+            if (codigo == null) {
+                codigo = valores.tamanio();
+                codigoPorValor.put(valor, codigo);
+                valores.agregar(valor);
+            }
+            return codigo;
+        }
+
+        /**
+         * @return El código del valor, o SIN_VALOR si nunca apareció en la columna.
+         */
+        int codigoDe(Integer valor) {
+            Integer codigo = valor == null ? null : codigoPorValor.get(valor);
+            return codigo == null ? SIN_VALOR : codigo;
+        }
+
+        int valorDe(int codigo) {
+            return valores.obtener(codigo);
+        }
+
+        int tamanio() {
+            return valores.tamanio();
+        }
+    }
+
+    /**
+     * Columna de un catálogo codificada con diccionario.
+     */
+    static final class Columna {
+        final Diccionario diccionario = new Diccionario();
+        int[] codigos = new int[16];
+
+        void guardar(int fila, Integer valor) {
+            codigos[fila] = diccionario.codificar(valor);
+        }
+
+        void asegurarCapacidad(int capacidad) {
+            codigos = Arrays.copyOf(codigos, capacidad);
+        }
+    }
+}
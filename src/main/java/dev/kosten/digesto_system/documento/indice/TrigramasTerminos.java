@@ -0,0 +1,185 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de trigramas del vocabulario de IndiceDocumentos, para encontrar los
+ * términos que contienen una palabra como subcadena (el LIKE '%palabra%') sin
+ * recorrer todo el vocabulario.
+ *
+ * Cada término tiene un número y cada trigrama (tres letras seguidas) guarda la
+ * lista ordenada de los términos que lo tienen, igual que las listas de posteo.
+ * Un término que contiene a la palabra contiene todos sus trigramas: los
+ * candidatos salen de intersectar esas listas y solo a ellos se les aplica
+ * el contains. Una palabra de una o dos letras no tiene trigramas: se unen las
+ * listas de los trigramas que la contienen (son muchos menos que los términos)
+ * y se revisan aparte los términos cortos.
+ *
+ * No es thread-safe: IndiceDocumentos lo usa siempre con su lock tomado.
+ * @author micael
+ */
+final class TrigramasTerminos {
+
+    private static final int LARGO = 3;
+
+    // Número de término -> término (null si se quitó y el número está libre)
+    private final List<String> terminos = new ArrayList<>();
+    private final Map<String, Integer> numeros = new HashMap<>();
+    private final Deque<Integer> libres = new ArrayDeque<>();
+    // Trigrama -> números de los términos que lo tienen, ordenados
+    private final Map<String, int[]> porTrigrama = new HashMap<>();
+    // Términos de menos de tres letras, que no aparecen en ningún trigrama
+    private final Set<String> cortos = new LinkedHashSet<>();
+
+    /**
+     * Arma el índice de un vocabulario completo. Los números se asignan en orden,
+     * así cada lista se arma agregando al final en lugar de insertando.
+     * @param vocabulario Los términos (sin repetir).
+     * @return El índice.
+     */
+    static TrigramasTerminos desde(Collection<String> vocabulario) {
+        TrigramasTerminos indice = new TrigramasTerminos();
+        Map<String, ListaEnteros> acumulados = new HashMap<>();
+        for (String termino : vocabulario) {
+            int numero = indice.terminos.size();
+            indice.terminos.add(termino);
+            indice.numeros.put(termino, numero);
+            if (termino.length() < LARGO) {
+                indice.cortos.add(termino);
+                continue;
+            }
+            for (String trigrama : trigramasDe(termino)) {
+                acumulados.computeIfAbsent(trigrama, t -> new ListaEnteros()).agregar(numero);
+            }
+        }
+        acumulados.forEach((trigrama, numeros) -> indice.porTrigrama.put(trigrama, numeros.aArreglo()));
+        return indice;
+    }
+
+    /**
+     * Agrega un término nuevo del vocabulario (si ya estaba, no hace nada).
+     * @param termino El término.
+     */
+    void agregar(String termino) {
+        if (numeros.containsKey(termino)) {
+            return;
+        }
+        int numero;
+        if (libres.isEmpty()) {
+            numero = terminos.size();
+            terminos.add(termino);
+        } else {
+            numero = libres.pop();
+            terminos.set(numero, termino);
+        }
+        numeros.put(termino, numero);
+        if (termino.length() < LARGO) {
+            cortos.add(termino);
+            return;
+        }
+        for (String trigrama : trigramasDe(termino)) {
+            porTrigrama.put(trigrama, ListasPosteo.insertar(porTrigrama.getOrDefault(trigrama, ListasPosteo.VACIA), numero));
+        }
+    }
+
+    /**
+     * Quita un término que ya no está en el vocabulario.
+     * @param termino El término.
+     */
+    void quitar(String termino) {
+        Integer numero = numeros.remove(termino);
+        if (numero == null) {
+            return;
+        }
+        terminos.set(numero, null);
+        libres.push(numero);
+        if (termino.length() < LARGO) {
+            cortos.remove(termino);
+            return;
+        }
+        for (String trigrama : trigramasDe(termino)) {
+            int[] lista = porTrigrama.get(trigrama);
+            if (lista == null) {
+                continue;
+            }
+            int[] sinTermino = ListasPosteo.quitar(lista, numero);
+            if (sinTermino.length == 0) {
+                porTrigrama.remove(trigrama);
+            } else {
+                porTrigrama.put(trigrama, sinTermino);
+            }
+        }
+    }
+
+    int tamanio() {
+        return numeros.size();
+    }
+
+    /**
+     * Devuelve los términos del vocabulario que contienen la palabra.
+     * @param palabra La palabra normalizada.
+     * @return Los términos, sin orden definido.
+     */
+    List<String> queContienen(String palabra) {
+        List<String> encontrados = new ArrayList<>();
+        if (palabra.isEmpty()) {
+            return encontrados;
+        }
+        if (palabra.length() < LARGO) {
+            List<int[]> listas = new ArrayList<>();
+            for (Map.Entry<String, int[]> entrada : porTrigrama.entrySet()) {
+                if (entrada.getKey().contains(palabra)) {
+                    listas.add(entrada.getValue());
+                }
+            }
+            for (int numero : ListasPosteo.union(listas)) {
+                encontrados.add(terminos.get(numero));
+            }
+            for (String corto : cortos) {
+                if (corto.contains(palabra)) {
+                    encontrados.add(corto);
+                }
+            }
+            return encontrados;
+        }
+
+        // Intersección empezando por el trigrama menos frecuente
+        List<int[]> listas = new ArrayList<>();
+        for (String trigrama : trigramasDe(palabra)) {
+            int[] lista = porTrigrama.get(trigrama);
+            if (lista == null) {
+                return encontrados;
+            }
+            listas.add(lista);
+        }
+        listas.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] candidatos = listas.get(0);
+        for (int i = 1; i < listas.size() && candidatos.length > 0; i++) {
+            candidatos = ListasPosteo.interseccion(candidatos, listas.get(i));
+        }
+        // Tener todos los trigramas no alcanza ("abcxbcd" no contiene "abcd"): se confirma con contains
+        for (int numero : candidatos) {
+            String termino = terminos.get(numero);
+            if (termino.contains(palabra)) {
+                encontrados.add(termino);
+            }
+        }
+        return encontrados;
+    }
+
+    private static Set<String> trigramasDe(String texto) {
+        Set<String> trigramas = new LinkedHashSet<>();
+        for (int i = 0; i + LARGO <= texto.length(); i++) {
+            trigramas.add(texto.substring(i, i + LARGO));
+        }
+        return trigramas;
+    }
+}
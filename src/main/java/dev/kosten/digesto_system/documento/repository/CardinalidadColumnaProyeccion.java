@@ -0,0 +1,11 @@
+package dev.kosten.digesto_system.documento.repository;
+
+/**
+ * Cardinalidad estimada (valores distintos) de una columna indexada de documento,
+ * leída de information_schema.STATISTICS.
+ * @author micael
+ */
+public interface CardinalidadColumnaProyeccion {
+    String getColumna();
+    Long getCardinalidad();
+}
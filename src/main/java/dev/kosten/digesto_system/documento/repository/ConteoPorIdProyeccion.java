@@ -0,0 +1,13 @@
+package dev.kosten.digesto_system.documento.repository;
+
+/**
+ * Proyección de Spring Data para consultas agrupadas que devuelven
+ * un conteo por ID (por ejemplo, documentos por tipo).
+ * @author micael
+ */
+public interface ConteoPorIdProyeccion {
+
+    Integer getId();
+
+    Long getCantidad();
+}
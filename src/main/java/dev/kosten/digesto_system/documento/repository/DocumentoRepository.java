@@ -1,13 +1,19 @@
 package dev.kosten.digesto_system.documento.repository;
 
 import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.documento.indice.DocumentoIndiceProyeccion;
+import dev.kosten.digesto_system.documento.indice.EtiquetaProyeccion;
+import dev.kosten.digesto_system.documento.indice.ReferenciaProyeccion;
 import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.EntityGraph;
 
@@ -20,7 +26,8 @@ import org.springframework.data.jpa.repository.EntityGraph;
  */
 
 @Repository
-public interface DocumentoRepository extends JpaRepository<Documento,Integer>, JpaSpecificationExecutor<Documento> {
+public interface DocumentoRepository extends JpaRepository<Documento,Integer>, JpaSpecificationExecutor<Documento>,
+        DocumentoTablaRepository {
 
     /**
      * Busca documentos cuyo título contenga el fragmento de texto proporcionado,
@@ -56,21 +63,40 @@ public interface DocumentoRepository extends JpaRepository<Documento,Integer>, J
     
     
     /**
-     * Busca documentos por ID de tipo de documento con paginación.
-     * Spring Data JPA crea automáticamente la query basándose en el nombre del método.
-     * @param idTipoDocumento ID del tipo de documento
-     * @param pageable Configuración de paginación
-     * @return Page de documentos filtrados
+     * Primera consulta del detalle: el documento con tipo, estado, sector, unidad
+     * ejecutora y archivos en un solo SELECT con JOIN (archivos es la única
+     * colección que se trae acá, así no hay producto cartesiano entre listas).
+     * @param id El ID del documento
+     * @return El documento, o vacío si no existe
      */
-    Page<Documento> findByTipoDocumento_IdTipoDocumento(Integer idTipoDocumento, Pageable pageable);
-    
-    // --- MÉTODOS NUEVOS PARA TRAER SOLO LO ACTIVO ---
+    @EntityGraph(attributePaths = {"tipoDocumento", "estado", "sector", "unidadEjecutora", "archivos"})
+    @Query("SELECT d FROM Documento d WHERE d.idDocumento = :id")
+    Optional<Documento> findDetalleById(@Param("id") Integer id);
 
-    // Reemplaza el findAll estándar para listados públicos
-    Page<Documento> findByActivoTrue(Pageable pageable);
+    /**
+     * Segunda consulta del detalle: inicializa las palabras clave del documento
+     * que ya está en el contexto de persistencia (devuelve la misma instancia).
+     * @param id El ID del documento
+     * @return El documento con palabrasClave cargadas
+     */
+    @Query("SELECT d FROM Documento d LEFT JOIN FETCH d.palabrasClave WHERE d.idDocumento = :id")
+    Optional<Documento> findConPalabrasClaveById(@Param("id") Integer id);
 
-    // Para buscar por tipo solo si está activo
-    Page<Documento> findByTipoDocumento_IdTipoDocumentoAndActivoTrue(Integer idTipoDocumento, Pageable pageable);
+    /**
+     * Tercera consulta del detalle: las referencias en los dos sentidos (las que
+     * hace el documento y las que recibe) con un UNION ALL, sin cargar entidades.
+     * @param id El ID del documento
+     * @return Una fila por referencia, primero las salientes
+     */
+    @Query(value = "SELECT 1 AS saliente, d.idDocumento AS idDocumento, d.numDocumento AS numDocumento, d.activo AS activo "
+         + "FROM referencia r JOIN documento d ON d.idDocumento = r.documento_idDocumentoReferencial "
+         + "WHERE r.documento_idDocumentoOrigen = :id "
+         + "UNION ALL "
+         + "SELECT 0, d.idDocumento, d.numDocumento, d.activo "
+         + "FROM referencia r JOIN documento d ON d.idDocumento = r.documento_idDocumentoOrigen "
+         + "WHERE r.documento_idDocumentoReferencial = :id "
+         + "ORDER BY saliente DESC, idDocumento", nativeQuery = true)
+    List<ReferenciaDetalleProyeccion> findReferenciasDeDetalle(@Param("id") Integer id);
     
     /**
      *
@@ -84,4 +110,124 @@ public interface DocumentoRepository extends JpaRepository<Documento,Integer>, J
      * @return 
      */
     Long countByTipoDocumento_IdTipoDocumentoAndActivoTrue(Integer idTipoDocumento);
+
+    /**
+     * Cuenta los documentos ACTIVOS de cada tipo en una sola consulta agrupada.
+     * Los tipos sin documentos activos no aparecen en el resultado.
+     * @return Una fila (idTipoDocumento, cantidad) por tipo.
+     */
+    @Query("SELECT d.tipoDocumento.idTipoDocumento AS id, COUNT(d) AS cantidad "
+         + "FROM Documento d WHERE d.activo = true GROUP BY d.tipoDocumento.idTipoDocumento")
+    List<ConteoPorIdProyeccion> contarActivosPorTipo();
+
+    /**
+     * Lee en una sola consulta las columnas que necesita el índice en memoria
+     * (incluido el nombre del tipo), ordenadas por ID.
+     * @return Una fila por documento, activos e inactivos.
+     */
+    @Query("SELECT d.idDocumento AS idDocumento, d.titulo AS titulo, d.resumen AS resumen, "
+         + "d.numDocumento AS numDocumento, d.fechaCreacion AS fechaCreacion, d.activo AS activo, "
+         + "t.idTipoDocumento AS idTipoDocumento, t.nombre AS nombreTipoDocumento, "
+         + "d.sector.idSector AS idSector, d.estado.idEstado AS idEstado, "
+         + "d.unidadEjecutora.idUnidadEjecutora AS idUnidadEjecutora "
+         + "FROM Documento d JOIN d.tipoDocumento t ORDER BY d.idDocumento")
+    List<DocumentoIndiceProyeccion> findAllParaIndice();
+
+    /**
+     * Lee en una sola consulta todos los pares (documento, palabra clave) de la
+     * tabla etiqueta, ordenados por documento y palabra clave.
+     * @return Una fila por etiqueta.
+     */
+    @Query("SELECT d.idDocumento AS idDocumento, p.idPalabraClave AS idPalabraClave "
+         + "FROM Documento d JOIN d.palabrasClave p ORDER BY d.idDocumento, p.idPalabraClave")
+    List<EtiquetaProyeccion> findAllEtiquetasParaIndice();
+
+    /**
+     * Lee en una sola consulta todos los pares (documento, documento referenciado)
+     * de la tabla referencia, ordenados por documento y referencia.
+     * @return Una fila por referencia.
+     */
+    @Query("SELECT d.idDocumento AS idDocumento, r.idDocumento AS idReferencia "
+         + "FROM Documento d JOIN d.referencias r ORDER BY d.idDocumento, r.idDocumento")
+    List<ReferenciaProyeccion> findAllReferenciasParaIndice();
+
+    /**
+     * Igual que {@link #findAllParaIndice()}, solo para algunos documentos
+     * (los que cambiaron después de la instantánea del índice).
+     * @param ids Los IDs de los documentos.
+     * @return Una fila por documento encontrado, ordenadas por ID.
+     */
+    @Query("SELECT d.idDocumento AS idDocumento, d.titulo AS titulo, d.resumen AS resumen, "
+         + "d.numDocumento AS numDocumento, d.fechaCreacion AS fechaCreacion, d.activo AS activo, "
+         + "t.idTipoDocumento AS idTipoDocumento, t.nombre AS nombreTipoDocumento, "
+         + "d.sector.idSector AS idSector, d.estado.idEstado AS idEstado, "
+         + "d.unidadEjecutora.idUnidadEjecutora AS idUnidadEjecutora "
+         + "FROM Documento d JOIN d.tipoDocumento t WHERE d.idDocumento IN :ids ORDER BY d.idDocumento")
+    List<DocumentoIndiceProyeccion> findParaIndiceByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Igual que {@link #findAllEtiquetasParaIndice()}, solo para algunos documentos.
+     * @param ids Los IDs de los documentos.
+     * @return Una fila por etiqueta, ordenadas por documento y palabra clave.
+     */
+    @Query("SELECT d.idDocumento AS idDocumento, p.idPalabraClave AS idPalabraClave "
+         + "FROM Documento d JOIN d.palabrasClave p WHERE d.idDocumento IN :ids "
+         + "ORDER BY d.idDocumento, p.idPalabraClave")
+    List<EtiquetaProyeccion> findEtiquetasParaIndiceByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * @param idDocumento El mayor ID conocido.
+     * @return Los IDs de los documentos creados después (por la clave primaria).
+     */
+    @Query("SELECT d.idDocumento FROM Documento d WHERE d.idDocumento > :idDocumento")
+    List<Integer> findIdsMayoresA(@Param("idDocumento") Integer idDocumento);
+
+    /**
+     * Busca, a partir de un ID, los documentos a los que les falta alguna columna
+     * normalizada (filas anteriores a la migración 003 o cargadas por fuera de la aplicación).
+     * @param desdeId Se leen los IDs mayores a este.
+     * @param pageable Tamaño del lote (la página siempre es la primera).
+     * @return Los textos originales, ordenados por ID.
+     */
+    @Query("SELECT d.idDocumento AS idDocumento, d.titulo AS titulo, d.resumen AS resumen, "
+         + "d.numDocumento AS numDocumento FROM Documento d WHERE d.idDocumento > :desdeId AND ("
+         + "(d.titulo IS NOT NULL AND d.tituloNormalizado IS NULL) "
+         + "OR (d.resumen IS NOT NULL AND d.resumenNormalizado IS NULL) "
+         + "OR (d.numDocumento IS NOT NULL AND d.numDocumentoNormalizado IS NULL)) "
+         + "ORDER BY d.idDocumento")
+    List<TextoDocumentoProyeccion> findSinNormalizar(@Param("desdeId") Integer desdeId, Pageable pageable);
+
+    /**
+     * Escribe las columnas normalizadas de un documento sin cargar la entidad.
+     * @param idDocumento El ID del documento.
+     * @param titulo El título normalizado.
+     * @param resumen El resumen normalizado.
+     * @param numDocumento El número normalizado.
+     * @return La cantidad de filas actualizadas.
+     */
+    @Modifying
+    @Query("UPDATE Documento d SET d.tituloNormalizado = :titulo, d.resumenNormalizado = :resumen, "
+         + "d.numDocumentoNormalizado = :numDocumento WHERE d.idDocumento = :idDocumento")
+    int guardarCamposNormalizados(@Param("idDocumento") Integer idDocumento, @Param("titulo") String titulo,
+                                  @Param("resumen") String resumen, @Param("numDocumento") String numDocumento);
+
+    /**
+     * Cantidad estimada de filas de documento según las estadísticas de MySQL
+     * (information_schema.TABLES). No recorre la tabla.
+     * @return La estimación, o null si la tabla no figura.
+     */
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES "
+         + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'documento'", nativeQuery = true)
+    Long estimarFilas();
+
+    /**
+     * Cardinalidad estimada de la primera columna de cada índice de documento
+     * (information_schema.STATISTICS). No recorre la tabla.
+     * @return Una fila por índice.
+     */
+    @Query(value = "SELECT COLUMN_NAME AS columna, MAX(CARDINALITY) AS cardinalidad "
+         + "FROM information_schema.STATISTICS "
+         + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'documento' AND SEQ_IN_INDEX = 1 "
+         + "GROUP BY COLUMN_NAME", nativeQuery = true)
+    List<CardinalidadColumnaProyeccion> findCardinalidades();
 }
@@ -0,0 +1,53 @@
+package dev.kosten.digesto_system.documento.repository;
+
+import dev.kosten.digesto_system.documento.dto.DocumentoTablaDTO;
+import dev.kosten.digesto_system.documento.entity.Documento;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Consultas de solo lectura del listado de documentos que arman DocumentoTablaDTO
+ * directamente desde el SELECT (proyección por constructor), sin cargar entidades
+ * Documento. Aceptan las mismas Specification que DocumentoSpecification.
+ * Se implementa en {@link DocumentoTablaRepositoryImpl} y se expone a través de DocumentoRepository.
+ * @author micael
+ */
+public interface DocumentoTablaRepository {
+
+    /**
+     * Página de filas con el total (COUNT, que se omite si la página ya lo deja claro).
+     * @param spec Los filtros (null = todos).
+     * @param pageable Página y orden.
+     * @return La página de filas.
+     */
+    Page<DocumentoTablaDTO> findTabla(Specification<Documento> spec, Pageable pageable);
+
+    /**
+     * Porción de filas sin COUNT: trae una fila de más solo para saber si hay otra porción.
+     * @param spec Los filtros (null = todos).
+     * @param pageable Página y orden.
+     * @return La porción de filas.
+     */
+    Slice<DocumentoTablaDTO> findTablaSinTotal(Specification<Documento> spec, Pageable pageable);
+
+    /**
+     * Las primeras filas en el orden pedido (paginación por cursor).
+     * @param spec Los filtros (null = todos).
+     * @param orden El orden.
+     * @param limite Cantidad máxima de filas.
+     * @return Las filas.
+     */
+    List<DocumentoTablaDTO> findTabla(Specification<Documento> spec, Sort orden, int limite);
+
+    /**
+     * Las filas de una página resuelta en memoria.
+     * @param ids Los IDs de la página.
+     * @return Las filas encontradas, en cualquier orden.
+     */
+    List<DocumentoTablaDTO> findTablaByIds(Collection<Integer> ids);
+}
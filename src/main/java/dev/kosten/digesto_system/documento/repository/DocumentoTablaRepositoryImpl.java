@@ -0,0 +1,129 @@
+package dev.kosten.digesto_system.documento.repository;
+
+import dev.kosten.digesto_system.documento.dto.DocumentoTablaDTO;
+import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.estado.entity.Estado;
+import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * Implementación de {@link DocumentoTablaRepository} con la Criteria API:
+ * SELECT new FilaTablaDocumento(d.idDocumento, ..., t.nombre, ..., e.nombre, ...)
+ * FROM documento d JOIN tipoDocumento t JOIN estado e WHERE (spec) ORDER BY ...
+ * Hibernate devuelve objetos planos: no hay entidades administradas, ni proxies
+ * LAZY, ni la copia del estado cargado que usa el dirty checking.
+ * @author micael
+ */
+public class DocumentoTablaRepositoryImpl implements DocumentoTablaRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<DocumentoTablaDTO> findTabla(Specification<Documento> spec, Pageable pageable) {
+        List<DocumentoTablaDTO> contenido = consultar(spec, pageable.getSort(),
+                pageable.isPaged() ? (int) pageable.getOffset() : 0,
+                pageable.isPaged() ? pageable.getPageSize() : -1);
+        return PageableExecutionUtils.getPage(contenido, pageable, () -> contar(spec));
+    }
+
+    @Override
+    public Slice<DocumentoTablaDTO> findTablaSinTotal(Specification<Documento> spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(consultar(spec, pageable.getSort(), 0, -1), pageable, false);
+        }
+        List<DocumentoTablaDTO> contenido = consultar(spec, pageable.getSort(), (int) pageable.getOffset(),
+                pageable.getPageSize() + 1);
+        boolean hayMas = contenido.size() > pageable.getPageSize();
+        return new SliceImpl<>(hayMas ? contenido.subList(0, pageable.getPageSize()) : contenido, pageable, hayMas);
+    }
+
+    @Override
+    public List<DocumentoTablaDTO> findTabla(Specification<Documento> spec, Sort orden, int limite) {
+        return consultar(spec, orden, 0, limite);
+    }
+
+    @Override
+    public List<DocumentoTablaDTO> findTablaByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return consultar((root, query, cb) -> root.get("idDocumento").in(ids), Sort.unsorted(), 0, -1);
+    }
+
+    /**
+     * @param limite Cantidad máxima de filas (-1 = sin límite).
+     */
+    private List<DocumentoTablaDTO> consultar(Specification<Documento> spec, Sort orden, int desde, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FilaTablaDocumento> consulta = cb.createQuery(FilaTablaDocumento.class);
+        Root<Documento> documento = consulta.from(Documento.class);
+        Join<Documento, TipoDocumento> tipo = documento.join("tipoDocumento");
+        Join<Documento, Estado> estado = documento.join("estado");
+
+        consulta.select(cb.construct(FilaTablaDocumento.class,
+                documento.get("idDocumento"),
+                documento.get("titulo"),
+                documento.get("numDocumento"),
+                documento.get("activo"),
+                documento.get("fechaCreacion"),
+                documento.get("resumen"),
+                tipo.get("idTipoDocumento"),
+                tipo.get("nombre"),
+                tipo.get("descripcion"),
+                tipo.get("nomenclatura"),
+                estado.get("idEstado"),
+                estado.get("nombre"),
+                estado.get("descripcion")));
+        Predicate filtro = spec == null ? null : spec.toPredicate(documento, consulta, cb);
+        if (filtro != null) {
+            consulta.where(filtro);
+        }
+        if (orden.isSorted()) {
+            consulta.orderBy(QueryUtils.toOrders(orden, documento, cb));
+        }
+
+        TypedQuery<FilaTablaDocumento> query = entityManager.createQuery(consulta);
+        if (desde > 0) {
+            query.setFirstResult(desde);
+        }
+        if (limite >= 0) {
+            query.setMaxResults(limite);
+        }
+        return query.getResultList().stream()
+                .map(FilaTablaDocumento::aDTO)
+                .collect(Collectors.toList());
+    }
+
+    private long contar(Specification<Documento> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> consulta = cb.createQuery(Long.class);
+        Root<Documento> documento = consulta.from(Documento.class);
+        Predicate filtro = spec == null ? null : spec.toPredicate(documento, consulta, cb);
+        if (filtro != null) {
+            consulta.where(filtro);
+        }
+        // Tipo y estado son obligatorios (nullable = false): el JOIN no cambia la cantidad de filas
+        consulta.select(consulta.isDistinct() ? cb.countDistinct(documento) : cb.count(documento));
+        return entityManager.createQuery(consulta).getSingleResult();
+    }
+}
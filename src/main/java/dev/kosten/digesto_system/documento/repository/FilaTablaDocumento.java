@@ -0,0 +1,83 @@
+package dev.kosten.digesto_system.documento.repository;
+
+import dev.kosten.digesto_system.documento.dto.DocumentoTablaDTO;
+import dev.kosten.digesto_system.estado.dto.EstadoDTO;
+import dev.kosten.digesto_system.tipodocumento.dto.TipoDocumentoDTO;
+import java.util.Date;
+
+/**
+ * Una fila del listado de documentos tal como sale del SELECT: las columnas de
+ * documento que muestra la tabla más las de su tipo y su estado (JOIN).
+ * Se arma con el constructor desde la consulta (cb.construct), así que no es una
+ * entidad: no entra al contexto de persistencia ni tiene copia para dirty checking.
+ * @author micael
+ */
+public final class FilaTablaDocumento {
+
+    private final Integer idDocumento;
+    private final String titulo;
+    private final String numDocumento;
+    private final Boolean activo;
+    private final Date fechaCreacion;
+    private final String resumen;
+    private final Integer idTipoDocumento;
+    private final String nombreTipoDocumento;
+    private final String descripcionTipoDocumento;
+    private final String nomenclaturaTipoDocumento;
+    private final Integer idEstado;
+    private final String nombreEstado;
+    private final String descripcionEstado;
+
+    /**
+     * Constructor que usa la consulta: el orden de los parámetros es el de las columnas del SELECT.
+     */
+    public FilaTablaDocumento(Integer idDocumento, String titulo, String numDocumento, Boolean activo,
+                              Date fechaCreacion, String resumen, Integer idTipoDocumento,
+                              String nombreTipoDocumento, String descripcionTipoDocumento,
+                              String nomenclaturaTipoDocumento, Integer idEstado, String nombreEstado,
+                              String descripcionEstado) {
+        this.idDocumento = idDocumento;
+        this.titulo = titulo;
+        this.numDocumento = numDocumento;
+        this.activo = activo;
+        this.fechaCreacion = fechaCreacion;
+        this.resumen = resumen;
+        this.idTipoDocumento = idTipoDocumento;
+        this.nombreTipoDocumento = nombreTipoDocumento;
+        this.descripcionTipoDocumento = descripcionTipoDocumento;
+        this.nomenclaturaTipoDocumento = nomenclaturaTipoDocumento;
+        this.idEstado = idEstado;
+        this.nombreEstado = nombreEstado;
+        this.descripcionEstado = descripcionEstado;
+    }
+
+    public Integer getIdDocumento() {
+        return idDocumento;
+    }
+
+    /**
+     * Arma el DTO de la fila, con el tipo y el estado completos.
+     * @return El DTO listo para la tabla.
+     */
+    public DocumentoTablaDTO aDTO() {
+        TipoDocumentoDTO tipo = new TipoDocumentoDTO();
+        tipo.setIdTipoDocumento(idTipoDocumento);
+        tipo.setNombre(nombreTipoDocumento);
+        tipo.setDescripcion(descripcionTipoDocumento);
+        tipo.setNomenclatura(nomenclaturaTipoDocumento);
+        return DocumentoTablaDTO.builder()
+                .idDocumento(idDocumento)
+                .titulo(titulo)
+                .numDocumento(numDocumento)
+                .resumen(resumen)
+                .fechaCreacion(fechaCreacion)
+                .activo(Boolean.TRUE.equals(activo))
+                .tipoDocumento(tipo)
+                .estado(EstadoDTO.builder()
+                        .idEstado(idEstado)
+                        .nombre(nombreEstado)
+                        .descripcion(descripcionEstado)
+                        .build())
+                .build();
+    }
+}
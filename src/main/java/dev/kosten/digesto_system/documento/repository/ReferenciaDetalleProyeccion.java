@@ -0,0 +1,20 @@
+package dev.kosten.digesto_system.documento.repository;
+
+/**
+ * Proyección de Spring Data de una referencia del detalle de un documento:
+ * el otro documento de la fila de la tabla referencia y en qué sentido está.
+ * @author micael
+ */
+public interface ReferenciaDetalleProyeccion {
+
+    /**
+     * 1 si el documento del detalle cita a este (referencias), 0 si este lo cita a él (referenciadoPor).
+     */
+    Integer getSaliente();
+
+    Integer getIdDocumento();
+
+    String getNumDocumento();
+
+    Boolean getActivo();
+}
@@ -0,0 +1,17 @@
+package dev.kosten.digesto_system.documento.repository;
+
+/**
+ * Proyección de Spring Data con los textos de un documento que tienen
+ * columna normalizada (ver DocumentoRepository.findSinNormalizar).
+ * @author micael
+ */
+public interface TextoDocumentoProyeccion {
+
+    Integer getIdDocumento();
+
+    String getTitulo();
+
+    String getResumen();
+
+    String getNumDocumento();
+}
@@ -0,0 +1,88 @@
+package dev.kosten.digesto_system.documento.service;
+
+import dev.kosten.digesto_system.documento.dto.EstadisticasCoalescenciaDTO;
+import dev.kosten.digesto_system.documento.dto.PaginaDocumentosDTO;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Agrupa las búsquedas idénticas que llegan al mismo tiempo ("single flight"):
+ * el primer pedido de una clave ejecuta la consulta y los que llegan mientras
+ * tanto esperan ese mismo resultado en lugar de repetirla. Pensado para cuando
+ * se publica un documento y muchos clientes piden la misma búsqueda a la vez,
+ * justo cuando la caché de resultados acaba de vaciarse.
+ *
+ * Solo se agrupan pedidos simultáneos; el resultado no se guarda (eso lo hace
+ * CacheBusquedaService). La espera ocurre fuera de toda transacción: solo el
+ * primero abre una y toma una conexión.
+ * @author micael
+ */
+@Component
+public class BusquedasEnCurso {
+
+    private final ConcurrentHashMap<String, CompletableFuture<PaginaDocumentosDTO>> enCurso = new ConcurrentHashMap<>();
+    private final LongAdder ejecutadas = new LongAdder();
+    private final LongAdder compartidas = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+
+    /**
+     * Ejecuta la búsqueda, o espera la que ya está en curso para la misma clave.
+     * @param clave La clave completa de la búsqueda (incluye la versión de los datos).
+     * @param buscar La búsqueda a ejecutar si no hay una en curso.
+     * @return El resultado (el mismo objeto para todos los pedidos agrupados).
+     */
+    public PaginaDocumentosDTO ejecutar(String clave, Supplier<PaginaDocumentosDTO> buscar) {
+        CompletableFuture<PaginaDocumentosDTO> propia = new CompletableFuture<>();
+        CompletableFuture<PaginaDocumentosDTO> existente = enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            compartidas.increment();
+            return esperar(existente);
+        }
+
+        ejecutadas.increment();
+        try {
+            PaginaDocumentosDTO resultado = buscar.get();
+            propia.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            fallidas.increment();
+            // Los que esperaban reciben el mismo error que el que ejecutó
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    /**
+     * Devuelve los contadores de agrupación.
+     * @return Las estadísticas actuales.
+     */
+    public EstadisticasCoalescenciaDTO estadisticas() {
+        return EstadisticasCoalescenciaDTO.builder()
+                .ejecutadas(ejecutadas.sum())
+                .compartidas(compartidas.sum())
+                .fallidas(fallidas.sum())
+                .enCurso(enCurso.size())
+                .build();
+    }
+
+    private static PaginaDocumentosDTO esperar(CompletableFuture<PaginaDocumentosDTO> vuelo) {
+        try {
+            return vuelo.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (causa instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
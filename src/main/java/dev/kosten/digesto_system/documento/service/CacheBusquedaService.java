@@ -0,0 +1,152 @@
+package dev.kosten.digesto_system.documento.service;
+
+import dev.kosten.digesto_system.documento.dto.EstadisticasCacheDTO;
+import dev.kosten.digesto_system.documento.dto.PaginaDocumentosDTO;
+import dev.kosten.digesto_system.documento.indice.IndiceActualizadoEvent;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caché LRU acotada de resultados de DocumentoService.buscarConFiltros.
+ * La clave es la clave normalizada de los filtros (FiltrosBusquedaDocumento.clave())
+ * más la página, el tamaño, el orden y el modo de total.
+ *
+ * Cada cambio confirmado en documentos incrementa la versión y vacía la caché.
+ * La invalidación se hace con el {@link IndiceActualizadoEvent}, que IndiceDocumentos
+ * publica después de aplicar el cambio al índice, para que ninguna búsqueda con
+ * la versión nueva lea el índice viejo.
+ * Un resultado calculado con una versión anterior (una búsqueda que empezó antes
+ * del commit y terminó después) no se guarda, así nunca queda un dato viejo.
+ * @author micael
+ */
+@Service
+public class CacheBusquedaService {
+
+    /**
+     * Cantidad máxima de resultados guardados (se descartan los menos usados).
+     */
+    @Value("${digesto.busqueda.cache.max-entradas:500}")
+    private int maxEntradas;
+
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    // Orden de acceso + removeEldestEntry = LRU. Acceso sincronizado sobre el propio mapa.
+    private final Map<String, PaginaDocumentosDTO> resultados = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PaginaDocumentosDTO> eldest) {
+            if (size() > maxEntradas) {
+                desalojos.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Arma la clave de caché de una búsqueda.
+     * @param claveFiltros La clave normalizada de los filtros.
+     * @param pageable La página pedida (número, tamaño y orden).
+     * @param modoTotal El modo de cálculo del total.
+     * @param orden El orden de los resultados (fecha o relevancia).
+     * @return La clave completa.
+     */
+    public String clave(String claveFiltros, Pageable pageable, ModoTotal modoTotal, OrdenResultados orden) {
+        return claveFiltros
+                + "|p=" + pageable.getPageNumber()
+                + "|s=" + pageable.getPageSize()
+                + "|o=" + pageable.getSort()
+                + "|t=" + modoTotal
+                + "|r=" + orden;
+    }
+
+    /**
+     * Devuelve el resultado guardado para la clave o lo calcula y lo guarda.
+     * El cálculo se hace fuera del lock: dos pedidos simultáneos de la misma
+     * clave pueden calcularlo ambos, pero ninguno bloquea a las demás búsquedas.
+     * @param clave La clave armada con {@link #clave}.
+     * @param buscar La búsqueda a ejecutar si no hay resultado guardado.
+     * @return El resultado de la búsqueda.
+     */
+    public PaginaDocumentosDTO obtener(String clave, Supplier<PaginaDocumentosDTO> buscar) {
+        synchronized (resultados) {
+            PaginaDocumentosDTO guardado = resultados.get(clave);
+            if (guardado != null) {
+                aciertos.increment();
+                return guardado;
+            }
+        }
+        fallos.increment();
+
+        long versionInicial = version.get();
+        PaginaDocumentosDTO resultado = buscar.get();
+
+        synchronized (resultados) {
+            // Si se confirmó un cambio mientras se buscaba, el resultado puede estar desactualizado
+            if (version.get() == versionInicial) {
+                resultados.put(clave, resultado);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Versión de los datos: cambia con cada invalidación. Sirve para que dos
+     * búsquedas solo se agrupen si empezaron viendo los mismos datos.
+     * @return La versión actual.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Descarta los resultados guardados cuando el índice termina de aplicar un
+     * cambio confirmado en un documento.
+     * @param evento El evento publicado por IndiceDocumentos.
+     */
+    @EventListener
+    public void alActualizarIndice(IndiceActualizadoEvent evento) {
+        invalidarTodo();
+    }
+
+    /**
+     * Descarta todos los resultados guardados.
+     */
+    public void invalidarTodo() {
+        synchronized (resultados) {
+            version.incrementAndGet();
+            resultados.clear();
+        }
+        invalidaciones.increment();
+    }
+
+    /**
+     * Devuelve los contadores de uso de la caché.
+     * @return Las estadísticas actuales.
+     */
+    public EstadisticasCacheDTO estadisticas() {
+        int entradas;
+        synchronized (resultados) {
+            entradas = resultados.size();
+        }
+        return EstadisticasCacheDTO.builder()
+                .nombre("busquedas-documentos")
+                .entradas(entradas)
+                .maxEntradas(maxEntradas)
+                .aciertos(aciertos.sum())
+                .fallos(fallos.sum())
+                .desalojos(desalojos.sum())
+                .invalidaciones(invalidaciones.sum())
+                .build();
+    }
+}
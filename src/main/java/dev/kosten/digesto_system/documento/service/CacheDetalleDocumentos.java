@@ -0,0 +1,221 @@
+package dev.kosten.digesto_system.documento.service;
+
+import dev.kosten.digesto_system.archivo.service.ArchivoModificadoEvent;
+import dev.kosten.digesto_system.documento.dto.DocumentoDTO;
+import dev.kosten.digesto_system.documento.dto.DocumentoReferenciaDTO;
+import dev.kosten.digesto_system.documento.dto.EstadisticasCacheDTO;
+import dev.kosten.digesto_system.documento.indice.DocumentoIndexado;
+import dev.kosten.digesto_system.documento.indice.DocumentoModificadoEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Caché LRU acotada del detalle de documentos (DocumentoDTO completo, el de
+ * GET /api/v1/documentos/{id}), por idDocumento.
+ *
+ * A diferencia de CacheBusquedaService, no se vacía entera con cada cambio:
+ * se descartan solo los detalles que el cambio deja viejos.
+ * <ul>
+ *   <li>El propio documento modificado.</li>
+ *   <li>Los documentos que ahora referencia: su referenciadoPor lo incluye.</li>
+ *   <li>Los detalles guardados que lo muestran en referencias o referenciadoPor
+ *       (número y activo, o una referencia que se quitó). Para no recorrer la
+ *       caché, se lleva el índice inverso {@link #mencionadoEn}.</li>
+ *   <li>El documento de un archivo subido o borrado (ArchivoService).</li>
+ * </ul>
+ * Los cambios de catálogos que se muestran en el detalle la vacían entera
+ * (ver CacheCatalogos).
+ *
+ * Como en CacheBusquedaService, un detalle armado mientras se confirmaba una
+ * invalidación no se guarda. Los DTO guardados se comparten entre peticiones,
+ * así que no se deben modificar.
+ * @author micael
+ */
+@Service
+public class CacheDetalleDocumentos {
+
+    /**
+     * Cantidad máxima de detalles guardados (se descartan los menos usados).
+     */
+    @Value("${digesto.detalle.cache.max-entradas:1000}")
+    private int maxEntradas;
+
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    // Orden de acceso + removeEldestEntry = LRU. Acceso sincronizado sobre el propio mapa
+    // (también para mencionadoEn).
+    private final Map<Integer, DocumentoDTO> detalles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, DocumentoDTO> eldest) {
+            if (size() > maxEntradas) {
+                quitarMenciones(eldest.getValue());
+                desalojos.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Para cada documento, los IDs de los detalles guardados que lo muestran
+     * en sus referencias o en su referenciadoPor.
+     */
+    private final Map<Integer, Set<Integer>> mencionadoEn = new HashMap<>();
+
+    /**
+     * Devuelve el detalle guardado o lo arma y lo guarda.
+     * El armado se hace fuera del lock, igual que en CacheBusquedaService.
+     * @param idDocumento El ID del documento.
+     * @param cargar El armado del detalle desde la base de datos.
+     * @return El detalle del documento.
+     */
+    public DocumentoDTO obtener(Integer idDocumento, Supplier<DocumentoDTO> cargar) {
+        synchronized (detalles) {
+            DocumentoDTO guardado = detalles.get(idDocumento);
+            if (guardado != null) {
+                aciertos.increment();
+                return guardado;
+            }
+        }
+        fallos.increment();
+
+        long versionInicial = version.get();
+        DocumentoDTO detalle = cargar.get();
+
+        synchronized (detalles) {
+            // Si se confirmó un cambio mientras se armaba, el detalle puede estar desactualizado
+            if (version.get() == versionInicial) {
+                quitar(idDocumento);
+                detalles.put(idDocumento, detalle);
+                agregarMenciones(detalle);
+            }
+        }
+        return detalle;
+    }
+
+    /**
+     * Descarta los detalles afectados por un cambio confirmado en un documento
+     * (alta, edición, baja lógica o cambio de estado activo).
+     * @param evento El evento publicado por DocumentoService.
+     */
+    @TransactionalEventListener
+    public void alModificarDocumento(DocumentoModificadoEvent evento) {
+        DocumentoIndexado documento = evento.getDocumento();
+        int[] idsReferencias = documento.getIdsReferencias();
+        synchronized (detalles) {
+            version.incrementAndGet();
+            quitar(documento.getIdDocumento());
+            if (idsReferencias != null) {
+                for (int idReferencia : idsReferencias) {
+                    quitar(idReferencia);
+                }
+            }
+            Set<Integer> loMuestran = mencionadoEn.get(documento.getIdDocumento());
+            if (loMuestran != null) {
+                for (Integer id : new ArrayList<>(loMuestran)) {
+                    quitar(id);
+                }
+            }
+        }
+        invalidaciones.increment();
+    }
+
+    /**
+     * Descarta el detalle del documento al que se le subió o borró un archivo.
+     * @param evento El evento publicado por ArchivoService.
+     */
+    @TransactionalEventListener
+    public void alModificarArchivo(ArchivoModificadoEvent evento) {
+        synchronized (detalles) {
+            version.incrementAndGet();
+            quitar(evento.getIdDocumento());
+        }
+        invalidaciones.increment();
+    }
+
+    /**
+     * Descarta todos los detalles guardados.
+     */
+    public void invalidarTodo() {
+        synchronized (detalles) {
+            version.incrementAndGet();
+            detalles.clear();
+            mencionadoEn.clear();
+        }
+        invalidaciones.increment();
+    }
+
+    /**
+     * Devuelve los contadores de uso de la caché.
+     * @return Las estadísticas actuales.
+     */
+    public EstadisticasCacheDTO estadisticas() {
+        int entradas;
+        synchronized (detalles) {
+            entradas = detalles.size();
+        }
+        return EstadisticasCacheDTO.builder()
+                .nombre("detalle-documentos")
+                .entradas(entradas)
+                .maxEntradas(maxEntradas)
+                .aciertos(aciertos.sum())
+                .fallos(fallos.sum())
+                .desalojos(desalojos.sum())
+                .invalidaciones(invalidaciones.sum())
+                .build();
+    }
+
+    // --- Con el lock de detalles tomado ---
+
+    private void quitar(Integer idDocumento) {
+        DocumentoDTO quitado = detalles.remove(idDocumento);
+        if (quitado != null) {
+            quitarMenciones(quitado);
+        }
+    }
+
+    private void agregarMenciones(DocumentoDTO detalle) {
+        for (Integer mencionado : mencionados(detalle)) {
+            mencionadoEn.computeIfAbsent(mencionado, id -> new HashSet<>()).add(detalle.getIdDocumento());
+        }
+    }
+
+    private void quitarMenciones(DocumentoDTO detalle) {
+        for (Integer mencionado : mencionados(detalle)) {
+            Set<Integer> loMuestran = mencionadoEn.get(mencionado);
+            if (loMuestran != null && loMuestran.remove(detalle.getIdDocumento()) && loMuestran.isEmpty()) {
+                mencionadoEn.remove(mencionado);
+            }
+        }
+    }
+
+    private static List<Integer> mencionados(DocumentoDTO detalle) {
+        List<Integer> ids = new ArrayList<>();
+        if (detalle.getReferencias() != null) {
+            for (DocumentoReferenciaDTO referencia : detalle.getReferencias()) {
+                ids.add(referencia.getIdDocumento());
+            }
+        }
+        if (detalle.getReferenciadoPor() != null) {
+            for (DocumentoReferenciaDTO referencia : detalle.getReferenciadoPor()) {
+                ids.add(referencia.getIdDocumento());
+            }
+        }
+        return ids;
+    }
+}
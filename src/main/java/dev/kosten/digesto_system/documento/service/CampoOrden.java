@@ -0,0 +1,134 @@
+package dev.kosten.digesto_system.documento.service;
+
+import dev.kosten.digesto_system.exception.ParametroInvalidoException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Campos por los que se puede ordenar el listado de documentos (lista blanca).
+ * Cada orden permitido tiene un índice compuesto que lo cubre (db/migraciones/004),
+ * así el ORDER BY ... LIMIT se resuelve recorriendo el índice, sin filesort:
+ * <ul>
+ *   <li>fecha: idx_documento_fecha_id (y la variante con activo).</li>
+ *   <li>numero y titulo: sus índices UNIQUE (InnoDB agrega la clave primaria
+ *       a cada índice secundario, que sirve de desempate).</li>
+ *   <li>tipo y estado: agrupan por la clave foránea y dentro de cada grupo
+ *       ordenan por fecha (idx_documento_tipo_fecha_id, idx_documento_estado_fecha_id).</li>
+ * </ul>
+ * Todas las columnas van en la misma dirección (el índice se recorre entero hacia
+ * adelante o hacia atrás) y siempre se desempata por idDocumento para que la
+ * paginación sea estable.
+ * @author micael
+ */
+public enum CampoOrden {
+
+    FECHA("fecha", "fechaCreacion"),
+    NUMERO("numero", "numDocumento"),
+    TITULO("titulo", "titulo"),
+    // Las copias de solo lectura de las FK: ordenar por la relación agregaría un JOIN
+    TIPO("tipo", "idTipoDocumento"),
+    ESTADO("estado", "idEstado");
+
+    /**
+     * Máximo de campos en un mismo orden.
+     */
+    private static final int MAX_CAMPOS = 2;
+
+    /**
+     * Combinaciones de más de un campo que tienen índice.
+     */
+    private static final List<List<CampoOrden>> COMBINACIONES = List.of(
+            List.of(TIPO, FECHA),
+            List.of(ESTADO, FECHA));
+
+    private final String parametro;
+    private final String propiedad;
+
+    CampoOrden(String parametro, String propiedad) {
+        this.parametro = parametro;
+        this.propiedad = propiedad;
+    }
+
+    /**
+     * @return El nombre que se usa en el parámetro ordenarPor.
+     */
+    public String getParametro() {
+        return parametro;
+    }
+
+    /**
+     * @return La propiedad de Documento por la que se ordena.
+     */
+    public String getPropiedad() {
+        return propiedad;
+    }
+
+    /**
+     * Traduce el parámetro ordenarPor a un Sort validado.
+     * Cada elemento es un campo, con "-" adelante para orden descendente
+     * (ej: "-fecha", "numero", "tipo,-fecha").
+     * @param campos Los campos pedidos; null o vacío = "-fecha" (más recientes primero).
+     * @return El Sort, con idDocumento como último criterio.
+     * @throws ParametroInvalidoException si un campo no está permitido, si la
+     * combinación no tiene índice o si mezcla direcciones.
+     */
+    public static Sort ordenPara(List<String> campos) {
+        List<String> pedidos = campos == null ? List.of() : campos.stream()
+                .map(String::trim)
+                .filter(c -> !c.isEmpty())
+                .collect(Collectors.toList());
+        if (pedidos.isEmpty()) {
+            pedidos = List.of("-" + FECHA.parametro);
+        }
+        if (pedidos.size() > MAX_CAMPOS) {
+            throw new ParametroInvalidoException("Se puede ordenar por " + MAX_CAMPOS + " campos como máximo.");
+        }
+
+        List<CampoOrden> elegidos = new ArrayList<>(pedidos.size());
+        Sort.Direction direccion = null;
+        for (String pedido : pedidos) {
+            Sort.Direction propia = pedido.startsWith("-") ? Sort.Direction.DESC : Sort.Direction.ASC;
+            CampoOrden campo = desdeParametro(pedido.startsWith("-") || pedido.startsWith("+") ? pedido.substring(1) : pedido);
+            if (direccion != null && propia != direccion) {
+                // Un índice ASC solo se recorre entero en un sentido: mezclar direcciones obliga a un filesort
+                throw new ParametroInvalidoException("Todos los campos del orden deben ir en la misma dirección.");
+            }
+            if (elegidos.contains(campo)) {
+                throw new ParametroInvalidoException("El campo de orden '" + campo.parametro + "' está repetido.");
+            }
+            direccion = propia;
+            elegidos.add(campo);
+        }
+        if (elegidos.size() > 1 && !COMBINACIONES.contains(elegidos)) {
+            throw new ParametroInvalidoException("El orden " + pedidos + " no está permitido. Combinaciones válidas: "
+                    + COMBINACIONES.stream()
+                            .map(c -> c.stream().map(CampoOrden::getParametro).collect(Collectors.joining(",")))
+                            .collect(Collectors.joining(" | ")) + ".");
+        }
+
+        List<Sort.Order> ordenes = new ArrayList<>(elegidos.size() + 2);
+        for (CampoOrden campo : elegidos) {
+            ordenes.add(new Sort.Order(direccion, campo.propiedad));
+        }
+        if (elegidos.size() == 1 && (elegidos.get(0) == TIPO || elegidos.get(0) == ESTADO)) {
+            // Dentro de cada tipo o estado, por fecha: es el orden de su índice
+            ordenes.add(new Sort.Order(direccion, FECHA.propiedad));
+        }
+        ordenes.add(new Sort.Order(direccion, "idDocumento"));
+        return Sort.by(ordenes);
+    }
+
+    private static CampoOrden desdeParametro(String parametro) {
+        String buscado = parametro.toLowerCase(Locale.ROOT);
+        return Arrays.stream(values())
+                .filter(c -> c.parametro.equals(buscado))
+                .findFirst()
+                .orElseThrow(() -> new ParametroInvalidoException("No se puede ordenar por '" + parametro
+                        + "'. Campos permitidos: " + Arrays.stream(values()).map(CampoOrden::getParametro)
+                                .collect(Collectors.joining(", ")) + "."));
+    }
+}
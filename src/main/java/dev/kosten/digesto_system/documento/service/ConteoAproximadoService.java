@@ -0,0 +1,152 @@
+package dev.kosten.digesto_system.documento.service;
+
+import dev.kosten.digesto_system.documento.indice.DocumentoModificadoEvent;
+import dev.kosten.digesto_system.log.LogService;
+import jakarta.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Guarda el último conteo de resultados por conjunto de filtros normalizado
+ * (ver FiltrosBusquedaDocumento.clave()) para el modo de total APROXIMADO.
+ * Cuando un conteo vence, se sigue devolviendo el valor guardado y se
+ * recalcula en segundo plano, así la consulta del usuario nunca espera el COUNT.
+ * @author micael
+ */
+@Service
+@RequiredArgsConstructor
+public class ConteoAproximadoService {
+
+    private final LogService logService;
+
+    /**
+     * Tiempo durante el cual un conteo se considera vigente.
+     */
+    @Value("${digesto.busqueda.conteo.vigencia-segundos:300}")
+    private long vigenciaSegundos;
+
+    /**
+     * Cantidad máxima de conjuntos de filtros recordados (se descartan los menos usados).
+     */
+    @Value("${digesto.busqueda.conteo.max-entradas:1000}")
+    private int maxEntradas;
+
+    // Orden de acceso + removeEldestEntry = LRU. Acceso sincronizado sobre el propio mapa.
+    private final Map<String, Entrada> conteos = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+            return size() > maxEntradas;
+        }
+    };
+
+    private final ExecutorService refresco = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "conteo-aproximado");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    /**
+     * Devuelve el total para la clave. Si no hay valor guardado, cuenta en el momento
+     * (y el resultado es exacto); si el valor guardado venció, lo devuelve igual y
+     * programa su recálculo en segundo plano.
+     * @param clave La clave normalizada de los filtros.
+     * @param contar La consulta COUNT para esos filtros.
+     * @return El total y si es exacto.
+     */
+    public Conteo obtener(String clave, LongSupplier contar) {
+        Entrada entrada;
+        synchronized (conteos) {
+            entrada = conteos.get(clave);
+        }
+
+        if (entrada == null) {
+            long total = contar.getAsLong();
+            guardar(clave, total);
+            return new Conteo(total, true);
+        }
+
+        // compareAndSet: de varios pedidos simultáneos de una clave vencida, uno solo programa el recálculo
+        if (entrada.estaVencida(vigenciaSegundos) && entrada.refrescando.compareAndSet(false, true)) {
+            refresco.submit(() -> refrescar(clave, contar, entrada));
+        }
+        return new Conteo(entrada.total, false);
+    }
+
+    /**
+     * Guarda un total que se conoce con exactitud sin haber contado
+     * (por ejemplo, al llegar a la última página).
+     * @param clave La clave normalizada de los filtros.
+     * @param total El total exacto.
+     */
+    public void guardar(String clave, long total) {
+        synchronized (conteos) {
+            conteos.put(clave, new Entrada(total, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Marca todos los conteos como vencidos cuando se confirma un cambio en
+     * documentos; el próximo pedido de cada clave dispara su recálculo.
+     * @param evento El evento publicado por DocumentoService.
+     */
+    @TransactionalEventListener
+    public void alModificarDocumento(DocumentoModificadoEvent evento) {
+        synchronized (conteos) {
+            conteos.values().forEach(Entrada::vencer);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        refresco.shutdownNow();
+    }
+
+    private void refrescar(String clave, LongSupplier contar, Entrada entrada) {
+        try {
+            guardar(clave, contar.getAsLong());
+        } catch (RuntimeException e) {
+            logService.error("No se pudo refrescar el conteo aproximado para [" + clave + "]", e);
+        } finally {
+            entrada.refrescando.set(false);
+        }
+    }
+
+    /**
+     * Resultado de {@link #obtener}: el total y si fue contado en esta consulta.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Conteo {
+        private final long total;
+        private final boolean exacto;
+    }
+
+    private static class Entrada {
+        private final long total;
+        private volatile long calculadoEn;
+        private final AtomicBoolean refrescando = new AtomicBoolean();
+
+        Entrada(long total, long calculadoEn) {
+            this.total = total;
+            this.calculadoEn = calculadoEn;
+        }
+
+        boolean estaVencida(long vigenciaSegundos) {
+            return System.currentTimeMillis() - calculadoEn > vigenciaSegundos * 1000;
+        }
+
+        void vencer() {
+            calculadoEn = 0;
+        }
+    }
+}
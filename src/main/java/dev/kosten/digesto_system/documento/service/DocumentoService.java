@@ -2,16 +2,40 @@ package dev.kosten.digesto_system.documento.service;
 
 import dev.kosten.digesto_system.archivo.entity.Archivo;
 import dev.kosten.digesto_system.archivo.service.ArchivoService;
+import dev.kosten.digesto_system.documento.dto.CorreccionBusquedaDTO;
+import dev.kosten.digesto_system.documento.dto.CursorDocumento;
 import dev.kosten.digesto_system.documento.dto.DocumentoDTO;
 import dev.kosten.digesto_system.documento.dto.DocumentoMapper;
+import dev.kosten.digesto_system.documento.dto.DocumentoReferenciaDTO;
+import dev.kosten.digesto_system.documento.dto.DocumentoRelacionadoDTO;
+import dev.kosten.digesto_system.documento.dto.DocumentoSimilarDTO;
 import dev.kosten.digesto_system.documento.dto.DocumentoTablaDTO;
+import dev.kosten.digesto_system.documento.dto.FragmentoDTO;
+import dev.kosten.digesto_system.documento.dto.FacetasDocumentoDTO;
+import dev.kosten.digesto_system.documento.dto.FiltrosBusquedaDocumento;
+import dev.kosten.digesto_system.documento.dto.GrupoDuplicadosDTO;
+import dev.kosten.digesto_system.documento.dto.PaginaDocumentosDTO;
+import dev.kosten.digesto_system.documento.dto.SugerenciaDocumentoDTO;
+import dev.kosten.digesto_system.documento.dto.VentanaDocumentosDTO;
 import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.documento.indice.DocumentoIndexado;
+import dev.kosten.digesto_system.documento.indice.DocumentoModificadoEvent;
+import dev.kosten.digesto_system.documento.indice.DuplicadosDocumentos;
+import dev.kosten.digesto_system.documento.indice.IndiceDocumentos;
+import dev.kosten.digesto_system.documento.indice.RelacionadosDocumentos;
+import dev.kosten.digesto_system.documento.indice.ResultadoPorFecha;
+import dev.kosten.digesto_system.documento.indice.ResultadoRelevancia;
+import dev.kosten.digesto_system.documento.indice.SugerenciasDocumentos;
+import dev.kosten.digesto_system.documento.repository.ConteoPorIdProyeccion;
 import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
+import dev.kosten.digesto_system.documento.repository.ReferenciaDetalleProyeccion;
 import dev.kosten.digesto_system.documento.specification.DocumentoSpecification;
 import dev.kosten.digesto_system.estado.entity.Estado;
 import dev.kosten.digesto_system.estado.repository.EstadoRepository;
+import dev.kosten.digesto_system.exception.ParametroInvalidoException;
 import dev.kosten.digesto_system.exception.RecursoDuplicadoException;
 import dev.kosten.digesto_system.exception.RecursoNoEncontradoException;
+import dev.kosten.digesto_system.exception.ServicioNoDisponibleException;
 import dev.kosten.digesto_system.log.LogService;
 import dev.kosten.digesto_system.palabraclave.entity.PalabraClave;
 import dev.kosten.digesto_system.palabraclave.repository.PalabraClaveRepository;
@@ -25,6 +49,7 @@ import dev.kosten.digesto_system.unidadEjecutora.UnidadEjecutora;
 import dev.kosten.digesto_system.unidadEjecutora.UnidadEjecutoraRepository;
 import dev.kosten.digesto_system.usuario.Usuario;
 import dev.kosten.digesto_system.usuario.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -32,14 +57,23 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Servicio de negocio para la entidad Documento. Contiene toda la lógica de
@@ -67,9 +101,63 @@ public class DocumentoService {
     // --- INYECTAR Services ---
     private final ArchivoService archivoService;
     private final LogService logService;
+    private final ConteoAproximadoService conteoAproximado;
+    private final CacheBusquedaService cacheBusqueda;
+    private final CacheDetalleDocumentos cacheDetalle;
 
     private final DocumentoMapper documentoMapper;
 
+    // --- Índices en memoria ---
+    private final IndiceDocumentos indiceDocumentos;
+    private final SugerenciasDocumentos sugerenciasDocumentos;
+    private final DuplicadosDocumentos duplicadosDocumentos;
+    private final RelacionadosDocumentos relacionadosDocumentos;
+    private final PlanesConsultaService planesConsulta;
+    private final BusquedasEnCurso busquedasEnCurso;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Transacción de solo lectura para las búsquedas que no se resuelven en caché.
+     * Se usa en lugar de @Transactional para no abrir una conexión en cada acierto.
+     */
+    private TransactionTemplate transaccionLectura;
+
+    /**
+     * Motor con el que se resuelven los términos de texto (search y titulo).
+     */
+    @Value("${digesto.busqueda.motor:INDICE}")
+    private MotorBusqueda motorBusqueda;
+
+    /**
+     * Largo máximo (en caracteres) de cada fragmento resaltado de la búsqueda simple.
+     */
+    @Value("${digesto.busqueda.fragmentos.largo:160}")
+    private int largoFragmento;
+
+    /**
+     * Cantidad máxima de fragmentos resaltados por fila (0 los desactiva).
+     */
+    @Value("${digesto.busqueda.fragmentos.max-por-fila:3}")
+    private int maxFragmentosPorFila;
+
+    /**
+     * Cantidad máxima de IDs resueltos en memoria que se pasan a MySQL como IN (...).
+     */
+    private static final int MAX_IDS_EN_CONSULTA = 1000;
+
+    /**
+     * Cantidad máxima de posibles duplicados que se informan al crear un documento.
+     */
+    private static final int MAX_POSIBLES_DUPLICADOS = 5;
+
+    @PostConstruct
+    public void init() {
+        transaccionLectura = new TransactionTemplate(transactionManager);
+        transaccionLectura.setReadOnly(true);
+    }
+
     // --- Métodos de Lectura ---
     /**
      *     * Devuelve una lista de todas las entidades Documento.
@@ -79,10 +167,7 @@ public class DocumentoService {
     @Transactional(readOnly = true)
     public List<DocumentoTablaDTO> listarTodos() {
         logService.info("Solicitud para listar todos los documentos.");
-        List<Documento> documentos = documentoRepo.findAll();
-        return documentos.stream()
-                .map(documentoMapper::toTablaDTO)
-                .collect(Collectors.toList());
+        return documentoRepo.findTabla(null, Sort.unsorted(), -1);
     }
 
     /**
@@ -94,8 +179,7 @@ public class DocumentoService {
     @Transactional(readOnly = true)
     public Page<DocumentoTablaDTO> listarPaginado(Pageable pageable) {
         logService.info("Solicitud para listar documentos activos paginados.");
-        Page<Documento> documentos = documentoRepo.findByActivoTrue(pageable);
-        return documentos.map(documentoMapper::toTablaDTO);
+        return documentoRepo.findTabla(DocumentoSpecification.activos(), pageable);
     }
 
     /**
@@ -108,79 +192,425 @@ public class DocumentoService {
     @Transactional(readOnly = true)
     public Page<DocumentoTablaDTO> listarPorTipo(Integer idTipoDocumento, Pageable pageable) {
         logService.info("Solicitud para listar documentos filtrados por tipo: " + idTipoDocumento);
-        Page<Documento> documentos = documentoRepo.findByTipoDocumento_IdTipoDocumento(idTipoDocumento, pageable);
-        return documentos.map(documentoMapper::toTablaDTO);
+        return documentoRepo.findTabla(DocumentoSpecification.conTipoDocumento(idTipoDocumento), pageable);
     }
 
     /**
      * Busca documentos con filtros opcionales combinados (simples y avanzados).
      * Construye una consulta dinámica usando Specifications.
      *
-     * @param search Término de búsqueda (busca en título, resumen, numDocumento
-     * y tipo de documento)
-     * @param titulo
-     * @param numDocumento
-     * @param idTipoDocumento ID del tipo (null = todos los tipos)
-     * @param idSector
-     * @param idEstado
-     * @param fechaDesde
-     * @param fechaHasta
      * @param pageable Configuración de paginación
-     * @param excluirPalabras
-     * @param idsPalabrasClave
-     * @return Page de DocumentoTablaDTO
+     * @param filtros Filtros de la búsqueda simple (search, tipo, activos) y
+     * avanzada (título, número, sector, estado, fechas, exclusiones, palabras clave)
+     * @param modoTotal Cómo calcular el total: COUNT en cada consulta (EXACTO),
+     * sin total (SIN_TOTAL) o con el último conteo guardado (APROXIMADO)
+     * @param orden FECHA (según el Sort de la página) o RELEVANCIA (BM25 sobre
+     * el término de la búsqueda simple, resuelto con el índice en memoria)
+     * @return La página de DocumentoTablaDTO, indicando si el total es exacto
+     */
+    public PaginaDocumentosDTO buscarConFiltros(Pageable pageable, FiltrosBusquedaDocumento filtros,
+                                                ModoTotal modoTotal, OrdenResultados orden) {
+        String clave = cacheBusqueda.clave(filtros.clave(), pageable, modoTotal, orden);
+        // Sin resultado guardado, los pedidos idénticos simultáneos comparten una sola ejecución.
+        // Solo se agrupan los de la misma versión de datos, así nadie recibe un resultado previo a un cambio
+        return cacheBusqueda.obtener(clave, () -> busquedasEnCurso.ejecutar(clave + "|v=" + cacheBusqueda.getVersion(),
+                () -> transaccionLectura.execute(estado -> buscarSinCache(pageable, filtros, modoTotal, orden))));
+    }
+
+    /**
+     * Ejecuta la búsqueda de {@link #buscarConFiltros} contra el índice o la base de datos.
+     * Debe llamarse dentro de una transacción de lectura.
+     */
+    private PaginaDocumentosDTO buscarSinCache(Pageable pageable, FiltrosBusquedaDocumento filtros,
+                                               ModoTotal modoTotal, OrdenResultados orden) {
+
+        logService.info("Búsqueda con filtros dinámicos iniciada.");
+
+        boolean esBusquedaAvanzada = filtros.esBusquedaAvanzada();
+        logService.debug("Modo de Búsqueda: " + (esBusquedaAvanzada ? "AVANZADA" : "SIMPLE") + " - Motor: " + motorBusqueda
+                + " - Orden: " + orden);
+
+        // La consulta booleana solo se resuelve en MySQL: con ella, todo va por la Specification
+        boolean simpleEnIndice = !esBusquedaAvanzada && filtros.tieneBusquedaSimple() && !filtros.tieneConsulta()
+                && indiceDocumentos.estaListo();
+        boolean difusa = Boolean.TRUE.equals(filtros.getBusquedaDifusa());
+        // El contenido de los PDF solo está en memoria: sin índice listo se busca solo en las columnas
+        boolean conContenido = Boolean.TRUE.equals(filtros.getIncluirContenido()) && simpleEnIndice;
+        // Las correcciones salen del vocabulario del índice; mientras se construye, la búsqueda es exacta
+        Map<String, List<String>> correcciones = difusa && simpleEnIndice
+                ? indiceDocumentos.corregir(filtros.getSearch(), conContenido) : Map.of();
+
+        PaginaDocumentosDTO pagina;
+        if (simpleEnIndice && orden == OrdenResultados.RELEVANCIA && pageable.isPaged()) {
+            // El orden por relevancia solo tiene sentido con un término, y lo calcula el índice (con cualquier motor)
+            pagina = PaginaDocumentosDTO.desde(buscarPorRelevancia(filtros.getSearch(), filtros.getIdTipoDocumento(),
+                    filtros.getSoloActivos(), pageable, correcciones, conContenido));
+        } else if (simpleEnIndice && (motorBusqueda == MotorBusqueda.INDICE || !correcciones.isEmpty() || conContenido)
+                && sePuedeResolverEnIndice(pageable)) {
+            // La búsqueda simple se resuelve con el índice invertido (y también la corregida
+            // o la que incluye contenido, con cualquier motor).
+            // El índice conoce el total exacto sin costo extra, cualquiera sea el modo
+            pagina = PaginaDocumentosDTO.desde(buscarEnIndice(filtros, pageable, correcciones, conContenido));
+        } else {
+            pagina = buscarEnBaseDeDatos(pageable, filtros, modoTotal);
+        }
+
+        if (simpleEnIndice && maxFragmentosPorFila > 0) {
+            agregarFragmentos(pagina.getContent(), filtros.getSearch(), correcciones, conContenido);
+        }
+        if (difusa) {
+            pagina.setCorrecciones(correcciones.entrySet().stream()
+                    .map(c -> new CorreccionBusquedaDTO(c.getKey(), c.getValue()))
+                    .collect(Collectors.toList()));
+        }
+        return pagina;
+    }
+
+    /**
+     * Completa cada fila con los fragmentos resaltados que calcula el índice en memoria,
+     * cualquiera haya sido el camino de la búsqueda (las filas que resolvió MySQL
+     * también están en el índice).
+     */
+    private void agregarFragmentos(List<DocumentoTablaDTO> filas, String search,
+                                   Map<String, List<String>> correcciones, boolean conContenido) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = filas.stream().map(DocumentoTablaDTO::getIdDocumento).collect(Collectors.toList());
+        Map<Integer, List<FragmentoDTO>> fragmentos = indiceDocumentos.fragmentos(
+                ids, search, correcciones, conContenido, largoFragmento, maxFragmentosPorFila);
+        for (DocumentoTablaDTO fila : filas) {
+            fila.setFragmentos(fragmentos.getOrDefault(fila.getIdDocumento(), List.of()));
+        }
+    }
+
+    /**
+     * Resuelve {@link #buscarConFiltros} con una Specification sobre MySQL.
+     */
+    private PaginaDocumentosDTO buscarEnBaseDeDatos(Pageable pageable, FiltrosBusquedaDocumento filtros, ModoTotal modoTotal) {
+
+        Specification<Documento> spec = especificacionPara(filtros);
+
+        if (modoTotal == ModoTotal.EXACTO) {
+            // Ejecutar la consulta con todos los filtros combinados (incluye el COUNT)
+            return PaginaDocumentosDTO.desde(documentoRepo.findTabla(spec, pageable));
+        }
+
+        // Sin COUNT: la Slice trae un elemento de más para saber si hay página siguiente
+        Specification<Documento> specNoNula = sinFiltrosSiNula(spec);
+        Slice<DocumentoTablaDTO> porcion = documentoRepo.findTablaSinTotal(specNoNula, pageable);
+
+        if (modoTotal == ModoTotal.SIN_TOTAL) {
+            return PaginaDocumentosDTO.desde(porcion, null, false);
+        }
+        return conTotalAproximado(porcion, pageable, filtros.clave(), specNoNula);
+    }
+
+    /**
+     * Completa una Slice con el total del modo APROXIMADO.
+     * En la última página el total se deduce sin contar; en las demás se usa el
+     * conteo guardado para la clave de filtros (que se refresca en segundo plano).
+     */
+    private PaginaDocumentosDTO conTotalAproximado(
+            Slice<DocumentoTablaDTO> porcion,
+            Pageable pageable,
+            String clave,
+            Specification<Documento> spec) {
+
+        long vistos = pageable.getOffset() + porcion.getNumberOfElements();
+
+        if (!porcion.hasNext() && (porcion.hasContent() || pageable.getOffset() == 0)) {
+            conteoAproximado.guardar(clave, vistos);
+            return PaginaDocumentosDTO.desde(porcion, vistos, true);
+        }
+
+        ConteoAproximadoService.Conteo conteo = conteoAproximado.obtener(clave, () -> documentoRepo.count(spec));
+        // El total guardado puede haber quedado corto respecto de lo que ya se ve
+        long total = Math.max(conteo.getTotal(), vistos + (porcion.hasNext() ? 1 : 0));
+        return PaginaDocumentosDTO.desde(porcion, total, conteo.isExacto());
+    }
+
+    /**
+     * Cuenta los resultados de una búsqueda por cada faceta (tipo, sector, estado,
+     * unidad ejecutora, palabra clave y año) en un único recorrido del índice en memoria.
+     *
+     * @param filtros Los mismos filtros que acepta {@link #buscarConFiltros}
+     * @return El total y los conteos por faceta
+     * @throws ServicioNoDisponibleException si el índice todavía se está construyendo
+     */
+    public FacetasDocumentoDTO contarFacetas(FiltrosBusquedaDocumento filtros) {
+        if (!indiceDocumentos.estaListo()) {
+            throw new ServicioNoDisponibleException("El índice de documentos todavía se está construyendo.");
+        }
+        return indiceDocumentos.contarFacetas(filtros);
+    }
+
+    /**
+     * Documentos activos relacionados con el dado, ya calculados en memoria
+     * (palabras clave en común ponderadas por rareza, sector, tipo y referencias).
+     *
+     * @param id El ID del documento
+     * @param limite Cantidad máxima de relacionados
+     * @return Los relacionados, del más al menos relacionado (vacío si el documento está inactivo)
+     * @throws ParametroInvalidoException si el límite no es positivo
+     * @throws ServicioNoDisponibleException si los relacionados todavía se están calculando
+     * @throws RecursoNoEncontradoException si el documento no existe
+     */
+    public List<DocumentoRelacionadoDTO> relacionados(Integer id, int limite) {
+        if (limite < 1) {
+            throw new ParametroInvalidoException("El límite de relacionados debe ser mayor a cero.");
+        }
+        if (!relacionadosDocumentos.estaListo()) {
+            throw new ServicioNoDisponibleException("Los documentos relacionados todavía se están calculando.");
+        }
+        List<DocumentoRelacionadoDTO> relacionados = relacionadosDocumentos.relacionadosDe(id, limite);
+        if (relacionados != null) {
+            return relacionados;
+        }
+        if (!documentoRepo.existsById(id)) {
+            throw new RecursoNoEncontradoException("Documento no encontrado con ID: " + id);
+        }
+        return List.of();
+    }
+
+    /**
+     * Documentos que probablemente son la misma norma que el dado (número,
+     * título y resumen casi iguales). Se resuelve en memoria con las firmas
+     * MinHash, sin recorrer la tabla; si todavía se están construyendo, no
+     * devuelve ninguno (es un aviso, no una validación).
+     *
+     * @param documento El documento recién creado o modificado
+     * @return Los posibles duplicados, del más parecido al menos
+     */
+    public List<DocumentoSimilarDTO> posiblesDuplicados(Documento documento) {
+        return duplicadosDocumentos.similaresA(documento.getNumDocumento(), documento.getTitulo(),
+                documento.getResumen(), documento.getIdDocumento(), MAX_POSIBLES_DUPLICADOS);
+    }
+
+    /**
+     * Agrupa todo el corpus en grupos de probables duplicados.
+     *
+     * @param umbral Similitud mínima entre 0 y 1 (null = digesto.duplicados.umbral)
+     * @return Los grupos de dos o más documentos, de los más grandes a los más chicos
+     * @throws ParametroInvalidoException si el umbral está fuera de rango
+     * @throws ServicioNoDisponibleException si las firmas todavía se están construyendo
+     */
+    public List<GrupoDuplicadosDTO> gruposDuplicados(Double umbral) {
+        if (umbral != null && (umbral <= 0 || umbral > 1)) {
+            throw new ParametroInvalidoException("El umbral de similitud debe estar entre 0 (excluido) y 1.");
+        }
+        if (!duplicadosDocumentos.estaListo()) {
+            throw new ServicioNoDisponibleException("Las firmas de duplicados todavía se están construyendo.");
+        }
+        return duplicadosDocumentos.grupos(umbral);
+    }
+
+    /**
+     * Sugerencias para el buscador (autocompletado) por número o título.
+     * Se resuelven en memoria, sin consultar la base de datos.
+     *
+     * @param prefijo El texto tipeado (cada palabra se toma como inicio de palabra)
+     * @param limite Cantidad máxima de sugerencias
+     * @return Los documentos activos más recientes que coinciden
+     */
+    public List<SugerenciaDocumentoDTO> sugerir(String prefijo, int limite) {
+        if (limite < 1) {
+            throw new ParametroInvalidoException("El límite de sugerencias debe ser mayor a cero.");
+        }
+        return sugerenciasDocumentos.sugerir(prefijo, limite).stream()
+                .map(doc -> SugerenciaDocumentoDTO.builder()
+                        .idDocumento(doc.getIdDocumento())
+                        .numDocumento(doc.getNumDocumento())
+                        .titulo(doc.getTitulo())
+                        .fechaCreacion(doc.getFechaCreacion())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Busca documentos con los mismos filtros que {@link #buscarConFiltros}, pero
+     * paginando por cursor (keyset) en lugar de por número de página.
+     * Ordena por (fechaCreacion DESC, idDocumento DESC) y continúa con
+     * WHERE (fechaCreacion, idDocumento) &lt; (cursor), así que no hay OFFSET ni COUNT:
+     * la página 5000 cuesta lo mismo que la primera.
+     * Los documentos sin fecha van al final y se recorren en una segunda consulta
+     * (fechaCreacion IS NULL, por idDocumento), que completa la porción cuando se
+     * terminan los que tienen fecha. Así ninguna condición mezcla los dos rangos.
+     *
+     * @param cursor Cursor opaco devuelto en la porción anterior (null = desde el inicio)
+     * @param size Cantidad de documentos a devolver
+     * @param filtros Filtros de la búsqueda
+     * @return La porción pedida y el cursor para la siguiente
      */
     @Transactional(readOnly = true)
-    public Page<DocumentoTablaDTO> buscarConFiltros(
+    public VentanaDocumentosDTO buscarConCursor(String cursor, int size, FiltrosBusquedaDocumento filtros) {
+        logService.info("Búsqueda por cursor iniciada (size=" + size + ").");
+        if (size < 1) {
+            throw new ParametroInvalidoException("El tamaño de la porción debe ser mayor a cero.");
+        }
+
+        Specification<Documento> spec = especificacionPara(filtros);
+        CursorDocumento posicion = cursor != null && !cursor.isBlank() ? CursorDocumento.decodificar(cursor) : null;
+        boolean enTramoSinFecha = posicion != null && posicion.getFechaCreacion() == null;
+
+        // Se pide un elemento de más solo para saber si hay otra porción
+        List<DocumentoTablaDTO> filas = new ArrayList<>();
+        if (!enTramoSinFecha) {
+            Specification<Documento> tramo = posicion == null
+                    ? DocumentoSpecification.conFecha()
+                    : DocumentoSpecification.despuesDe(posicion.getFechaCreacion(), posicion.getIdDocumento());
+            Sort orden = Sort.by(Sort.Order.desc("fechaCreacion"), Sort.Order.desc("idDocumento"));
+            filas.addAll(documentoRepo.findTabla(combineSpec(spec, tramo), orden, size + 1));
+        }
+        if (filas.size() <= size) {
+            Specification<Documento> tramo = DocumentoSpecification.sinFechaDespuesDe(
+                    enTramoSinFecha ? posicion.getIdDocumento() : null);
+            filas.addAll(documentoRepo.findTabla(combineSpec(spec, tramo),
+                    Sort.by(Sort.Order.desc("idDocumento")), size + 1 - filas.size()));
+        }
+
+        boolean hayMas = filas.size() > size;
+        List<DocumentoTablaDTO> contenido = hayMas ? filas.subList(0, size) : filas;
+
+        String siguienteCursor = hayMas
+                ? CursorDocumento.despuesDe(contenido.get(contenido.size() - 1)).codificar()
+                : null;
+
+        return VentanaDocumentosDTO.builder()
+                .content(contenido)
+                .size(size)
+                .hayMas(hayMas)
+                .siguienteCursor(siguienteCursor)
+                .build();
+    }
+
+    /**
+     * Traduce los filtros a una Specification. Si es una búsqueda avanzada,
+     * el término simple se ignora; si es simple, se ignoran los avanzados.
+     * La consulta booleana, si hay, se agrega con AND en los dos modos.
+     *
+     * @param filtros Filtros de la búsqueda
+     * @return Specification combinada o null si no hay filtros
+     */
+    private Specification<Documento> especificacionPara(FiltrosBusquedaDocumento filtros) {
+        boolean esBusquedaAvanzada = filtros.esBusquedaAvanzada();
+        Specification<Documento> spec = buildSpecification(
+                esBusquedaAvanzada ? null : filtros.getSearch(), // Si es avanzada, ignora búsqueda simple
+                esBusquedaAvanzada ? filtros.getTitulo() : null,
+                esBusquedaAvanzada ? filtros.getNumDocumento() : null,
+                filtros.getIdTipoDocumento(),
+                esBusquedaAvanzada ? filtros.getIdSector() : null,
+                esBusquedaAvanzada ? filtros.getIdEstado() : null,
+                esBusquedaAvanzada ? filtros.getFechaDesde() : null,
+                esBusquedaAvanzada ? filtros.getFechaHasta() : null,
+                esBusquedaAvanzada ? filtros.getExcluirPalabras() : null,
+                esBusquedaAvanzada ? filtros.getIdsPalabrasClave() : null,
+                filtros.requiereTodasLasPalabrasClave(),
+                filtros.getSoloActivos()
+        );
+        if (filtros.tieneConsulta()) {
+            // Va al final: sus condiciones ya vienen ordenadas por selectividad dentro del plan
+            spec = combineSpec(spec, planesConsulta.planPara(filtros.getConsulta()).getEspecificacion());
+        }
+        return spec;
+    }
+
+    /**
+     * Resuelve la búsqueda simple con el índice invertido en memoria.
+     * Intersecta las listas de posteo y el índice evalúa los filtros por segmentos
+     * en paralelo, quedándose solo con los primeros offset + tamaño de página por fecha;
+     * MySQL solo se consulta para traer por ID los documentos de la página pedida.
+     *
+     * @param filtros Filtros de la búsqueda simple (término, tipo y soloActivos)
+     * @param pageable Configuración de paginación (ordenada por fechaCreacion)
+     * @param correcciones Correcciones de la búsqueda difusa (vacío si no hay)
+     * @param conContenido Si es true, también busca en el texto de los PDF
+     * @return Page de DocumentoTablaDTO con el total exacto de coincidencias
+     */
+    private Page<DocumentoTablaDTO> buscarEnIndice(
+            FiltrosBusquedaDocumento filtros,
             Pageable pageable,
+            Map<String, List<String>> correcciones,
+            boolean conContenido) {
+
+        int limite = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        Sort.Order ordenFecha = pageable.getSort().getOrderFor("fechaCreacion");
+        ResultadoPorFecha resultado = indiceDocumentos.buscarPorFecha(filtros, correcciones, conContenido, limite,
+                ordenFecha != null && ordenFecha.isDescending());
+
+        List<DocumentoIndexado> primeros = resultado.getDocumentos();
+        int desde = (int) Math.min(pageable.getOffset(), primeros.size());
+        List<Integer> idsPagina = primeros.subList(desde, primeros.size()).stream()
+                .map(DocumentoIndexado::getIdDocumento)
+                .collect(Collectors.toList());
+
+        logService.debug("Búsqueda en índice: " + resultado.getTotal() + " coincidencias, cargando " + idsPagina.size() + " por ID.");
+
+        // Única consulta a MySQL: los documentos de la página (con tipo y estado), respetando el orden calculado
+        Map<Integer, DocumentoTablaDTO> porId = documentoRepo.findTablaByIds(idsPagina).stream()
+                .collect(Collectors.toMap(DocumentoTablaDTO::getIdDocumento, Function.identity()));
+        List<DocumentoTablaDTO> contenido = idsPagina.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(contenido, pageable, resultado.getTotal());
+    }
+
+    /**
+     * Resuelve la búsqueda simple con el índice invertido, ordenando por relevancia (BM25).
+     * El índice devuelve solo los primeros offset + tamaño de página (heap acotado)
+     * y el total exacto; MySQL solo se consulta para traer por ID los de la página.
+     *
+     * @param search Término de búsqueda simple
+     * @param idTipoDocumento Filtro por tipo de documento (null = todos)
+     * @param soloActivos Si es true, descarta los documentos inactivos
+     * @param pageable Configuración de paginación (su Sort se ignora)
+     * @param correcciones Correcciones de la búsqueda difusa (vacío si no hay)
+     * @param conContenido Si es true, también busca en el texto de los PDF
+     * @return Page de DocumentoTablaDTO, del más relevante al menos relevante
+     */
+    private Page<DocumentoTablaDTO> buscarPorRelevancia(
             String search,
-            String titulo,
-            String numDocumento,
             Integer idTipoDocumento,
-            Integer idSector,
-            Integer idEstado,
             Boolean soloActivos,
-            Date fechaDesde,
-            Date fechaHasta,
-            String excluirPalabras,
-            List<Integer> idsPalabrasClave
-    ) {
+            Pageable pageable,
+            Map<String, List<String>> correcciones,
+            boolean conContenido) {
 
-        logService.info("Búsqueda con filtros dinámicos iniciada.");
+        int limite = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        ResultadoRelevancia resultado = indiceDocumentos.buscarPorRelevancia(
+                search, idTipoDocumento, Boolean.TRUE.equals(soloActivos), limite, correcciones, conContenido);
 
-        // Detectar si se está usando la Búsqueda Avanzada
-        // (Revisamos si CUALQUIERA de los campos avanzados tiene un valor)
-        boolean esBusquedaAvanzada = (titulo != null && !titulo.trim().isEmpty())
-                || (numDocumento != null && !numDocumento.trim().isEmpty())
-                || (idSector != null)
-                || (idEstado != null)
-                || (fechaDesde != null)
-                || (fechaHasta != null)
-                || (excluirPalabras != null && !excluirPalabras.trim().isEmpty())
-                || (idsPalabrasClave != null && !idsPalabrasClave.isEmpty());
-
-        //Specification<Documento> spec = Specification.where(null); // Inicia (WHERE 1=1)
-        // Construir especificación dinámica
-        Specification<Documento> spec = buildSpecification(
-                esBusquedaAvanzada ? null : search, // Si es avanzada, ignora búsqueda simple
-                esBusquedaAvanzada ? titulo : null,
-                esBusquedaAvanzada ? numDocumento : null, idTipoDocumento,
-                esBusquedaAvanzada ? idSector : null,
-                esBusquedaAvanzada ? idEstado : null,
-                esBusquedaAvanzada ? fechaDesde : null,
-                esBusquedaAvanzada ? fechaHasta : null,
-                esBusquedaAvanzada ? excluirPalabras : null,
-                esBusquedaAvanzada ? idsPalabrasClave : null,
-                soloActivos
-        );
+        List<DocumentoIndexado> mejores = resultado.getDocumentos();
+        int desde = (int) Math.min(pageable.getOffset(), mejores.size());
+        List<Integer> idsPagina = mejores.subList(desde, mejores.size()).stream()
+                .map(DocumentoIndexado::getIdDocumento)
+                .collect(Collectors.toList());
 
-        logService.debug("Modo de Búsqueda: " + (esBusquedaAvanzada ? "AVANZADA" : "SIMPLE"));
+        logService.debug("Búsqueda por relevancia: " + resultado.getTotal() + " coincidencias, cargando " + idsPagina.size() + " por ID.");
 
-        // Ejecutar la consulta con todos los filtros combinados
-        Page<Documento> documentos = documentoRepo.findAll(spec, pageable);
+        Map<Integer, DocumentoTablaDTO> porId = documentoRepo.findTablaByIds(idsPagina).stream()
+                .collect(Collectors.toMap(DocumentoTablaDTO::getIdDocumento, Function.identity()));
+        List<DocumentoTablaDTO> contenido = idsPagina.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
 
-        // Mapear el resultado a DTO y devolverlo
-        return documentos.map(documentoMapper::toTablaDTO);
+        return new PageImpl<>(contenido, pageable, resultado.getTotal());
+    }
+
+    /**
+     * Indica si la paginación pedida se puede ordenar en memoria.
+     * Por ahora el índice solo conoce el orden por fechaCreacion.
+     */
+    private boolean sePuedeResolverEnIndice(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return false;
+        }
+        // El índice solo ordena por fecha (el desempate por ID ya lo hace IndiceDocumentos.buscarPorFecha)
+        return pageable.getSort().stream().allMatch(orden -> "fechaCreacion".equals(orden.getProperty())
+                || "idDocumento".equals(orden.getProperty()));
     }
 
     /**
@@ -195,6 +625,9 @@ public class DocumentoService {
      * @param fechaDesde Filtro por fecha desde
      * @param fechaHasta Filtro por fecha hasta
      * @param excluirPalabras Palabras a excluir
+     * @param idsPalabrasClave Filtro por palabras clave
+     * @param todasLasPalabrasClave true para exigir todas las palabras clave (AND)
+     * @param soloActivos Solo documentos activos
      * @return Specification combinada o null si no hay filtros
      */
     private Specification<Documento> buildSpecification(
@@ -208,18 +641,27 @@ public class DocumentoService {
             Date fechaHasta,
             String excluirPalabras,
             List<Integer> idsPalabrasClave,
+            boolean todasLasPalabrasClave,
             Boolean soloActivos) {
 
         Specification<Documento> spec = null;
 
+        // Con el motor FULLTEXT los términos de texto usan MATCH ... AGAINST,
+        // salvo que no quede ninguna palabra indexable (ej: solo palabras de 1-2 letras)
+        boolean textoCompleto = motorBusqueda == MotorBusqueda.FULLTEXT;
+
         // Búsqueda simple
         if (search != null && !search.trim().isEmpty()) {
-            spec = DocumentoSpecification.conTerminoDeBusqueda(search);
+            spec = textoCompleto && DocumentoSpecification.expresionTextoCompleto(search) != null
+                    ? DocumentoSpecification.conTextoCompleto(search)
+                    : DocumentoSpecification.conTerminoDeBusqueda(search);
         }
 
         // Filtros avanzados
         if (titulo != null && !titulo.trim().isEmpty()) {
-            spec = combineSpec(spec, DocumentoSpecification.conTitulo(titulo));
+            spec = combineSpec(spec, textoCompleto && DocumentoSpecification.expresionTextoCompleto(titulo) != null
+                    ? DocumentoSpecification.conTituloTextoCompleto(titulo)
+                    : DocumentoSpecification.conTitulo(titulo));
         }
 
         if (numDocumento != null && !numDocumento.trim().isEmpty()) {
@@ -247,7 +689,7 @@ public class DocumentoService {
         }
 
         if (idsPalabrasClave != null && !idsPalabrasClave.isEmpty()) {
-            spec = combineSpec(spec, DocumentoSpecification.conPalabrasClave(idsPalabrasClave));
+            spec = combineSpec(spec, especificacionPalabrasClave(idsPalabrasClave, todasLasPalabrasClave));
         }
         if (Boolean.TRUE.equals(soloActivos)) {
             Specification<Documento> activosSpec = (root, query, criteriaBuilder) -> 
@@ -258,6 +700,29 @@ public class DocumentoService {
         return spec;
     }
 
+    /**
+     * Filtro de palabras clave: si el índice está listo, se resuelve con sus mapas
+     * de bits y se pasa a la consulta como idDocumento IN (...); si el conjunto es
+     * muy grande (o el índice no está listo), se usa la subconsulta sobre etiqueta.
+     */
+    private Specification<Documento> especificacionPalabrasClave(List<Integer> idsPalabrasClave, boolean todas) {
+        int[] ids = indiceDocumentos.idsConPalabrasClave(idsPalabrasClave, todas);
+        if (ids != null && ids.length <= MAX_IDS_EN_CONSULTA) {
+            return DocumentoSpecification.conIds(ids);
+        }
+        return todas
+                ? DocumentoSpecification.conTodasLasPalabrasClave(idsPalabrasClave)
+                : DocumentoSpecification.conPalabrasClave(idsPalabrasClave);
+    }
+
+    /**
+     * Las consultas fluidas (findBy) no aceptan una Specification null;
+     * en ese caso se usa una que no filtra nada (WHERE 1=1).
+     */
+    private Specification<Documento> sinFiltrosSiNula(Specification<Documento> spec) {
+        return spec != null ? spec : (root, query, cb) -> cb.conjunction();
+    }
+
     /**
      * Combina dos especificaciones con lógica AND.
      *
@@ -276,14 +741,46 @@ public class DocumentoService {
      *     * Busca un Documento por su ID.     * @param id El ID del documento a
      * buscar.     * @return La entidad Documento encontrada.
      *
+     * Se responde desde CacheDetalleDocumentos; solo si no está guardado se abre
+     * una transacción de lectura y se arma con {@link #cargarDetalle}.
+     *
      * @param id El ID del documento a buscar.
      * @return RecursoNoEncontradoException si el documento no existe.
      */
-    @Transactional(readOnly = true)
     public DocumentoDTO obtenerPorIdComoDTO(Integer id) {
         logService.info("Buscando documento con ID: " + id);
-        Documento documento = buscarDocumentoPorId(id);
-        return documentoMapper.toDTO(documento);
+        return cacheDetalle.obtener(id, () -> transaccionLectura.execute(estado -> cargarDetalle(id)));
+    }
+
+    /**
+     * Arma el detalle de un documento en tres consultas, en lugar de una por cada
+     * relación LAZY que lee el mapper:
+     * 1. el documento con sus relaciones simples y sus archivos (JOIN),
+     * 2. sus palabras clave (JOIN FETCH sobre la misma instancia),
+     * 3. las referencias en los dos sentidos (proyección con UNION ALL).
+     * Debe ejecutarse dentro de una transacción, para que la segunda consulta
+     * complete el documento que dejó la primera en el contexto de persistencia
+     * (y para que las tres lean la misma versión de los datos).
+     */
+    private DocumentoDTO cargarDetalle(Integer id) {
+        Documento documento = documentoRepo.findDetalleById(id)
+                .orElseThrow(() -> {
+                    logService.warn("Intento de búsqueda de documento no existente con ID: " + id);
+                    return new RecursoNoEncontradoException("Documento no encontrado con ID: " + id);
+                });
+        documentoRepo.findConPalabrasClaveById(id);
+
+        List<DocumentoReferenciaDTO> referencias = new ArrayList<>();
+        List<DocumentoReferenciaDTO> referenciadoPor = new ArrayList<>();
+        for (ReferenciaDetalleProyeccion fila : documentoRepo.findReferenciasDeDetalle(id)) {
+            DocumentoReferenciaDTO referencia = DocumentoReferenciaDTO.builder()
+                    .idDocumento(fila.getIdDocumento())
+                    .numDocumento(fila.getNumDocumento())
+                    .activo(Boolean.TRUE.equals(fila.getActivo()))
+                    .build();
+            (fila.getSaliente() == 1 ? referencias : referenciadoPor).add(referencia);
+        }
+        return documentoMapper.toDTO(documento, referencias, referenciadoPor);
     }
 
     /**
@@ -365,6 +862,7 @@ public class DocumentoService {
                 .palabrasClave(etiquetas)
                 .referencias(referencias)
                 .build();
+        nuevoDocumento.normalizarCamposDeBusqueda();
 
         // --- Guardado de documento en BD ---
         Documento documentoGuardado = documentoRepo.save(nuevoDocumento);
@@ -381,6 +879,7 @@ public class DocumentoService {
         */
         // Cambiar "ALTA" por "Registrar"
         registrarOperacion("Registrar", usuario, documentoGuardado);
+        eventPublisher.publishEvent(new DocumentoModificadoEvent(DocumentoIndexado.desde(documentoGuardado)));
         logService.info("Documento creado exitosamente con ID: " + documentoGuardado.getIdDocumento() + " por " + userEmail);
         return documentoGuardado;
     }
@@ -457,6 +956,7 @@ public class DocumentoService {
         docExistente.setResumen(dto.getResumen());
         docExistente.setNumDocumento(dto.getNumDocumento());
         docExistente.setFechaCreacion(dto.getFechaCreacion());
+        docExistente.normalizarCamposDeBusqueda();
 
         // --- ACTUALIZACIÓN DE RELACIONES SIMPLES ---
         docExistente.setTipoDocumento(tipo);
@@ -502,6 +1002,7 @@ public class DocumentoService {
         */
         // Cambiar "MODIFICACION" por "Modificar"
         registrarOperacion("Modificar", usuario, actualizado);
+        eventPublisher.publishEvent(new DocumentoModificadoEvent(DocumentoIndexado.desde(actualizado)));
         logService.info("Documento ID: " + id + " actualizado y registrado por " + userEmail);
         return actualizado;
     }
@@ -537,6 +1038,7 @@ public class DocumentoService {
         */
         // Cambiar "BAJA" o "BAJA_LOGICA" por "Desactivar"
         registrarOperacion("Desactivar", usuario, docExistente);
+        eventPublisher.publishEvent(new DocumentoModificadoEvent(DocumentoIndexado.desde(docExistente)));
         // Copiamos la lista para evitar ConcurrentModificationException
         /* List<Archivo> archivosABorrar = new ArrayList<>(docExistente.getArchivos());
 
@@ -558,12 +1060,15 @@ public class DocumentoService {
     public Map<Integer, Long> contarPorTipo() {
         logService.info("Contando documentos ACTIVOS por tipo");
 
-        List<TipoDocumento> tipos = tipoDocumentoRepo.findAll();
+        // Los tipos sin documentos activos se informan con 0
         Map<Integer, Long> conteos = new HashMap<>();
+        for (TipoDocumento tipo : tipoDocumentoRepo.findAll()) {
+            conteos.put(tipo.getIdTipoDocumento(), 0L);
+        }
 
-        for (TipoDocumento tipo : tipos) {
-            Long count = documentoRepo.countByTipoDocumento_IdTipoDocumentoAndActivoTrue(tipo.getIdTipoDocumento());
-            conteos.put(tipo.getIdTipoDocumento(), count);
+        // Una sola consulta agrupada en lugar de un COUNT por tipo
+        for (ConteoPorIdProyeccion fila : documentoRepo.contarActivosPorTipo()) {
+            conteos.put(fila.getId(), fila.getCantidad());
         }
 
         return conteos;
@@ -588,6 +1093,7 @@ public class DocumentoService {
 
         // 4. Guardar en auditoría usando el HELPER (Reemplaza todo el bloque manual)
         registrarOperacion(operacion, usuario, documentoGuardado);
+        eventPublisher.publishEvent(new DocumentoModificadoEvent(DocumentoIndexado.desde(documentoGuardado)));
         
         logService.info("Estado cambiado a " + nuevoEstado + " para documento ID: " + id);
     }
@@ -0,0 +1,24 @@
+package dev.kosten.digesto_system.documento.service;
+
+/**
+ * Cómo se calcula el total de resultados en el listado paginado de documentos.
+ * @author micael
+ */
+public enum ModoTotal {
+
+    /**
+     * Ejecuta el COUNT(*) con los mismos filtros en cada consulta (comportamiento original).
+     */
+    EXACTO,
+
+    /**
+     * No cuenta: trae un elemento de más para saber si hay página siguiente.
+     */
+    SIN_TOTAL,
+
+    /**
+     * No cuenta en cada consulta: usa el último conteo guardado para ese
+     * conjunto de filtros y lo refresca en segundo plano cuando vence.
+     */
+    APROXIMADO
+}
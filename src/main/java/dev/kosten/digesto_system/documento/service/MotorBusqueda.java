@@ -0,0 +1,25 @@
+package dev.kosten.digesto_system.documento.service;
+
+/**
+ * Motores disponibles para resolver los términos de texto de buscarConFiltros.
+ * Se elige con la propiedad digesto.busqueda.motor en application.properties.
+ * @author micael
+ */
+public enum MotorBusqueda {
+
+    /**
+     * LIKE '%palabra%' sobre las columnas (sin índice, recorre toda la tabla).
+     */
+    LIKE,
+
+    /**
+     * Índice invertido en memoria para la búsqueda simple; el resto usa LIKE.
+     */
+    INDICE,
+
+    /**
+     * MATCH ... AGAINST sobre los índices FULLTEXT de MySQL
+     * (ver db/migraciones/001_fulltext_documento.sql).
+     */
+    FULLTEXT
+}
@@ -0,0 +1,20 @@
+package dev.kosten.digesto_system.documento.service;
+
+/**
+ * Orden de los resultados del listado paginado de documentos.
+ * @author micael
+ */
+public enum OrdenResultados {
+
+    /**
+     * Por fecha de creación, según el Sort de la página (comportamiento original).
+     */
+    FECHA,
+
+    /**
+     * Por relevancia (BM25) respecto del término de la búsqueda simple, resuelta
+     * con el índice en memoria. Sin término, o mientras el índice se construye,
+     * se ordena por fecha.
+     */
+    RELEVANCIA
+}
@@ -0,0 +1,207 @@
+package dev.kosten.digesto_system.documento.service;
+
+import dev.kosten.digesto_system.documento.consulta.AnalizadorConsulta;
+import dev.kosten.digesto_system.documento.consulta.CompiladorConsulta;
+import dev.kosten.digesto_system.documento.consulta.EstadisticasDocumento;
+import dev.kosten.digesto_system.documento.consulta.NodoConsulta;
+import dev.kosten.digesto_system.documento.consulta.PlanConsulta;
+import dev.kosten.digesto_system.documento.dto.EstadisticasCacheDTO;
+import dev.kosten.digesto_system.documento.indice.NormalizadorTexto;
+import dev.kosten.digesto_system.documento.repository.CardinalidadColumnaProyeccion;
+import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
+import dev.kosten.digesto_system.log.LogService;
+import dev.kosten.digesto_system.sector.SectorRepository;
+import dev.kosten.digesto_system.tipodocumento.repository.TipoDocumentoRepository;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Compila las consultas booleanas (parámetro consulta del listado) y guarda los
+ * planes en una caché LRU por texto de consulta: una consulta repetida no se
+ * vuelve a analizar ni a resolver contra los catálogos.
+ *
+ * Las estadísticas de la tabla (filas y cardinalidades) se leen de
+ * information_schema y se renuevan cada digesto.consulta.estadisticas.vigencia-minutos;
+ * al renovarlas se vacía la caché, porque el orden de las condiciones y los
+ * IDs de tipo/sector resueltos pueden haber cambiado. CacheCatalogos también la
+ * vacía cuando se crea, modifica o borra un tipo de documento o un sector.
+ * @author micael
+ */
+@Service
+@RequiredArgsConstructor
+public class PlanesConsultaService {
+
+    private final DocumentoRepository documentoRepo;
+    private final TipoDocumentoRepository tipoDocumentoRepo;
+    private final SectorRepository sectorRepo;
+    private final LogService logService;
+
+    /**
+     * Cantidad máxima de planes guardados (se descartan los menos usados).
+     */
+    @Value("${digesto.consulta.cache.max-planes:256}")
+    private int maxPlanes;
+
+    /**
+     * Minutos que se usan las mismas estadísticas antes de volver a leerlas.
+     */
+    @Value("${digesto.consulta.estadisticas.vigencia-minutos:30}")
+    private long vigenciaMinutos;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    // Orden de acceso + removeEldestEntry = LRU. Acceso sincronizado sobre el propio mapa.
+    private final Map<String, PlanConsulta> planes = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlanConsulta> eldest) {
+            if (size() > maxPlanes) {
+                desalojos.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private volatile EstadisticasDocumento estadisticas;
+    private volatile long estadisticasLeidasEn;
+
+    /**
+     * Devuelve el plan de una consulta, compilándolo si no está en caché.
+     * @param consulta El texto ingresado por el usuario.
+     * @return El plan con la Specification ordenada.
+     * @throws dev.kosten.digesto_system.exception.ParametroInvalidoException si la consulta no es válida.
+     */
+    public PlanConsulta planPara(String consulta) {
+        String clave = consulta == null ? "" : consulta.trim();
+        renovarEstadisticasSiVencieron();
+
+        synchronized (planes) {
+            PlanConsulta guardado = planes.get(clave);
+            if (guardado != null) {
+                aciertos.increment();
+                return guardado;
+            }
+        }
+        fallos.increment();
+
+        NodoConsulta arbol = AnalizadorConsulta.analizar(clave);
+        PlanConsulta plan = new CompiladorConsulta(estadisticas, new CatalogosActuales()).compilar(arbol);
+        logService.debug("Consulta '" + clave + "' compilada: " + plan.getDescripcion());
+
+        synchronized (planes) {
+            planes.put(clave, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Descarta los planes guardados y fuerza a releer las estadísticas en la próxima consulta.
+     */
+    public void invalidarTodo() {
+        estadisticasLeidasEn = 0;
+        synchronized (planes) {
+            planes.clear();
+        }
+        invalidaciones.increment();
+    }
+
+    /**
+     * Devuelve los contadores de uso de la caché de planes.
+     * @return Las estadísticas actuales.
+     */
+    public EstadisticasCacheDTO estadisticas() {
+        int entradas;
+        synchronized (planes) {
+            entradas = planes.size();
+        }
+        return EstadisticasCacheDTO.builder()
+                .nombre("planes-consultas")
+                .entradas(entradas)
+                .maxEntradas(maxPlanes)
+                .aciertos(aciertos.sum())
+                .fallos(fallos.sum())
+                .desalojos(desalojos.sum())
+                .invalidaciones(invalidaciones.sum())
+                .build();
+    }
+
+    private void renovarEstadisticasSiVencieron() {
+        long ahora = System.currentTimeMillis();
+        if (estadisticas != null && ahora - estadisticasLeidasEn < TimeUnit.MINUTES.toMillis(vigenciaMinutos)) {
+            return;
+        }
+        synchronized (this) {
+            if (estadisticas != null && ahora - estadisticasLeidasEn < TimeUnit.MINUTES.toMillis(vigenciaMinutos)) {
+                return; // Otro hilo las renovó mientras se esperaba
+            }
+            estadisticas = leerEstadisticas();
+            estadisticasLeidasEn = ahora;
+            synchronized (planes) {
+                planes.clear();
+            }
+        }
+    }
+
+    private EstadisticasDocumento leerEstadisticas() {
+        try {
+            Long filas = documentoRepo.estimarFilas();
+            Map<String, Long> cardinalidades = new HashMap<>();
+            for (CardinalidadColumnaProyeccion fila : documentoRepo.findCardinalidades()) {
+                if (fila.getColumna() != null && fila.getCardinalidad() != null) {
+                    cardinalidades.put(fila.getColumna(), fila.getCardinalidad());
+                }
+            }
+            logService.debug("Estadísticas de documento leídas: " + filas + " filas, cardinalidades " + cardinalidades);
+            return new EstadisticasDocumento(filas == null ? 0 : filas, cardinalidades);
+        } catch (RuntimeException e) {
+            // Sin estadísticas las consultas funcionan igual, solo con un orden menos afinado
+            logService.warn("No se pudieron leer las estadísticas de documento: " + e.getMessage());
+            return EstadisticasDocumento.sinDatos();
+        }
+    }
+
+    /**
+     * Resuelve tipo: y sector: contra los catálogos: coincide el nombre que contiene
+     * el valor o la nomenclatura igual al valor (ej: "tipo:dec" o "tipo:d").
+     * Los catálogos son chicos y solo se leen al compilar una consulta nueva.
+     */
+    private final class CatalogosActuales implements CompiladorConsulta.Catalogos {
+
+        @Override
+        public List<Integer> tiposQueCoinciden(String valor) {
+            return tipoDocumentoRepo.findAll().stream()
+                    .filter(t -> coincide(t.getNombre(), t.getNomenclatura(), valor))
+                    .map(t -> t.getIdTipoDocumento())
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Integer> sectoresQueCoinciden(String valor) {
+            return sectorRepo.findAll().stream()
+                    .filter(s -> coincide(s.getNombre(), s.getNomenclatura(), valor))
+                    .map(s -> s.getIdSector())
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        private boolean coincide(String nombre, String nomenclatura, String valor) {
+            return NormalizadorTexto.normalizar(nombre).contains(valor)
+                    || NormalizadorTexto.normalizar(nomenclatura).equals(valor);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package dev.kosten.digesto_system.documento.service;
+
+import dev.kosten.digesto_system.documento.indice.NormalizadorTexto;
+import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
+import dev.kosten.digesto_system.documento.repository.TextoDocumentoProyeccion;
+import dev.kosten.digesto_system.log.LogService;
+import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import dev.kosten.digesto_system.tipodocumento.repository.TipoDocumentoRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Completa las columnas normalizadas de documento (tituloNormalizado,
+ * resumenNormalizado, numDocumentoNormalizado) en las filas que no las tienen:
+ * las que existían antes de la migración 003 o las cargadas por fuera de la aplicación.
+ * También completa tipoDocumento.nombreNormalizado (migración 006): el catálogo es
+ * chico y se revisa entero en una sola transacción.
+ *
+ * Recorre la tabla por ID en lotes, cada uno en su propia transacción, para no
+ * bloquear la tabla entera ni acumular todo en un solo contexto de persistencia.
+ * Las altas y ediciones hechas por DocumentoService y TipoDocumentoService ya
+ * guardan las columnas.
+ * @author micael
+ */
+@Service
+@RequiredArgsConstructor
+public class RellenoCamposNormalizadosService {
+
+    private final DocumentoRepository documentoRepo;
+    private final TipoDocumentoRepository tipoDocumentoRepo;
+    private final CacheBusquedaService cacheBusquedaService;
+    private final PlatformTransactionManager transactionManager;
+    private final LogService logService;
+
+    /**
+     * Si es true, el relleno se ejecuta al iniciar la aplicación.
+     */
+    @Value("${digesto.normalizacion.relleno-al-iniciar:true}")
+    private boolean rellenarAlIniciar;
+
+    /**
+     * Cantidad de documentos por lote (y por transacción).
+     */
+    @Value("${digesto.normalizacion.tamanio-lote:500}")
+    private int tamanioLote;
+
+    private TransactionTemplate transaccion;
+
+    @PostConstruct
+    void init() {
+        transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Ejecuta el relleno cuando la aplicación terminó de arrancar, si está habilitado.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rellenarAlIniciar() {
+        if (rellenarAlIniciar) {
+            rellenarPendientes();
+        }
+    }
+
+    /**
+     * Normaliza los nombres de los tipos de documento y todos los documentos a los
+     * que les falta alguna columna normalizada.
+     * @return La cantidad de documentos actualizados.
+     */
+    public int rellenarPendientes() {
+        long inicio = System.currentTimeMillis();
+        int actualizados = 0;
+        int ultimoId = 0;
+        try {
+            Integer tipos = transaccion.execute(estado -> rellenarTipos());
+            if (tipos != null && tipos > 0) {
+                cacheBusquedaService.invalidarTodo();
+                logService.info("Nombre normalizado completado en " + tipos + " tipos de documento.");
+            }
+            while (true) {
+                int desdeId = ultimoId;
+                List<TextoDocumentoProyeccion> lote = transaccion.execute(estado -> {
+                    List<TextoDocumentoProyeccion> filas =
+                            documentoRepo.findSinNormalizar(desdeId, PageRequest.of(0, tamanioLote));
+                    for (TextoDocumentoProyeccion fila : filas) {
+                        documentoRepo.guardarCamposNormalizados(fila.getIdDocumento(),
+                                NormalizadorTexto.normalizarONulo(fila.getTitulo()),
+                                NormalizadorTexto.normalizarONulo(fila.getResumen()),
+                                NormalizadorTexto.normalizarONulo(fila.getNumDocumento()));
+                    }
+                    return filas;
+                });
+                if (lote == null || lote.isEmpty()) {
+                    break;
+                }
+                actualizados += lote.size();
+                ultimoId = lote.get(lote.size() - 1).getIdDocumento();
+            }
+            if (actualizados > 0) {
+                // Una búsqueda hecha antes del relleno pudo guardar resultados incompletos
+                cacheBusquedaService.invalidarTodo();
+                logService.info("Columnas normalizadas completadas en " + actualizados + " documentos en "
+                        + (System.currentTimeMillis() - inicio) + " ms.");
+            }
+        } catch (RuntimeException e) {
+            // Los lotes ya confirmados quedan; el próximo arranque sigue desde los que falten
+            logService.error("No se pudieron completar las columnas normalizadas de documento.", e);
+        }
+        return actualizados;
+    }
+
+    /**
+     * Con la transacción tomada: los cambios se guardan al confirmarla.
+     */
+    private int rellenarTipos() {
+        int cambiados = 0;
+        for (TipoDocumento tipo : tipoDocumentoRepo.findAll()) {
+            if (tipo.normalizarNombre()) {
+                cambiados++;
+            }
+        }
+        return cambiados;
+    }
+}
@@ -1,9 +1,18 @@
 package dev.kosten.digesto_system.documento.specification;
 
+import dev.kosten.digesto_system.config.FuncionesMySqlContributor;
 import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.documento.indice.NormalizadorTexto;
+import dev.kosten.digesto_system.palabraclave.entity.PalabraClave;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import java.util.Date;
 import org.springframework.data.jpa.domain.Specification;
 
@@ -14,31 +23,41 @@ import org.springframework.data.jpa.domain.Specification;
 public class DocumentoSpecification {
 
     /**
-     * Busca el término en título, resumen y número de documento (case-insensitive).
+     * Largo mínimo de palabra que indexa InnoDB FULLTEXT (innodb_ft_min_token_size).
+     * Las palabras más cortas nunca coinciden, así que se descartan de la expresión
+     * y se buscan con LIKE (ver {@link #palabrasCortas}).
+     */
+    private static final int LARGO_MINIMO_TEXTO_COMPLETO = 3;
+
+    /**
+     * Busca el término en título, resumen, número de documento y nombre del tipo
+     * (sin distinguir mayúsculas ni tildes). Compara contra las columnas *Normalizado
+     * de documento y tipoDocumento, que ya están en minúsculas y sin tildes: no se
+     * aplica lower() sobre la columna en cada fila.
      * @param searchTerm el término de búsqueda (puede contener múltiples palabras separadas por espacios)
      * @return una especificación JPA para filtrar documentos que contengan todas las palabras del término
      */
     public static Specification<Documento> conTerminoDeBusqueda(String searchTerm) {
         return (root, query, cb) -> {
-            // 1. Divide la búsqueda (ej: "resolución 101") en palabras: ["resolución", "101"]
-            String[] words = searchTerm.toLowerCase().split("\\s+");
+            // 1. Divide la búsqueda (ej: "Resolución 101") en palabras normalizadas: ["resolucion", "101"]
+            String[] words = NormalizadorTexto.tokenizar(searchTerm);
 
             // 2. Lista para guardar las condiciones AND (una por cada palabra)
             List<Predicate> mainAndPredicates = new ArrayList<>();
 
             // 3. Define los campos donde se buscará
-            var tituloPath = cb.lower(root.get("titulo"));
-            var resumenPath = cb.lower(root.get("resumen"));
-            var numDocPath = cb.lower(root.get("numDocumento"));
-            var tipoDocPath = cb.lower(root.get("tipoDocumento").get("nombre"));
+            var tituloPath = root.<String>get("tituloNormalizado");
+            var resumenPath = root.<String>get("resumenNormalizado");
+            var numDocPath = root.<String>get("numDocumentoNormalizado");
+            var tipoDocPath = root.get("tipoDocumento").<String>get("nombreNormalizado");
 
-            // 4. Itera sobre cada palabra ("resolución", luego "101")
+            // 4. Itera sobre cada palabra ("resolucion", luego "101")
             for (String word : words) {
                 if (word.isEmpty()) continue;
                 String pattern = "%" + word + "%";
 
                 // 5. Crea un grupo OR para ESA palabra en CUALQUIER campo
-                // (ej: titulo LIKE '%resolución%' OR resumen LIKE '%resolución%' OR ...)
+                // (ej: tituloNormalizado LIKE '%resolucion%' OR resumenNormalizado LIKE '%resolucion%' OR ...)
                 Predicate wordInAnyField = cb.or(
                     cb.like(tituloPath, pattern),
                     cb.like(resumenPath, pattern),
@@ -57,18 +76,79 @@ public class DocumentoSpecification {
     }
 
     /**
-     * (Avanzado) Busca palabras con lógica AND solo en el TÍTULO.
+     * (Consulta booleana) Busca un texto ya normalizado (una palabra o una frase)
+     * en cualquiera de los cuatro campos de la búsqueda simple.
+     * Las columnas pueden ser NULL (resumen, o las normalizadas antes del relleno):
+     * se comparan como texto vacío para que el resultado sea siempre verdadero o
+     * falso y un NOT de la consulta no descarte esas filas (NOT NULL es NULL).
+     * @param textoNormalizado el texto en minúsculas y sin tildes (ver NormalizadorTexto)
+     * @return una especificación JPA con el OR de los cuatro LIKE '%texto%'
+     */
+    public static Specification<Documento> conTextoEnCualquierCampo(String textoNormalizado) {
+        return (root, query, cb) -> {
+            String pattern = "%" + textoNormalizado + "%";
+            return cb.or(
+                cb.like(textoONada(cb, root.get("tituloNormalizado")), pattern),
+                cb.like(textoONada(cb, root.get("resumenNormalizado")), pattern),
+                cb.like(textoONada(cb, root.get("numDocumentoNormalizado")), pattern),
+                cb.like(textoONada(cb, root.get("tipoDocumento").get("nombreNormalizado")), pattern)
+            );
+        };
+    }
+
+    /**
+     * (Consulta booleana) Busca un texto ya normalizado, tal cual (una palabra o
+     * una frase completa), solo en el título. NULL cuenta como texto vacío
+     * (ver {@link #conTextoEnCualquierCampo}).
+     * @param textoNormalizado el texto en minúsculas y sin tildes
+     * @return una especificación JPA con tituloNormalizado LIKE '%texto%'
+     */
+    public static Specification<Documento> conTituloQueContiene(String textoNormalizado) {
+        return (root, query, cb) -> cb.like(textoONada(cb, root.get("tituloNormalizado")), "%" + textoNormalizado + "%");
+    }
+
+    /**
+     * (Consulta booleana) Busca los títulos que empiezan con un texto ya normalizado.
+     * Es un rango sobre idx_documento_titulo_norm. El IS NOT NULL hace que una fila
+     * sin título dé falso y no NULL (ver {@link #conTextoEnCualquierCampo}) sin
+     * envolver la columna en una función, que impediría usar el índice.
+     * @param textoNormalizado el texto en minúsculas y sin tildes
+     * @return una especificación JPA con tituloNormalizado LIKE 'texto%'
+     */
+    public static Specification<Documento> conTituloQueEmpiezaCon(String textoNormalizado) {
+        return (root, query, cb) -> empiezaCon(cb, root.get("tituloNormalizado"), textoNormalizado);
+    }
+
+    /**
+     * (Consulta booleana) Busca los números de documento que empiezan con un texto
+     * ya normalizado: un rango sobre idx_documento_num_norm, nunca NULL (ver
+     * {@link #conTituloQueEmpiezaCon}).
+     * @param textoNormalizado el texto en minúsculas y sin tildes
+     * @return una especificación JPA con numDocumentoNormalizado LIKE 'texto%'
+     */
+    public static Specification<Documento> conNumeroQueEmpiezaCon(String textoNormalizado) {
+        return (root, query, cb) -> empiezaCon(cb, root.get("numDocumentoNormalizado"), textoNormalizado);
+    }
+
+    private static Predicate empiezaCon(CriteriaBuilder cb, Expression<String> columna, String textoNormalizado) {
+        return cb.and(cb.isNotNull(columna), cb.like(columna, textoNormalizado + "%"));
+    }
+
+    private static Expression<String> textoONada(CriteriaBuilder cb, Expression<String> columna) {
+        return cb.coalesce(columna, "");
+    }
+
+    /**
+     * (Avanzado) Busca palabras con lógica AND solo en el TÍTULO (columna tituloNormalizado).
      * @param tituloTerm el término a buscar en el título (puede contener múltiples palabras)
      * @return una especificación JPA para filtrar por título
      */
     public static Specification<Documento> conTitulo(String tituloTerm) {
         return (root, query, cb) -> {
-            String[] words = tituloTerm.toLowerCase().split("\\s+");
+            String[] words = NormalizadorTexto.tokenizar(tituloTerm);
             Predicate[] predicates = new Predicate[words.length];
             for (int i = 0; i < words.length; i++) {
-                if (!words[i].isEmpty()) {
-                    predicates[i] = cb.like(cb.lower(root.get("titulo")), "%" + words[i] + "%");
-                }
+                predicates[i] = cb.like(root.get("tituloNormalizado"), "%" + words[i] + "%");
             }
             // Devuelve un AND de todas las palabras buscadas en el título
             return cb.and(predicates);
@@ -76,13 +156,101 @@ public class DocumentoSpecification {
     }
 
     /**
-     * (Avanzado) Busca una coincidencia LIKE simple solo en el NÚMERO de documento.
-     * @param numDocumento el número o fragmento a buscar
+     * (Motor FULLTEXT) Busca todas las palabras del término en título y resumen usando
+     * MATCH(titulo, resumen) AGAINST(... IN BOOLEAN MODE) sobre el índice FULLTEXT.
+     * Cada palabra es obligatoria y se busca como prefijo (ej: "+resol* +2024*").
+     * Las palabras que FULLTEXT no indexa (ej: el "5" de "Res 5") se agregan con AND
+     * como en {@link #conTerminoDeBusqueda(String)}, para que no se ignoren.
+     * @param searchTerm el término de búsqueda (una o más palabras)
+     * @return una especificación JPA que usa el índice FULLTEXT
+     */
+    public static Specification<Documento> conTextoCompleto(String searchTerm) {
+        String expresion = expresionTextoCompleto(searchTerm);
+        Specification<Documento> coincide = (root, query, cb) -> cb.greaterThan(
+            cb.function(FuncionesMySqlContributor.MATCH_AGAINST, Double.class,
+                root.get("titulo"), root.get("resumen"), cb.literal(expresion)),
+            0.0
+        );
+        String cortas = palabrasCortas(searchTerm);
+        return cortas == null ? coincide : coincide.and(conTerminoDeBusqueda(cortas));
+    }
+
+    /**
+     * (Motor FULLTEXT, Avanzado) Igual que {@link #conTitulo(String)} pero usando
+     * MATCH(titulo) AGAINST(... IN BOOLEAN MODE) sobre el índice FULLTEXT del título.
+     * Las palabras cortas se agregan con AND como en {@link #conTitulo(String)}.
+     * @param tituloTerm el término a buscar en el título
+     * @return una especificación JPA que usa el índice FULLTEXT
+     */
+    public static Specification<Documento> conTituloTextoCompleto(String tituloTerm) {
+        String expresion = expresionTextoCompleto(tituloTerm);
+        Specification<Documento> coincide = (root, query, cb) -> cb.greaterThan(
+            cb.function(FuncionesMySqlContributor.MATCH_AGAINST_COLUMNA, Double.class,
+                root.get("titulo"), cb.literal(expresion)),
+            0.0
+        );
+        String cortas = palabrasCortas(tituloTerm);
+        return cortas == null ? coincide : coincide.and(conTitulo(cortas));
+    }
+
+    /**
+     * Arma la expresión IN BOOLEAN MODE a partir del texto del usuario.
+     * Quita los operadores de FULLTEXT que pueda traer el texto y marca cada
+     * palabra como obligatoria y de prefijo.
+     * @param termino el texto ingresado
+     * @return la expresión (ej: "+resol* +2024*") o null si no queda ninguna palabra indexable
+     */
+    public static String expresionTextoCompleto(String termino) {
+        if (termino == null) {
+            return null;
+        }
+        StringBuilder expresion = new StringBuilder();
+        for (String word : termino.toLowerCase().split("\\s+")) {
+            String limpia = word.replaceAll("[+\\-<>()~*\"@]", "");
+            if (limpia.length() < LARGO_MINIMO_TEXTO_COMPLETO) continue;
+            if (expresion.length() > 0) expresion.append(' ');
+            expresion.append('+').append(limpia).append('*');
+        }
+        return expresion.length() == 0 ? null : expresion.toString();
+    }
+
+    /**
+     * Las palabras que {@link #expresionTextoCompleto} descarta por cortas, para
+     * buscarlas con LIKE junto al MATCH.
+     * @param termino el texto ingresado
+     * @return las palabras separadas por espacios, o null si no hay ninguna
+     */
+    private static String palabrasCortas(String termino) {
+        if (termino == null) {
+            return null;
+        }
+        StringBuilder cortas = new StringBuilder();
+        for (String word : termino.toLowerCase().split("\\s+")) {
+            String limpia = word.replaceAll("[+\\-<>()~*\"@]", "");
+            if (limpia.isEmpty() || limpia.length() >= LARGO_MINIMO_TEXTO_COMPLETO) continue;
+            if (cortas.length() > 0) cortas.append(' ');
+            cortas.append(limpia);
+        }
+        return cortas.length() == 0 ? null : cortas.toString();
+    }
+
+    /**
+     * (Avanzado) Busca los documentos cuyo NÚMERO empieza con el texto dado
+     * (columna numDocumentoNormalizado). Al ser un prefijo, MySQL lo resuelve
+     * como un rango sobre idx_documento_num_norm ("12/" encuentra "12/2024").
+     * @param numDocumento el número o su comienzo
      * @return una especificación JPA para filtrar por número de documento
      */
     public static Specification<Documento> conNumero(String numDocumento) {
-        return (root, query, cb) -> 
-            cb.like(cb.lower(root.get("numDocumento")), "%" + numDocumento.toLowerCase() + "%");
+        return conNumeroQueEmpiezaCon(NormalizadorTexto.normalizar(numDocumento));
+    }
+
+    /**
+     * Filtra los documentos activos.
+     * @return una especificación JPA con activo = true
+     */
+    public static Specification<Documento> activos() {
+        return (root, query, cb) -> cb.isTrue(root.get("activo"));
     }
 
     /**
@@ -95,6 +263,30 @@ public class DocumentoSpecification {
             cb.equal(root.get("tipoDocumento").get("idTipoDocumento"), idTipoDocumento);
     }
 
+    /**
+     * (Consulta booleana) Filtra por varios tipos de documento a la vez.
+     * Compara la clave foránea, sin JOIN con tipoDocumento.
+     * @param idsTipoDocumento los identificadores permitidos
+     * @return una especificación JPA con IN (...), o que no devuelve nada si la lista está vacía
+     */
+    public static Specification<Documento> conTiposDocumento(List<Integer> idsTipoDocumento) {
+        return (root, query, cb) -> idsTipoDocumento.isEmpty()
+            ? cb.disjunction()
+            : root.get("tipoDocumento").get("idTipoDocumento").in(idsTipoDocumento);
+    }
+
+    /**
+     * (Consulta booleana) Filtra por varios sectores a la vez.
+     * Compara la clave foránea, sin JOIN con sector.
+     * @param idsSector los identificadores permitidos
+     * @return una especificación JPA con IN (...), o que no devuelve nada si la lista está vacía
+     */
+    public static Specification<Documento> conSectores(List<Integer> idsSector) {
+        return (root, query, cb) -> idsSector.isEmpty()
+            ? cb.disjunction()
+            : root.get("sector").get("idSector").in(idsSector);
+    }
+
     /**
      * (Avanzado) Filtra por ID de Sector.
      * @param idSector el identificador del sector
@@ -146,6 +338,54 @@ public class DocumentoSpecification {
         };
     }
 
+    /**
+     * (Paginación por cursor) Primer tramo del orden (fechaCreacion DESC, idDocumento DESC):
+     * los documentos con fecha, desde el principio.
+     * @return Specification con fechaCreacion IS NOT NULL
+     */
+    public static Specification<Documento> conFecha() {
+        return (root, query, cb) -> cb.isNotNull(root.get("fechaCreacion"));
+    }
+
+    /**
+     * (Paginación por cursor) Filtra los documentos con fecha que van DESPUÉS de la
+     * posición dada en el orden (fechaCreacion DESC, idDocumento DESC).
+     * Equivale a WHERE (fechaCreacion, idDocumento) &lt; (fecha, id), escrito con OR
+     * para que MySQL lo resuelva como un rango sobre idx_documento_fecha_id.
+     * Los documentos sin fecha no cumplen ninguna de las dos comparaciones: van
+     * al final (MySQL ordena NULL último en DESC) y se piden aparte con
+     * {@link #sinFechaDespuesDe}, así cada consulta es un único rango.
+     * @param fechaCreacion fecha del último documento entregado (no null)
+     * @param idDocumento ID del último documento entregado
+     * @return Specification con la condición de continuación
+     */
+    public static Specification<Documento> despuesDe(Date fechaCreacion, Integer idDocumento) {
+        return (root, query, cb) -> {
+            var pathFecha = root.<Date>get("fechaCreacion");
+            var pathId = root.<Integer>get("idDocumento");
+
+            return cb.or(
+                cb.lessThan(pathFecha, fechaCreacion),
+                cb.and(cb.equal(pathFecha, fechaCreacion), cb.lessThan(pathId, idDocumento))
+            );
+        };
+    }
+
+    /**
+     * (Paginación por cursor) Tramo final del orden: los documentos sin fecha,
+     * por idDocumento DESC. Es el rango fechaCreacion IS NULL de idx_documento_fecha_id.
+     * @param idDocumento ID del último documento sin fecha entregado (null = desde el primero)
+     * @return Specification con la condición de continuación
+     */
+    public static Specification<Documento> sinFechaDespuesDe(Integer idDocumento) {
+        return (root, query, cb) -> {
+            Predicate sinFecha = cb.isNull(root.get("fechaCreacion"));
+            return idDocumento == null
+                    ? sinFecha
+                    : cb.and(sinFecha, cb.lessThan(root.<Integer>get("idDocumento"), idDocumento));
+        };
+    }
+
     /**
      * (Avanzado) Excluye documentos que contengan CUALQUIERA
      * de las palabras de exclusión en los 4 campos principales.
@@ -156,13 +396,15 @@ public class DocumentoSpecification {
         return (root, query, cb) -> {
             
             List<Predicate> exclusionPredicates = new ArrayList<>();
-            String[] words = excluirTerminos.toLowerCase().split("\\s+");
+            String[] words = NormalizadorTexto.tokenizar(excluirTerminos);
 
             // Define los campos donde se buscará la exclusión
-            var tituloPath = cb.lower(root.get("titulo"));
-            var resumenPath = cb.lower(root.get("resumen"));
-            var numDocPath = cb.lower(root.get("numDocumento"));
-            var tipoDocPath = cb.lower(root.get("tipoDocumento").get("nombre"));
+            // NULL cuenta como texto vacío: si no, el NOT de una fila sin resumen
+            // (o todavía sin normalizar) daría NULL y la fila quedaría excluida
+            var tituloPath = textoONada(cb, root.get("tituloNormalizado"));
+            var resumenPath = textoONada(cb, root.get("resumenNormalizado"));
+            var numDocPath = textoONada(cb, root.get("numDocumentoNormalizado"));
+            var tipoDocPath = textoONada(cb, root.get("tipoDocumento").get("nombreNormalizado"));
 
             for (String word : words) {
                 if (word.isEmpty()) continue;
@@ -191,6 +433,13 @@ public class DocumentoSpecification {
         };
     }
 
+    /**
+     * (Avanzado) Filtra los documentos que tienen AL MENOS UNA de las palabras clave (lógica OR).
+     * Usa EXISTS sobre la tabla etiqueta en lugar de un JOIN, así no se repiten
+     * filas y no hace falta DISTINCT (que obligaba a ordenar todo antes de paginar).
+     * @param idsPalabrasClave los IDs de las palabras clave
+     * @return una especificación JPA para filtrar por palabras clave
+     */
     public static Specification<Documento> conPalabrasClave(List<Integer> idsPalabrasClave) {
         return (root, query, cb) -> {
 
@@ -199,14 +448,59 @@ public class DocumentoSpecification {
                 return cb.conjunction();
             }
 
-            // IMPORTANTE: Evita duplicados en el resultado
-            query.distinct(true);
+            // EXISTS (SELECT 1 FROM etiqueta WHERE documento = root AND palabraClave IN (...))
+            Subquery<Integer> etiquetas = query.subquery(Integer.class);
+            Root<Documento> documento = etiquetas.correlate(root);
+            Join<Documento, PalabraClave> palabrasClaveJoin = documento.join("palabrasClave");
+            etiquetas.select(palabrasClaveJoin.get("idPalabraClave"))
+                     .where(palabrasClaveJoin.get("idPalabraClave").in(idsPalabrasClave));
+
+            return cb.exists(etiquetas);
+        };
+    }
 
-            // Join con la tabla intermedia
-            var palabrasClaveJoin = root.join("palabrasClave");
+    /**
+     * (Avanzado) Filtra los documentos que tienen TODAS las palabras clave (lógica AND).
+     * Cuenta, con una subconsulta correlacionada, cuántas de las pedidas tiene cada documento.
+     * @param idsPalabrasClave los IDs de las palabras clave
+     * @return una especificación JPA para filtrar por palabras clave
+     */
+    public static Specification<Documento> conTodasLasPalabrasClave(List<Integer> idsPalabrasClave) {
+        return (root, query, cb) -> {
 
-            // Filtra por los IDs proporcionados (lógica OR)
-            return palabrasClaveJoin.get("idPalabraClave").in(idsPalabrasClave);
+            if (idsPalabrasClave == null || idsPalabrasClave.isEmpty()) {
+                return cb.conjunction();
+            }
+            long requeridas = idsPalabrasClave.stream().filter(Objects::nonNull).distinct().count();
+
+            // (SELECT COUNT(DISTINCT palabraClave) FROM etiqueta WHERE documento = root AND palabraClave IN (...)) = n
+            Subquery<Long> etiquetas = query.subquery(Long.class);
+            Root<Documento> documento = etiquetas.correlate(root);
+            Join<Documento, PalabraClave> palabrasClaveJoin = documento.join("palabrasClave");
+            etiquetas.select(cb.countDistinct(palabrasClaveJoin.get("idPalabraClave")))
+                     .where(palabrasClaveJoin.get("idPalabraClave").in(idsPalabrasClave));
+
+            return cb.equal(etiquetas, requeridas);
+        };
+    }
+
+    /**
+     * Filtra por un conjunto de IDs ya resuelto en memoria (por ejemplo, con los
+     * mapas de bits de palabras clave). Pensado para conjuntos acotados: para
+     * listas muy largas conviene la subconsulta equivalente.
+     * @param idsDocumento los IDs de documento permitidos
+     * @return una especificación JPA con idDocumento IN (...), o que no devuelve nada si está vacío
+     */
+    public static Specification<Documento> conIds(int[] idsDocumento) {
+        return (root, query, cb) -> {
+            if (idsDocumento.length == 0) {
+                return cb.disjunction();
+            }
+            List<Integer> ids = new ArrayList<>(idsDocumento.length);
+            for (int id : idsDocumento) {
+                ids.add(id);
+            }
+            return root.get("idDocumento").in(ids);
         };
     }
 }
@@ -1,8 +1,12 @@
 package dev.kosten.digesto_system.estado.repository;
 
 import dev.kosten.digesto_system.estado.entity.Estado;
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -23,5 +27,14 @@ public interface EstadoRepository extends JpaRepository<Estado, Integer>{
      * @return Un Optional que contiene el Estado si se encuentra,
      * o un Optional vacío si no existe.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Estado> findByNombre(String nombre);
+
+    /**
+     * Todos los registros del catálogo, desde la caché de consultas mientras no cambie la tabla.
+     * @return La lista completa.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Estado> findAll();
 }
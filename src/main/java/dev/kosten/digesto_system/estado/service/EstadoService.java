@@ -1,5 +1,6 @@
 package dev.kosten.digesto_system.estado.service;
 
+import dev.kosten.digesto_system.config.CacheCatalogos;
 import dev.kosten.digesto_system.estado.entity.Estado;
 import dev.kosten.digesto_system.estado.repository.EstadoRepository;
 import dev.kosten.digesto_system.exception.RecursoDuplicadoException;
@@ -22,6 +23,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class EstadoService {
     
     private final EstadoRepository estadoRepository;
+    private final CacheCatalogos cacheCatalogos;
 
     /**
      * Recupera una lista de todos los Estados de documento.
@@ -57,7 +59,9 @@ public class EstadoService {
         if (existente.isPresent()) {
             throw new RecursoDuplicadoException("Ya existe un estado con el nombre: " + estado.getNombre());
         }
-        return estadoRepository.save(estado);
+        Estado guardado = estadoRepository.save(estado);
+        cacheCatalogos.invalidar(Estado.class);
+        return guardado;
     }
 
     /**
@@ -79,7 +83,9 @@ public class EstadoService {
         estadoExistente.setNombre(datosNuevos.getNombre());
         estadoExistente.setDescripcion(datosNuevos.getDescripcion());
         
-        return estadoRepository.save(estadoExistente);
+        Estado guardado = estadoRepository.save(estadoExistente);
+        cacheCatalogos.invalidar(Estado.class);
+        return guardado;
     }
 
     /**
@@ -91,5 +97,6 @@ public class EstadoService {
     public void eliminarEstado(Integer id) {
         Estado estadoExistente = obtenerPorId(id);
         estadoRepository.delete(estadoExistente);
+        cacheCatalogos.invalidar(Estado.class);
     }
 }
@@ -5,9 +5,13 @@
 package dev.kosten.digesto_system.estadoU;
 
 import dev.kosten.digesto_system.estadoU.EstadoU;
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 /**
  * Repositorio JPA para la entidad {@link EstadoU}.
@@ -24,6 +28,15 @@ public interface EstadoURepository extends JpaRepository<EstadoU, Integer> {
      * @param nombre nombre del estado de usuario
      * @return {@link Optional} conteniendo el {@link EstadoU} si existe
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<EstadoU> findByNombre(String nombre);
+
+    /**
+     * Todos los registros del catálogo, desde la caché de consultas mientras no cambie la tabla.
+     * @return La lista completa.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<EstadoU> findAll();
 }
 
@@ -4,6 +4,7 @@
  */
 package dev.kosten.digesto_system.estadoU;
 
+import dev.kosten.digesto_system.config.CacheCatalogos;
 import dev.kosten.digesto_system.estadoU.EstadoUDTO;
 import dev.kosten.digesto_system.estadoU.EstadoUMapper;
 import dev.kosten.digesto_system.estadoU.EstadoU;
@@ -34,6 +35,9 @@ public class EstadoUService {
     @Autowired
     private EstadoUMapper mapper;
 
+    @Autowired
+    private CacheCatalogos cacheCatalogos;
+
     /**
      * Lista todos los estados de usuario existentes.
      * 
@@ -55,7 +59,9 @@ public class EstadoUService {
             throw new RecursoDuplicadoException("Ya existe un estado con ese nombre");
         }
         EstadoU estado = mapper.toEntity(dto);
-        return mapper.toDTO(estadoRepo.save(estado));
+        EstadoU guardado = estadoRepo.save(estado);
+        cacheCatalogos.invalidar(EstadoU.class);
+        return mapper.toDTO(guardado);
     }
 
     /**
@@ -90,6 +96,7 @@ public class EstadoUService {
         EstadoU estado = estadoRepo.findById(id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Estado no encontrado"));
         estadoRepo.delete(estado);
+        cacheCatalogos.invalidar(EstadoU.class);
     }
 }
 
@@ -0,0 +1,17 @@
+package dev.kosten.digesto_system.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción para parámetros de consulta con un formato que no se puede interpretar
+ * (por ejemplo, un cursor de paginación alterado o un campo de orden no permitido).
+ * @author micael
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST) // Código 400 automáticamente cuando se lanza esta excepción.
+public class ParametroInvalidoException extends RuntimeException {
+
+    public ParametroInvalidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package dev.kosten.digesto_system.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción para operaciones que dependen de un recurso que todavía no está
+ * listo (por ejemplo, un índice en memoria que se está construyendo al iniciar).
+ * El cliente puede reintentar en unos segundos.
+ * @author micael
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE) // Código 503 automáticamente cuando se lanza esta excepción.
+public class ServicioNoDisponibleException extends RuntimeException {
+
+    public ServicioNoDisponibleException(String message) {
+        super(message);
+    }
+}
@@ -5,8 +5,12 @@
 package dev.kosten.digesto_system.palabraclave.repository;
 
 import dev.kosten.digesto_system.palabraclave.entity.PalabraClave;
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 /**
  *
@@ -14,5 +18,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface PalabraClaveRepository extends JpaRepository<PalabraClave, Integer>{
     // Método para validar si ya existe una etiqueta con el mismo nombre
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<PalabraClave> findByNombre(String nombre);
+
+    /**
+     * Todos los registros del catálogo, desde la caché de consultas mientras no cambie la tabla.
+     * @return La lista completa.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<PalabraClave> findAll();
 }
@@ -4,6 +4,7 @@
  */
 package dev.kosten.digesto_system.palabraclave.service;
 
+import dev.kosten.digesto_system.config.CacheCatalogos;
 import dev.kosten.digesto_system.exception.RecursoDuplicadoException;
 import dev.kosten.digesto_system.exception.RecursoNoEncontradoException;
 import dev.kosten.digesto_system.palabraclave.entity.PalabraClave;
@@ -23,6 +24,9 @@ public class PalabraClaveService {
     @Autowired
     private PalabraClaveRepository palabraClaveRepository;
 
+    @Autowired
+    private CacheCatalogos cacheCatalogos;
+
     public List<PalabraClave> listarTodos() {
         return palabraClaveRepository.findAll();
     }
@@ -39,7 +43,9 @@ public class PalabraClaveService {
             throw new RecursoDuplicadoException("Ya existe una palabra clave con el nombre: " + palabraClave.getNombre());
         }
         
-        return palabraClaveRepository.save(palabraClave);
+        PalabraClave guardada = palabraClaveRepository.save(palabraClave);
+        cacheCatalogos.invalidar(PalabraClave.class);
+        return guardada;
     }
 
     public PalabraClave actualizarPalabraClave(Integer id, PalabraClave datosNuevos) {
@@ -54,7 +60,9 @@ public class PalabraClaveService {
         existente.setNombre(datosNuevos.getNombre());
         existente.setDescripcion(datosNuevos.getDescripcion());
         
-        return palabraClaveRepository.save(existente);
+        PalabraClave guardada = palabraClaveRepository.save(existente);
+        cacheCatalogos.invalidar(PalabraClave.class);
+        return guardada;
     }
 
     public void eliminarPalabraClave(Integer id) {
@@ -62,5 +70,6 @@ public class PalabraClaveService {
         // Ojo: Deberías validar que esta palabra clave no esté siendo usada por ningún documento
         // antes de borrarla, o manejar la eliminación en cascada.
         palabraClaveRepository.delete(existente);
+        cacheCatalogos.invalidar(PalabraClave.class);
     }
 }
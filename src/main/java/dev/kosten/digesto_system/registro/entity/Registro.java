@@ -12,6 +12,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -35,7 +36,10 @@ import lombok.ToString;
  * @author Matias
  */
 @Entity
-@Table(name = "registro")
+@Table(name = "registro", indexes = {
+    // Cambios posteriores a la instantánea del índice de documentos (db/migraciones/005)
+    @Index(name = "idx_registro_fecha", columnList = "fechaCarga")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -2,6 +2,7 @@ package dev.kosten.digesto_system.registro.repository;
 
 import dev.kosten.digesto_system.registro.entity.Registro;
 import dev.kosten.digesto_system.usuario.Usuario; // <--- ¡IMPORTANTE! AGREGAR ESTE IMPORT
+import java.util.Date;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -59,4 +60,23 @@ public interface RegistroRepository extends JpaRepository <Registro, Integer> {
      * Spring Data JPA genera la query automáticamente por el nombre del método.
      */
     List<Registro> findByUsuarioAfectado(Usuario usuario);
+
+    // --- MÉTODOS PARA EL ÍNDICE DE DOCUMENTOS (reaplicar cambios sobre la instantánea) ---
+
+    /**
+     * Último registro de auditoría (la marca de agua de la instantánea del índice).
+     * @return El mayor idRegistro, o null si la tabla está vacía.
+     */
+    @Query("SELECT MAX(r.idRegistro) FROM Registro r")
+    Integer findMaxIdRegistro();
+
+    /**
+     * Documentos con alguna operación registrada después de la marca o desde una fecha.
+     * @param idRegistro La marca: se toman los registros con ID mayor.
+     * @param desde Fecha de carga mínima (también se toman los de ese día en adelante).
+     * @return Los IDs de documento, sin repetir.
+     */
+    @Query("SELECT DISTINCT r.documentoAfectado.idDocumento FROM Registro r "
+         + "WHERE r.documentoAfectado IS NOT NULL AND (r.idRegistro > :idRegistro OR r.fechaCarga >= :desde)")
+    List<Integer> findIdsDocumentosAfectadosDesde(@Param("idRegistro") Integer idRegistro, @Param("desde") Date desde);
 }
\ No newline at end of file
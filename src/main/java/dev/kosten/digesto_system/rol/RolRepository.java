@@ -4,8 +4,12 @@
  */
 package dev.kosten.digesto_system.rol;
 
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -24,6 +28,15 @@ public interface RolRepository extends JpaRepository<Rol, Integer> {
      * @param nombre nombre del rol a buscar
      * @return un {@link Optional} que puede contener el rol encontrado
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Rol> findByNombre(String nombre);
+
+    /**
+     * Todos los registros del catálogo, desde la caché de consultas mientras no cambie la tabla.
+     * @return La lista completa.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Rol> findAll();
 }
 
@@ -4,6 +4,7 @@
  */
 package dev.kosten.digesto_system.rol;
 
+import dev.kosten.digesto_system.config.CacheCatalogos;
 import dev.kosten.digesto_system.exception.RecursoDuplicadoException;
 import dev.kosten.digesto_system.exception.RecursoNoEncontradoException;
 import java.util.List;
@@ -26,6 +27,9 @@ public class RolService {
     @Autowired
     private RolRepository rolRepo;
 
+    @Autowired
+    private CacheCatalogos cacheCatalogos;
+
 
     /**
      * Obtiene la lista completa de roles registrados.
@@ -51,7 +55,9 @@ public class RolService {
             throw new RecursoDuplicadoException("Ya existe un Rol con ese nombre");
         }
         
-        return rolRepo.save(nuevoRol);
+        Rol guardado = rolRepo.save(nuevoRol);
+        cacheCatalogos.invalidar(Rol.class);
+        return guardado;
     }
 
     /**
@@ -102,6 +108,7 @@ public class RolService {
         
         if(opcional.isPresent()){
             rolRepo.deleteById(id);
+            cacheCatalogos.invalidar(Rol.class);
         }
         else{
             throw new RecursoNoEncontradoException("Rol no encontrado");
@@ -4,6 +4,7 @@
  */
 package dev.kosten.digesto_system.sector;
 
+import dev.kosten.digesto_system.config.CacheCatalogos;
 import dev.kosten.digesto_system.sector.Sector;
 import dev.kosten.digesto_system.sector.SectorRepository;
 import dev.kosten.digesto_system.exception.RecursoDuplicadoException;
@@ -26,6 +27,9 @@ public class SectorService {
     @Autowired
     private SectorRepository sectorRepo;
 
+    @Autowired
+    private CacheCatalogos cacheCatalogos;
+
     
     /**
      * Obtiene la lista completa de sectores registrados.
@@ -51,7 +55,9 @@ public class SectorService {
             throw new RecursoDuplicadoException("Ya existe un Sector con ese nombre");
         }
         
-        return sectorRepo.save(nuevoSector);
+        Sector guardado = sectorRepo.save(nuevoSector);
+        cacheCatalogos.invalidar(Sector.class);
+        return guardado;
     }
 
     /**
@@ -86,6 +92,7 @@ public class SectorService {
         
         if(opcional.isPresent()){
             sectorRepo.deleteById(id);
+            cacheCatalogos.invalidar(Sector.class);
         }
         else{
             throw new RecursoNoEncontradoException("No existe Sector con id: " + id);
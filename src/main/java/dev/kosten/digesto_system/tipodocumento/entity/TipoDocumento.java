@@ -4,16 +4,22 @@
  */
 package dev.kosten.digesto_system.tipodocumento.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import dev.kosten.digesto_system.documento.indice.NormalizadorTexto;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import java.util.Objects;
 import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * @author Matias
@@ -21,6 +27,8 @@ import lombok.Setter;
  */
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "tipoDocumento")
 @Getter
 @Setter
@@ -37,6 +45,14 @@ public class TipoDocumento {
     @Column(name = "nombre", unique = true, length = 45, nullable = true) 
     private String nombre;
 
+    /**
+     * nombre en minúsculas y sin tildes, para que la búsqueda de documentos lo
+     * compare sin lower() (db/migraciones/006). Se calcula con normalizarNombre().
+     */
+    @JsonIgnore
+    @Column(name = "nombreNormalizado", length = 45)
+    private String nombreNormalizado;
+
     // Script dice VARCHAR(60) NULL
     @Column(name = "descripcion", length = 60) 
     private String descripcion;
@@ -46,4 +62,15 @@ public class TipoDocumento {
      */
     @Column(name = "nomenclatura", length = 10,nullable = false)
     private String nomenclatura;
+
+    /**
+     * Recalcula nombreNormalizado a partir del nombre actual.
+     * @return true si cambió.
+     */
+    public boolean normalizarNombre() {
+        String normalizado = NormalizadorTexto.normalizarONulo(nombre);
+        boolean cambio = !Objects.equals(normalizado, nombreNormalizado);
+        nombreNormalizado = normalizado;
+        return cambio;
+    }
 }
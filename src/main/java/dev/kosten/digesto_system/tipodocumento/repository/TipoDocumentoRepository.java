@@ -1,8 +1,12 @@
 package dev.kosten.digesto_system.tipodocumento.repository;
 
 import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -17,5 +21,14 @@ public interface TipoDocumentoRepository extends JpaRepository<TipoDocumento, In
      * @param nombre El nombre exacto del tipo a buscar.
      * @return Un {@link Optional} que contiene el {@link TipoDocumento} si se encuentra.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     public Optional<TipoDocumento> findByNombre(String nombre);
+
+    /**
+     * Todos los registros del catálogo, desde la caché de consultas mientras no cambie la tabla.
+     * @return La lista completa.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<TipoDocumento> findAll();
 }
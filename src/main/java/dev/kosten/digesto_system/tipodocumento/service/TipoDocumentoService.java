@@ -1,5 +1,6 @@
 package dev.kosten.digesto_system.tipodocumento.service;
 
+import dev.kosten.digesto_system.config.CacheCatalogos;
 import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
 import dev.kosten.digesto_system.exception.RecursoDuplicadoException;
 import dev.kosten.digesto_system.exception.RecursoNoEncontradoException;
@@ -24,6 +25,7 @@ public class TipoDocumentoService {
 
     private final TipoDocumentoRepository tipoDocumentoRepository;
     private final DocumentoRepository documentoRepository;
+    private final CacheCatalogos cacheCatalogos;
 
     /**
      * Recupera una lista de todos los Tipos de Documento.
@@ -59,7 +61,10 @@ public class TipoDocumentoService {
         if (existente.isPresent()) {
             throw new RecursoDuplicadoException("Ya existe un TipoDocumento con el nombre: " + tipoDocumento.getNombre());
         }
-        return tipoDocumentoRepository.save(tipoDocumento);
+        tipoDocumento.normalizarNombre();
+        TipoDocumento guardado = tipoDocumentoRepository.save(tipoDocumento);
+        cacheCatalogos.invalidar(TipoDocumento.class);
+        return guardado;
     }
 
     /**
@@ -79,7 +84,10 @@ public class TipoDocumentoService {
         TipoDocumento tipoExistente = obtenerPorId(id);
         tipoExistente.setNombre(datosNuevos.getNombre());
         tipoExistente.setDescripcion(datosNuevos.getDescripcion());
-        return tipoDocumentoRepository.save(tipoExistente);
+        tipoExistente.normalizarNombre();
+        TipoDocumento guardado = tipoDocumentoRepository.save(tipoExistente);
+        cacheCatalogos.invalidar(TipoDocumento.class);
+        return guardado;
     }
 
     /**
@@ -99,5 +107,6 @@ public class TipoDocumentoService {
         }
         
         tipoDocumentoRepository.delete(tipoExistente);
+        cacheCatalogos.invalidar(TipoDocumento.class);
     }
 }
@@ -4,8 +4,12 @@
  */
 package dev.kosten.digesto_system.unidadEjecutora;
 
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 /**
  * Repositorio JPA para la entidad {@link UnidadEjecutore}.
@@ -22,6 +26,15 @@ public interface UnidadEjecutoraRepository extends JpaRepository<UnidadEjecutora
      * @param nombre nombre de la unidadEjecutore a buscar
      * @return un {@link Optional} que puede contener el unidadEjecutore encontrado
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<UnidadEjecutora> findByNombre(String nombre);
+
+    /**
+     * Todos los registros del catálogo, desde la caché de consultas mientras no cambie la tabla.
+     * @return La lista completa.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<UnidadEjecutora> findAll();
 }
 
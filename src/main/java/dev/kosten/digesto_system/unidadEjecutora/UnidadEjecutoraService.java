@@ -4,6 +4,7 @@
  */
 package dev.kosten.digesto_system.unidadEjecutora;
 
+import dev.kosten.digesto_system.config.CacheCatalogos;
 import dev.kosten.digesto_system.exception.RecursoDuplicadoException;
 import dev.kosten.digesto_system.exception.RecursoNoEncontradoException;
 import java.util.List;
@@ -24,6 +25,9 @@ public class UnidadEjecutoraService {
     @Autowired
     private UnidadEjecutoraRepository unidadEjecutoraRepo;
 
+    @Autowired
+    private CacheCatalogos cacheCatalogos;
+
     
     /**
      * Obtiene la lista completa de unidadEjecutoras registradas.
@@ -49,7 +53,9 @@ public class UnidadEjecutoraService {
             throw new RecursoDuplicadoException("Ya existe un UnidadEjecutora con ese nombre");
         }
         
-        return unidadEjecutoraRepo.save(nuevaUnidadEjecutora);
+        UnidadEjecutora guardada = unidadEjecutoraRepo.save(nuevaUnidadEjecutora);
+        cacheCatalogos.invalidar(UnidadEjecutora.class);
+        return guardada;
     }
 
     /**
@@ -84,6 +90,7 @@ public class UnidadEjecutoraService {
         
         if(opcional.isPresent()){
             unidadEjecutoraRepo.deleteById(id);
+            cacheCatalogos.invalidar(UnidadEjecutora.class);
         }
         else{
             throw new RecursoNoEncontradoException("No existe UnidadEjecutora con id: " + id);
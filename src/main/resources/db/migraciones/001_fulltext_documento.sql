@@ -0,0 +1,12 @@
+-- ---------------------------------------------------
+-- Índices FULLTEXT para el motor de búsqueda "FULLTEXT"
+-- (digesto.busqueda.motor = FULLTEXT)
+-- ---------------------------------------------------
+-- Las columnas de cada índice deben coincidir exactamente con las que usa
+-- MATCH(...) en DocumentoSpecification.conTextoCompleto y conTituloTextoCompleto.
+
+ALTER TABLE documento
+    ADD FULLTEXT INDEX ft_documento_titulo_resumen (titulo, resumen);
+
+ALTER TABLE documento
+    ADD FULLTEXT INDEX ft_documento_titulo (titulo);
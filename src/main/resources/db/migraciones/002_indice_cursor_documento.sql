@@ -0,0 +1,14 @@
+-- ---------------------------------------------------
+-- Índices compuestos para la paginación por cursor (keyset)
+-- GET /api/v1/documentos/cursor
+-- ---------------------------------------------------
+-- ORDER BY fechaCreacion DESC, idDocumento DESC LIMIT n con la condición
+-- (fechaCreacion, idDocumento) < (?, ?) se resuelve recorriendo el índice,
+-- sin filesort ni OFFSET.
+
+CREATE INDEX idx_documento_fecha_id
+    ON documento (fechaCreacion, idDocumento);
+
+-- Variante para el listado público (soloActivos = true)
+CREATE INDEX idx_documento_activo_fecha_id
+    ON documento (activo, fechaCreacion, idDocumento);
@@ -0,0 +1,22 @@
+-- ---------------------------------------------------
+-- Columnas normalizadas (minúsculas y sin tildes) para la búsqueda
+-- ---------------------------------------------------
+-- DocumentoSpecification compara contra estas columnas en lugar de
+-- LOWER(titulo) LIKE ..., que obliga a calcular la función en cada fila.
+-- La aplicación las completa al guardar (Documento.normalizarCamposDeBusqueda)
+-- y, para las filas existentes, RellenoCamposNormalizadosService las rellena
+-- por lotes al iniciar (digesto.normalizacion.relleno-al-iniciar).
+--
+-- Los índices sirven a las búsquedas por prefijo (LIKE 'res%') y por igualdad;
+-- un LIKE '%texto%' sigue recorriendo la tabla, pero ya sin LOWER() por fila.
+
+ALTER TABLE documento
+    ADD COLUMN tituloNormalizado VARCHAR(60) NULL,
+    ADD COLUMN resumenNormalizado VARCHAR(145) NULL,
+    ADD COLUMN numDocumentoNormalizado VARCHAR(45) NULL;
+
+CREATE INDEX idx_documento_titulo_norm
+    ON documento (tituloNormalizado);
+
+CREATE INDEX idx_documento_num_norm
+    ON documento (numDocumentoNormalizado);
@@ -0,0 +1,38 @@
+-- ---------------------------------------------------
+-- Índices compuestos para el orden del listado (parámetro ordenarPor)
+-- GET /api/v1/documentos?ordenarPor=...
+-- ---------------------------------------------------
+-- Solo se aceptan los órdenes de CampoOrden, y cada uno tiene un índice cuyo
+-- prefijo es exactamente su ORDER BY (con idDocumento como desempate), así
+-- ORDER BY ... LIMIT n lee n entradas del índice en lugar de ordenar la tabla
+-- entera (filesort). Todas las columnas del orden van en la misma dirección:
+-- el índice se recorre hacia adelante (ASC) o hacia atrás (DESC).
+--
+--   fecha          idx_documento_fecha_id / idx_documento_activo_fecha_id (002)
+--   numero         UNIQUE de numDocumento / idx_documento_activo_num
+--   titulo         UNIQUE de titulo       / idx_documento_activo_titulo
+--   tipo[,fecha]   idx_documento_tipo_fecha_id / idx_documento_activo_tipo_fecha_id
+--   estado[,fecha] idx_documento_estado_fecha_id / idx_documento_activo_estado_fecha_id
+--
+-- Las variantes con activo sirven al listado público (soloActivos = true):
+-- con la igualdad sobre activo el resto del índice ya está en el orden pedido.
+-- Tipo y estado ordenan por la clave foránea (agrupan), no por el nombre del
+-- catálogo: ordenar por el nombre obligaría a un JOIN y a un filesort.
+
+CREATE INDEX idx_documento_tipo_fecha_id
+    ON documento (tipoDocumento_idTipoDocumento, fechaCreacion, idDocumento);
+
+CREATE INDEX idx_documento_estado_fecha_id
+    ON documento (estado_idestado, fechaCreacion, idDocumento);
+
+CREATE INDEX idx_documento_activo_tipo_fecha_id
+    ON documento (activo, tipoDocumento_idTipoDocumento, fechaCreacion, idDocumento);
+
+CREATE INDEX idx_documento_activo_estado_fecha_id
+    ON documento (activo, estado_idestado, fechaCreacion, idDocumento);
+
+CREATE INDEX idx_documento_activo_num
+    ON documento (activo, numDocumento, idDocumento);
+
+CREATE INDEX idx_documento_activo_titulo
+    ON documento (activo, titulo, idDocumento);
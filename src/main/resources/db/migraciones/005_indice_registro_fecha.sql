@@ -0,0 +1,12 @@
+-- ---------------------------------------------------
+-- Índice para reaplicar los cambios sobre la instantánea del índice de documentos
+-- ---------------------------------------------------
+-- Al arrancar, IndiceDocumentos carga el índice desde disco y busca en la
+-- auditoría los documentos modificados después:
+--   WHERE documentoAfectado_idDocumento IS NOT NULL
+--     AND (idRegistro > ? OR fechaCarga >= ?)
+-- La primera condición usa la clave primaria y la segunda este índice
+-- (index_merge de tipo union), así no se recorre la tabla registro entera.
+
+CREATE INDEX idx_registro_fecha
+    ON registro (fechaCarga);
@@ -0,0 +1,12 @@
+-- ---------------------------------------------------
+-- Nombre normalizado (minúsculas y sin tildes) del tipo de documento
+-- ---------------------------------------------------
+-- La búsqueda simple y la consulta booleana también comparan contra el nombre
+-- del tipo. Con LOWER(nombre) LIKE ... "resolucion" no encontraba el tipo
+-- "Resolución"; esta columna tiene la misma forma que las de la migración 003.
+-- TipoDocumentoService la completa al guardar y RellenoCamposNormalizadosService
+-- la rellena al iniciar en las filas existentes.
+-- No lleva índice: se lee por el JOIN desde documento y se compara con LIKE '%texto%'.
+
+ALTER TABLE tipoDocumento
+    ADD COLUMN nombreNormalizado VARCHAR(45) NULL;
@@ -0,0 +1,118 @@
+package dev.kosten.digesto_system.documento.consulta;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.kosten.digesto_system.exception.ParametroInvalidoException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Gramática de las consultas booleanas: precedencia, negación, campos, frases
+ * y los límites de largo, términos y profundidad. Cada árbol se compara por su
+ * forma canónica (NodoConsulta.describir).
+ * @author micael
+ */
+class AnalizadorConsultaTest {
+
+    @Test
+    void lasPalabrasSueltasSeCombinanConAnd() {
+        assertEquals("(licitacion AND obra)", analizar("Licitación obra"));
+        assertEquals("(licitacion AND obra)", analizar("licitacion AND obra"));
+    }
+
+    @Test
+    void orTieneMenorPrecedenciaQueAnd() {
+        assertEquals("((a AND b) OR c)", analizar("a b OR c"));
+        assertEquals("(a OR (b AND c))", analizar("a OR b AND c"));
+        assertEquals("(a AND (b OR c))", analizar("a (b OR c)"));
+    }
+
+    @Test
+    void losOperadoresDelMismoTipoSeAplanan() {
+        assertEquals("(a OR b OR c OR d)", analizar("a OR b OR (c OR d)"));
+        assertEquals("(a AND b AND c)", analizar("(a b) c"));
+    }
+
+    @Test
+    void elGuionYNotNieganUnTermino() {
+        assertEquals("(ordenanza AND NOT derogada)", analizar("ordenanza -derogada"));
+        assertEquals("NOT tipo:decreto", analizar("NOT tipo:decreto"));
+        assertEquals("NOT (a OR b)", analizar("-(a OR b)"));
+        assertEquals("x", analizar("NOT NOT x"));
+    }
+
+    @Test
+    void losCamposRestringenElTermino() {
+        assertEquals("numero:12/2024", analizar("num:12/2024"));
+        assertEquals("tipo:decreto", analizar("Tipo:Decreto"));
+        assertEquals("(sector:salud AND titulo:obra)", analizar("sector:salud titulo:obra"));
+    }
+
+    @Test
+    void elAsteriscoMarcaUnPrefijoSoloEnElTitulo() {
+        NodoConsulta.Termino termino = (NodoConsulta.Termino) AnalizadorConsulta.analizar("titulo:Orden*");
+        assertEquals("orden", termino.getValor());
+        assertTrue(termino.isPrefijo());
+        assertEquals("titulo:orden*", termino.describir());
+        assertFalse(((NodoConsulta.Termino) AnalizadorConsulta.analizar("titulo:orden")).isPrefijo());
+        assertFalse(((NodoConsulta.Termino) AnalizadorConsulta.analizar("orden*")).isPrefijo());
+        // Entre comillas el asterisco es parte del texto
+        assertFalse(((NodoConsulta.Termino) AnalizadorConsulta.analizar("titulo:\"orden*\"")).isPrefijo());
+    }
+
+    @Test
+    void lasFrasesSeNormalizanYConservanSuOrden() {
+        assertEquals("\"obra publica\"", analizar("\"Obra   Pública\""));
+        assertEquals("titulo:\"obra publica\"", analizar("titulo:\"obra publica\""));
+        // Una frase de una sola palabra es una palabra común
+        assertEquals("obra", analizar("\"obra\""));
+        assertEquals("(a AND b)", analizar("a \"\" b"));
+    }
+
+    @Test
+    void unPrefijoDesconocidoEsParteDeLaPalabra() {
+        assertEquals("hora:12", analizar("hora:12"));
+    }
+
+    @Test
+    void rechazaLasConsultasMalFormadas() {
+        for (String consulta : new String[] {"", "   ", "\"\"", "(a", "a)", "\"a", "tipo:", "a AND", "OR a", "()"}) {
+            assertThrows(ParametroInvalidoException.class, () -> AnalizadorConsulta.analizar(consulta), consulta);
+        }
+    }
+
+    @Test
+    void respetaElLargoMaximo() {
+        String larga = "a".repeat(AnalizadorConsulta.MAX_LARGO + 1);
+        assertThrows(ParametroInvalidoException.class, () -> AnalizadorConsulta.analizar(larga));
+        analizar("a".repeat(AnalizadorConsulta.MAX_LARGO));
+    }
+
+    @Test
+    void respetaLaCantidadMaximaDeTerminos() {
+        assertThrows(ParametroInvalidoException.class,
+                () -> AnalizadorConsulta.analizar(terminos(AnalizadorConsulta.MAX_TERMINOS + 1)));
+        analizar(terminos(AnalizadorConsulta.MAX_TERMINOS));
+    }
+
+    @Test
+    void respetaLaProfundidadMaxima() {
+        assertEquals("a", analizar("(".repeat(10) + "a" + ")".repeat(10)));
+        assertThrows(ParametroInvalidoException.class,
+                () -> AnalizadorConsulta.analizar("(".repeat(11) + "a" + ")".repeat(11)));
+    }
+
+    private static String analizar(String consulta) {
+        return AnalizadorConsulta.analizar(consulta).describir();
+    }
+
+    private static String terminos(int cantidad) {
+        StringBuilder consulta = new StringBuilder();
+        for (int i = 0; i < cantidad; i++) {
+            consulta.append("t").append(i).append(' ');
+        }
+        return consulta.toString();
+    }
+}
@@ -0,0 +1,184 @@
+package dev.kosten.digesto_system.documento.consulta;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.documento.indice.NormalizadorTexto;
+import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
+import dev.kosten.digesto_system.estado.entity.Estado;
+import dev.kosten.digesto_system.sector.Sector;
+import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import dev.kosten.digesto_system.unidadEjecutora.UnidadEjecutora;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+/**
+ * Ejecuta planes compilados contra la base (H2 en modo MySQL): qué documentos
+ * devuelve cada consulta, incluido un NOT sobre filas con columnas NULL (resumen
+ * vacío o columnas normalizadas todavía sin rellenar), las búsquedas por prefijo
+ * de num: y titulo:palabra*, y en qué orden quedan
+ * las condiciones de un AND y de un OR.
+ * @author micael
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:digesto;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CompiladorConsultaTest {
+
+    @Autowired
+    private DocumentoRepository documentoRepo;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private final List<TipoDocumento> tipos = new ArrayList<>();
+    private final List<Sector> sectores = new ArrayList<>();
+
+    private Integer vigente;
+    private Integer derogada;
+    private Integer sinResumen;
+    private Integer sinNormalizar;
+
+    @BeforeEach
+    void cargarDocumentos() {
+        tipos.add(tipo("Decreto", "D"));
+        tipos.add(tipo("Resolución", "R"));
+        sectores.add(em.persist(Sector.builder().nombre("Salud").nomenclatura("SA").build()));
+        sectores.add(em.persist(Sector.builder().nombre("Obras").nomenclatura("OB").build()));
+        Estado estado = em.persist(Estado.builder().nombre("Vigente").build());
+        UnidadEjecutora unidad = em.persist(UnidadEjecutora.builder().nombre("Unidad").nomenclatura("U").build());
+
+        vigente = documento("Ordenanza de tránsito", "Regula el estacionamiento", "12/2024", 0, 0, estado, unidad, true);
+        derogada = documento("Ordenanza de ruidos", "Derogada por la 3/2025", "7/2020", 0, 1, estado, unidad, true);
+        sinResumen = documento("Licitación de obra", null, "1/2023", 1, 1, estado, unidad, true);
+        // Como una fila vieja antes de RellenoCamposNormalizadosService: las columnas normalizadas en NULL
+        sinNormalizar = documento("Concurso de precios", "Compra de insumos", "2/2023", 1, 0, estado, unidad, false);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void unaPalabraBuscaEnLosCuatroCampos() {
+        assertEquals(Set.of(vigente, derogada), ids("ordenanza"));
+        assertEquals(Set.of(derogada), ids("derogada"));
+        assertEquals(Set.of(vigente, derogada), ids("decreto"));
+        assertEquals(Set.of(sinResumen), ids("licitacion"));
+        // El nombre del tipo se compara sin tildes ("Resolución")
+        assertEquals(Set.of(sinResumen, sinNormalizar), ids("resolucion"));
+    }
+
+    @Test
+    void numYTituloConAsteriscoBuscanPorPrefijo() {
+        assertEquals(Set.of(vigente), ids("num:12/"));
+        assertEquals(Set.of(), ids("num:2024"));
+        assertEquals(Set.of(vigente, derogada), ids("titulo:ordenanza*"));
+        assertEquals(Set.of(), ids("titulo:transito*"));
+        assertEquals(Set.of(vigente), ids("titulo:transito"));
+        // Sin título normalizado, el prefijo no se cumple y el NOT sí
+        assertEquals(Set.of(sinResumen, sinNormalizar), ids("-titulo:ordenanza*"));
+    }
+
+    @Test
+    void notIncluyeLasFilasConColumnasNulas() {
+        assertEquals(Set.of(vigente, sinResumen, sinNormalizar), ids("-derogada"));
+        assertEquals(Set.of(vigente, derogada, sinResumen, sinNormalizar), ids("NOT titulo:inexistente"));
+        assertEquals(Set.of(vigente, derogada, sinResumen, sinNormalizar), ids("NOT num:99/1999"));
+    }
+
+    @Test
+    void combinaCamposYOperadores() {
+        assertEquals(Set.of(vigente), ids("tipo:decreto -derogada"));
+        assertEquals(Set.of(derogada, sinResumen), ids("sector:obras"));
+        assertEquals(Set.of(vigente, sinResumen), ids("num:12/2024 OR titulo:\"licitacion de obra\""));
+        assertEquals(Set.of(sinResumen, sinNormalizar), ids("tipo:resolucion (sector:obras OR -ordenanza)"));
+        assertEquals(Set.of(), ids("tipo:inexistente"));
+    }
+
+    @Test
+    void enUnAndVaPrimeroLaCondicionMasBarataYSelectiva() {
+        PlanConsulta plan = compilar("licitacion tipo:decreto", EstadisticasDocumento.sinDatos());
+        assertTrue(plan.getDescripcion().startsWith("(tipo:decreto"), plan.getDescripcion());
+    }
+
+    @Test
+    void enUnOrVaPrimeroLaCondicionQueAceptaMasFilas() {
+        // Con 10 tipos distintos, tipo: acepta el 10 % por una igualdad; num: casi nada por un LIKE
+        EstadisticasDocumento estadisticas = new EstadisticasDocumento(1000,
+                Map.of(EstadisticasDocumento.COLUMNA_TIPO, 10L));
+        PlanConsulta plan = compilar("num:12/2024 OR tipo:decreto", estadisticas);
+        assertTrue(plan.getDescripcion().startsWith("(tipo:decreto"), plan.getDescripcion());
+        assertTrue(plan.getSelectividad() > 0.1 && plan.getSelectividad() < 0.12, plan.getDescripcion());
+    }
+
+    private Set<Integer> ids(String consulta) {
+        PlanConsulta plan = compilar(consulta, EstadisticasDocumento.sinDatos());
+        Set<Integer> ids = new TreeSet<>();
+        documentoRepo.findAll(plan.getEspecificacion()).forEach(d -> ids.add(d.getIdDocumento()));
+        return ids;
+    }
+
+    private PlanConsulta compilar(String consulta, EstadisticasDocumento estadisticas) {
+        return new CompiladorConsulta(estadisticas, new CompiladorConsulta.Catalogos() {
+            @Override
+            public List<Integer> tiposQueCoinciden(String valor) {
+                return tipos.stream()
+                        .filter(t -> coincide(t.getNombre(), t.getNomenclatura(), valor))
+                        .map(TipoDocumento::getIdTipoDocumento)
+                        .toList();
+            }
+
+            @Override
+            public List<Integer> sectoresQueCoinciden(String valor) {
+                return sectores.stream()
+                        .filter(s -> coincide(s.getNombre(), s.getNomenclatura(), valor))
+                        .map(Sector::getIdSector)
+                        .toList();
+            }
+        }).compilar(AnalizadorConsulta.analizar(consulta));
+    }
+
+    private static boolean coincide(String nombre, String nomenclatura, String valor) {
+        return NormalizadorTexto.normalizar(nombre).contains(valor)
+                || NormalizadorTexto.normalizar(nomenclatura).equals(valor);
+    }
+
+    private TipoDocumento tipo(String nombre, String nomenclatura) {
+        TipoDocumento tipo = new TipoDocumento();
+        tipo.setNombre(nombre);
+        tipo.setNomenclatura(nomenclatura);
+        tipo.normalizarNombre();
+        return em.persist(tipo);
+    }
+
+    private Integer documento(String titulo, String resumen, String numero, int tipo, int sector,
+                              Estado estado, UnidadEjecutora unidad, boolean normalizar) {
+        Documento documento = Documento.builder()
+                .titulo(titulo)
+                .resumen(resumen)
+                .numDocumento(numero)
+                .fechaCreacion(new Date())
+                .activo(true)
+                .tipoDocumento(tipos.get(tipo))
+                .estado(estado)
+                .sector(sectores.get(sector))
+                .unidadEjecutora(unidad)
+                .build();
+        if (normalizar) {
+            documento.normalizarCamposDeBusqueda();
+        }
+        return em.persist(documento).getIdDocumento();
+    }
+}
@@ -0,0 +1,125 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import dev.kosten.digesto_system.documento.dto.FiltrosBusquedaDocumento;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compara la evaluación secuencial (segmentos = 1) con la evaluación en paralelo
+ * de {@link EvaluacionSegmentada} sobre una tabla sintética de documentos,
+ * recorriendo todas las filas (sin candidatos de las listas de posteo), que es
+ * el peor caso de una búsqueda en memoria.
+ * No es un test (surefire no lo ejecuta): se corre con su main, con el classpath de test.
+ * @author micael
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class EvaluacionSegmentadaBenchmark {
+
+    private static final long DIEZ_ANIOS_MS = TimeUnit.DAYS.toMillis(3650);
+
+    @Param({"1000000"})
+    public int filas;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int segmentos;
+
+    /**
+     * Primera página y página 100 (limite = offset + tamaño de página).
+     */
+    @Param({"6", "600"})
+    public int limite;
+
+    private TablaDocumentos tabla;
+    private FiltroEnMemoria soloCatalogos;
+    private FiltroEnMemoria conTexto;
+    private ForkJoinPool pool;
+    private EvaluacionSegmentada evaluacion;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random azar = new Random(42);
+        long ahora = System.currentTimeMillis();
+        tabla = new TablaDocumentos();
+        for (int id = 1; id <= filas; id++) {
+            tabla.guardar(DocumentoIndexado.builder()
+                    .idDocumento(id)
+                    .titulo("Resolución de prueba " + id)
+                    .resumen("Documento sintético número " + id + " del sector " + (id % 30))
+                    .numDocumento(String.format("%07d/%d", id, 2015 + id % 10))
+                    .fechaCreacion(new Date(ahora - (long) (azar.nextDouble() * DIEZ_ANIOS_MS)))
+                    .activo(id % 5 != 0)
+                    .idTipoDocumento(1 + id % 12)
+                    .nombreTipoDocumento("Tipo " + (1 + id % 12))
+                    .idSector(1 + id % 30)
+                    .idEstado(1 + id % 4)
+                    .idUnidadEjecutora(1 + id % 10)
+                    .idsPalabrasClave(new int[] {1 + id % 50, 51 + id % 50})
+                    .build());
+        }
+
+        // Igualdades y rango de fechas: solo columnas numéricas
+        soloCatalogos = FiltroEnMemoria.desde(FiltrosBusquedaDocumento.builder()
+                .soloActivos(true)
+                .idSector(7)
+                .idEstado(2)
+                .fechaDesde(new Date(ahora - DIEZ_ANIOS_MS / 2))
+                .fechaHasta(new Date(ahora))
+                .build(), tabla);
+        // Exclusión de palabras: normaliza y compara los textos de cada fila que pasa las igualdades
+        conTexto = FiltroEnMemoria.desde(FiltrosBusquedaDocumento.builder()
+                .idTipoDocumento(3)
+                .excluirPalabras("derogada")
+                .idsPalabrasClave(List.of(3, 4, 5))
+                .build(), tabla);
+
+        pool = segmentos > 1 ? new ForkJoinPool(segmentos) : null;
+        evaluacion = new EvaluacionSegmentada(pool, segmentos, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Object catalogosYFechas() {
+        return evaluacion.evaluar(tabla, soloCatalogos, null, limite, true);
+    }
+
+    @Benchmark
+    public Object exclusionDePalabras() {
+        return evaluacion.evaluar(tabla, conTexto, null, limite, true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EvaluacionSegmentadaBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,141 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import dev.kosten.digesto_system.documento.dto.PaginaDocumentosDTO;
+import dev.kosten.digesto_system.documento.repository.DocumentoRepository;
+import dev.kosten.digesto_system.documento.service.CacheBusquedaService;
+import dev.kosten.digesto_system.log.LogService;
+import dev.kosten.digesto_system.registro.repository.RegistroRepository;
+import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import dev.kosten.digesto_system.tipodocumento.repository.TipoDocumentoRepository;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Orden entre el índice y la caché de búsquedas al confirmarse un cambio: la
+ * caché se invalida con el IndiceActualizadoEvent, cuando el índice ya tiene el cambio, así ninguna búsqueda
+ * guardada con la versión nueva sale del índice viejo. También, que un cambio
+ * de nombre de un tipo llegue a los documentos ya indexados.
+ * @author micael
+ */
+class IndiceDocumentosTest {
+
+    private IndiceDocumentos indice;
+    private CacheBusquedaService cache;
+    private TipoDocumentoRepository tipos;
+
+    /**
+     * Total de la búsqueda de "ordenanza" en el índice, medido en cada invalidación de la caché.
+     */
+    private final List<Integer> totalesAlInvalidar = new ArrayList<>();
+
+    @BeforeEach
+    void crearIndice() {
+        cache = new CacheBusquedaService() {
+            @Override
+            public void invalidarTodo() {
+                totalesAlInvalidar.add(buscarEnIndice());
+                super.invalidarTodo();
+            }
+        };
+        ReflectionTestUtils.setField(cache, "maxEntradas", 100);
+        tipos = mock(TipoDocumentoRepository.class);
+        indice = new IndiceDocumentos(mock(DocumentoRepository.class), mock(RegistroRepository.class),
+                tipos, mock(ContenidoArchivos.class), publicarEn(cache), mock(LogService.class));
+    }
+
+    @Test
+    void laCacheSeInvalidaConElCambioYaIndexado() {
+        indice.alModificarDocumento(modificado(1, "Ordenanza de tránsito"));
+        assertEquals(List.of(1), totalesAlInvalidar);
+    }
+
+    @Test
+    void unaBusquedaGuardadaAntesDelCambioNoSeVuelveADevolver() {
+        assertEquals(0, buscarConCache());
+        indice.alModificarDocumento(modificado(1, "Ordenanza de tránsito"));
+        assertEquals(1, buscarConCache());
+    }
+
+    @Test
+    void unaBusquedaHechaAlInvalidarSeGuardaConElCambio() {
+        // La búsqueda que entra justo con la versión nueva ya tiene que ver el documento
+        CacheBusquedaService conBusqueda = new CacheBusquedaService() {
+            @Override
+            public void invalidarTodo() {
+                super.invalidarTodo();
+                buscarConCache();
+            }
+        };
+        ReflectionTestUtils.setField(conBusqueda, "maxEntradas", 100);
+        cache = conBusqueda;
+        indice = new IndiceDocumentos(mock(DocumentoRepository.class), mock(RegistroRepository.class),
+                mock(TipoDocumentoRepository.class), mock(ContenidoArchivos.class), publicarEn(conBusqueda),
+                mock(LogService.class));
+
+        indice.alModificarDocumento(modificado(1, "Ordenanza de tránsito"));
+        assertEquals(1, buscarConCache());
+    }
+
+    @Test
+    void cambiarElNombreDeUnTipoReindexaSusDocumentos() {
+        indice.alModificarDocumento(modificado(1, "Ordenanza de tránsito"));
+        TipoDocumento tipo = new TipoDocumento();
+        tipo.setIdTipoDocumento(1);
+        tipo.setNombre("Decreto");
+        when(tipos.findAll()).thenReturn(List.of(tipo));
+
+        assertEquals("Decreto", indice.actualizarNombresDeTipos().get(1));
+        assertEquals(1, buscarEnIndice("decreto"));
+        assertEquals(0, buscarEnIndice("resolucion"));
+    }
+
+    /**
+     * Entrega los eventos del índice a la caché, como lo hace Spring con los listeners.
+     */
+    private static ApplicationEventPublisher publicarEn(CacheBusquedaService cache) {
+        return evento -> {
+            if (evento instanceof IndiceActualizadoEvent actualizado) {
+                cache.alActualizarIndice(actualizado);
+            }
+        };
+    }
+
+    private int buscarEnIndice() {
+        return buscarEnIndice("ordenanza");
+    }
+
+    private int buscarEnIndice(String termino) {
+        return indice.buscarPorRelevancia(termino, null, false, 10, Map.of(), false).getTotal();
+    }
+
+    private int buscarConCache() {
+        return cache.obtener("ordenanza", () -> PaginaDocumentosDTO.builder()
+                .numberOfElements(buscarEnIndice())
+                .build()).getNumberOfElements();
+    }
+
+    private static DocumentoModificadoEvent modificado(int id, String titulo) {
+        return new DocumentoModificadoEvent(DocumentoIndexado.builder()
+                .idDocumento(id)
+                .titulo(titulo)
+                .resumen("")
+                .numDocumento("DOC-" + id)
+                .fechaCreacion(new Date())
+                .activo(true)
+                .idTipoDocumento(1)
+                .nombreTipoDocumento("Resolución")
+                .idsPalabrasClave(new int[0])
+                .idsReferencias(new int[0])
+                .build());
+    }
+}
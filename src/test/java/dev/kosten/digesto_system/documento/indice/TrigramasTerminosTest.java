@@ -0,0 +1,60 @@
+package dev.kosten.digesto_system.documento.indice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TrigramasTerminos tiene que encontrar los mismos términos que recorrer todo el
+ * vocabulario con contains, también después de agregar y quitar términos.
+ * @author micael
+ */
+class TrigramasTerminosTest {
+
+    private List<String> vocabulario;
+    private TrigramasTerminos trigramas;
+
+    @BeforeEach
+    void crearIndice() {
+        vocabulario = new ArrayList<>(List.of("ordenanza", "ordenanzas", "orden", "desorden", "decreto",
+                "abcxbcd", "ley", "la", "a", "resolucion", "2024"));
+        trigramas = TrigramasTerminos.desde(vocabulario);
+    }
+
+    @Test
+    void encuentraLoMismoQueElRecorridoCompleto() {
+        for (String palabra : List.of("orden", "rden", "anza", "ley", "le", "a", "l", "abcd", "bcd", "202", "x", "zzz")) {
+            assertEquals(recorrido(palabra), new TreeSet<>(trigramas.queContienen(palabra)), palabra);
+        }
+    }
+
+    @Test
+    void reflejaLosTerminosAgregadosYQuitados() {
+        trigramas.quitar("orden");
+        trigramas.quitar("la");
+        trigramas.agregar("ordinal");
+        trigramas.agregar("lo");
+        vocabulario.removeAll(List.of("orden", "la"));
+        vocabulario.addAll(List.of("ordinal", "lo"));
+
+        for (String palabra : List.of("orden", "ord", "or", "l", "lo", "la", "inal")) {
+            assertEquals(recorrido(palabra), new TreeSet<>(trigramas.queContienen(palabra)), palabra);
+        }
+        assertEquals(vocabulario.size(), trigramas.tamanio());
+    }
+
+    private Set<String> recorrido(String palabra) {
+        Set<String> encontrados = new TreeSet<>();
+        for (String termino : vocabulario) {
+            if (termino.contains(palabra)) {
+                encontrados.add(termino);
+            }
+        }
+        return encontrados;
+    }
+}
@@ -0,0 +1,204 @@
+package dev.kosten.digesto_system.documento.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import dev.kosten.digesto_system.archivo.entity.Archivo;
+import dev.kosten.digesto_system.documento.dto.DocumentoTablaDTO;
+import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.documento.specification.DocumentoSpecification;
+import dev.kosten.digesto_system.estado.entity.Estado;
+import dev.kosten.digesto_system.palabraclave.entity.PalabraClave;
+import dev.kosten.digesto_system.sector.Sector;
+import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import dev.kosten.digesto_system.unidadEjecutora.UnidadEjecutora;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Cuenta las sentencias SQL de cada camino del listado de documentos: la proyección
+ * por constructor de DocumentoTablaRepository trae tipo y estado en el mismo SELECT,
+ * así que cada página cuesta la consulta y, si hace falta, el COUNT (sin N+1).
+ * También verifica que el detalle de un documento se arme en tres consultas y que
+ * los dos tramos del cursor (con fecha y sin fecha) recorran todos los documentos.
+ * Lo que reserva en memoria cada camino se mide en ListadoDocumentosBenchmark.
+ * @author micael
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:digesto;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DocumentoRepositoryConsultasTest {
+
+    private static final int DOCUMENTOS = 30;
+    private static final Pageable PAGINA = PageRequest.of(0, 12, Sort.by(Sort.Order.desc("idDocumento")));
+
+    @Autowired
+    private DocumentoRepository documentoRepo;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void cargarDocumentos() {
+        Sector sector = em.persist(Sector.builder().nombre("Sector").nomenclatura("S").build());
+        UnidadEjecutora unidad = em.persist(UnidadEjecutora.builder().nombre("Unidad").nomenclatura("U").build());
+        // Varios tipos y estados: con carga LAZY cada uno distinto sería una consulta más
+        List<TipoDocumento> tipos = new ArrayList<>();
+        List<Estado> estados = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            TipoDocumento tipo = new TipoDocumento();
+            tipo.setNombre("Tipo " + i);
+            tipo.setNomenclatura("T" + i);
+            tipos.add(em.persist(tipo));
+            estados.add(em.persist(Estado.builder().nombre("Estado " + i).build()));
+        }
+        for (int i = 0; i < DOCUMENTOS; i++) {
+            Documento documento = Documento.builder()
+                    .titulo("Documento " + i)
+                    .numDocumento("DOC-" + i)
+                    .fechaCreacion(new Date())
+                    .tipoDocumento(tipos.get(i % tipos.size()))
+                    .estado(estados.get((i / 2) % estados.size()))
+                    .sector(sector)
+                    .unidadEjecutora(unidad)
+                    .build();
+            documento.normalizarCamposDeBusqueda();
+            em.persist(documento);
+        }
+        em.flush();
+        // Contexto vacío: las relaciones LAZY de las filas se tendrían que buscar en la base
+        em.clear();
+        estadisticas = emf.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void proyeccionUsaSelectYCount() {
+        assertEquals(2, sentencias(() -> documentoRepo.findTabla(
+                DocumentoSpecification.conTituloQueContiene("documento"), PAGINA)));
+    }
+
+    @Test
+    void proyeccionSinTotalUsaUnaConsulta() {
+        assertEquals(1, sentencias(() -> documentoRepo.findTablaSinTotal(
+                DocumentoSpecification.conTituloQueContiene("documento"), PAGINA)));
+    }
+
+    @Test
+    void proyeccionPorIdsUsaUnaConsulta() {
+        List<Integer> ids = documentoRepo.findAll().stream().map(Documento::getIdDocumento).limit(12).toList();
+        em.clear();
+        estadisticas.clear();
+        List<DocumentoTablaDTO> filas = documentoRepo.findTablaByIds(ids);
+        assertEquals(12, filas.size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void proyeccionDevuelveLoMismoQueLasEntidades() {
+        Specification<Documento> spec = DocumentoSpecification.conTituloQueContiene("documento");
+        List<Documento> entidades = documentoRepo.findAll(spec, PAGINA).getContent();
+        List<DocumentoTablaDTO> filas = documentoRepo.findTabla(spec, PAGINA).getContent();
+        assertEquals(entidades.size(), filas.size());
+        for (int i = 0; i < filas.size(); i++) {
+            assertEquals(entidades.get(i).getIdDocumento(), filas.get(i).getIdDocumento());
+            assertEquals(entidades.get(i).getTipoDocumento().getNombre(), filas.get(i).getTipoDocumento().getNombre());
+            assertEquals(entidades.get(i).getEstado().getNombre(), filas.get(i).getEstado().getNombre());
+        }
+    }
+
+    @Test
+    void detalleUsaTresConsultas() {
+        List<Documento> documentos = documentoRepo.findAll(Sort.by("idDocumento"));
+        Documento documento = documentos.get(0);
+        for (int i = 0; i < 3; i++) {
+            PalabraClave palabra = new PalabraClave();
+            palabra.setNombre("Palabra " + i);
+            documento.getPalabrasClave().add(em.persist(palabra));
+            em.persist(Archivo.builder().nombre("Anexo " + i).url("/archivos/" + i).documento(documento).build());
+        }
+        documento.getReferencias().add(documentos.get(1));
+        documento.getReferencias().add(documentos.get(2));
+        documentos.get(3).getReferencias().add(documento);
+        em.flush();
+        em.clear();
+        estadisticas.clear();
+
+        Integer id = documento.getIdDocumento();
+        Documento detalle = documentoRepo.findDetalleById(id).orElseThrow();
+        documentoRepo.findConPalabrasClaveById(id);
+        List<ReferenciaDetalleProyeccion> referencias = documentoRepo.findReferenciasDeDetalle(id);
+        // Todo lo que lee DocumentoMapper.toDTO, salvo las referencias (que vienen de la proyección)
+        detalle.getTipoDocumento().getNombre();
+        detalle.getEstado().getNombre();
+        detalle.getSector().getNombre();
+        detalle.getUnidadEjecutora().getNombre();
+        detalle.getArchivos().forEach(Archivo::getNombre);
+        detalle.getPalabrasClave().forEach(PalabraClave::getNombre);
+
+        assertEquals(3, detalle.getArchivos().size());
+        assertEquals(3, detalle.getPalabrasClave().size());
+        assertEquals(2, referencias.stream().filter(fila -> fila.getSaliente() == 1).count());
+        assertEquals(1, referencias.stream().filter(fila -> fila.getSaliente() == 0).count());
+        assertEquals(3, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void cursorRecorreLosDocumentosSinFechaAlFinal() {
+        List<Documento> documentos = documentoRepo.findAll(Sort.by("idDocumento"));
+        for (int i = 0; i < documentos.size(); i += 3) {
+            documentos.get(i).setFechaCreacion(null);
+        }
+        em.flush();
+        em.clear();
+
+        // Como DocumentoService.buscarConCursor: primero el tramo con fecha y después el sin fecha
+        Sort porFecha = Sort.by(Sort.Order.desc("fechaCreacion"), Sort.Order.desc("idDocumento"));
+        Sort porId = Sort.by(Sort.Order.desc("idDocumento"));
+        List<Integer> recorridos = new ArrayList<>();
+        List<DocumentoTablaDTO> porcion = documentoRepo.findTabla(DocumentoSpecification.conFecha(), porFecha, 7);
+        while (!porcion.isEmpty()) {
+            porcion.forEach(fila -> recorridos.add(fila.getIdDocumento()));
+            DocumentoTablaDTO ultima = porcion.get(porcion.size() - 1);
+            porcion = documentoRepo.findTabla(
+                    DocumentoSpecification.despuesDe(ultima.getFechaCreacion(), ultima.getIdDocumento()), porFecha, 7);
+        }
+        int conFecha = recorridos.size();
+        porcion = documentoRepo.findTabla(DocumentoSpecification.sinFechaDespuesDe(null), porId, 7);
+        while (!porcion.isEmpty()) {
+            porcion.forEach(fila -> recorridos.add(fila.getIdDocumento()));
+            porcion = documentoRepo.findTabla(DocumentoSpecification.sinFechaDespuesDe(
+                    porcion.get(porcion.size() - 1).getIdDocumento()), porId, 7);
+        }
+
+        assertEquals(DOCUMENTOS - DOCUMENTOS / 3, conFecha);
+        assertEquals(DOCUMENTOS, recorridos.size());
+        assertEquals(DOCUMENTOS, recorridos.stream().distinct().count());
+    }
+
+    private long sentencias(Runnable consulta) {
+        consulta.run();
+        return estadisticas.getPrepareStatementCount();
+    }
+}
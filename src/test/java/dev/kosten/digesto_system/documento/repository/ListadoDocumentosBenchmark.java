@@ -0,0 +1,172 @@
+package dev.kosten.digesto_system.documento.repository;
+
+import dev.kosten.digesto_system.DigestoSystemApplication;
+import dev.kosten.digesto_system.documento.entity.Documento;
+import dev.kosten.digesto_system.documento.specification.DocumentoSpecification;
+import dev.kosten.digesto_system.estado.entity.Estado;
+import dev.kosten.digesto_system.sector.Sector;
+import dev.kosten.digesto_system.tipodocumento.entity.TipoDocumento;
+import dev.kosten.digesto_system.unidadEjecutora.UnidadEjecutora;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compara lo que reserva una página del listado de documentos armada con
+ * entidades (tipo y estado en el mismo SELECT con un grafo de carga, como antes
+ * de DocumentoTablaRepository) contra la proyección por constructor de findTabla.
+ * Cada operación es un pedido nuevo: su propia transacción de solo lectura y su
+ * propio contexto de persistencia. La medida que importa es gc.alloc.rate.norm
+ * (bytes por operación) del GCProfiler, que el main ya agrega.
+ * Levanta la aplicación completa sobre H2 en memoria (la configuración de
+ * seguridad necesita el contexto web), con el servidor en un puerto libre.
+ * No es un test (surefire no lo ejecuta): se corre con su main, con el classpath de test.
+ * @author micael
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class ListadoDocumentosBenchmark {
+
+    @Param({"1000"})
+    public int documentos;
+
+    @Param({"12", "50"})
+    public int tamanioPagina;
+
+    private ConfigurableApplicationContext contexto;
+    private DocumentoRepository documentoRepo;
+    private TransactionTemplate transaccion;
+    private Specification<Documento> spec;
+    private Pageable pagina;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        // Como argumentos de línea de comandos: pisan a application.properties
+        contexto = new SpringApplicationBuilder(DigestoSystemApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:digesto;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.file.name=",
+                        "--logging.level.root=WARN",
+                        "--logging.level.dev.kosten.digesto_system=WARN",
+                        "--storage.location=" + Files.createTempDirectory("digesto-benchmark"),
+                        "--digesto.indice.instantanea.habilitada=false",
+                        "--digesto.contenido.habilitado=false",
+                        "--digesto.normalizacion.relleno-al-iniciar=false");
+        documentoRepo = contexto.getBean(DocumentoRepository.class);
+        transaccion = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        transaccion.setReadOnly(true);
+        spec = DocumentoSpecification.conTituloQueContiene("documento");
+        pagina = PageRequest.of(0, tamanioPagina, Sort.by(Sort.Order.desc("idDocumento")));
+        cargarDocumentos(contexto.getBean(EntityManagerFactory.class));
+    }
+
+    private void cargarDocumentos(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            Sector sector = Sector.builder().nombre("Sector").nomenclatura("S").build();
+            em.persist(sector);
+            UnidadEjecutora unidad = UnidadEjecutora.builder().nombre("Unidad").nomenclatura("U").build();
+            em.persist(unidad);
+            List<TipoDocumento> tipos = new ArrayList<>();
+            List<Estado> estados = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                TipoDocumento tipo = new TipoDocumento();
+                tipo.setNombre("Tipo " + i);
+                tipo.setNomenclatura("T" + i);
+                em.persist(tipo);
+                tipos.add(tipo);
+                Estado estado = Estado.builder().nombre("Estado " + i).build();
+                em.persist(estado);
+                estados.add(estado);
+            }
+            for (int i = 0; i < documentos; i++) {
+                Documento documento = Documento.builder()
+                        .titulo("Documento " + i)
+                        .numDocumento("DOC-" + i)
+                        .resumen("Resumen del documento " + i)
+                        .fechaCreacion(new Date())
+                        .activo(true)
+                        .tipoDocumento(tipos.get(i % tipos.size()))
+                        .estado(estados.get((i / 2) % estados.size()))
+                        .sector(sector)
+                        .unidadEjecutora(unidad)
+                        .build();
+                documento.normalizarCamposDeBusqueda();
+                em.persist(documento);
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Object conEntidades() {
+        return transaccion.execute(estado -> {
+            List<String> nombres = new ArrayList<>();
+            for (Documento documento : documentoRepo.findBy(spec,
+                    consulta -> consulta.project("tipoDocumento", "estado").page(pagina))) {
+                nombres.add(documento.getTipoDocumento().getNombre());
+                nombres.add(documento.getEstado().getNombre());
+            }
+            return nombres;
+        });
+    }
+
+    @Benchmark
+    public Object conProyeccion() {
+        return transaccion.execute(estado -> documentoRepo.findTabla(spec, pagina));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ListadoDocumentosBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
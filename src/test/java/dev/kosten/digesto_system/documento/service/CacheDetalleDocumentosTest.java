@@ -0,0 +1,126 @@
+package dev.kosten.digesto_system.documento.service;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import dev.kosten.digesto_system.archivo.service.ArchivoModificadoEvent;
+import dev.kosten.digesto_system.documento.dto.DocumentoDTO;
+import dev.kosten.digesto_system.documento.dto.DocumentoReferenciaDTO;
+import dev.kosten.digesto_system.documento.indice.DocumentoIndexado;
+import dev.kosten.digesto_system.documento.indice.DocumentoModificadoEvent;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Qué detalles descarta CacheDetalleDocumentos con cada cambio: nunca tiene que
+ * quedar guardado un detalle con referencias viejas.
+ * @author micael
+ */
+class CacheDetalleDocumentosTest {
+
+    private CacheDetalleDocumentos cache;
+
+    @BeforeEach
+    void crearCache() {
+        cache = new CacheDetalleDocumentos();
+        ReflectionTestUtils.setField(cache, "maxEntradas", 100);
+    }
+
+    @Test
+    void devuelveElDetalleGuardado() {
+        DocumentoDTO detalle = detalle(1, List.of(), List.of());
+        assertSame(detalle, cache.obtener(1, () -> detalle));
+        assertSame(detalle, cache.obtener(1, () -> detalle(1, List.of(), List.of())));
+    }
+
+    @Test
+    void modificarUnDocumentoDescartaSuDetalle() {
+        guardar(detalle(1, List.of(), List.of()));
+        cache.alModificarDocumento(modificado(1));
+        assertRecargado(1);
+    }
+
+    @Test
+    void unaReferenciaNuevaDescartaAlReferenciado() {
+        // 2 todavía no sabe que 1 lo referencia
+        guardar(detalle(2, List.of(), List.of()));
+        cache.alModificarDocumento(modificado(1, 2));
+        assertRecargado(2);
+    }
+
+    @Test
+    void quitarUnaReferenciaDescartaAlQueLaMostraba() {
+        // 3 muestra a 1 en referenciadoPor; 1 deja de referenciarlo
+        guardar(detalle(3, List.of(), List.of(1)));
+        cache.alModificarDocumento(modificado(1));
+        assertRecargado(3);
+    }
+
+    @Test
+    void cambiarUnDocumentoDescartaAlQueLoReferencia() {
+        // 4 muestra el número y el estado activo de 1 en sus referencias
+        guardar(detalle(4, List.of(1), List.of()));
+        cache.alModificarDocumento(modificado(1));
+        assertRecargado(4);
+    }
+
+    @Test
+    void losDetallesNoAfectadosSeConservan() {
+        DocumentoDTO otro = guardar(detalle(5, List.of(6), List.of(7)));
+        cache.alModificarDocumento(modificado(1, 2));
+        assertSame(otro, cache.obtener(5, () -> detalle(5, List.of(), List.of())));
+    }
+
+    @Test
+    void cambiarUnArchivoDescartaSuDocumento() {
+        guardar(detalle(8, List.of(), List.of()));
+        cache.alModificarArchivo(new ArchivoModificadoEvent(1, 8, "documentos/000/000/008/a.pdf", false));
+        assertRecargado(8);
+    }
+
+    @Test
+    void noGuardaUnDetalleArmadoDuranteUnaInvalidacion() {
+        cache.obtener(9, () -> {
+            DocumentoDTO leido = detalle(9, List.of(), List.of());
+            cache.alModificarDocumento(modificado(9));
+            return leido;
+        });
+        assertRecargado(9);
+    }
+
+    private DocumentoDTO guardar(DocumentoDTO detalle) {
+        return cache.obtener(detalle.getIdDocumento(), () -> detalle);
+    }
+
+    /**
+     * Si el detalle siguiera guardado, obtener devolvería el viejo en lugar de armar uno nuevo.
+     */
+    private void assertRecargado(int id) {
+        DocumentoDTO nuevo = detalle(id, List.of(), List.of());
+        assertSame(nuevo, cache.obtener(id, () -> nuevo));
+    }
+
+    private static DocumentoModificadoEvent modificado(int id, int... idsReferencias) {
+        return new DocumentoModificadoEvent(DocumentoIndexado.builder()
+                .idDocumento(id)
+                .idsReferencias(idsReferencias)
+                .build());
+    }
+
+    private static DocumentoDTO detalle(int id, List<Integer> referencias, List<Integer> referenciadoPor) {
+        return DocumentoDTO.builder()
+                .idDocumento(id)
+                .numDocumento("DOC-" + id)
+                .referencias(referencias(referencias))
+                .referenciadoPor(referencias(referenciadoPor))
+                .build();
+    }
+
+    private static List<DocumentoReferenciaDTO> referencias(List<Integer> ids) {
+        return ids.stream()
+                .map(id -> DocumentoReferenciaDTO.builder().idDocumento(id).numDocumento("DOC-" + id).build())
+                .collect(Collectors.toList());
+    }
+}
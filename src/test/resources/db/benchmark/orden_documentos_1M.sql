@@ -0,0 +1,88 @@
+-- ---------------------------------------------------
+-- Benchmark de los órdenes del listado con 1.000.000 de documentos
+-- (MySQL 8.0.18+ por EXPLAIN ANALYZE)
+-- ---------------------------------------------------
+-- Uso, sobre una base de pruebas con las migraciones 001-004 aplicadas:
+--   mysql -u root digesto_bench < orden_documentos_1M.sql
+--
+-- Copia la estructura de documento (con todos sus índices) en documento_bench,
+-- la llena con 1M de filas sintéticas y mide cada orden de CampoOrden como lo
+-- ejecuta Hibernate (ORDER BY ... , idDocumento LIMIT 6). En cada EXPLAIN
+-- ANALYZE hay que ver "Index scan" sobre el índice esperado y ningún "Sort";
+-- la sección final repite las consultas ignorando los índices nuevos para
+-- comparar contra el filesort que había antes de 004.
+
+SET SESSION cte_max_recursion_depth = 1000000;
+
+DROP TABLE IF EXISTS documento_bench;
+CREATE TABLE documento_bench LIKE documento;
+
+-- Sin claves foráneas (CREATE TABLE ... LIKE no las copia): 12 tipos, 4 estados,
+-- 30 sectores y 10 unidades ejecutoras; 80 % activos; fechas en los últimos 10 años.
+INSERT INTO documento_bench (idDocumento, titulo, resumen, fechaCreacion, numDocumento,
+                             tituloNormalizado, resumenNormalizado, numDocumentoNormalizado, activo,
+                             tipoDocumento_idTipoDocumento, estado_idestado, sector_idSector,
+                             unidadEjecutora_idUnidadEjecutora)
+WITH RECURSIVE n (i) AS (
+    SELECT 1
+    UNION ALL
+    SELECT i + 1 FROM n WHERE i < 1000000
+)
+SELECT i,
+       CONCAT('Documento de prueba ', i),
+       CONCAT('Resumen sintético del documento ', i),
+       TIMESTAMPADD(MINUTE, -FLOOR(RAND(i) * 5256000), NOW()),
+       CONCAT(LPAD(i, 7, '0'), '/', 2015 + i % 10),
+       CONCAT('documento de prueba ', i),
+       CONCAT('resumen sintetico del documento ', i),
+       CONCAT(LPAD(i, 7, '0'), '/', 2015 + i % 10),
+       i % 5 <> 0,
+       1 + i % 12,
+       1 + i % 4,
+       1 + i % 30,
+       1 + i % 10
+FROM n;
+
+ANALYZE TABLE documento_bench;
+
+-- --- Con los índices de 004 ---
+
+-- -fecha (por defecto)
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench
+ORDER BY fechaCreacion DESC, idDocumento DESC LIMIT 6;
+
+-- numero / titulo
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench
+ORDER BY numDocumento ASC, idDocumento ASC LIMIT 6;
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench
+ORDER BY titulo DESC, idDocumento DESC LIMIT 6;
+
+-- tipo (y luego fecha) / estado,fecha
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench
+ORDER BY tipoDocumento_idTipoDocumento ASC, fechaCreacion ASC, idDocumento ASC LIMIT 6;
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench
+ORDER BY estado_idestado DESC, fechaCreacion DESC, idDocumento DESC LIMIT 6;
+
+-- Listado público (soloActivos = true), página 100
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench WHERE activo = TRUE
+ORDER BY numDocumento ASC, idDocumento ASC LIMIT 594, 6;
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench WHERE activo = TRUE
+ORDER BY tipoDocumento_idTipoDocumento DESC, fechaCreacion DESC, idDocumento DESC LIMIT 594, 6;
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench WHERE activo = TRUE
+ORDER BY estado_idestado ASC, fechaCreacion ASC, idDocumento ASC LIMIT 594, 6;
+
+-- --- Referencia: los mismos órdenes sin los índices de 004 (filesort) ---
+
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench
+    IGNORE INDEX (idx_documento_tipo_fecha_id, idx_documento_activo_tipo_fecha_id)
+ORDER BY tipoDocumento_idTipoDocumento ASC, fechaCreacion ASC, idDocumento ASC LIMIT 6;
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench
+    IGNORE INDEX (idx_documento_activo_num)
+WHERE activo = TRUE
+ORDER BY numDocumento ASC, idDocumento ASC LIMIT 594, 6;
+EXPLAIN ANALYZE SELECT idDocumento FROM documento_bench
+    IGNORE INDEX (idx_documento_activo_estado_fecha_id)
+WHERE activo = TRUE
+ORDER BY estado_idestado ASC, fechaCreacion ASC, idDocumento ASC LIMIT 594, 6;
+
+DROP TABLE documento_bench;